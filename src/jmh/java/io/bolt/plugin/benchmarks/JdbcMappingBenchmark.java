@@ -0,0 +1,120 @@
+package io.bolt.plugin.benchmarks;
+
+import io.bolt.plugin.api.PluginConfig;
+import io.bolt.plugin.api.PluginContext;
+import io.bolt.plugin.api.PluginResult;
+import io.bolt.plugin.examples.DatabasePlugin;
+import io.bolt.plugin.examples.jdbc.QueryOptions;
+import io.bolt.plugin.examples.jdbc.QueryPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DatabasePlugin 行映射的开销
+ * 使用 H2 内存数据库，表中有整数、字符串、小数、时间戳和可空列。
+ * mapRows 只测 {@link QueryPage#read} 把 ResultSet 转成行的循环，query 测完整的 query 动作（取连接、执行、映射、组装结果）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JdbcMappingBenchmark {
+
+    private static final String JDBC_URL = "jdbc:h2:mem:jmh-mapping;DB_CLOSE_DELAY=-1";
+    private static final String SQL = "SELECT id, name, price, created_at, note FROM items WHERE id <= ? ORDER BY id";
+
+    @Param({"10", "1000"})
+    public int rows;
+
+    private Connection connection;
+    private PreparedStatement statement;
+    private QueryOptions options;
+    private DatabasePlugin plugin;
+    private PluginContext context;
+    private Map<String, Object> queryParams;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(JDBC_URL, "sa", "");
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS items");
+            stmt.execute("CREATE TABLE items (id BIGINT PRIMARY KEY, name VARCHAR(64), price DECIMAL(10, 2), "
+                    + "created_at TIMESTAMP, note VARCHAR(255))");
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO items VALUES (?, ?, ?, CURRENT_TIMESTAMP, ?)")) {
+            for (int i = 1; i <= 1000; i++) {
+                insert.setLong(1, i);
+                insert.setString(2, "item-" + i);
+                insert.setBigDecimal(3, java.math.BigDecimal.valueOf(i * 25, 2));
+                insert.setString(4, i % 3 == 0 ? null : "note " + i);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        statement = connection.prepareStatement(SQL);
+        statement.setInt(1, rows);
+        options = QueryOptions.defaults(1000, 100000, 64L * 1024 * 1024);
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("jdbcUrl", JDBC_URL);
+        properties.put("username", "sa");
+        properties.put("password", "");
+        plugin = new DatabasePlugin();
+        plugin.initialize(PluginConfig.builder()
+                .pluginId("database-plugin")
+                .version("1.0.0")
+                .instanceId("db-benchmark-001")
+                .instanceName("Database Benchmark")
+                .properties(properties)
+                .build(), PluginContext.create());
+        context = PluginContext.create();
+        queryParams = Map.of("sql", SQL, "params", List.of(rows));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        plugin.destroy();
+        statement.close();
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TABLE items");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public QueryPage mapRows() throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            return QueryPage.read(rs, options, SQL);
+        }
+    }
+
+    @Benchmark
+    public PluginResult query() {
+        return plugin.execute("query", queryParams, context);
+    }
+}
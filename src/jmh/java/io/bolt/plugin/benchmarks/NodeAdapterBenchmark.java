@@ -0,0 +1,146 @@
+package io.bolt.plugin.benchmarks;
+
+import io.bolt.plugin.api.PluginConfig;
+import io.bolt.plugin.api.PluginContext;
+import io.bolt.plugin.api.node.NodeContext;
+import io.bolt.plugin.api.node.NodeExecutor;
+import io.bolt.plugin.api.node.NodeResult;
+import io.bolt.plugin.api.node.adapter.ActionToNodeAdapter;
+import io.bolt.plugin.examples.EchoPlugin;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ActionToNodeAdapter 的开销
+ * 分别测量按节点 ID 取执行器、在已有执行器上执行，以及每次都先取执行器再执行（宿主不缓存执行器时的路径），
+ * 与直接调用 execute 对比即为适配层本身的成本
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NodeAdapterBenchmark {
+
+    private static final String NODE_ID = "echo-plugin.echo";
+
+    private EchoPlugin plugin;
+    private ActionToNodeAdapter adapter;
+    private NodeExecutor executor;
+    private NodeContext context;
+    private Map<String, Object> input;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        plugin = new EchoPlugin();
+        plugin.initialize(PluginConfig.builder()
+                .pluginId("echo-plugin")
+                .version("1.0.0")
+                .instanceId("echo-benchmark-001")
+                .instanceName("Echo Benchmark")
+                .properties(Map.of())
+                .build(), PluginContext.create());
+        adapter = new ActionToNodeAdapter(plugin);
+        adapter.addActionNode("echo", "回显", "回显输入内容", Map.of("type", "object"));
+        executor = adapter.getNodeExecutor(NODE_ID);
+        context = new BenchmarkNodeContext();
+        input = Map.of("message", "hello", "name", "bench");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        plugin.destroy();
+    }
+
+    @Benchmark
+    public NodeExecutor getNodeExecutor() {
+        return adapter.getNodeExecutor(NODE_ID);
+    }
+
+    @Benchmark
+    public NodeResult doExecute() throws Exception {
+        return executor.doExecute(context, input);
+    }
+
+    @Benchmark
+    public NodeResult lookupAndExecute() throws Exception {
+        return adapter.getNodeExecutor(NODE_ID).doExecute(context, input);
+    }
+
+    @Benchmark
+    public Object directExecute() {
+        return plugin.execute("echo", input, PluginContext.forWorkflowNode("echo-benchmark-001", NODE_ID));
+    }
+
+    /**
+     * 固定的节点上下文，不计时也不会被取消
+     */
+    private static final class BenchmarkNodeContext implements NodeContext {
+
+        private final Map<String, Object> variables = new HashMap<>();
+
+        @Override
+        public String getInstanceId() {
+            return "echo-benchmark-001";
+        }
+
+        @Override
+        public String getNodeId() {
+            return NODE_ID;
+        }
+
+        @Override
+        public String getExecutionId() {
+            return null;
+        }
+
+        @Override
+        public Map<String, Object> getVariables() {
+            return variables;
+        }
+
+        @Override
+        public void setVariable(String name, Object value) {
+            variables.put(name, value);
+        }
+
+        @Override
+        public Object getVariable(String name) {
+            return variables.get(name);
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public long getTimeoutMs() {
+            return 30000;
+        }
+
+        @Override
+        public long getElapsedTimeMs() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package io.bolt.plugin.benchmarks;
+
+import io.bolt.plugin.api.PluginConfig;
+import io.bolt.plugin.api.PluginContext;
+import io.bolt.plugin.api.PluginResult;
+import io.bolt.plugin.examples.EchoPlugin;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AbstractPlugin.execute 的分发开销
+ * 以 EchoPlugin 为例：最简单的 ping、带参数的 echo、需要格式化的 time，以及未知动作的失败路径
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PluginDispatchBenchmark {
+
+    private EchoPlugin plugin;
+    private PluginContext context;
+    private Map<String, Object> echoParams;
+    private Map<String, Object> timeParams;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        plugin = new EchoPlugin();
+        plugin.initialize(PluginConfig.builder()
+                .pluginId("echo-plugin")
+                .version("1.0.0")
+                .instanceId("echo-benchmark-001")
+                .instanceName("Echo Benchmark")
+                .properties(Map.of("greetingPrefix", "Hi"))
+                .build(), PluginContext.create());
+        context = PluginContext.create();
+        echoParams = Map.of("message", "hello", "name", "bench");
+        timeParams = Map.of("format", "yyyy-MM-dd HH:mm:ss");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        plugin.destroy();
+    }
+
+    @Benchmark
+    public PluginResult ping() {
+        return plugin.execute("ping", Map.of(), context);
+    }
+
+    @Benchmark
+    public PluginResult echo() {
+        return plugin.execute("echo", echoParams, context);
+    }
+
+    @Benchmark
+    public PluginResult time() {
+        return plugin.execute("time", timeParams, context);
+    }
+
+    @Benchmark
+    public PluginResult unknownAction() {
+        return plugin.execute("missing", Map.of(), context);
+    }
+
+    @Benchmark
+    public PluginResult echoWithNewContext() {
+        // 每次调用都创建上下文，对应宿主逐次构造 PluginContext 的情况
+        return plugin.execute("echo", echoParams, PluginContext.create());
+    }
+}
@@ -0,0 +1,100 @@
+package io.bolt.plugin.benchmarks;
+
+import io.bolt.plugin.api.PluginResult;
+import io.bolt.plugin.util.BinaryWriter;
+import io.bolt.plugin.util.Json;
+import io.bolt.plugin.util.PluginResultCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 插件结果的传输编码：JSON 与二进制格式的编码、解码对比
+ * 数据仿照 query 动作的结果，每行为 HashMap，包含整数、小数、字符串、时间和空值
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResultCodecBenchmark {
+
+    @Param({"10", "1000"})
+    private int rows;
+
+    private PluginResult result;
+    private String json;
+    private byte[] binary;
+    private final BinaryWriter writer = new BinaryWriter();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Map<String, Object>> list = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("ID", (long) i);
+            row.put("NAME", "item-" + i);
+            row.put("DESCRIPTION", "商品描述 \"" + i + "\"，包含需要转义的字符\n");
+            row.put("PRICE", new BigDecimal("19.99").add(BigDecimal.valueOf(i)));
+            row.put("QUANTITY", i % 100);
+            row.put("CREATED_AT", new Timestamp(1_700_000_000_000L + i * 1000L));
+            row.put("DELETED_AT", null);
+            list.add(row);
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("rows", list);
+        data.put("rowCount", rows);
+        result = PluginResult.success(data);
+        json = PluginResultCodec.toJson(result);
+        binary = PluginResultCodec.encode(result);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() {
+        // 宿主最终按 UTF-8 传给脚本引擎，计入转换字节的开销
+        return PluginResultCodec.toJson(result).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return PluginResultCodec.encode(result);
+    }
+
+    @Benchmark
+    public int encodeBinaryReusedWriter() {
+        // 调用方持有缓冲区，直接从中发送，不复制
+        writer.reset();
+        PluginResultCodec.encode(result, writer);
+        return writer.size();
+    }
+
+    @Benchmark
+    public Object decodeJson() throws IOException {
+        return Json.parse(json);
+    }
+
+    @Benchmark
+    public PluginResult decodeBinary() throws IOException {
+        return PluginResultCodec.decode(binary);
+    }
+}
@@ -2,11 +2,16 @@ package io.bolt.plugin;
 
 import io.bolt.plugin.api.*;
 import io.bolt.plugin.api.*;
+import io.bolt.plugin.api.node.NodeContext;
+import io.bolt.plugin.api.node.NodeExecutor;
+import io.bolt.plugin.api.node.NodeResult;
+import io.bolt.plugin.journal.ExecutionJournal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -15,6 +20,11 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public abstract class AbstractPlugin implements Plugin {
 
+    /**
+     * 结果 metadata 中的估算字节数，由插件在生成结果时顺带算出，执行日志和统计直接取用
+     */
+    protected static final String RESULT_BYTES = "resultBytes";
+
     protected final Logger logger = LoggerFactory.getLogger(getClass());
 
     protected PluginConfig config;
@@ -24,6 +34,9 @@ public abstract class AbstractPlugin implements Plugin {
     // 支持的动作注册表
     private final Map<String, ActionHandler> actionHandlers = new ConcurrentHashMap<>();
 
+    // 执行日志，配置 journalEnabled 时开启
+    private volatile ExecutionJournal journal;
+
     @Override
     public String getPluginName() {
         return getPluginId();
@@ -51,6 +64,8 @@ public abstract class AbstractPlugin implements Plugin {
             // 注册动作处理器
             registerActions();
 
+            this.journal = ExecutionJournal.open(config.getInstanceId(), config.getProperties());
+
             this.initialized = true;
             logger.info("插件 [{}] v{} 初始化成功", getPluginId(), getVersion());
         } catch (Exception e) {
@@ -72,15 +87,78 @@ public abstract class AbstractPlugin implements Plugin {
         }
 
         long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        PluginResult result = null;
         try {
             logger.debug("执行动作 [{}] 参数: {}", action, params);
-            PluginResult result = handler.execute(params, context);
+            result = handler.execute(params, context);
             result.setExecutionTimeMs(System.currentTimeMillis() - startTime);
             return result;
         } catch (Exception e) {
             logger.error("动作 [{}] 执行失败: {}", action, e.getMessage());
-            return PluginResult.failure("EXECUTION_FAILED", e.getMessage());
+            result = PluginResult.failure("EXECUTION_FAILED", e.getMessage());
+            return result;
+        } finally {
+            if (result == null) {
+                journal(action, params, context, startTime, startNanos, false, "EXECUTION_FAILED", 0);
+            } else {
+                journal(action, params, context, startTime, startNanos, result.isSuccess(), result.getErrorCode(),
+                        resultBytes(result.getMetadata(), result.getData()));
+            }
+        }
+    }
+
+    /**
+     * 异步动作完成时写入执行日志，记录内容与同步 execute 相同；耗时从 startNanos 算到 future 完成
+     */
+    protected CompletableFuture<PluginResult> journaled(String action, Map<String, Object> params,
+                                                        PluginContext context, long startTime, long startNanos,
+                                                        CompletableFuture<PluginResult> future) {
+        if (journal == null) {
+            return future;
+        }
+        return future.whenComplete((result, e) -> {
+            if (result == null) {
+                journal(action, params, context, startTime, startNanos, false, "EXECUTION_FAILED", 0);
+            } else {
+                journal(action, params, context, startTime, startNanos, result.isSuccess(), result.getErrorCode(),
+                        resultBytes(result.getMetadata(), result.getData()));
+            }
+        });
+    }
+
+    /**
+     * 给节点执行器加上执行日志：同步 execute 和 executeAsync 都在结果产生时记录。
+     * 节点按对应的动作名记录，回放时以动作调用；未开启执行日志时原样返回
+     */
+    protected NodeExecutor journaledNode(NodeExecutor executor, String action) {
+        if (journal == null || executor == null) {
+            return executor;
         }
+        return new JournaledNodeExecutor(executor, action);
+    }
+
+    private void journal(String action, Map<String, Object> params, PluginContext context, long startTime,
+                         long startNanos, boolean success, String errorCode, long resultBytes) {
+        ExecutionJournal current = journal;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.record(action, params, context, startTime, System.nanoTime() - startNanos, success, errorCode,
+                    resultBytes);
+        } catch (RuntimeException e) {
+            logger.warn("写入执行日志失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 结果字节数，供执行日志使用：默认取 metadata 中的 {@value #RESULT_BYTES}，没有时为 0。
+     * 每次调用都会执行，子类只应读取已经算好的数值，不要遍历结果
+     */
+    protected long resultBytes(Map<String, Object> metadata, Object data) {
+        Object bytes = metadata != null ? metadata.get(RESULT_BYTES) : null;
+        return bytes instanceof Number ? ((Number) bytes).longValue() : 0;
     }
 
     @Override
@@ -88,6 +166,10 @@ public abstract class AbstractPlugin implements Plugin {
         try {
             doDestroy();
             actionHandlers.clear();
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
             initialized = false;
             logger.info("插件 [{}] 已销毁", getPluginId());
         } catch (Exception e) {
@@ -101,6 +183,23 @@ public abstract class AbstractPlugin implements Plugin {
         return actions.toArray(new String[0]);
     }
 
+    /**
+     * 执行日志；未开启时为 null
+     */
+    protected ExecutionJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * 一次执行的标识：优先 executionId，其次工作流实例 ID；用于按执行归集统计和 read-your-writes
+     */
+    protected static String executionKey(PluginContext context) {
+        if (context == null) {
+            return null;
+        }
+        return context.getExecutionId() != null ? context.getExecutionId() : context.getWorkflowInstanceId();
+    }
+
     /**
      * 子类实现：初始化逻辑
      */
@@ -160,4 +259,92 @@ public abstract class AbstractPlugin implements Plugin {
     public interface ActionHandler {
         PluginResult execute(Map<String, Object> params, PluginContext context);
     }
+
+    /**
+     * 记录执行日志的节点执行器，其余行为交给原执行器
+     */
+    private final class JournaledNodeExecutor implements NodeExecutor {
+        private final NodeExecutor delegate;
+        private final String action;
+
+        private JournaledNodeExecutor(NodeExecutor delegate, String action) {
+            this.delegate = delegate;
+            this.action = action;
+        }
+
+        @Override
+        public String getNodeId() {
+            return delegate.getNodeId();
+        }
+
+        @Override
+        public NodeResult execute(NodeContext context, Map<String, Object> input) {
+            long startTime = System.currentTimeMillis();
+            long startNanos = System.nanoTime();
+            NodeResult result = null;
+            try {
+                result = delegate.execute(context, input);
+                return result;
+            } finally {
+                record(context, input, startTime, startNanos, result);
+            }
+        }
+
+        @Override
+        public NodeResult doExecute(NodeContext context, Map<String, Object> input) throws Exception {
+            return delegate.doExecute(context, input);
+        }
+
+        @Override
+        public CompletableFuture<NodeResult> executeAsync(NodeContext context, Map<String, Object> input) {
+            long startTime = System.currentTimeMillis();
+            long startNanos = System.nanoTime();
+            // 排队时间计入耗时
+            return delegate.executeAsync(context, input)
+                    .whenComplete((result, e) -> record(context, input, startTime, startNanos, result));
+        }
+
+        private void record(NodeContext context, Map<String, Object> input, long startTime, long startNanos,
+                            NodeResult result) {
+            PluginContext pluginContext = PluginContext.create();
+            pluginContext.setExecutionId(context.getExecutionId());
+            pluginContext.setNodeId(context.getNodeId());
+            if (result == null) {
+                journal(action, input, pluginContext, startTime, startNanos, false, "EXECUTION_FAILED", 0);
+            } else {
+                journal(action, input, pluginContext, startTime, startNanos, result.isSuccess(),
+                        result.getErrorCode(), resultBytes(result.getMetadata(), result.getData()));
+            }
+        }
+
+        @Override
+        public boolean supportsAsync() {
+            return delegate.supportsAsync();
+        }
+
+        @Override
+        public boolean supportsStreaming() {
+            return delegate.supportsStreaming();
+        }
+
+        @Override
+        public boolean supportsCancel() {
+            return delegate.supportsCancel();
+        }
+
+        @Override
+        public long getDefaultTimeoutMs() {
+            return delegate.getDefaultTimeoutMs();
+        }
+
+        @Override
+        public int getMaxRetryCount() {
+            return delegate.getMaxRetryCount();
+        }
+
+        @Override
+        public long getRetryIntervalMs() {
+            return delegate.getRetryIntervalMs();
+        }
+    }
 }
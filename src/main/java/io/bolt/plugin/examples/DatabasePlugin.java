@@ -4,8 +4,26 @@ import io.bolt.plugin.AbstractPlugin;
 import io.bolt.plugin.api.PluginContext;
 import io.bolt.plugin.api.PluginException;
 import io.bolt.plugin.api.PluginResult;
-
-
+import io.bolt.plugin.examples.jdbc.BatchReport;
+import io.bolt.plugin.examples.jdbc.BatchWriter;
+import io.bolt.plugin.examples.jdbc.BulkImporter;
+import io.bolt.plugin.examples.jdbc.GroupCommitter;
+import io.bolt.plugin.examples.jdbc.PartitionedQuery;
+import io.bolt.plugin.examples.jdbc.QueryOptions;
+import io.bolt.plugin.examples.jdbc.QueryPage;
+import io.bolt.plugin.examples.jdbc.QueryResultCache;
+import io.bolt.plugin.examples.jdbc.ReplicaRouter;
+import io.bolt.plugin.examples.jdbc.ResultSetExporter;
+import io.bolt.plugin.examples.jdbc.SimpleConnectionPool;
+import io.bolt.plugin.examples.jdbc.SqlStats;
+import io.bolt.plugin.examples.jdbc.StatementTracker;
+import io.bolt.plugin.examples.jdbc.TransactionScript;
+import io.bolt.plugin.util.FileAccess;
+import io.bolt.plugin.util.Params;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -15,7 +33,7 @@ import java.util.Map;
 /**
  * 数据库插件示例
  * 演示如何创建访问数据库的插件
- * 注意：生产环境请使用连接池
+ * 注意：内置的 SimpleConnectionPool 只是最小实现，生产环境建议替换为成熟的连接池
  */
 public class DatabasePlugin extends AbstractPlugin {
 
@@ -25,6 +43,15 @@ public class DatabasePlugin extends AbstractPlugin {
     private String jdbcUrl;
     private String username;
     private String password;
+    private QueryOptions defaultQueryOptions;
+    private int batchChunkSize;
+    private ReplicaRouter router;
+    private FileAccess fileAccess;
+    private QueryResultCache queryCache;
+    private GroupCommitter groupCommitter;
+    private StatementTracker statementTracker;
+    private long queryTimeoutMs;
+    private SqlStats sqlStats;
 
     @Override
     public String getPluginId() {
@@ -61,9 +88,50 @@ public class DatabasePlugin extends AbstractPlugin {
         this.jdbcUrl = getRequiredProperty("jdbcUrl");
         this.username = getRequiredProperty("username");
         this.password = getRequiredProperty("password");
+        this.defaultQueryOptions = QueryOptions.defaults(
+                config.getIntProperty("fetchSize", 1000),
+                config.getIntProperty("maxRows", 100000),
+                config.getIntProperty("maxResultBytes", 64 * 1024 * 1024));
+        this.batchChunkSize = config.getIntProperty("batchChunkSize", 1000);
+        int maxPoolSize = config.getIntProperty("maxPoolSize", 10);
+        int connectionTimeoutMs = config.getIntProperty("connectionTimeoutMs", 30000);
+        List<SimpleConnectionPool> replicaPools = new ArrayList<>();
+        for (String replicaUrl : ReplicaRouter.parseUrls(config.getProperty("replicaUrls"))) {
+            replicaPools.add(new SimpleConnectionPool(replicaUrl,
+                    getProperty("replicaUsername", username), getProperty("replicaPassword", password),
+                    maxPoolSize, connectionTimeoutMs));
+        }
+        this.router = new ReplicaRouter(
+                new SimpleConnectionPool(jdbcUrl, username, password, maxPoolSize, connectionTimeoutMs),
+                replicaPools,
+                config.getIntProperty("replicaEjectAfterFailures", 3),
+                config.getIntProperty("replicaEjectMs", 30000),
+                config.getIntProperty("readYourWritesMs", 60000));
+        this.fileAccess = FileAccess.of(getProperty("fileRoot", ""));
+        long cacheTtlMs = config.getIntProperty("queryCacheTtlMs", 0);
+        this.queryCache = cacheTtlMs > 0
+                ? new QueryResultCache(cacheTtlMs,
+                        config.getIntProperty("queryCacheMaxEntries", 1000),
+                        config.getIntProperty("queryCacheMaxBytes", 16 * 1024 * 1024),
+                        // 有从库时，写入后 readYourWritesMs 内从库读到的可能是旧数据，不放入缓存
+                        router.hasReplicas() ? config.getIntProperty("readYourWritesMs", 60000) : 0)
+                : null;
+        this.queryTimeoutMs = config.getIntProperty("queryTimeoutMs", 60000);
+        this.statementTracker = new StatementTracker(config.getIntProperty("timeoutCheckIntervalMs", 100));
+        this.sqlStats = config.getBooleanProperty("sqlStatsEnabled", true)
+                ? new SqlStats(config.getIntProperty("sqlStatsMaxFingerprints", 500),
+                        config.getIntProperty("slowQueryThresholdMs", 1000),
+                        config.getIntProperty("slowQueryLogSize", 100))
+                : null;
+        this.groupCommitter = config.getBooleanProperty("groupCommitEnabled", false)
+                ? new GroupCommitter(statementTracker.provider(this::getConnection, queryTimeoutMs),
+                        config.getIntProperty("groupCommitMaxDelayMs", 5),
+                        config.getIntProperty("groupCommitMaxBatchSize", 100),
+                        Math.min(4, maxPoolSize))
+                : null;
 
         // 测试连接
-        try (Connection conn = DriverManager.getConnection(jdbcUrl, username, password)) {
+        try (Connection conn = getConnection()) {
             if (!conn.isValid(5)) {
                 throw new PluginException("CONNECTION_FAILED", "数据库连接测试失败");
             }
@@ -71,7 +139,7 @@ public class DatabasePlugin extends AbstractPlugin {
             throw new PluginException("CONNECTION_FAILED", "数据库连接失败: " + e.getMessage(), e);
         }
 
-        logger.info("DatabasePlugin 初始化成功，连接: {}", jdbcUrl);
+        logger.info("DatabasePlugin 初始化成功，连接: {}，从库: {} 个", jdbcUrl, replicaPools.size());
     }
 
     @Override
@@ -79,69 +147,271 @@ public class DatabasePlugin extends AbstractPlugin {
         return "{\n" +
                 "    \"jdbcUrl\": \"jdbc:mysql://localhost:3306/mydb\",\n" +
                 "    \"username\": \"root\",\n" +
-                "    \"password\": \"your_password\"\n" +
+                "    \"password\": \"your_password\",\n" +
+                "    \"replicaUrls\": [],\n" +
+                "    \"replicaEjectAfterFailures\": 3,\n" +
+                "    \"replicaEjectMs\": 30000,\n" +
+                "    \"readYourWritesMs\": 60000,\n" +
+                "    \"fetchSize\": 1000,\n" +
+                "    \"maxRows\": 100000,\n" +
+                "    \"maxResultBytes\": 67108864,\n" +
+                "    \"maxPoolSize\": 10,\n" +
+                "    \"connectionTimeoutMs\": 30000,\n" +
+                "    \"batchChunkSize\": 1000,\n" +
+                "    \"queryTimeoutMs\": 60000,\n" +
+                "    \"sqlStatsEnabled\": true,\n" +
+                "    \"sqlStatsMaxFingerprints\": 500,\n" +
+                "    \"slowQueryThresholdMs\": 1000,\n" +
+                "    \"slowQueryLogSize\": 100,\n" +
+                "    \"groupCommitEnabled\": false,\n" +
+                "    \"groupCommitMaxDelayMs\": 5,\n" +
+                "    \"groupCommitMaxBatchSize\": 100,\n" +
+                "    \"fileRoot\": \"\",\n" +
+                "    \"queryCacheTtlMs\": 0,\n" +
+                "    \"queryCacheMaxEntries\": 1000,\n" +
+                "    \"queryCacheMaxBytes\": 16777216\n" +
                 "}";
     }
 
     @Override
     protected void doDestroy() {
-        // 清理资源（如果有连接池的话）
+        if (groupCommitter != null) {
+            groupCommitter.close();
+        }
+        // 先取消仍在执行的语句，再关闭连接池
+        if (statementTracker != null) {
+            statementTracker.close();
+        }
+        if (router != null) {
+            router.close();
+        }
         logger.info("DatabasePlugin 已销毁");
     }
 
     @Override
     protected void registerActions() {
-        registerAction("query", this::doQuery);
-        registerAction("execute", this::doExecute);
-        registerAction("update", this::doUpdate);
-        registerAction("batch", this::doBatch);
+        registerAction("query", tracked(this::doQuery, true));
+        registerAction("parallelQuery", tracked(this::doParallelQuery, true));
+        registerAction("execute", writing(tracked(this::doExecute, true)));
+        registerAction("update", writing(tracked(this::doUpdate, true)));
+        registerAction("batch", writing(tracked(this::doBatch, true)));
+        registerAction("import", writing(tracked(this::doImport, false)));
+        registerAction("transaction", writing(tracked(this::doTransaction, true)));
+        registerAction("export", tracked(this::doExport, false));
+        registerAction("stats", this::doStats);
         registerAction("test", this::doTest);
     }
 
+    /**
+     * 带语句超时的动作
+     */
+    @FunctionalInterface
+    private interface TrackedHandler {
+        PluginResult execute(Map<String, Object> params, PluginContext context, StatementTracker.Scope scope);
+    }
+
+    /**
+     * 为每次调用打开语句跟踪范围：时限取参数 timeoutMs，缺省时查询/写入类动作使用 queryTimeoutMs，
+     * 导入导出这类长任务不限制；超时后正在执行的语句会被取消。结束后按 SQL 指纹记录统计
+     */
+    private ActionHandler tracked(TrackedHandler handler, boolean defaultTimeout) {
+        return (params, context) -> {
+            long timeoutMs = Params.getLong(params, "timeoutMs", defaultTimeout ? queryTimeoutMs : 0);
+            long start = System.nanoTime();
+            PluginResult result = null;
+            RuntimeException thrown = null;
+            try (StatementTracker.Scope scope = statementTracker.open(timeoutMs, null)) {
+                result = handler.execute(params, context, scope);
+                return result;
+            } catch (RuntimeException e) {
+                thrown = e;
+                throw e;
+            } finally {
+                if (sqlStats != null) {
+                    recordStats(params, context, System.nanoTime() - start, result, thrown);
+                }
+            }
+        };
+    }
+
+    private void recordStats(Map<String, Object> params, PluginContext context, long elapsedNanos,
+                             PluginResult result, RuntimeException thrown) {
+        String sql = statsSql(params);
+        if (sql == null) {
+            return;
+        }
+        Map<String, Object> data = result != null && result.isSuccess() ? result.getDataAsMap() : null;
+        if (data != null && Boolean.TRUE.equals(data.get("cached"))) {
+            sqlStats.recordCacheHit(sql);
+            return;
+        }
+        String error = thrown != null ? String.valueOf(thrown.getMessage())
+                : result != null && !result.isSuccess() ? String.valueOf(result.getError()) : null;
+        if (sqlStats.record(sql, elapsedNanos, rowsOf(data), bytesOf(result, data), error, executionKey(context))) {
+            logger.warn("慢查询 {} ms: {}", elapsedNanos / 1_000_000, sqlStats.fingerprint(sql));
+        }
+    }
+
+    /**
+     * 参与统计的 SQL：事务脚本的多条语句合为一个指纹
+     */
+    private static String statsSql(Map<String, Object> params) {
+        Object statements = params.get("statements");
+        if (statements instanceof List) {
+            StringBuilder joined = new StringBuilder();
+            for (Object statement : (List<?>) statements) {
+                Object sql = statement instanceof Map ? ((Map<?, ?>) statement).get("sql") : null;
+                if (sql != null) {
+                    joined.append(joined.length() == 0 ? "" : "; ").append(sql);
+                }
+            }
+            return joined.length() == 0 ? null : joined.toString();
+        }
+        Object sql = params.get("sql");
+        return sql == null ? null : sql.toString();
+    }
+
+    private static long rowsOf(Map<String, Object> data) {
+        if (data == null) {
+            return 0;
+        }
+        for (String key : new String[]{"count", "rowCount", "totalAffected", "affectedRows", "updateCount"}) {
+            Object value = data.get(key);
+            if (value instanceof Number) {
+                return ((Number) value).longValue();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * SQL 统计中的字节数：查询取读取时已估算的 metadata.resultBytes，导出取写入文件的字节数
+     */
+    private long bytesOf(PluginResult result, Map<String, Object> data) {
+        if (data == null) {
+            return 0;
+        }
+        long bytes = resultBytes(result.getMetadata(), data);
+        if (bytes > 0) {
+            return bytes;
+        }
+        Object byteCount = data.get("byteCount");
+        return byteCount instanceof Number ? ((Number) byteCount).longValue() : 0;
+    }
+
+    /**
+     * 写操作结束后（无论成功与否，分片提交可能已部分生效）按 SQL 中的表名失效查询缓存，
+     * 并让同一执行随后的读操作走主库
+     */
+    private ActionHandler writing(ActionHandler handler) {
+        return (params, context) -> {
+            try {
+                return handler.execute(params, context);
+            } finally {
+                router.markWrite(executionKey(context));
+                if (queryCache != null) {
+                    invalidateCache(params);
+                }
+            }
+        };
+    }
+
+    private void invalidateCache(Map<String, Object> params) {
+        Object statements = params.get("statements");
+        if (statements instanceof List) {
+            for (Object statement : (List<?>) statements) {
+                Object sql = statement instanceof Map ? ((Map<?, ?>) statement).get("sql") : null;
+                queryCache.invalidate(sql == null ? null : sql.toString());
+            }
+            return;
+        }
+        Object sql = params.get("sql");
+        queryCache.invalidate(sql == null ? null : sql.toString());
+    }
+
     /**
      * 查询操作
+     * 支持 fetchSize、maxRows/maxBytes 上限以及基于 keyColumn 的 keyset 分页；
+     * 配置了 queryCacheTtlMs 时结果按 SQL + 参数缓存，cache: false 可跳过缓存；
+     * 配置了从库时路由到从库，readFromPrimary: true 强制读主库；读主库时（包括写入后固定走主库的执行）不查缓存
      */
-    private PluginResult doQuery(Map<String, Object> params, PluginContext context) {
+    private PluginResult doQuery(Map<String, Object> params, PluginContext context,
+                                   StatementTracker.Scope scope) {
         String sql = getRequiredParam(params, "sql");
         @SuppressWarnings("unchecked")
         List<Object> sqlParams = (List<Object>) params.get("params");
+        QueryOptions options = QueryOptions.from(params, defaultQueryOptions);
+
+        String executionKey = executionKey(context);
+        boolean readFromPrimary = Params.getBoolean(params, "readFromPrimary", false);
+        boolean useCache = queryCache != null && Params.getBoolean(params, "cache", true);
+        String cacheKey = null;
+        QueryResultCache.Ticket ticket = null;
+        if (useCache) {
+            cacheKey = QueryResultCache.keyOf(sql, params);
+            // 要求读主库时缓存里的结果可能早于本次执行的写入
+            QueryResultCache.Hit cached = readFromPrimary || router.isPinned(executionKey) ? null
+                    : queryCache.get(cacheKey);
+            if (cached != null) {
+                return PluginResult.success(cached.getValue()).withMetadata(RESULT_BYTES, cached.getResultBytes());
+            }
+            ticket = queryCache.begin(sql);
+        }
 
-        try (Connection conn = getConnection();
-             PreparedStatement stmt = prepareStatement(conn, sql, sqlParams);
-             ResultSet rs = stmt.executeQuery()) {
-
-            ResultSetMetaData metaData = rs.getMetaData();
-            int columnCount = metaData.getColumnCount();
-
-            List<Map<String, Object>> rows = new ArrayList<>();
-            while (rs.next()) {
-                Map<String, Object> row = new HashMap<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    row.put(metaData.getColumnLabel(i), rs.getObject(i));
+        try {
+            long[] bytes = new long[1];
+            Map<String, Object> result = router.read(executionKey, readFromPrimary, scope.guard(conn -> {
+                try (PreparedStatement stmt = prepareStatement(conn, options.effectiveSql(sql),
+                        options.effectiveParams(sql, sqlParams))) {
+                    options.applyTo(stmt);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        QueryPage page = QueryPage.read(rs, options, sql);
+                        bytes[0] = page.getEstimatedBytes();
+                        return page.toResult(true);
+                    }
                 }
-                rows.add(row);
+            }));
+            if (useCache) {
+                queryCache.put(cacheKey, ticket, result, bytes[0], Params.getLong(params, "cacheTtlMs", 0));
             }
+            return PluginResult.success(result).withMetadata(RESULT_BYTES, bytes[0]);
 
-            Map<String, Object> result = new HashMap<>();
-            result.put("rows", rows);
-            result.put("count", rows.size());
-            result.put("columns", getColumnNames(metaData, columnCount));
-
-            return PluginResult.success(result);
+        } catch (SQLException | IOException e) {
+            logger.error("查询失败: {}", scope.describe(e));
+            return PluginResult.failure(scope.errorCode("QUERY_FAILED"), scope.describe(e));
+        }
+    }
 
-        } catch (SQLException e) {
-            logger.error("查询失败: {}", e.getMessage());
-            return PluginResult.failure("QUERY_FAILED", e.getMessage());
+    /**
+     * 分区并行查询
+     * 按 partitionColumn 拆成多个子查询在多个连接上并发执行后合并，并发数不超过连接池大小
+     */
+    private PluginResult doParallelQuery(Map<String, Object> params, PluginContext context,
+                                   StatementTracker.Scope scope) {
+        String sql = getRequiredParam(params, "sql");
+        @SuppressWarnings("unchecked")
+        List<Object> sqlParams = (List<Object>) params.get("params");
+        PartitionedQuery query = PartitionedQuery.from(sql, sqlParams, params,
+                QueryOptions.from(params, defaultQueryOptions), router.getPrimary().getMaxSize());
+
+        try {
+            Map<String, Object> result = query.run(router, executionKey(context),
+                    Params.getBoolean(params, "readFromPrimary", false), scope);
+            return PluginResult.success(result).withMetadata(RESULT_BYTES, query.getEstimatedBytes());
+        } catch (SQLException | IOException e) {
+            logger.error("分区查询失败: {}", scope.describe(e));
+            return PluginResult.failure(scope.errorCode("QUERY_FAILED"), scope.describe(e));
         }
     }
 
     /**
      * 执行操作（DDL等）
      */
-    private PluginResult doExecute(Map<String, Object> params, PluginContext context) {
+    private PluginResult doExecute(Map<String, Object> params, PluginContext context,
+                                   StatementTracker.Scope scope) {
         String sql = getRequiredParam(params, "sql");
 
-        try (Connection conn = getConnection();
+        try (Connection conn = scope.wrap(getConnection());
              Statement stmt = conn.createStatement()) {
 
             boolean hasResultSet = stmt.execute(sql);
@@ -156,20 +426,37 @@ public class DatabasePlugin extends AbstractPlugin {
             return PluginResult.success(result);
 
         } catch (SQLException e) {
-            logger.error("执行失败: {}", e.getMessage());
-            return PluginResult.failure("EXECUTE_FAILED", e.getMessage());
+            logger.error("执行失败: {}", scope.describe(e));
+            return PluginResult.failure(scope.errorCode("EXECUTE_FAILED"), scope.describe(e));
         }
     }
 
     /**
      * 更新操作（INSERT/UPDATE/DELETE）
+     * 开启 groupCommitEnabled 时，并发的相同 SQL 合并为一个批次提交（groupCommit: false 可跳过）
+     * 等待批次提交的时间受本次调用的时限约束
      */
-    private PluginResult doUpdate(Map<String, Object> params, PluginContext context) {
+    private PluginResult doUpdate(Map<String, Object> params, PluginContext context,
+                                   StatementTracker.Scope scope) {
         String sql = getRequiredParam(params, "sql");
         @SuppressWarnings("unchecked")
         List<Object> sqlParams = (List<Object>) params.get("params");
 
-        try (Connection conn = getConnection();
+        if (groupCommitter != null && Params.getBoolean(params, "groupCommit", true)) {
+            try {
+                GroupCommitter.Result committed = groupCommitter.submit(sql, sqlParams, scope.remainingMs());
+                Map<String, Object> result = new HashMap<>();
+                result.put("affectedRows", committed.getAffectedRows());
+                result.put("groupSize", committed.getGroupSize());
+                return PluginResult.success(result);
+            } catch (SQLException e) {
+                logger.error("更新失败: {}", e.getMessage());
+                return PluginResult.failure(e instanceof SQLTimeoutException ? "QUERY_TIMEOUT" : "UPDATE_FAILED",
+                        e.getMessage());
+            }
+        }
+
+        try (Connection conn = scope.wrap(getConnection());
              PreparedStatement stmt = prepareStatement(conn, sql, sqlParams)) {
 
             int affectedRows = stmt.executeUpdate();
@@ -180,16 +467,18 @@ public class DatabasePlugin extends AbstractPlugin {
             return PluginResult.success(result);
 
         } catch (SQLException e) {
-            logger.error("更新失败: {}", e.getMessage());
-            return PluginResult.failure("UPDATE_FAILED", e.getMessage());
+            logger.error("更新失败: {}", scope.describe(e));
+            return PluginResult.failure(scope.errorCode("UPDATE_FAILED"), scope.describe(e));
         }
     }
 
     /**
      * 批量操作
+     * 按 chunkSize 分片执行；commitPerChunk 每片提交，parallelism 多连接并行（需每片提交），
+     * rewriteInserts 改写为多行 INSERT，continueOnError 跳过失败行并逐行报告
      */
     @SuppressWarnings("unchecked")
-    private PluginResult doBatch(Map<String, Object> params, PluginContext context) {
+    private PluginResult doBatch(Map<String, Object> params, PluginContext context, StatementTracker.Scope scope) {
         String sql = getRequiredParam(params, "sql");
         List<List<Object>> batchParams = (List<List<Object>>) params.get("batchParams");
 
@@ -197,37 +486,167 @@ public class DatabasePlugin extends AbstractPlugin {
             return PluginResult.failure("INVALID_PARAM", "批量参数不能为空");
         }
 
-        try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        BatchWriter.Options options = BatchWriter.Options.from(params, batchChunkSize,
+                router.getPrimary().getMaxSize(), false);
+        BatchReport report = new BatchReport(batchParams.size(), options.getMaxReportedErrors());
 
-            conn.setAutoCommit(false);
+        try {
+            new BatchWriter(sql, options).writeAll(scope.provider(this::getConnection), batchParams, report);
+            return PluginResult.success(report.toResult());
 
-            for (List<Object> sqlParams : batchParams) {
-                setParameters(stmt, sqlParams);
-                stmt.addBatch();
-            }
+        } catch (BatchWriter.BatchFailedException e) {
+            logger.error("批量操作失败: {}", scope.describe(e));
+            return PluginResult.failure(scope.errorCode("BATCH_FAILED"), scope.describe(e))
+                    .withMetadata("failedIndex", e.getRowIndex())
+                    .withMetadata("committedRows", report.getCommittedRows());
+        } catch (SQLException e) {
+            logger.error("批量操作失败: {}", scope.describe(e));
+            return PluginResult.failure(scope.errorCode("BATCH_FAILED"), scope.describe(e))
+                    .withMetadata("committedRows", report.getCommittedRows());
+        }
+    }
 
-            int[] results = stmt.executeBatch();
-            conn.commit();
+    /**
+     * 事务脚本
+     * 在一个连接上按顺序执行 statements 并只提交一次，后面的语句可通过 $ref 引用前面语句的结果
+     */
+    private PluginResult doTransaction(Map<String, Object> params, PluginContext context,
+                                   StatementTracker.Scope scope) {
+        TransactionScript script = TransactionScript.from(params, defaultQueryOptions);
 
-            int totalAffected = 0;
-            for (int r : results) {
-                if (r > 0) totalAffected += r;
+        try (Connection conn = getConnection()) {
+            return PluginResult.success(script.execute(scope.wrap(conn)));
+
+        } catch (TransactionScript.StepFailedException e) {
+            logger.error("事务执行失败: {}", scope.describe(e));
+            PluginResult failure;
+            if (e.getCause() instanceof PluginException) {
+                // 引用或参数错误保留原错误码，本仓库按 ("错误码", "描述") 构造 PluginException
+                PluginException cause = (PluginException) e.getCause();
+                failure = PluginResult.failure(cause.getMessage(), cause.getErrorCode());
+            } else {
+                failure = PluginResult.failure(scope.errorCode("TRANSACTION_FAILED"), scope.describe(e));
             }
+            return failure.withMetadata("failedIndex", e.getIndex())
+                    .withMetadata("failedName", e.getName());
+        } catch (SQLException e) {
+            logger.error("事务执行失败: {}", scope.describe(e));
+            return PluginResult.failure(scope.errorCode("TRANSACTION_FAILED"), scope.describe(e));
+        }
+    }
 
-            Map<String, Object> result = new HashMap<>();
-            result.put("batchSize", batchParams.size());
-            result.put("results", results);
-            result.put("totalAffected", totalAffected);
+    /**
+     * 批量导入
+     * 流式读取 fileRoot 下的 CSV / JSONL 文件，解析与写入并行进行，分片写入规则与 batch 相同；
+     * 默认每片提交，进度写入 context 属性 importProgress
+     */
+    private PluginResult doImport(Map<String, Object> params, PluginContext context,
+                                   StatementTracker.Scope scope) {
+        String sql = getRequiredParam(params, "sql");
+        Path file = fileAccess.resolve(getRequiredParam(params, "file"));
+        if (!Files.isRegularFile(file)) {
+            return PluginResult.failure("FILE_NOT_FOUND", "文件不存在: " + params.get("file"));
+        }
+
+        BatchWriter.Options options = BatchWriter.Options.from(params, batchChunkSize,
+                router.getPrimary().getMaxSize(), true);
+        BatchReport report = new BatchReport(-1, options.getMaxReportedErrors());
+        BulkImporter importer = new BulkImporter(file, new BatchWriter(sql, options), params);
+        long start = System.nanoTime();
+
+        try {
+            importer.run(scope.provider(this::getConnection), report, progress -> {
+                logger.info("导入进度 {}: {} 行, {}%", file.getFileName(),
+                        progress.get("rowsWritten"), String.format("%.1f", (Double) progress.get("percent")));
+                if (context != null) {
+                    context.setAttribute("importProgress", progress);
+                }
+            });
+        } catch (BatchWriter.BatchFailedException e) {
+            logger.error("导入失败: {}", scope.describe(e));
+            return PluginResult.failure(scope.errorCode("IMPORT_FAILED"), scope.describe(e))
+                    .withMetadata("failedIndex", e.getRowIndex())
+                    .withMetadata("committedRows", report.getCommittedRows());
+        } catch (SQLException | IOException e) {
+            logger.error("导入失败: {}", scope.describe(e));
+            return PluginResult.failure(scope.errorCode("IMPORT_FAILED"), scope.describe(e))
+                    .withMetadata("committedRows", report.getCommittedRows());
+        }
 
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        Map<String, Object> result = report.toResult();
+        Map<String, Object> progress = importer.progress();
+        result.put("file", params.get("file"));
+        result.put("format", progress.get("format"));
+        result.put("rowsRead", progress.get("rowsRead"));
+        result.put("bytesRead", progress.get("bytesRead"));
+        result.put("elapsedMs", elapsedMs);
+        result.put("rowsPerSecond", (Long) progress.get("rowsRead") * 1000 / elapsedMs);
+        logger.info("导入完成 {}: {} 行, 耗时 {} ms", file.getFileName(), progress.get("rowsRead"), elapsedMs);
+        return PluginResult.success(result);
+    }
+
+    /**
+     * 导出
+     * 查询结果逐行写入 fileRoot 下的 CSV / JSONL / binary 文件（可 gzip），只返回文件路径与统计
+     */
+    private PluginResult doExport(Map<String, Object> params, PluginContext context,
+                                   StatementTracker.Scope scope) {
+        String sql = getRequiredParam(params, "sql");
+        @SuppressWarnings("unchecked")
+        List<Object> sqlParams = (List<Object>) params.get("params");
+        Path file = fileAccess.resolve(getRequiredParam(params, "file"));
+        ResultSetExporter exporter = new ResultSetExporter(file, params);
+
+        try {
+            Map<String, Object> result = router.read(executionKey(context),
+                    Params.getBoolean(params, "readFromPrimary", false),
+                    scope.guard(conn -> exporter.export(conn, sql, sqlParams,
+                            Params.getInt(params, "fetchSize", defaultQueryOptions.getFetchSize()),
+                            rows -> logger.info("导出进度 {}: {} 行", file.getFileName(), rows))));
+            result.put("path", params.get("file"));
+            logger.info("导出完成 {}: {} 行, {} 字节", file.getFileName(), result.get("rowCount"), result.get("byteCount"));
             return PluginResult.success(result);
 
-        } catch (SQLException e) {
-            logger.error("批量操作失败: {}", e.getMessage());
-            return PluginResult.failure("BATCH_FAILED", e.getMessage());
+        } catch (SQLException | IOException e) {
+            logger.error("导出失败: {}", scope.describe(e));
+            return PluginResult.failure(scope.errorCode("EXPORT_FAILED"), scope.describe(e));
         }
     }
 
+    /**
+     * 运行统计
+     * 按 SQL 指纹聚合的调用次数、耗时分布、行数与字节数，慢查询日志，以及缓存、路由和语句跟踪状态；
+     * sortBy 指定排序字段（默认 totalTime），limit 限制返回的指纹数，reset: true 在返回后清零
+     */
+    private PluginResult doStats(Map<String, Object> params, PluginContext context) {
+        Map<String, Object> result = sqlStats != null
+                ? sqlStats.snapshot(Params.getString(params, "sortBy", "totalTime"), Params.getInt(params, "limit", 50))
+                : new HashMap<>();
+        result.put("enabled", sqlStats != null);
+        result.put("statements", statementTracker.stats());
+        if (queryCache != null) {
+            result.put("cache", queryCache.stats());
+        }
+        if (router.hasReplicas()) {
+            result.put("routing", router.stats());
+        }
+        if (groupCommitter != null) {
+            Map<String, Object> groupCommit = new HashMap<>();
+            groupCommit.put("batches", groupCommitter.getBatchCount());
+            groupCommit.put("rows", groupCommitter.getRowCount());
+            groupCommit.put("pendingGroups", groupCommitter.getPendingGroupCount());
+            result.put("groupCommit", groupCommit);
+        }
+        if (getJournal() != null) {
+            result.put("journal", getJournal().stats());
+        }
+        if (sqlStats != null && Params.getBoolean(params, "reset", false)) {
+            sqlStats.reset();
+        }
+        return PluginResult.success(result);
+    }
+
     /**
      * 连接测试
      */
@@ -241,6 +660,9 @@ public class DatabasePlugin extends AbstractPlugin {
             result.put("databaseProductVersion", metaData.getDatabaseProductVersion());
             result.put("driverName", metaData.getDriverName());
             result.put("driverVersion", metaData.getDriverVersion());
+            if (router.hasReplicas()) {
+                result.put("routing", router.stats());
+            }
 
             return PluginResult.success(result);
 
@@ -249,8 +671,11 @@ public class DatabasePlugin extends AbstractPlugin {
         }
     }
 
+    /**
+     * 主库连接
+     */
     private Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(jdbcUrl, username, password);
+        return router.primaryConnection();
     }
 
     private PreparedStatement prepareStatement(Connection conn, String sql, List<Object> params) throws SQLException {
@@ -267,14 +692,6 @@ public class DatabasePlugin extends AbstractPlugin {
         }
     }
 
-    private List<String> getColumnNames(ResultSetMetaData metaData, int columnCount) throws SQLException {
-        List<String> columns = new ArrayList<>();
-        for (int i = 1; i <= columnCount; i++) {
-            columns.add(metaData.getColumnLabel(i));
-        }
-        return columns;
-    }
-
     private String getRequiredParam(Map<String, Object> params, String key) {
         Object value = params.get(key);
         if (value == null || value.toString().isEmpty()) {
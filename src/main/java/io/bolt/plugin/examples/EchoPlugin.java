@@ -127,6 +127,9 @@ public class EchoPlugin extends AbstractPlugin {
         result.put("instanceName", config.getInstanceName());
         result.put("supportedActions", getSupportedActions());
         result.put("properties", config.getProperties());
+        if (getJournal() != null) {
+            result.put("journal", getJournal().stats());
+        }
 
         return PluginResult.success(result);
     }
@@ -4,27 +4,106 @@ import io.bolt.plugin.AbstractPlugin;
 import io.bolt.plugin.api.PluginContext;
 import io.bolt.plugin.api.PluginException;
 import io.bolt.plugin.api.PluginResult;
+import io.bolt.plugin.examples.http.BoundedBodyHandler;
+import io.bolt.plugin.examples.http.ConnectionLimiter;
+import io.bolt.plugin.examples.http.FanOut;
+import io.bolt.plugin.examples.http.HttpResponseCache;
+import io.bolt.plugin.examples.http.HostLatency;
+import io.bolt.plugin.examples.http.RetryPolicy;
+import io.bolt.plugin.examples.http.ResponseBody;
+import io.bolt.plugin.util.FileAccess;
+import io.bolt.plugin.util.JsonProjection;
+import io.bolt.plugin.util.Params;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * HTTP 客户端插件示例
  * 演示如何创建调用外部 HTTP API 的插件
+ * 每个插件实例共用一个 java.net.http.HttpClient：连接在请求之间复用，优先 HTTP/2（不支持时自动回退 HTTP/1.1），
+ * 同时进行的请求数受 maxConnections / maxConnectionsPerHost 限制。
+ * 请求通过 sendAsync 发出，executeAsync 不阻塞线程；同步 execute 等待同一条异步链路。
+ * 响应体按字节读取并受 maxBodySize 限制，二进制内容输出 Base64，也可以直接写入 fileRoot 下的文件；
+ * 默认协商 gzip / deflate 并边收边解压，较大的请求体可以 gzip 后发送。
+ * 开启 responseCacheEnabled 后 GET 响应按 Cache-Control / ETag 缓存并用条件请求重新验证
  */
 public class HttpClientPlugin extends AbstractPlugin {
 
     private static final String PLUGIN_ID = "http-client-plugin";
     private static final String VERSION = "1.0.0";
 
+    /**
+     * HttpClient 自行管理的请求头，调用方传入时忽略
+     */
+    private static final Set<String> RESTRICTED_HEADERS = Set.of(
+            "connection", "content-length", "expect", "host", "upgrade");
+
+    /**
+     * multi 动作自身的参数，不作为每个请求的默认值
+     */
+    private static final Set<String> MULTI_PARAMS = Set.of("requests", "concurrency", "perHostConcurrency", "mode");
+
     private int defaultTimeout;
     private int defaultRetryCount;
+    private HttpClient.Version defaultVersion;
+    private ExecutorService clientExecutor;
+    private HttpClient client;
+    private ConnectionLimiter limiter;
+    private ScheduledExecutorService retryScheduler;
+    private long maxBodySize;
+    private boolean truncateBody;
+    private long maxDownloadSize;
+    private boolean acceptCompression;
+    private int compressRequestThreshold;
+    private HttpResponseCache responseCache;
+    private RetryPolicy retryPolicy;
+    private HostLatency latency;
+    private boolean hedgeEnabled;
+    private int multiConcurrency;
+    private int multiPerHostConcurrency;
+    private int multiMaxRequests;
+    private int hedgeMinSamples;
+    private long hedgeMinDelayMs;
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private FileAccess fileAccess;
+
+    // 支持异步执行的 HTTP 动作
+    private final Map<String, AsyncActionHandler> asyncHandlers = new ConcurrentHashMap<>();
 
     @Override
     public String getPluginId() {
@@ -52,38 +131,181 @@ public class HttpClientPlugin extends AbstractPlugin {
     }
 
     @Override
-    protected void doInitialize() {
-        this.defaultTimeout = getProperty("defaultTimeout", 30000);
-        this.defaultRetryCount = getProperty("defaultRetryCount", 3);
-        logger.info("HttpClientPlugin 初始化完成，默认超时: {}ms", defaultTimeout);
+    protected void doInitialize() throws IOException {
+        this.defaultTimeout = config.getIntProperty("defaultTimeout", 30000);
+        this.defaultRetryCount = config.getIntProperty("defaultRetryCount", 3);
+        this.defaultVersion = parseVersion(getProperty("httpVersion", "HTTP_2"));
+        int connectTimeoutMs = config.getIntProperty("connectTimeoutMs", 10000);
+
+        AtomicInteger threads = new AtomicInteger();
+        this.clientExecutor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "bolt-http-client-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.client = HttpClient.newBuilder()
+                .version(defaultVersion)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(config.getBooleanProperty("followRedirects", true)
+                        ? HttpClient.Redirect.NORMAL : HttpClient.Redirect.NEVER)
+                .executor(clientExecutor)
+                .build();
+        this.limiter = new ConnectionLimiter(
+                config.getIntProperty("maxConnections", 200),
+                config.getIntProperty("maxConnectionsPerHost", 20));
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "bolt-http-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        this.retryScheduler = scheduler;
+        this.maxBodySize = Params.getLong(config.getProperties(), "maxBodySize", 10L * 1024 * 1024);
+        this.truncateBody = parseOverflow(getProperty("bodyOverflow", "fail"));
+        this.maxDownloadSize = Params.getLong(config.getProperties(), "maxDownloadSize", 0);
+        this.acceptCompression = config.getBooleanProperty("acceptCompression", true);
+        this.compressRequestThreshold = config.getIntProperty("compressRequestThreshold", 0);
+        this.retryPolicy = new RetryPolicy(
+                Params.getLong(config.getProperties(), "retryBaseDelayMs", 200),
+                Params.getLong(config.getProperties(), "retryMaxDelayMs", 10000),
+                Params.getLong(config.getProperties(), "retryAfterMaxMs", 60000),
+                Params.getDouble(config.getProperties(), "retryBudgetTokens", 10),
+                Params.getDouble(config.getProperties(), "retryBudgetRatio", 0.1));
+        // 对冲延迟按 host 分别统计，最多跟踪 256 个 host
+        this.latency = new HostLatency(1024, Params.getDouble(config.getProperties(), "hedgePercentile", 95), 256);
+        this.hedgeEnabled = config.getBooleanProperty("hedgeEnabled", false);
+        this.hedgeMinSamples = config.getIntProperty("hedgeMinSamples", 20);
+        this.hedgeMinDelayMs = Params.getLong(config.getProperties(), "hedgeMinDelayMs", 10);
+        this.multiConcurrency = config.getIntProperty("multiConcurrency", 16);
+        this.multiPerHostConcurrency = config.getIntProperty("multiPerHostConcurrency", 6);
+        this.multiMaxRequests = config.getIntProperty("multiMaxRequests", 1000);
+        if (config.getBooleanProperty("responseCacheEnabled", false)) {
+            String cacheDir = getProperty("responseCacheDir", "");
+            this.responseCache = new HttpResponseCache(
+                    config.getIntProperty("responseCacheMaxEntries", 1000),
+                    Params.getLong(config.getProperties(), "responseCacheMaxBytes", 16L * 1024 * 1024),
+                    cacheDir.isEmpty() ? null : Paths.get(cacheDir).toAbsolutePath().normalize(),
+                    Params.getLong(config.getProperties(), "responseCacheDiskMaxBytes", 256L * 1024 * 1024));
+        }
+        this.fileAccess = FileAccess.of(getProperty("fileRoot", ""));
+        logger.info("HttpClientPlugin 初始化完成，默认超时: {}ms，协议: {}", defaultTimeout, defaultVersion);
     }
 
     @Override
     public String getDefaultConfigJson() {
         return "{\n" +
                 "    \"defaultTimeout\": 30000,\n" +
-                "    \"defaultRetryCount\": 3\n" +
+                "    \"defaultRetryCount\": 3,\n" +
+                "    \"connectTimeoutMs\": 10000,\n" +
+                "    \"httpVersion\": \"HTTP_2\",\n" +
+                "    \"followRedirects\": true,\n" +
+                "    \"maxConnections\": 200,\n" +
+                "    \"maxConnectionsPerHost\": 20,\n" +
+                "    \"maxBodySize\": 10485760,\n" +
+                "    \"bodyOverflow\": \"fail\",\n" +
+                "    \"maxDownloadSize\": 0,\n" +
+                "    \"acceptCompression\": true,\n" +
+                "    \"compressRequestThreshold\": 0,\n" +
+                "    \"retryBaseDelayMs\": 200,\n" +
+                "    \"retryMaxDelayMs\": 10000,\n" +
+                "    \"retryAfterMaxMs\": 60000,\n" +
+                "    \"retryBudgetTokens\": 10,\n" +
+                "    \"retryBudgetRatio\": 0.1,\n" +
+                "    \"hedgeEnabled\": false,\n" +
+                "    \"hedgePercentile\": 95,\n" +
+                "    \"hedgeMinSamples\": 20,\n" +
+                "    \"hedgeMinDelayMs\": 10,\n" +
+                "    \"multiConcurrency\": 16,\n" +
+                "    \"multiPerHostConcurrency\": 6,\n" +
+                "    \"multiMaxRequests\": 1000,\n" +
+                "    \"responseCacheEnabled\": false,\n" +
+                "    \"responseCacheMaxEntries\": 1000,\n" +
+                "    \"responseCacheMaxBytes\": 16777216,\n" +
+                "    \"responseCacheDir\": \"\",\n" +
+                "    \"responseCacheDiskMaxBytes\": 268435456,\n" +
+                "    \"fileRoot\": \"\"\n" +
                 "}";
     }
 
     @Override
-    protected void doDestroy() {
+    protected void doDestroy() throws Exception {
+        // JDK 21 起 HttpClient 实现了 AutoCloseable；更低版本关闭执行器后连接随客户端一起回收
+        if (client instanceof AutoCloseable) {
+            ((AutoCloseable) client).close();
+        }
+        if (retryScheduler != null) {
+            retryScheduler.shutdownNow();
+        }
+        if (clientExecutor != null) {
+            clientExecutor.shutdownNow();
+        }
+        if (responseCache != null) {
+            responseCache.close();
+        }
+        client = null;
         logger.info("HttpClientPlugin 已销毁");
     }
 
     @Override
     protected void registerActions() {
-        registerAction("get", this::doGet);
-        registerAction("post", this::doPost);
-        registerAction("put", this::doPut);
-        registerAction("delete", this::doDelete);
-        registerAction("request", this::doRequest);
+        registerHttpAction("get", this::doGet);
+        registerHttpAction("post", this::doPost);
+        registerHttpAction("put", this::doPut);
+        registerHttpAction("delete", this::doDelete);
+        registerHttpAction("request", this::doRequest);
+        registerHttpAction("multi", this::doMulti);
+        registerAction("stats", this::doStats);
+    }
+
+    /**
+     * 异步执行：HTTP 动作在等待连接、服务端处理和读取响应期间不占用调用线程，
+     * 重试由定时器调度；其他动作同步执行后返回已完成的 future
+     */
+    @Override
+    public CompletableFuture<PluginResult> executeAsync(String action, Map<String, Object> params,
+                                                        PluginContext context) {
+        AsyncActionHandler handler = asyncHandlers.get(action);
+        if (!initialized || handler == null) {
+            return CompletableFuture.completedFuture(execute(action, params, context));
+        }
+
+        long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        CompletableFuture<PluginResult> future;
+        try {
+            logger.debug("异步执行动作 [{}] 参数: {}", action, params);
+            future = handler.execute(params, context);
+        } catch (Exception e) {
+            logger.error("动作 [{}] 执行失败: {}", action, e.getMessage());
+            future = CompletableFuture.completedFuture(PluginResult.failure("EXECUTION_FAILED", e.getMessage()));
+        }
+        return journaled(action, params, context, startTime, startNanos, future.thenApply(result -> {
+            result.setExecutionTimeMs(System.currentTimeMillis() - startTime);
+            return result;
+        }));
+    }
+
+    /**
+     * 结果字节数取已统计的响应体大小
+     */
+    @Override
+    protected long resultBytes(Map<String, Object> metadata, Object data) {
+        Object bytes = metadata != null ? metadata.get("responseBytes") : null;
+        return bytes instanceof Number ? ((Number) bytes).longValue() : super.resultBytes(metadata, data);
+    }
+
+    /**
+     * 注册 HTTP 动作：异步处理器供 executeAsync 使用，同步 execute 等待同一个 future
+     */
+    private void registerHttpAction(String action, AsyncActionHandler handler) {
+        asyncHandlers.put(action, handler);
+        registerAction(action, (params, context) -> await(handler.execute(params, context)));
     }
 
     /**
      * GET 请求
      */
-    private PluginResult doGet(Map<String, Object> params, PluginContext context) {
+    private CompletableFuture<PluginResult> doGet(Map<String, Object> params, PluginContext context) {
         String url = getRequiredParam(params, "url");
         Map<String, String> headers = getHeaders(params);
         return executeHttpRequest("GET", url, headers, null, params);
@@ -92,7 +314,7 @@ public class HttpClientPlugin extends AbstractPlugin {
     /**
      * POST 请求
      */
-    private PluginResult doPost(Map<String, Object> params, PluginContext context) {
+    private CompletableFuture<PluginResult> doPost(Map<String, Object> params, PluginContext context) {
         String url = getRequiredParam(params, "url");
         Map<String, String> headers = getHeaders(params);
         String body = (String) params.get("body");
@@ -102,7 +324,7 @@ public class HttpClientPlugin extends AbstractPlugin {
     /**
      * PUT 请求
      */
-    private PluginResult doPut(Map<String, Object> params, PluginContext context) {
+    private CompletableFuture<PluginResult> doPut(Map<String, Object> params, PluginContext context) {
         String url = getRequiredParam(params, "url");
         Map<String, String> headers = getHeaders(params);
         String body = (String) params.get("body");
@@ -112,7 +334,7 @@ public class HttpClientPlugin extends AbstractPlugin {
     /**
      * DELETE 请求
      */
-    private PluginResult doDelete(Map<String, Object> params, PluginContext context) {
+    private CompletableFuture<PluginResult> doDelete(Map<String, Object> params, PluginContext context) {
         String url = getRequiredParam(params, "url");
         Map<String, String> headers = getHeaders(params);
         return executeHttpRequest("DELETE", url, headers, null, params);
@@ -121,7 +343,7 @@ public class HttpClientPlugin extends AbstractPlugin {
     /**
      * 通用请求
      */
-    private PluginResult doRequest(Map<String, Object> params, PluginContext context) {
+    private CompletableFuture<PluginResult> doRequest(Map<String, Object> params, PluginContext context) {
         String method = getRequiredParam(params, "method").toUpperCase();
         String url = getRequiredParam(params, "url");
         Map<String, String> headers = getHeaders(params);
@@ -129,77 +351,614 @@ public class HttpClientPlugin extends AbstractPlugin {
         return executeHttpRequest(method, url, headers, body, params);
     }
 
+    /**
+     * 并发执行一组请求
+     * requests 中每一项是一个请求（method 默认 GET，其余参数与 request 动作相同），
+     * 其他参数作为每一项的默认值。结果按输入顺序返回
+     */
+    private CompletableFuture<PluginResult> doMulti(Map<String, Object> params, PluginContext context) {
+        Object requests = params.get("requests");
+        if (!(requests instanceof List) || ((List<?>) requests).isEmpty()) {
+            throw new PluginException("MISSING_PARAM", "缺少必需参数: requests");
+        }
+        List<?> specs = (List<?>) requests;
+        if (specs.size() > multiMaxRequests) {
+            throw new PluginException("INVALID_PARAM", "requests 不能超过 " + multiMaxRequests + " 项");
+        }
+        boolean failFast = parseMultiMode(Params.getString(params, "mode", "collectAll"));
+        Map<String, Object> defaults = new HashMap<>(params);
+        defaults.keySet().removeAll(MULTI_PARAMS);
+
+        List<Map<String, Object>> items = new ArrayList<>(specs.size());
+        List<String> hosts = new ArrayList<>(specs.size());
+        for (Object spec : specs) {
+            Map<String, Object> item = new HashMap<>(defaults);
+            if (spec instanceof Map) {
+                ((Map<?, ?>) spec).forEach((k, v) -> item.put(String.valueOf(k), v));
+            }
+            items.add(item);
+            hosts.add(hostOf(Params.getString(item, "url", "")));
+        }
+
+        FanOut fanOut = new FanOut(hosts, index -> startMultiItem(items.get(index)),
+                Params.getInt(params, "concurrency", multiConcurrency),
+                Params.getInt(params, "perHostConcurrency", multiPerHostConcurrency),
+                result -> !isOk(result), failFast);
+        CompletableFuture<FanOut.Outcome> outcome = fanOut.run();
+        CompletableFuture<PluginResult> result = outcome.thenApply(this::toMultiResult);
+        result.whenComplete((r, e) -> {
+            // 调用方取消时一并取消进行中的请求
+            if (result.isCancelled()) {
+                outcome.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private CompletableFuture<PluginResult> startMultiItem(Map<String, Object> item) {
+        try {
+            String method = Params.getString(item, "method", "GET").toUpperCase(Locale.ROOT);
+            String url = getRequiredParam(item, "url");
+            Object body = item.get("body");
+            return executeHttpRequest(method, url, getHeaders(item), body == null ? null : body.toString(), item);
+        } catch (PluginException e) {
+            // 本仓库按 ("错误码", "描述") 构造 PluginException
+            return CompletableFuture.completedFuture(PluginResult.failure(e.getMessage(), e.getErrorCode()));
+        }
+    }
+
+    private PluginResult toMultiResult(FanOut.Outcome outcome) {
+        List<Map<String, Object>> results = new ArrayList<>();
+        int succeeded = 0;
+        for (int i = 0; i < outcome.getResults().size(); i++) {
+            PluginResult item = outcome.getResults().get(i);
+            Map<String, Object> entry = new HashMap<>();
+            if (item.getDataAsMap() != null) {
+                entry.putAll(item.getDataAsMap());
+            }
+            entry.put("index", i);
+            entry.put("success", item.isSuccess());
+            entry.put("ok", isOk(item));
+            if (!item.isSuccess()) {
+                entry.put("errorCode", item.getErrorCode());
+                entry.put("error", item.getError());
+            }
+            if (isOk(item)) {
+                succeeded++;
+            }
+            results.add(entry);
+        }
+        if (outcome.getFailedIndex() >= 0) {
+            PluginResult failed = outcome.getResults().get(outcome.getFailedIndex());
+            String reason = failed.isSuccess()
+                    ? "HTTP " + failed.getDataAsMap().get("statusCode") : failed.getError();
+            return PluginResult.failure("MULTI_REQUEST_FAILED",
+                    "请求 #" + outcome.getFailedIndex() + " 失败: " + reason)
+                    .withMetadata("failedIndex", outcome.getFailedIndex());
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("results", results);
+        data.put("total", results.size());
+        data.put("succeeded", succeeded);
+        data.put("failed", results.size() - succeeded);
+        return PluginResult.success(data);
+    }
+
+    /**
+     * 请求成功且状态码小于 400
+     */
+    private static boolean isOk(PluginResult result) {
+        if (!result.isSuccess()) {
+            return false;
+        }
+        Object status = result.getDataAsMap() == null ? null : result.getDataAsMap().get("statusCode");
+        return !(status instanceof Integer) || (Integer) status < 400;
+    }
+
+    private static boolean parseMultiMode(String mode) {
+        switch (mode.trim().toLowerCase(Locale.ROOT)) {
+            case "failfast":
+                return true;
+            case "collectall":
+                return false;
+            default:
+                throw new PluginException("INVALID_PARAM", "不支持的 mode: " + mode + "（failFast / collectAll）");
+        }
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host == null ? "" : host.toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    /**
+     * 客户端状态：协议版本和并发许可使用情况
+     */
+    private PluginResult doStats(Map<String, Object> params, PluginContext context) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("httpVersion", defaultVersion.name());
+        result.put("connections", limiter.stats());
+        Map<String, Object> retry = retryPolicy.stats();
+        retry.put("hedges", hedges.get());
+        retry.put("hedgeWins", hedgeWins.get());
+        retry.put("hedgeDelayMs", latency.stats(hedgeMinSamples));
+        result.put("retry", retry);
+        if (responseCache != null) {
+            result.put("cache", responseCache.stats());
+        }
+        if (getJournal() != null) {
+            result.put("journal", getJournal().stats());
+        }
+        return PluginResult.success(result);
+    }
+
     /**
      * 执行 HTTP 请求
+     * 返回的 future 总是以 PluginResult 正常完成；取消它会中止正在进行的请求和尚未开始的重试
      */
-    private PluginResult executeHttpRequest(String method, String url,
+    private CompletableFuture<PluginResult> executeHttpRequest(String method, String url,
             Map<String, String> headers, String body, Map<String, Object> params) {
 
-        int timeout = (Integer) params.getOrDefault("timeout", defaultTimeout);
-        int maxRetries = (Integer) params.getOrDefault("retryCount", defaultRetryCount);
-
-        int attempt = 0;
-        Exception lastException = null;
-
-        while (attempt < maxRetries) {
-            attempt++;
-            try {
-                HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
-                conn.setRequestMethod(method);
-                conn.setConnectTimeout(timeout);
-                conn.setReadTimeout(timeout);
-                conn.setDoInput(true);
-
-                // 设置请求头
-                headers.forEach(conn::setRequestProperty);
-
-                // 发送请求体
-                if (body != null && !body.isEmpty()) {
-                    conn.setDoOutput(true);
-                    try (OutputStream os = conn.getOutputStream()) {
-                        os.write(body.getBytes(StandardCharsets.UTF_8));
-                    }
+        int timeout = Params.getInt(params, "timeout", defaultTimeout);
+        int maxRetries = Math.max(1, Params.getInt(params, "retryCount", defaultRetryCount));
+        // 请求体超过阈值时 gzip 压缩，压缩后没有变小则按原样发送
+        byte[] payload = body == null || body.isEmpty() ? null : body.getBytes(StandardCharsets.UTF_8);
+        byte[] wire = payload;
+        String requestEncoding = null;
+        int threshold = Params.getInt(params, "compressRequestThreshold", compressRequestThreshold);
+        if (payload != null && threshold > 0 && payload.length >= threshold && !hasHeader(headers, "Content-Encoding")) {
+            byte[] compressed = gzip(payload);
+            if (compressed.length < payload.length) {
+                wire = compressed;
+                requestEncoding = "gzip";
+            }
+        }
+        boolean decompress = Params.getBoolean(params, "acceptCompression", acceptCompression);
+        HttpRequest request = buildRequest(method, url, headers, wire, requestEncoding, decompress, timeout, params);
+        ResponseBody.Format format = ResponseBody.Format.of(Params.getString(params, "bodyFormat", "auto"));
+        // select 指定路径时边收边解析 JSON，只返回这些路径的值
+        Object select = params.get("select");
+        if (select != null) {
+            format = ResponseBody.Format.JSON;
+        }
+
+        // saveTo 指定时 2xx 响应体直接写入 fileRoot 下的文件，结果只包含路径和大小
+        String saveTo = Params.getString(params, "saveTo", null);
+        Path file = null;
+        if (saveTo != null) {
+            file = fileAccess.resolve(saveTo);
+            if (!Params.getBoolean(params, "overwrite", false) && Files.exists(file)) {
+                throw new PluginException("FILE_EXISTS", "目标文件已存在: " + saveTo);
+            }
+        }
+        JsonProjection projection = null;
+        if (format == ResponseBody.Format.JSON) {
+            if (saveTo != null) {
+                throw new PluginException("INVALID_PARAM", "saveTo 不能与 JSON 解析同时使用");
+            }
+            projection = select != null ? JsonProjection.of(select) : JsonProjection.whole();
+        }
+        BoundedBodyHandler bodyHandler = new BoundedBodyHandler(
+                Params.getLong(params, "maxBodySize", maxBodySize),
+                parseOverflow(Params.getString(params, "bodyOverflow", truncateBody ? "truncate" : "fail")),
+                file,
+                Params.getLong(params, "maxDownloadSize", maxDownloadSize),
+                decompress,
+                projection,
+                clientExecutor);
+
+        Call call = new Call(request, bodyHandler, format, saveTo, timeout, maxRetries);
+        call.idempotent = Params.getBoolean(params, "idempotent", RetryPolicy.isIdempotent(method, request.headers()));
+        // 对冲只用于 GET，写文件的下载不对冲
+        call.hedge = "GET".equals(method) && saveTo == null && Params.getBoolean(params, "hedge", hedgeEnabled);
+        call.requestBytes = payload == null ? 0 : payload.length;
+        call.requestWireBytes = wire == null ? 0 : wire.length;
+        call.requestEncoding = requestEncoding;
+
+        // GET 先查缓存；调用方自带条件头时由调用方处理 304，不使用缓存；解析 JSON 时没有原始内容可缓存
+        boolean useCache = responseCache != null && saveTo == null && projection == null
+                && Params.getBoolean(params, "cache", true)
+                && HttpResponseCache.isCacheableRequest(method, request.headers())
+                && request.headers().firstValue("If-None-Match").isEmpty()
+                && request.headers().firstValue("If-Modified-Since").isEmpty();
+        if (useCache) {
+            call.cacheKey = HttpResponseCache.keyOf(request.uri());
+            CompletableFuture<HttpResponseCache.Lookup> lookup = responseCache.lookup(call.cacheKey, request.headers());
+            if (lookup.isDone()) {
+                return dispatch(call, lookup.join());
+            }
+            // 内存未命中时在缓存的磁盘线程上读取，读完再继续；取消返回的 Future 时一并取消请求
+            CompletableFuture<PluginResult> result = lookup.thenCompose(found -> dispatch(call, found));
+            result.whenComplete((r, e) -> {
+                if (result.isCancelled()) {
+                    call.result.cancel(true);
                 }
+            });
+            return result;
+        }
+        if (responseCache != null && !"GET".equals(method) && !"HEAD".equals(method)) {
+            // 非安全方法成功后失效该 URI 的缓存
+            call.invalidateKey = HttpResponseCache.keyOf(request.uri());
+        }
+        return dispatch(call, null);
+    }
+
+    /**
+     * 按缓存查找结果直接返回缓存内容，或带上条件头发出请求
+     *
+     * @param lookup 缓存查找结果，不使用缓存时为 null
+     */
+    private CompletableFuture<PluginResult> dispatch(Call call, HttpResponseCache.Lookup lookup) {
+        if (lookup != null) {
+            switch (lookup.getState()) {
+                case FRESH:
+                    return CompletableFuture.completedFuture(cachedResult(lookup.getEntry(), "hit", call, 0));
+                case STALE_WHILE_REVALIDATE:
+                    revalidateInBackground(call, lookup.getEntry());
+                    return CompletableFuture.completedFuture(cachedResult(lookup.getEntry(), "stale", call, 0));
+                case STALE:
+                    call.cached = lookup.getEntry();
+                    call.request = conditional(call.request, call.cached);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        call.result.whenComplete((result, e) -> {
+            if (call.result.isCancelled()) {
+                call.cancel();
+            }
+        });
+        retryPolicy.onRequest();
+        attempt(call, 1);
+        return call.result;
+    }
+
+    /**
+     * 发起一次尝试：异步获取许可，再异步发送；幂等的 GET 在耗时超过分位数后再发一个对冲请求，先到的响应生效。
+     * 失败或遇到可重试的状态码时，在预算允许的情况下交给定时器退避后重试
+     */
+    private void attempt(Call call, int attempt) {
+        if (call.result.isDone()) {
+            return;
+        }
+        CompletableFuture<HttpResponse<ResponseBody>> response = call.hedge ? sendHedged(call) : send(call);
+        if (call.result.isCancelled()) {
+            call.cancel();
+            return;
+        }
+
+        response.whenComplete((r, e) -> {
+            if (e == null) {
+                long delay = attempt < call.maxRetries ? retryPolicy.retryDelay(r, call.idempotent, attempt) : -1;
+                if (delay >= 0 && retryPolicy.tryAcquire()) {
+                    logger.warn("HTTP 响应 {}，{}ms 后重试 (尝试 {}/{})", r.statusCode(), delay, attempt, call.maxRetries);
+                    scheduleRetry(call, attempt, delay);
+                    return;
+                }
+                call.result.complete(complete(r, call, attempt));
+                return;
+            }
+            Throwable cause = unwrap(e);
+            if (cause instanceof PluginException) {
+                // 响应体超限、写文件失败等，重试也不会改变结果。
+                // 本仓库按 ("错误码", "描述") 构造 PluginException，对应 API 构造器的 (message, errorCode)
+                call.result.complete(PluginResult.failure(cause.getMessage(), ((PluginException) cause).getErrorCode()));
+                return;
+            }
+            String host = call.request.uri().getHost();
+            if (cause instanceof TimeoutException && cause.getMessage() == null) {
+                // orTimeout 的超时异常没有消息，说明卡在等待许可
+                cause = new TimeoutException("等待连接许可超时 (" + call.timeout + "ms): " + host);
+            }
+            // 非幂等请求可能已被服务端处理，网络错误后不重试
+            boolean retryable = call.idempotent && (cause instanceof IOException || cause instanceof TimeoutException);
+            if (!retryable || attempt >= call.maxRetries || !retryPolicy.tryAcquire()) {
+                call.result.complete(PluginResult.failure("HTTP_REQUEST_FAILED",
+                        "请求失败 (尝试 " + attempt + " 次): " + describe(cause)));
+                return;
+            }
+            long delay = retryPolicy.backoff(attempt);
+            logger.warn("HTTP 请求失败，{}ms 后重试 (尝试 {}/{}): {}", delay, attempt, call.maxRetries, cause.getMessage());
+            scheduleRetry(call, attempt, delay);
+        });
+    }
 
-                // 读取响应
-                int responseCode = conn.getResponseCode();
-                BufferedReader reader = new BufferedReader(new InputStreamReader(
-                        responseCode >= 200 && responseCode < 300
-                                ? conn.getInputStream()
-                                : conn.getErrorStream(),
-                        StandardCharsets.UTF_8));
-
-                StringBuilder response = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    response.append(line);
+    /**
+     * 退避期间不占用线程
+     */
+    private void scheduleRetry(Call call, int attempt, long delayMs) {
+        try {
+            call.track(retryScheduler.schedule(() -> attempt(call, attempt + 1), delayMs, TimeUnit.MILLISECONDS));
+        } catch (RejectedExecutionException rejected) {
+            call.result.complete(PluginResult.failure("HTTP_REQUEST_FAILED",
+                    "请求失败 (尝试 " + attempt + " 次): 插件已销毁"));
+        }
+    }
+
+    /**
+     * 获取许可后发送一次请求，收到响应时记录耗时
+     */
+    private CompletableFuture<HttpResponse<ResponseBody>> send(Call call) {
+        String host = call.request.uri().getHost();
+        // 排队等待许可最多 timeout 毫秒；取消这个 future 即退出队列
+        CompletableFuture<ConnectionLimiter.Permit> permitFuture = limiter.acquire(host)
+                .orTimeout(call.timeout, TimeUnit.MILLISECONDS);
+        call.track(permitFuture);
+        return permitFuture.thenCompose(permit -> {
+            call.sentAt = System.currentTimeMillis();
+            long start = System.nanoTime();
+            CompletableFuture<HttpResponse<ResponseBody>> sent = client.sendAsync(call.request, call.bodyHandler);
+            call.track(sent);
+            if (call.result.isCancelled()) {
+                sent.cancel(true);
+            }
+            // 许可归还放在返回的阶段里，结果完成时许可已经释放
+            return sent.whenComplete((r, e) -> {
+                permit.close();
+                if (e == null) {
+                    latency.record(HostLatency.keyOf(call.request.uri()),
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
                 }
-                reader.close();
-
-                Map<String, Object> result = new HashMap<>();
-                result.put("statusCode", responseCode);
-                result.put("body", response.toString());
-                result.put("headers", conn.getHeaderFields());
-                result.put("attempt", attempt);
-
-                return PluginResult.success(result);
-
-            } catch (Exception e) {
-                lastException = e;
-                logger.warn("HTTP 请求失败 (尝试 {}/{}): {}", attempt, maxRetries, e.getMessage());
-                if (attempt < maxRetries) {
-                    try {
-                        Thread.sleep(1000L * attempt); // 指数退避
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
+            });
+        });
+    }
+
+    /**
+     * 对冲请求：第一个请求在同一 host 的分位数耗时内没有返回时再发一个，取先成功的响应并取消另一个。
+     * 该 host 样本不足时不对冲；对冲请求和重试共用预算
+     */
+    private CompletableFuture<HttpResponse<ResponseBody>> sendHedged(Call call) {
+        long delay = latency.get(HostLatency.keyOf(call.request.uri()), hedgeMinSamples);
+        if (delay < 0) {
+            return send(call);
+        }
+        CompletableFuture<HttpResponse<ResponseBody>> winner = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        BiConsumer<HttpResponse<ResponseBody>, Throwable> settle = (r, e) -> {
+            if (e == null) {
+                winner.complete(r);
+            } else if (outstanding.decrementAndGet() == 0) {
+                winner.completeExceptionally(e);
+            }
+        };
+        send(call).whenComplete(settle);
+        ScheduledFuture<?> timer = retryScheduler.schedule(() -> {
+            if (winner.isDone() || call.result.isDone() || !retryPolicy.tryAcquire()) {
+                return;
+            }
+            outstanding.incrementAndGet();
+            hedges.incrementAndGet();
+            call.hedged = true;
+            send(call).whenComplete((r, e) -> {
+                if (e == null && !winner.isDone()) {
+                    hedgeWins.incrementAndGet();
                 }
+                settle.accept(r, e);
+            });
+        }, Math.max(delay, hedgeMinDelayMs), TimeUnit.MILLISECONDS);
+        call.track(timer);
+        // 有结果后放弃还在进行的另一个请求
+        return winner.whenComplete((r, e) -> call.cancel());
+    }
+
+    /**
+     * 响应到达：304 刷新缓存条目并返回缓存内容，其他响应按缓存规则保存；非安全方法成功时失效缓存
+     */
+    private PluginResult complete(HttpResponse<ResponseBody> response, Call call, int attempt) {
+        if (call.cacheKey == null) {
+            if (call.invalidateKey != null && response.statusCode() < 400) {
+                responseCache.invalidate(call.invalidateKey);
             }
+            return toResult(response, call, attempt);
         }
+        if (response.statusCode() == 304 && call.cached != null) {
+            HttpResponseCache.Entry refreshed = responseCache.refresh(call.cached, response.headers(), call.sentAt);
+            return cachedResult(refreshed, "revalidated", call, attempt);
+        }
+        responseCache.store(call.cacheKey, call.request.headers(), response, call.sentAt);
+        PluginResult result = toResult(response, call, attempt);
+        result.getDataAsMap().put("cache", "miss");
+        return result;
+    }
 
-        return PluginResult.failure("HTTP_REQUEST_FAILED",
-                "请求失败 (尝试 " + attempt + " 次): " + lastException.getMessage());
+    /**
+     * 由缓存条目构造结果，cache 标明来源：hit、stale（后台验证中）或 revalidated（304）
+     */
+    private static PluginResult cachedResult(HttpResponseCache.Entry entry, String cacheState, Call call, int attempt) {
+        ResponseBody body = entry.toBody();
+        Map<String, Object> result = new HashMap<>();
+        result.put("statusCode", entry.getStatusCode());
+        body.writeTo(result, call.format);
+        result.put("headers", entry.getHeaders());
+        result.put("version", entry.getVersion());
+        result.put("attempt", attempt);
+        result.put("cache", cacheState);
+        if (attempt == 0) {
+            // 没有发出请求
+            call.requestWireBytes = 0;
+        }
+        return withTransferMetadata(PluginResult.success(result), call, body);
+    }
+
+    /**
+     * stale-while-revalidate：旧内容已返回，后台发一次条件请求更新缓存；同一个 URI 同时只验证一次
+     */
+    private void revalidateInBackground(Call original, HttpResponseCache.Entry entry) {
+        if (!responseCache.beginRevalidation(original.cacheKey)) {
+            return;
+        }
+        Call call = new Call(conditional(original.request, entry), original.bodyHandler, original.format,
+                null, original.timeout, 1);
+        call.cacheKey = original.cacheKey;
+        call.cached = entry;
+        call.result.whenComplete((result, e) -> responseCache.endRevalidation(call.cacheKey));
+        attempt(call, 1);
+    }
+
+    /**
+     * 在原请求上加 If-None-Match / If-Modified-Since
+     */
+    private static HttpRequest conditional(HttpRequest request, HttpResponseCache.Entry entry) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request, (name, value) -> true);
+        entry.conditionalHeaders().forEach(builder::header);
+        return builder.build();
+    }
+
+    private static PluginResult toResult(HttpResponse<ResponseBody> response, Call call, int attempt) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("statusCode", response.statusCode());
+        response.body().writeTo(result, call.format);
+        if (response.body().getFile() != null) {
+            // 与数据库导出一致，返回调用方给出的相对路径
+            result.put("path", call.saveTo);
+        }
+        result.put("headers", ResponseBody.visibleHeaders(response.headers().map(), response.body().isDecoded()));
+        result.put("version", response.version().name());
+        result.put("attempt", attempt);
+        if (call.hedged) {
+            result.put("hedged", true);
+        }
+        return withTransferMetadata(PluginResult.success(result), call, response.body());
+    }
+
+    /**
+     * 元数据：请求和响应的原始字节数、实际传输字节数，压缩时附带编码和压缩比（原始 / 传输）
+     */
+    private static PluginResult withTransferMetadata(PluginResult result, Call call, ResponseBody body) {
+        result.withMetadata("requestBytes", call.requestBytes)
+                .withMetadata("requestWireBytes", call.requestWireBytes)
+                .withMetadata("responseBytes", body.getSize())
+                .withMetadata("responseWireBytes", body.getWireBytes());
+        if (call.requestEncoding != null) {
+            result.withMetadata("requestEncoding", call.requestEncoding)
+                    .withMetadata("requestCompressionRatio", ratio(call.requestBytes, call.requestWireBytes));
+        }
+        if (body.getContentEncoding() != null) {
+            result.withMetadata("responseEncoding", body.getContentEncoding());
+            if (body.isDecoded()) {
+                result.withMetadata("responseCompressionRatio", ratio(body.getSize(), body.getWireBytes()));
+            }
+        }
+        return result;
+    }
+
+    private static double ratio(long raw, long wire) {
+        return wire <= 0 ? 1.0 : Math.round(raw * 100.0 / wire) / 100.0;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            // 内存流不会出现 I/O 错误
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean hasHeader(Map<String, String> headers, String name) {
+        return headers.keySet().stream().anyMatch(name::equalsIgnoreCase);
+    }
+
+    /**
+     * 同步调用等待异步结果；调用线程被中断时取消请求
+     */
+    private static PluginResult await(CompletableFuture<PluginResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return PluginResult.failure("HTTP_REQUEST_FAILED", "请求被中断");
+        } catch (ExecutionException e) {
+            return PluginResult.failure("HTTP_REQUEST_FAILED", describe(unwrap(e)));
+        }
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+
+    /**
+     * 构造请求；请求对象不可变，重试时复用
+     */
+    private HttpRequest buildRequest(String method, String url, Map<String, String> headers, byte[] body,
+                                     String contentEncoding, boolean acceptCompression,
+                                     int timeout, Map<String, Object> params) {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            throw new PluginException("INVALID_PARAM", "无效的 URL: " + url);
+        }
+        if (uri.getHost() == null || !("http".equalsIgnoreCase(uri.getScheme())
+                || "https".equalsIgnoreCase(uri.getScheme()))) {
+            throw new PluginException("INVALID_PARAM", "只支持 http/https 地址: " + url);
+        }
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMillis(timeout))
+                .version(parseVersion(Params.getString(params, "httpVersion", defaultVersion.name())))
+                .method(method, body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body));
+        if (contentEncoding != null) {
+            builder.header("Content-Encoding", contentEncoding);
+        }
+        if (acceptCompression && !hasHeader(headers, "Accept-Encoding")) {
+            builder.header("Accept-Encoding", "gzip, deflate");
+        }
+
+        // 设置请求头
+        headers.forEach((name, value) -> {
+            if (RESTRICTED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                logger.debug("忽略由客户端管理的请求头: {}", name);
+            } else {
+                builder.header(name, value);
+            }
+        });
+        return builder.build();
+    }
+
+    /**
+     * 响应体超限时的处理方式：truncate 截断，fail 失败
+     */
+    private static boolean parseOverflow(String value) {
+        if ("truncate".equalsIgnoreCase(value)) {
+            return true;
+        }
+        if ("fail".equalsIgnoreCase(value)) {
+            return false;
+        }
+        throw new PluginException("INVALID_PARAM", "bodyOverflow 只支持 truncate 或 fail: " + value);
+    }
+
+    private static HttpClient.Version parseVersion(String value) {
+        String normalized = value.trim().toUpperCase(Locale.ROOT).replace('.', '_').replace('/', '_');
+        if ("HTTP_1_1".equals(normalized) || "HTTP_1".equals(normalized)) {
+            return HttpClient.Version.HTTP_1_1;
+        }
+        if ("HTTP_2".equals(normalized) || "HTTP_2_0".equals(normalized)) {
+            return HttpClient.Version.HTTP_2;
+        }
+        throw new PluginException("INVALID_PARAM", "不支持的 HTTP 版本: " + value);
+    }
+
+    private static String describe(Throwable e) {
+        if (e == null) {
+            return "未知错误";
+        }
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
     }
 
     @SuppressWarnings("unchecked")
@@ -220,4 +979,65 @@ public class HttpClientPlugin extends AbstractPlugin {
         }
         return value.toString();
     }
+
+    /**
+     * 异步动作处理器
+     */
+    @FunctionalInterface
+    private interface AsyncActionHandler {
+        CompletableFuture<PluginResult> execute(Map<String, Object> params, PluginContext context);
+    }
+
+    /**
+     * 一次调用的状态，跨多次尝试共享
+     */
+    private static final class Call {
+        // 重新验证时换成带条件头的请求
+        private HttpRequest request;
+        private final BoundedBodyHandler bodyHandler;
+        private final ResponseBody.Format format;
+        private final String saveTo;
+        private final int timeout;
+        private final int maxRetries;
+        private final CompletableFuture<PluginResult> result = new CompletableFuture<>();
+        // 进行中的请求、对冲定时器或已排定的重试
+        private final Set<Future<?>> inFlight = ConcurrentHashMap.newKeySet();
+        private boolean idempotent;
+        private boolean hedge;
+        private volatile boolean hedged;
+        private long requestBytes;
+        private long requestWireBytes;
+        private String requestEncoding;
+        private volatile long sentAt;
+        // 使用缓存时的键，以及待验证的条目
+        private String cacheKey;
+        private HttpResponseCache.Entry cached;
+        private String invalidateKey;
+
+        private Call(HttpRequest request, BoundedBodyHandler bodyHandler, ResponseBody.Format format,
+                     String saveTo, int timeout, int maxRetries) {
+            this.request = request;
+            this.bodyHandler = bodyHandler;
+            this.format = format;
+            this.saveTo = saveTo;
+            this.timeout = timeout;
+            this.maxRetries = maxRetries;
+        }
+
+        private void track(CompletableFuture<?> future) {
+            inFlight.add(future);
+            future.whenComplete((r, e) -> inFlight.remove(future));
+        }
+
+        private void track(Future<?> future) {
+            inFlight.add(future);
+        }
+
+        private void cancel() {
+            for (Future<?> future : inFlight) {
+                future.cancel(true);
+            }
+            inFlight.clear();
+        }
+    }
 }
@@ -5,9 +5,24 @@ import io.bolt.plugin.api.PluginContext;
 import io.bolt.plugin.api.PluginException;
 import io.bolt.plugin.api.PluginResult;
 import io.bolt.plugin.api.node.*;
-
+import io.bolt.plugin.examples.jdbc.QueryOptions;
+import io.bolt.plugin.examples.jdbc.QueryPage;
+import io.bolt.plugin.examples.jdbc.ReplicaRouter;
+import io.bolt.plugin.examples.jdbc.ResultSetExporter;
+import io.bolt.plugin.examples.jdbc.SimpleConnectionPool;
+import io.bolt.plugin.examples.jdbc.SqlStats;
+import io.bolt.plugin.examples.jdbc.StatementTracker;
+import io.bolt.plugin.util.BoundedExecutor;
+import io.bolt.plugin.util.FileAccess;
+import io.bolt.plugin.util.Params;
+
+import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 public class ModernDatabasePlugin extends AbstractPlugin {
 
@@ -17,6 +32,13 @@ public class ModernDatabasePlugin extends AbstractPlugin {
     private String jdbcUrl;
     private String username;
     private String password;
+    private QueryOptions defaultQueryOptions;
+    private FileAccess fileAccess;
+    private ReplicaRouter router;
+    private StatementTracker statementTracker;
+    private long queryTimeoutMs;
+    private SqlStats sqlStats;
+    private BoundedExecutor asyncExecutor;
 
     @Override
     public String getPluginId() {
@@ -53,8 +75,40 @@ public class ModernDatabasePlugin extends AbstractPlugin {
         this.jdbcUrl = getRequiredProperty("jdbcUrl");
         this.username = getRequiredProperty("username");
         this.password = getRequiredProperty("password");
-
-        try (Connection conn = DriverManager.getConnection(jdbcUrl, username, password)) {
+        this.defaultQueryOptions = QueryOptions.defaults(
+                config.getIntProperty("fetchSize", 1000),
+                config.getIntProperty("maxRows", 100000),
+                config.getIntProperty("maxResultBytes", 64 * 1024 * 1024));
+        this.fileAccess = FileAccess.of(getProperty("fileRoot", ""));
+        this.queryTimeoutMs = config.getIntProperty("queryTimeoutMs", 30000);
+        this.statementTracker = new StatementTracker(config.getIntProperty("timeoutCheckIntervalMs", 100));
+        this.sqlStats = config.getBooleanProperty("sqlStatsEnabled", true)
+                ? new SqlStats(config.getIntProperty("sqlStatsMaxFingerprints", 500),
+                        config.getIntProperty("slowQueryThresholdMs", 1000),
+                        config.getIntProperty("slowQueryLogSize", 100))
+                : null;
+
+        int maxPoolSize = config.getIntProperty("maxPoolSize", 10);
+        int connectionTimeoutMs = config.getIntProperty("connectionTimeoutMs", 30000);
+        List<SimpleConnectionPool> replicaPools = new ArrayList<>();
+        for (String replicaUrl : ReplicaRouter.parseUrls(config.getProperty("replicaUrls"))) {
+            replicaPools.add(new SimpleConnectionPool(replicaUrl,
+                    getProperty("replicaUsername", username), getProperty("replicaPassword", password),
+                    maxPoolSize, connectionTimeoutMs));
+        }
+        this.router = new ReplicaRouter(
+                new SimpleConnectionPool(jdbcUrl, username, password, maxPoolSize, connectionTimeoutMs),
+                replicaPools,
+                config.getIntProperty("replicaEjectAfterFailures", 3),
+                config.getIntProperty("replicaEjectMs", 30000),
+                config.getIntProperty("readYourWritesMs", 60000));
+
+        // 异步节点的并发不超过连接池大小，多出的请求排队而不是堆在连接池的借出等待上
+        this.asyncExecutor = new BoundedExecutor("bolt-modern-db",
+                config.getIntProperty("asyncMaxConcurrency", maxPoolSize),
+                config.getIntProperty("asyncQueueSize", 1000));
+
+        try (Connection conn = getConnection()) {
             if (!conn.isValid(5)) {
                 throw new PluginException("CONNECTION_FAILED", "数据库连接测试失败");
             }
@@ -62,13 +116,16 @@ public class ModernDatabasePlugin extends AbstractPlugin {
             throw new PluginException("CONNECTION_FAILED", "数据库连接失败: " + e.getMessage(), e);
         }
 
-        logger.info("ModernDatabasePlugin 初始化成功，连接: {}", jdbcUrl);
+        logger.info("ModernDatabasePlugin 初始化成功，连接: {}，异步执行: {}", jdbcUrl,
+                asyncExecutor.isVirtual() ? "虚拟线程" : "平台线程池");
     }
 
     @Override
     protected void registerActions() {
         registerAction("query", this::doQuery);
         registerAction("execute", this::doExecute);
+        registerAction("export", this::doExport);
+        registerAction("stats", this::doStats);
     }
 
     @Override
@@ -81,38 +138,142 @@ public class ModernDatabasePlugin extends AbstractPlugin {
         @SuppressWarnings("unchecked")
         List<Object> sqlParams = (List<Object>) params.get("params");
 
-        try (Connection conn = getConnection();
-             PreparedStatement stmt = prepareStatement(conn, sql, sqlParams);
-             ResultSet rs = stmt.executeQuery()) {
-
-            ResultSetMetaData metaData = rs.getMetaData();
-            int columnCount = metaData.getColumnCount();
+        try (StatementTracker.Scope scope = statementTracker.open(
+                Params.getLong(params, "timeoutMs", queryTimeoutMs), null)) {
+            try {
+                long[] bytes = new long[1];
+                return PluginResult.success(runQuery(sql, sqlParams, QueryOptions.from(params, defaultQueryOptions),
+                        executionKey(context), Params.getBoolean(params, "readFromPrimary", false), scope, bytes))
+                        .withMetadata(RESULT_BYTES, bytes[0]);
+            } catch (SQLException | IOException e) {
+                logger.error("查询失败: {}", scope.describe(e));
+                return PluginResult.failure(scope.errorCode("QUERY_FAILED"), scope.describe(e));
+            }
+        }
+    }
 
-            List<Map<String, Object>> rows = new ArrayList<>();
-            while (rs.next()) {
-                Map<String, Object> row = new HashMap<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    row.put(metaData.getColumnLabel(i), rs.getObject(i));
-                }
-                rows.add(row);
+    private PluginResult doExecute(Map<String, Object> params, PluginContext context) {
+        String sql = getRequiredParam(params, "sql");
+        router.markWrite(executionKey(context));
+
+        try (StatementTracker.Scope scope = statementTracker.open(
+                Params.getLong(params, "timeoutMs", queryTimeoutMs), null)) {
+            try {
+                return PluginResult.success(runExecute(sql, executionKey(context), scope));
+            } catch (SQLException e) {
+                logger.error("执行失败: {}", scope.describe(e));
+                return PluginResult.failure(scope.errorCode("EXECUTION_FAILED"), scope.describe(e));
             }
+        }
+    }
 
-            Map<String, Object> result = new HashMap<>();
-            result.put("rows", rows);
-            result.put("count", rows.size());
+    /**
+     * 导出查询结果到 fileRoot 下的文件，结果不经过插件返回值
+     */
+    private PluginResult doExport(Map<String, Object> params, PluginContext context) {
+        String sql = getRequiredParam(params, "sql");
+        @SuppressWarnings("unchecked")
+        List<Object> sqlParams = (List<Object>) params.get("params");
+        Path file = fileAccess.resolve(getRequiredParam(params, "file"));
+        ResultSetExporter exporter = new ResultSetExporter(file, params);
+
+        // 导出是长任务，只有显式传入 timeoutMs 时才限制
+        try (StatementTracker.Scope scope = statementTracker.open(Params.getLong(params, "timeoutMs", 0), null)) {
+            try {
+                Map<String, Object> result = router.read(executionKey(context),
+                        Params.getBoolean(params, "readFromPrimary", false),
+                        scope.guard(conn -> exporter.export(conn, sql, sqlParams,
+                                Params.getInt(params, "fetchSize", defaultQueryOptions.getFetchSize()),
+                                rows -> logger.info("导出进度 {}: {} 行", file.getFileName(), rows))));
+                result.put("path", params.get("file"));
+                return PluginResult.success(result);
+            } catch (SQLException | IOException e) {
+                logger.error("导出失败: {}", scope.describe(e));
+                return PluginResult.failure(scope.errorCode("EXPORT_FAILED"), scope.describe(e));
+            }
+        }
+    }
 
-            return PluginResult.success(result);
+    /**
+     * 按 SQL 指纹聚合的运行统计与慢查询日志，参数同 DatabasePlugin 的 stats 动作
+     */
+    private PluginResult doStats(Map<String, Object> params, PluginContext context) {
+        Map<String, Object> result = sqlStats != null
+                ? sqlStats.snapshot(Params.getString(params, "sortBy", "totalTime"), Params.getInt(params, "limit", 50))
+                : new HashMap<>();
+        result.put("enabled", sqlStats != null);
+        result.put("statements", statementTracker.stats());
+        if (router.hasReplicas()) {
+            result.put("routing", router.stats());
+        }
+        Map<String, Object> async = new HashMap<>();
+        async.put("virtualThreads", asyncExecutor.isVirtual());
+        async.put("maxConcurrency", asyncExecutor.getMaxConcurrency());
+        async.put("running", asyncExecutor.getRunning());
+        async.put("pending", asyncExecutor.getPending());
+        result.put("async", async);
+        if (getJournal() != null) {
+            result.put("journal", getJournal().stats());
+        }
+        if (sqlStats != null && Params.getBoolean(params, "reset", false)) {
+            sqlStats.reset();
+        }
+        return PluginResult.success(result);
+    }
 
-        } catch (SQLException e) {
-            logger.error("查询失败: {}", e.getMessage());
-            return PluginResult.failure("QUERY_FAILED", e.getMessage());
+    @Override
+    protected void doDestroy() throws Exception {
+        if (asyncExecutor != null) {
+            asyncExecutor.close();
+        }
+        // 先取消仍在执行的语句，再关闭连接池
+        if (statementTracker != null) {
+            statementTracker.close();
         }
+        if (router != null) {
+            router.close();
+        }
+        logger.info("ModernDatabasePlugin 销毁");
     }
 
-    private PluginResult doExecute(Map<String, Object> params, PluginContext context) {
-        String sql = getRequiredParam(params, "sql");
+    /**
+     * 按查询选项执行查询，Action 与 Node 两条路径共用；配置了从库时路由到从库
+     *
+     * @param bytes 结果的估算字节数写入 bytes[0]
+     */
+    private Map<String, Object> runQuery(String sql, List<Object> sqlParams, QueryOptions options,
+                                         String executionId, boolean readFromPrimary, StatementTracker.Scope scope,
+                                         long[] bytes)
+            throws SQLException, IOException {
+        long start = System.nanoTime();
+        try {
+            Map<String, Object> result = router.read(executionId, readFromPrimary, scope.guard(conn -> {
+                try (PreparedStatement stmt = prepareStatement(conn, options.effectiveSql(sql),
+                        options.effectiveParams(sql, sqlParams))) {
+
+                    options.applyTo(stmt);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        QueryPage page = QueryPage.read(rs, options, sql);
+                        bytes[0] = page.getEstimatedBytes();
+                        return page.toResult(false);
+                    }
+                }
+            }));
+            recordStats(sql, start, ((Number) result.get("count")).longValue(), bytes[0], null, executionId);
+            return result;
+        } catch (SQLException | IOException | RuntimeException e) {
+            recordStats(sql, start, 0, 0, scope.describe(e), executionId);
+            throw e;
+        }
+    }
 
-        try (Connection conn = getConnection();
+    /**
+     * 在主库执行任意 SQL，Action 与 Node 两条路径共用
+     */
+    private Map<String, Object> runExecute(String sql, String executionId, StatementTracker.Scope scope)
+            throws SQLException {
+        long start = System.nanoTime();
+        try (Connection conn = scope.wrap(getConnection());
              Statement stmt = conn.createStatement()) {
 
             boolean hasResultSet = stmt.execute(sql);
@@ -124,21 +285,63 @@ public class ModernDatabasePlugin extends AbstractPlugin {
                 result.put("updateCount", stmt.getUpdateCount());
             }
 
-            return PluginResult.success(result);
+            recordStats(sql, start, hasResultSet ? 0 : Math.max(0, stmt.getUpdateCount()), 0, null, executionId);
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            recordStats(sql, start, 0, 0, scope.describe(e), executionId);
+            throw e;
+        }
+    }
 
-        } catch (SQLException e) {
-            logger.error("执行失败: {}", e.getMessage());
-            return PluginResult.failure("EXECUTION_FAILED", e.getMessage());
+    private void recordStats(String sql, long start, long rows, long bytes, String error, String executionId) {
+        if (sqlStats == null) {
+            return;
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        if (sqlStats.record(sql, elapsedNanos, rows, bytes, error, executionId)) {
+            logger.warn("慢查询 {} ms: {}", elapsedNanos / 1_000_000, sqlStats.fingerprint(sql));
         }
     }
 
-    @Override
-    protected void doDestroy() throws Exception {
-        logger.info("ModernDatabasePlugin 销毁");
+    /**
+     * 节点的语句时限：引擎给出的超时（否则取节点默认值）减去已耗时，节点被取消时同样中止语句
+     */
+    private StatementTracker.Scope openScope(NodeContext context, long defaultTimeoutMs) {
+        long timeoutMs = context.getTimeoutMs() > 0 ? context.getTimeoutMs() : defaultTimeoutMs;
+        return statementTracker.open(Math.max(1, timeoutMs - context.getElapsedTimeMs()), context::isCancelled);
     }
 
+    /**
+     * 在有界执行器上异步执行节点，调用线程立即返回；排队已满时直接返回 ASYNC_REJECTED
+     */
+    private CompletableFuture<NodeResult> executeAsync(NodeExecutor executor, NodeContext context,
+                                                       Map<String, Object> input) {
+        return asyncExecutor.submit(() -> executor.execute(context, input))
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof RejectedExecutionException) {
+                        return NodeResult.failure("ASYNC_REJECTED", cause.getMessage());
+                    }
+                    return NodeResult.failure("EXECUTION_ERROR", String.valueOf(cause.getMessage()));
+                });
+    }
+
+    /**
+     * 节点超时或被取消时返回对应的错误结果，否则原样抛出
+     */
+    private NodeResult failure(StatementTracker.Scope scope, Exception e) throws Exception {
+        String code = scope.errorCode(null);
+        if (code == null) {
+            throw e;
+        }
+        return NodeResult.failure(code, scope.describe(e));
+    }
+
+    /**
+     * 主库连接
+     */
     private Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(jdbcUrl, username, password);
+        return router.primaryConnection();
     }
 
     private PreparedStatement prepareStatement(Connection conn, String sql, List<Object> params) throws SQLException {
@@ -173,10 +376,11 @@ public class ModernDatabasePlugin extends AbstractPlugin {
         public NodeExecutor getNodeExecutor(String nodeId) {
             String queryNodeId = PLUGIN_ID + ".query";
             String executeNodeId = PLUGIN_ID + ".execute";
+            // 同步和异步执行都写入执行日志，按对应的动作名记录
             if (queryNodeId.equals(nodeId)) {
-                return new QueryNodeExecutor();
+                return journaledNode(new QueryNodeExecutor(), "query");
             } else if (executeNodeId.equals(nodeId)) {
-                return new ExecuteNodeExecutor();
+                return journaledNode(new ExecuteNodeExecutor(), "execute");
             }
             return null;
         }
@@ -203,6 +407,34 @@ public class ModernDatabasePlugin extends AbstractPlugin {
                     "params", Map.of(
                             "type", "array",
                             "description", "SQL语句中的参数值列表"
+                    ),
+                    "fetchSize", Map.of(
+                            "type", "integer",
+                            "description", "驱动每次往返拉取的行数"
+                    ),
+                    "maxRows", Map.of(
+                            "type", "integer",
+                            "description", "最多返回的行数，超出时结果标记为截断"
+                    ),
+                    "maxBytes", Map.of(
+                            "type", "integer",
+                            "description", "结果估算字节数上限，超出时结果标记为截断"
+                    ),
+                    "pageSize", Map.of(
+                            "type", "integer",
+                            "description", "keyset 分页的每页行数，需同时指定 keyColumn"
+                    ),
+                    "keyColumn", Map.of(
+                            "type", "string",
+                            "description", "分页键列，需唯一且可排序"
+                    ),
+                    "continuationToken", Map.of(
+                            "type", "string",
+                            "description", "上一页返回的 nextToken"
+                    ),
+                    "readFromPrimary", Map.of(
+                            "type", "boolean",
+                            "description", "配置了从库时强制读主库"
                     )
             ));
             inputSchema.put("required", List.of("sql"));
@@ -217,7 +449,7 @@ public class ModernDatabasePlugin extends AbstractPlugin {
                     .inputSchema(inputSchema)
                     .capabilities(Map.of(
                             "supportsAsync", true,
-                            "supportsCancel", false,
+                            "supportsCancel", true,
                             "defaultTimeoutMs", 30000
                     ))
                     .enabled(true)
@@ -244,8 +476,8 @@ public class ModernDatabasePlugin extends AbstractPlugin {
                     .providerId(PLUGIN_ID)
                     .inputSchema(inputSchema)
                     .capabilities(Map.of(
-                            "supportsAsync", false,
-                            "supportsCancel", false,
+                            "supportsAsync", true,
+                            "supportsCancel", true,
                             "defaultTimeoutMs", 60000
                     ))
                     .enabled(true)
@@ -265,35 +497,34 @@ public class ModernDatabasePlugin extends AbstractPlugin {
                 @SuppressWarnings("unchecked")
                 List<Object> params = (List<Object>) input.get("params");
 
-                try (Connection conn = getConnection();
-                     PreparedStatement stmt = prepareStatement(conn, sql, params);
-                     ResultSet rs = stmt.executeQuery()) {
-
-                    ResultSetMetaData metaData = rs.getMetaData();
-                    int columnCount = metaData.getColumnCount();
-
-                    List<Map<String, Object>> rows = new ArrayList<>();
-                    while (rs.next()) {
-                        Map<String, Object> row = new HashMap<>();
-                        for (int i = 1; i <= columnCount; i++) {
-                            row.put(metaData.getColumnLabel(i), rs.getObject(i));
-                        }
-                        rows.add(row);
+                try (StatementTracker.Scope scope = openScope(context, getDefaultTimeoutMs())) {
+                    try {
+                        long[] bytes = new long[1];
+                        Map<String, Object> result = runQuery(sql, params, QueryOptions.from(input, defaultQueryOptions),
+                                context.getExecutionId(), Params.getBoolean(input, "readFromPrimary", false), scope,
+                                bytes);
+                        return NodeResult.success(result, Map.of(RESULT_BYTES, bytes[0]));
+                    } catch (SQLException e) {
+                        return failure(scope, e);
                     }
-
-                    Map<String, Object> result = new HashMap<>();
-                    result.put("rows", rows);
-                    result.put("count", rows.size());
-
-                    return NodeResult.success(result);
                 }
             }
 
+            @Override
+            public CompletableFuture<NodeResult> executeAsync(NodeContext context, Map<String, Object> input) {
+                return ModernDatabasePlugin.this.executeAsync(this, context, input);
+            }
+
             @Override
             public boolean supportsAsync() {
                 return true;
             }
 
+            @Override
+            public boolean supportsCancel() {
+                return true;
+            }
+
             @Override
             public long getDefaultTimeoutMs() {
                 return 30000;
@@ -310,21 +541,30 @@ public class ModernDatabasePlugin extends AbstractPlugin {
             @Override
             public NodeResult doExecute(NodeContext context, Map<String, Object> input) throws Exception {
                 String sql = (String) input.get("sql");
+                router.markWrite(context.getExecutionId());
 
-                try (Connection conn = getConnection();
-                     Statement stmt = conn.createStatement()) {
-
-                    boolean hasResultSet = stmt.execute(sql);
+                try (StatementTracker.Scope scope = openScope(context, getDefaultTimeoutMs())) {
+                    try {
+                        return NodeResult.success(runExecute(sql, context.getExecutionId(), scope));
+                    } catch (SQLException e) {
+                        return failure(scope, e);
+                    }
+                }
+            }
 
-                    Map<String, Object> result = new HashMap<>();
-                    result.put("hasResultSet", hasResultSet);
+            @Override
+            public CompletableFuture<NodeResult> executeAsync(NodeContext context, Map<String, Object> input) {
+                return ModernDatabasePlugin.this.executeAsync(this, context, input);
+            }
 
-                    if (!hasResultSet) {
-                        result.put("updateCount", stmt.getUpdateCount());
-                    }
+            @Override
+            public boolean supportsAsync() {
+                return true;
+            }
 
-                    return NodeResult.success(result);
-                }
+            @Override
+            public boolean supportsCancel() {
+                return true;
             }
 
             @Override
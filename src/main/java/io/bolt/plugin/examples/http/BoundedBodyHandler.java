@@ -0,0 +1,461 @@
+package io.bolt.plugin.examples.http;
+
+import io.bolt.plugin.api.PluginException;
+import io.bolt.plugin.util.JsonProjection;
+import io.bolt.plugin.util.JsonReader;
+import io.bolt.plugin.util.SizeEstimator;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 有上限的响应体处理器
+ * 响应体按字节接收，不做按行拆分，二进制内容原样保留。读入内存时不超过 maxBodySize，
+ * 超出后按配置截断或以 BODY_TOO_LARGE 失败；指定了目标文件时，2xx 响应通过 FileChannel
+ * 边收边写到同目录的临时文件，完成后原子替换目标文件，内存占用与响应大小无关。
+ * 非 2xx 响应即使指定了文件也读入内存，便于调用方查看错误信息。
+ * gzip / deflate 编码的响应边收边解压，不需要先缓存压缩数据。
+ * 指定了 JSON 投影时，2xx 响应在 executor 的一个线程上边收边解析，只保留选中的值，不保留原始内容；
+ * 解析整个文档时读取的字节数同样不超过 maxBodySize
+ */
+public final class BoundedBodyHandler implements HttpResponse.BodyHandler<ResponseBody> {
+
+    /**
+     * 数组长度上限，maxBodySize 不限制时也不能超过
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private final long maxBodySize;
+    private final boolean truncate;
+    private final Path file;
+    private final long maxFileSize;
+    private final boolean decompress;
+    private final JsonProjection projection;
+    private final Executor executor;
+
+    /**
+     * @param maxBodySize 读入内存的字节上限，小于等于 0 表示只受数组长度限制
+     * @param truncate    超出上限时截断（true）还是失败（false）
+     * @param file        写入的目标文件，为 null 时读入内存
+     * @param maxFileSize 写入文件的字节上限，小于等于 0 表示不限制
+     * @param decompress  是否解压 gzip / deflate 响应；上限作用于解压后的字节数
+     */
+    public BoundedBodyHandler(long maxBodySize, boolean truncate, Path file, long maxFileSize, boolean decompress) {
+        this(maxBodySize, truncate, file, maxFileSize, decompress, null, null);
+    }
+
+    /**
+     * @param projection 2xx 响应按 JSON 解析并投影，为 null 时不解析；投影结果的估算大小不超过 maxBodySize，
+     *                   读取的字节数不超过 maxFileSize；整个文档读取的字节数不超过 maxBodySize，
+     *                   截断时结果中没有文档
+     * @param executor   运行解析的线程池，解析期间占用其中一个线程
+     */
+    public BoundedBodyHandler(long maxBodySize, boolean truncate, Path file, long maxFileSize, boolean decompress,
+                              JsonProjection projection, Executor executor) {
+        this.maxBodySize = maxBodySize > 0 ? Math.min(maxBodySize, MAX_ARRAY_SIZE) : MAX_ARRAY_SIZE;
+        this.truncate = truncate;
+        this.file = file;
+        this.maxFileSize = maxFileSize > 0 ? maxFileSize : Long.MAX_VALUE;
+        this.decompress = decompress;
+        this.projection = projection;
+        this.executor = executor;
+    }
+
+    @Override
+    public HttpResponse.BodySubscriber<ResponseBody> apply(HttpResponse.ResponseInfo info) {
+        ContentType contentType = ContentType.parse(info.headers().firstValue("Content-Type").orElse(null));
+        long declared = info.headers().firstValueAsLong("Content-Length").orElse(-1L);
+        String encoding = info.headers().firstValue("Content-Encoding")
+                .map(String::trim).filter(e -> !e.isEmpty() && !e.equalsIgnoreCase("identity")).orElse(null);
+        boolean decode = decompress && encoding != null && DecompressingSubscriber.supports(encoding);
+        // 压缩响应的 Content-Length 是压缩后的长度，不能用来预判解压后的大小
+        long expected = decode ? -1L : declared;
+
+        boolean success = info.statusCode() / 100 == 2;
+        HttpResponse.BodySubscriber<ResponseBody> subscriber;
+        if (projection != null && success) {
+            subscriber = new JsonSubscriber(contentType);
+        } else if (file != null && success) {
+            subscriber = new FileSubscriber(contentType, expected);
+        } else {
+            subscriber = new MemorySubscriber(contentType, expected);
+        }
+        if (!decode) {
+            return HttpResponse.BodySubscribers.mapping(subscriber,
+                    body -> body.withEncoding(encoding, false, body.getSize()));
+        }
+        DecompressingSubscriber<ResponseBody> decoder = new DecompressingSubscriber<>(subscriber, encoding);
+        return HttpResponse.BodySubscribers.mapping(decoder,
+                body -> body.withEncoding(encoding, true, decoder.getCompressedBytes()));
+    }
+
+    /**
+     * 订阅者公共部分：超限判断与完成状态
+     */
+    private abstract class LimitedSubscriber implements HttpResponse.BodySubscriber<ResponseBody> {
+        protected final ContentType contentType;
+        protected final long declaredLength;
+        protected final long limit;
+        protected final CompletableFuture<ResponseBody> result = new CompletableFuture<>();
+        protected Flow.Subscription subscription;
+        protected long received = 0;
+        protected boolean truncated = false;
+
+        LimitedSubscriber(ContentType contentType, long declaredLength, long limit) {
+            this.contentType = contentType;
+            this.declaredLength = declaredLength;
+            this.limit = limit;
+        }
+
+        @Override
+        public CompletionStage<ResponseBody> getBody() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (!truncate && declaredLength > limit) {
+                // Content-Length 已超限，不必读取
+                abort(tooLarge(declaredLength));
+                return;
+            }
+            try {
+                open();
+            } catch (Exception e) {
+                abort(e);
+                return;
+            }
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                for (ByteBuffer buffer : items) {
+                    int length = buffer.remaining();
+                    if (received + length > limit) {
+                        if (!truncate) {
+                            abort(tooLarge(received + length));
+                            return;
+                        }
+                        buffer.limit(buffer.position() + (int) (limit - received));
+                        write(buffer);
+                        received = limit;
+                        truncated = true;
+                        // 放弃剩余内容，连接随之关闭
+                        subscription.cancel();
+                        result.complete(finish());
+                        return;
+                    }
+                    write(buffer);
+                    received += length;
+                }
+            } catch (Exception e) {
+                abort(e);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            cleanup();
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                result.complete(finish());
+            } catch (Exception e) {
+                cleanup();
+                result.completeExceptionally(e);
+            }
+        }
+
+        private void abort(Exception e) {
+            subscription.cancel();
+            cleanup();
+            result.completeExceptionally(e);
+        }
+
+        private PluginException tooLarge(long size) {
+            return new PluginException("BODY_TOO_LARGE",
+                    "响应体超过上限 " + limit + " 字节" + (size > 0 ? "（至少 " + size + " 字节）" : ""));
+        }
+
+        abstract void open() throws IOException;
+
+        abstract void write(ByteBuffer buffer) throws IOException;
+
+        abstract ResponseBody finish() throws IOException;
+
+        abstract void cleanup();
+    }
+
+    /**
+     * 读入内存；有 Content-Length 时一次分配到位
+     */
+    private final class MemorySubscriber extends LimitedSubscriber {
+        private byte[] buffer;
+        private int count = 0;
+
+        MemorySubscriber(ContentType contentType, long declaredLength) {
+            super(contentType, declaredLength, maxBodySize);
+        }
+
+        @Override
+        void open() {
+            int initial = declaredLength >= 0 ? (int) Math.min(declaredLength, limit) : (int) Math.min(8192, limit);
+            buffer = new byte[initial];
+        }
+
+        @Override
+        void write(ByteBuffer data) {
+            int length = data.remaining();
+            if (count + length > buffer.length) {
+                long grown = Math.max((long) buffer.length * 2, (long) count + length);
+                buffer = Arrays.copyOf(buffer, (int) Math.min(grown, limit));
+            }
+            data.get(buffer, count, length);
+            count += length;
+        }
+
+        @Override
+        ResponseBody finish() {
+            byte[] bytes = count == buffer.length ? buffer : Arrays.copyOf(buffer, count);
+            return ResponseBody.inMemory(contentType, bytes, truncated);
+        }
+
+        @Override
+        void cleanup() {
+            buffer = null;
+        }
+    }
+
+    /**
+     * 写入临时文件，完成后替换目标文件；失败或截断以外的中断都会删除临时文件
+     */
+    private final class FileSubscriber extends LimitedSubscriber {
+        private Path temp;
+        private FileChannel channel;
+
+        FileSubscriber(ContentType contentType, long declaredLength) {
+            super(contentType, declaredLength, maxFileSize);
+        }
+
+        @Override
+        void open() throws IOException {
+            try {
+                if (file.getParent() != null) {
+                    Files.createDirectories(file.getParent());
+                }
+                temp = Files.createTempFile(file.toAbsolutePath().getParent(), "." + file.getFileName() + ".", ".tmp");
+                channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            } catch (IOException e) {
+                throw writeFailed(e);
+            }
+        }
+
+        @Override
+        void write(ByteBuffer data) {
+            try {
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+            } catch (IOException e) {
+                throw writeFailed(e);
+            }
+        }
+
+        @Override
+        ResponseBody finish() {
+            try {
+                channel.force(false);
+                channel.close();
+                try {
+                    Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                cleanup();
+                throw writeFailed(e);
+            }
+            return ResponseBody.inFile(contentType, file, received, truncated);
+        }
+
+        @Override
+        void cleanup() {
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+                if (temp != null) {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (IOException ignored) {
+                // 临时文件以点开头，残留也不会与目标文件混淆
+            }
+        }
+
+        /**
+         * 本地磁盘错误不属于网络故障，包装成 PluginException 以免被当作可重试的 IOException
+         */
+        private PluginException writeFailed(IOException e) {
+            return new PluginException("FILE_WRITE_FAILED", "写入文件失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 边收边解析 JSON：字节经 ofInputStream 交给 executor 上的解析线程，只有投影出的值留在内存中。
+     * 所有路径都已找到时提前关闭输入流，剩余内容不再接收
+     */
+    private final class JsonSubscriber implements HttpResponse.BodySubscriber<ResponseBody> {
+        private final ContentType contentType;
+        private final HttpResponse.BodySubscriber<InputStream> stream = HttpResponse.BodySubscribers.ofInputStream();
+        private final CompletableFuture<ResponseBody> result = new CompletableFuture<>();
+
+        JsonSubscriber(ContentType contentType) {
+            this.contentType = contentType;
+        }
+
+        @Override
+        public CompletionStage<ResponseBody> getBody() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            stream.onSubscribe(subscription);
+            // ofInputStream 订阅后立即可读，读取会阻塞，必须放到其他线程
+            stream.getBody().thenAccept(in -> {
+                try {
+                    executor.execute(() -> parse(in));
+                } catch (RejectedExecutionException e) {
+                    subscription.cancel();
+                    result.completeExceptionally(e);
+                }
+            });
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            stream.onNext(items);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            stream.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            stream.onComplete();
+        }
+
+        private void parse(InputStream in) {
+            // 整个文档都要留在内存中，读取的字节数按内存上限限制，读到上限前就能发现超限
+            boolean whole = projection.isWhole();
+            CountingInputStream counting = new CountingInputStream(in, whole ? Math.min(maxBodySize, maxFileSize)
+                    : maxFileSize);
+            try (JsonReader reader = new JsonReader(new InputStreamReader(counting, contentType.charsetOrDefault()))) {
+                Object value = projection.read(reader);
+                if (!whole && SizeEstimator.estimate(value) > maxBodySize) {
+                    throw new PluginException("BODY_TOO_LARGE", "JSON 解析结果超过上限 " + maxBodySize + " 字节");
+                }
+                result.complete(ResponseBody.parsed(contentType, value, counting.count, false));
+            } catch (PluginException e) {
+                if (whole && truncate && counting.exceeded) {
+                    // 不完整的文档无法解析，只标记截断
+                    result.complete(ResponseBody.parsed(contentType, null, counting.count, true));
+                } else {
+                    result.completeExceptionally(e);
+                }
+            } catch (IOException e) {
+                // 网络错误保持 IOException 以便重试；内容本身不是合法 JSON 时重试也没有用
+                result.completeExceptionally(counting.failure != null ? counting.failure
+                        : new PluginException("INVALID_JSON", "响应不是合法的 JSON: " + e.getMessage(), e));
+            } catch (Throwable e) {
+                // 其他异常也要结束结果，否则请求一直挂起，占用的许可不会归还
+                result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 统计并限制读取的字节数，记录底层流的错误以便和 JSON 格式错误区分
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final long limit;
+        private long count = 0;
+        private boolean exceeded = false;
+        private IOException failure;
+
+        CountingInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = guard(() -> super.read());
+            if (b >= 0) {
+                advance(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = guard(() -> super.read(buffer, offset, length));
+            if (n > 0) {
+                advance(n);
+            }
+            return n;
+        }
+
+        private void advance(int n) {
+            count += n;
+            if (count > limit) {
+                exceeded = true;
+                throw new PluginException("BODY_TOO_LARGE", "响应体超过上限 " + limit + " 字节");
+            }
+        }
+
+        private int guard(IoRead read) throws IOException {
+            try {
+                return read.read();
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+        }
+
+        private interface IoRead {
+            int read() throws IOException;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package io.bolt.plugin.examples.http;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 出站请求并发限制
+ * JDK HttpClient 的连接池大小只能通过 JVM 级系统属性配置，这里按插件实例限制同时进行的请求数：
+ * 总数不超过 maxTotal，单个 host 不超过 maxPerHost（HTTP/1.1 下即连接数上限）。
+ * 许可不足时请求排队，按到达顺序唤醒；获取许可返回 future，同步和异步调用共用
+ */
+public final class ConnectionLimiter {
+
+    private final int maxTotal;
+    private final int maxPerHost;
+
+    private final Map<String, Integer> perHost = new HashMap<>();
+    private final LinkedList<Waiter> waiters = new LinkedList<>();
+    private int total = 0;
+    private long granted = 0;
+    private long queued = 0;
+
+    /**
+     * @param maxTotal   总并发上限，小于等于 0 表示不限制
+     * @param maxPerHost 单 host 并发上限，小于等于 0 表示不限制
+     */
+    public ConnectionLimiter(int maxTotal, int maxPerHost) {
+        this.maxTotal = maxTotal;
+        this.maxPerHost = maxPerHost;
+    }
+
+    /**
+     * 获取许可；调用方取消返回的 future 即放弃排队
+     */
+    public CompletableFuture<Permit> acquire(String host) {
+        CompletableFuture<Permit> future = new CompletableFuture<>();
+        Permit permit = null;
+        synchronized (this) {
+            // release 后仍在排队的请求都不可放行，因此这里可以直接判断，不会插队
+            if (available(host)) {
+                permit = grant(host);
+            } else {
+                waiters.add(new Waiter(host, future));
+                queued++;
+            }
+        }
+        if (permit != null) {
+            future.complete(permit);
+        }
+        return future;
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("maxTotal", maxTotal);
+        stats.put("maxPerHost", maxPerHost);
+        stats.put("active", total);
+        stats.put("waiting", waiters.size());
+        stats.put("granted", granted);
+        stats.put("queued", queued);
+        stats.put("activeByHost", new HashMap<>(perHost));
+        return stats;
+    }
+
+    private boolean available(String host) {
+        return (maxTotal <= 0 || total < maxTotal)
+                && (maxPerHost <= 0 || perHost.getOrDefault(host, 0) < maxPerHost);
+    }
+
+    private Permit grant(String host) {
+        total++;
+        granted++;
+        perHost.merge(host, 1, Integer::sum);
+        return new Permit(host);
+    }
+
+    private void release(String host) {
+        List<Map.Entry<CompletableFuture<Permit>, Permit>> wake = new ArrayList<>();
+        synchronized (this) {
+            total--;
+            perHost.computeIfPresent(host, (h, count) -> count > 1 ? count - 1 : null);
+            // 被占满的 host 不阻塞排在后面的其他 host
+            Iterator<Waiter> it = waiters.iterator();
+            while (it.hasNext() && (maxTotal <= 0 || total < maxTotal)) {
+                Waiter waiter = it.next();
+                if (waiter.future.isDone()) {
+                    it.remove();
+                } else if (available(waiter.host)) {
+                    it.remove();
+                    wake.add(Map.entry(waiter.future, grant(waiter.host)));
+                }
+            }
+        }
+        for (Map.Entry<CompletableFuture<Permit>, Permit> entry : wake) {
+            // 等待方已取消时立即归还
+            if (!entry.getKey().complete(entry.getValue())) {
+                entry.getValue().close();
+            }
+        }
+    }
+
+    /**
+     * 一个许可，请求结束后关闭；重复关闭无副作用
+     */
+    public final class Permit implements AutoCloseable {
+        private final String host;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(String host) {
+            this.host = host;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                release(host);
+            }
+        }
+    }
+
+    private static final class Waiter {
+        private final String host;
+        private final CompletableFuture<Permit> future;
+
+        private Waiter(String host, CompletableFuture<Permit> future) {
+            this.host = host;
+            this.future = future;
+        }
+    }
+}
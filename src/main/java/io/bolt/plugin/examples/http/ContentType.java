@@ -0,0 +1,99 @@
+package io.bolt.plugin.examples.http;
+
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Locale;
+
+/**
+ * Content-Type 解析
+ * 只关心媒体类型和 charset 参数；用于判断响应体按文本解码还是按二进制输出
+ */
+public final class ContentType {
+
+    private final String mimeType;
+    private final Charset charset;
+
+    private ContentType(String mimeType, Charset charset) {
+        this.mimeType = mimeType;
+        this.charset = charset;
+    }
+
+    /**
+     * @param header Content-Type 头的值，可为 null
+     */
+    public static ContentType parse(String header) {
+        if (header == null || header.isBlank()) {
+            return new ContentType("", null);
+        }
+        String[] parts = header.split(";");
+        String mimeType = parts[0].trim().toLowerCase(Locale.ROOT);
+        Charset charset = null;
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim();
+            int eq = param.indexOf('=');
+            if (eq > 0 && "charset".equalsIgnoreCase(param.substring(0, eq).trim())) {
+                charset = lookup(unquote(param.substring(eq + 1).trim()));
+            }
+        }
+        return new ContentType(mimeType, charset);
+    }
+
+    /**
+     * 媒体类型（小写，不含参数）；响应没有 Content-Type 时为空串
+     */
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    /**
+     * 声明的 charset；未声明或不认识时为 null
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * 解码用的字符集：优先使用声明的 charset，否则 UTF-8
+     */
+    public Charset charsetOrDefault() {
+        return charset != null ? charset : StandardCharsets.UTF_8;
+    }
+
+    /**
+     * 是否为文本内容
+     * 没有 Content-Type 时按文本处理，与旧版本的行为一致
+     */
+    public boolean isText() {
+        if (mimeType.isEmpty() || charset != null || mimeType.startsWith("text/")) {
+            return true;
+        }
+        return mimeType.endsWith("/json") || mimeType.endsWith("+json")
+                || mimeType.endsWith("/xml") || mimeType.endsWith("+xml")
+                || mimeType.equals("application/javascript")
+                || mimeType.equals("application/x-www-form-urlencoded")
+                || mimeType.equals("application/x-ndjson")
+                || mimeType.equals("application/graphql");
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
+    private static Charset lookup(String name) {
+        try {
+            return Charset.forName(name);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return charset == null ? mimeType : mimeType + "; charset=" + charset.name();
+    }
+}
@@ -0,0 +1,399 @@
+package io.bolt.plugin.examples.http;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * 边收边解压的响应体订阅者
+ * 压缩数据到达一块解压一块，每次只产生一个输出块交给下游，内存中只保留一个输出块，
+ * 下游的大小上限因此作用在解压后的字节数上（可以防御压缩炸弹）。
+ * 支持 gzip（含多成员拼接，校验 CRC32 和长度）和 deflate（自动识别 zlib 包装和裸 deflate 流）。
+ * 遵守下游的请求数：下游一次请求 Long.MAX_VALUE 时上游也不限量，否则没有待解压的数据时才向上游再要一块。
+ * 上下游信号可能来自不同线程，统一在 drain 循环里串行处理
+ */
+final class DecompressingSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+    private static final int CHUNK_SIZE = 16 * 1024;
+    private static final int MAX_HEADER_SIZE = 64 * 1024;
+
+    private enum State { DETECT, HEADER, BODY, TRAILER, DONE }
+
+    private final HttpResponse.BodySubscriber<T> downstream;
+    private final boolean gzip;
+    private final CRC32 crc = new CRC32();
+
+    // 上游信号
+    private final ConcurrentLinkedQueue<ByteBuffer> inputs = new ConcurrentLinkedQueue<>();
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile boolean unbounded = false;
+    private volatile boolean awaitingInput = false;
+    private volatile boolean upstreamDone = false;
+    private volatile Throwable upstreamError;
+    private volatile boolean cancelled = false;
+    private volatile long compressedBytes = 0;
+    private Flow.Subscription upstream;
+
+    // 以下只在 drain 循环中访问
+    private Inflater inflater;
+    private State state;
+    private ByteBuffer current;
+    private boolean outputFull = false;
+    private boolean requestedAll = false;
+    private boolean terminated = false;
+    private byte[] pending = new byte[16];
+    private int pendingCount = 0;
+    private long memberOutput = 0;
+
+    /**
+     * @param encoding Content-Encoding，gzip / x-gzip 或 deflate
+     */
+    DecompressingSubscriber(HttpResponse.BodySubscriber<T> downstream, String encoding) {
+        this.downstream = downstream;
+        this.gzip = !"deflate".equals(encoding.toLowerCase(Locale.ROOT));
+        this.state = gzip ? State.HEADER : State.DETECT;
+    }
+
+    /**
+     * 是否支持该内容编码
+     */
+    static boolean supports(String encoding) {
+        String normalized = encoding.trim().toLowerCase(Locale.ROOT);
+        return normalized.equals("gzip") || normalized.equals("x-gzip") || normalized.equals("deflate");
+    }
+
+    /**
+     * 已接收的压缩字节数
+     */
+    long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    @Override
+    public CompletionStage<T> getBody() {
+        return downstream.getBody();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.upstream = subscription;
+        downstream.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if (n == Long.MAX_VALUE) {
+                    unbounded = true;
+                }
+                demand.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+                subscription.cancel();
+                drain();
+            }
+        });
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+        long received = compressedBytes;
+        for (ByteBuffer buffer : items) {
+            received += buffer.remaining();
+        }
+        compressedBytes = received;
+        inputs.addAll(items);
+        awaitingInput = false;
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        upstreamError = throwable;
+        upstreamDone = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        drain();
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        while (true) {
+            try {
+                pump();
+            } catch (IOException e) {
+                fail(e);
+            }
+            missed = wip.addAndGet(-missed);
+            if (missed == 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 在有下游请求数时处理输入，每轮消耗一段输入或产生一个输出块
+     */
+    private void pump() throws IOException {
+        while (!terminated) {
+            if (cancelled) {
+                terminated = true;
+                release();
+                return;
+            }
+            if (upstreamError != null) {
+                terminated = true;
+                release();
+                downstream.onError(upstreamError);
+                return;
+            }
+            if (!unbounded && demand.get() == 0) {
+                return;
+            }
+            if ((current == null || !current.hasRemaining()) && !outputFull) {
+                current = inputs.poll();
+                if (current == null) {
+                    if (upstreamDone) {
+                        finish();
+                    } else {
+                        requestInput();
+                    }
+                    return;
+                }
+                continue;
+            }
+            step();
+        }
+    }
+
+    private void requestInput() {
+        if (unbounded) {
+            if (!requestedAll) {
+                requestedAll = true;
+                upstream.request(Long.MAX_VALUE);
+            }
+        } else if (!awaitingInput) {
+            awaitingInput = true;
+            upstream.request(1);
+        }
+    }
+
+    private void step() throws IOException {
+        switch (state) {
+            case DETECT:
+                // zlib 头：CM=8 且前两字节按大端可被 31 整除，否则按裸 deflate 处理
+                if (!collect(current, 2)) {
+                    return;
+                }
+                int cmf = pending[0] & 0xff;
+                int flg = pending[1] & 0xff;
+                boolean zlib = (cmf & 0x0f) == 8 && ((cmf << 8) | flg) % 31 == 0;
+                inflater = new Inflater(!zlib);
+                state = State.BODY;
+                // 探测用掉的两个字节放回输入前面
+                ByteBuffer merged = ByteBuffer.allocate(pendingCount + current.remaining());
+                merged.put(pending, 0, pendingCount).put(current).flip();
+                current = merged;
+                pendingCount = 0;
+                break;
+            case HEADER:
+                collectHeader(current);
+                break;
+            case BODY:
+                inflate(current);
+                break;
+            case TRAILER:
+                if (collect(current, 8)) {
+                    verifyTrailer();
+                }
+                break;
+            default:
+                // 流结束后的多余字节忽略
+                current.position(current.limit());
+                break;
+        }
+    }
+
+    private void finish() {
+        terminated = true;
+        boolean complete = state == State.DONE
+                || compressedBytes == 0
+                || (gzip && state == State.HEADER && pendingCount == 0);
+        release();
+        if (complete) {
+            downstream.onComplete();
+        } else {
+            downstream.onError(new ZipException("压缩数据不完整，已接收 " + compressedBytes + " 字节"));
+        }
+    }
+
+    private void fail(IOException e) {
+        terminated = true;
+        cancelled = true;
+        upstream.cancel();
+        release();
+        downstream.onError(e);
+    }
+
+    /**
+     * 逐字节收集 gzip 头；头部完整后初始化裸 deflate 解压
+     */
+    private void collectHeader(ByteBuffer in) throws IOException {
+        while (in.hasRemaining()) {
+            append(in.get());
+            int length = headerLength();
+            if (length == 0) {
+                if (pendingCount > MAX_HEADER_SIZE) {
+                    throw new ZipException("gzip 头部过长");
+                }
+                continue;
+            }
+            if ((pending[0] & 0xff) != 0x1f || (pending[1] & 0xff) != 0x8b || pending[2] != 8) {
+                throw new ZipException("不是 gzip 数据");
+            }
+            pendingCount = 0;
+            if (inflater == null) {
+                inflater = new Inflater(true);
+            } else {
+                inflater.reset();
+            }
+            crc.reset();
+            memberOutput = 0;
+            state = State.BODY;
+            return;
+        }
+    }
+
+    /**
+     * 当前已收集字节构成完整 gzip 头时返回头部长度，否则返回 0
+     */
+    private int headerLength() {
+        if (pendingCount < 10) {
+            return 0;
+        }
+        if ((pending[0] & 0xff) != 0x1f || (pending[1] & 0xff) != 0x8b) {
+            // 魔数不对，交给调用方报错
+            return pendingCount;
+        }
+        int flags = pending[3] & 0xff;
+        int pos = 10;
+        if ((flags & 0x04) != 0) {
+            if (pendingCount < pos + 2) {
+                return 0;
+            }
+            pos += 2 + ((pending[pos] & 0xff) | ((pending[pos + 1] & 0xff) << 8));
+        }
+        if ((flags & 0x08) != 0) {
+            pos = skipZeroTerminated(pos);
+        }
+        if (pos > 0 && (flags & 0x10) != 0) {
+            pos = skipZeroTerminated(pos);
+        }
+        if (pos > 0 && (flags & 0x02) != 0) {
+            pos += 2;
+        }
+        return pos > 0 && pendingCount >= pos ? pos : 0;
+    }
+
+    private int skipZeroTerminated(int pos) {
+        for (int i = pos; i < pendingCount; i++) {
+            if (pending[i] == 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 解压一次，最多产生一个输出块；输出块写满时解压器里可能还有数据，下一轮不等新输入继续解压。
+     * 一个成员结束后转入校验或结束状态
+     */
+    private void inflate(ByteBuffer in) throws IOException {
+        inflater.setInput(in);
+        try {
+            ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+            int n = inflater.inflate(chunk);
+            outputFull = n == CHUNK_SIZE;
+            if (n > 0) {
+                chunk.flip();
+                if (gzip) {
+                    crc.update(chunk.duplicate());
+                    memberOutput += n;
+                }
+                if (!unbounded) {
+                    demand.decrementAndGet();
+                }
+                downstream.onNext(List.of(chunk));
+            }
+            if (inflater.finished()) {
+                outputFull = false;
+                state = gzip ? State.TRAILER : State.DONE;
+            } else if (inflater.needsDictionary()) {
+                throw new ZipException("不支持带预置字典的 deflate 数据");
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException("解压失败: " + e.getMessage());
+        }
+    }
+
+    private void verifyTrailer() throws ZipException {
+        long expectedCrc = readIntLE(0);
+        long expectedSize = readIntLE(4);
+        if (expectedCrc != crc.getValue() || expectedSize != (memberOutput & 0xffffffffL)) {
+            throw new ZipException("gzip 校验失败");
+        }
+        pendingCount = 0;
+        // 后面还有数据时按下一个成员处理
+        state = State.HEADER;
+    }
+
+    private long readIntLE(int offset) {
+        return (pending[offset] & 0xffL) | ((pending[offset + 1] & 0xffL) << 8)
+                | ((pending[offset + 2] & 0xffL) << 16) | ((pending[offset + 3] & 0xffL) << 24);
+    }
+
+    /**
+     * 收集到 count 字节为止；返回是否已收齐
+     */
+    private boolean collect(ByteBuffer in, int count) {
+        while (pendingCount < count && in.hasRemaining()) {
+            append(in.get());
+        }
+        return pendingCount >= count;
+    }
+
+    private void append(byte b) {
+        if (pendingCount == pending.length) {
+            pending = Arrays.copyOf(pending, pending.length * 2);
+        }
+        pending[pendingCount++] = b;
+    }
+
+    private void release() {
+        if (inflater != null) {
+            inflater.end();
+            inflater = null;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package io.bolt.plugin.examples.http;
+
+import io.bolt.plugin.api.PluginResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+/**
+ * 并发执行一组异步任务
+ * 同时进行的任务不超过 maxConcurrency，同一 host 不超过 maxPerHost；某个 host 满了时先启动排在后面的其他 host 的任务。
+ * 结果按输入顺序返回。failFast 模式下第一个失败的任务会取消其余进行中的任务，尚未开始的不再启动。
+ * 调度不占用线程：任务完成的回调里启动下一个，同步完成的任务通过 wip 计数循环处理，不会递归
+ */
+public final class FanOut {
+
+    private final List<String> hosts;
+    private final IntFunction<CompletableFuture<PluginResult>> starter;
+    private final int maxConcurrency;
+    private final int maxPerHost;
+    private final Predicate<PluginResult> failure;
+    private final boolean failFast;
+
+    private final PluginResult[] results;
+    private final List<CompletableFuture<PluginResult>> running = new ArrayList<>();
+    private final LinkedList<Integer> pending = new LinkedList<>();
+    private final Map<String, Integer> activeByHost = new HashMap<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final CompletableFuture<Outcome> outcome = new CompletableFuture<>();
+    private int active = 0;
+    private int completed = 0;
+    private int failedIndex = -1;
+
+    /**
+     * @param hosts          每个任务的 host，决定按哪个 host 计数
+     * @param starter        按下标启动任务
+     * @param maxConcurrency 同时进行的任务数上限
+     * @param maxPerHost     同一 host 同时进行的任务数上限
+     * @param failure        判断结果是否算失败
+     * @param failFast       是否在第一个失败后停止
+     */
+    public FanOut(List<String> hosts, IntFunction<CompletableFuture<PluginResult>> starter,
+                  int maxConcurrency, int maxPerHost, Predicate<PluginResult> failure, boolean failFast) {
+        this.hosts = hosts;
+        this.starter = starter;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.maxPerHost = Math.max(1, maxPerHost);
+        this.failure = failure;
+        this.failFast = failFast;
+        this.results = new PluginResult[hosts.size()];
+        for (int i = 0; i < hosts.size(); i++) {
+            pending.add(i);
+        }
+    }
+
+    /**
+     * 开始执行；返回的 future 在所有任务结束（或 failFast 停止且进行中的任务都已取消）后完成
+     */
+    public CompletableFuture<Outcome> run() {
+        outcome.whenComplete((o, e) -> {
+            if (outcome.isCancelled()) {
+                List<CompletableFuture<PluginResult>> toCancel;
+                synchronized (this) {
+                    toCancel = new ArrayList<>(running);
+                }
+                toCancel.forEach(future -> future.cancel(true));
+            }
+        });
+        drain();
+        return outcome;
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        while (true) {
+            for (int index : pick()) {
+                launch(index);
+            }
+            finishIfDone();
+            missed = wip.addAndGet(-missed);
+            if (missed == 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 取出可以启动的任务：总数和所在 host 都未满
+     */
+    private synchronized List<Integer> pick() {
+        List<Integer> picked = new ArrayList<>();
+        Iterator<Integer> it = pending.iterator();
+        while (failedIndex < 0 && !outcome.isDone() && active < maxConcurrency && it.hasNext()) {
+            int index = it.next();
+            String host = hosts.get(index);
+            int hostActive = activeByHost.getOrDefault(host, 0);
+            if (hostActive >= maxPerHost) {
+                continue;
+            }
+            it.remove();
+            activeByHost.put(host, hostActive + 1);
+            active++;
+            picked.add(index);
+        }
+        return picked;
+    }
+
+    private void launch(int index) {
+        CompletableFuture<PluginResult> future;
+        try {
+            future = starter.apply(index);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        synchronized (this) {
+            running.add(future);
+        }
+        future.whenComplete((result, e) -> {
+            onComplete(index, result, e);
+            drain();
+        });
+    }
+
+    private void onComplete(int index, PluginResult result, Throwable error) {
+        List<CompletableFuture<PluginResult>> toCancel = List.of();
+        synchronized (this) {
+            if (result == null) {
+                result = failFast && failedIndex >= 0
+                        ? PluginResult.failure("CANCELLED", "已取消：请求 #" + failedIndex + " 失败")
+                        : PluginResult.failure("EXECUTION_FAILED", String.valueOf(error));
+            }
+            results[index] = result;
+            completed++;
+            active--;
+            activeByHost.merge(hosts.get(index), -1, Integer::sum);
+            if (failFast && failedIndex < 0 && failure.test(result)) {
+                failedIndex = index;
+                toCancel = new ArrayList<>(running);
+            }
+        }
+        // 在锁外取消，取消触发的回调会再次进入 onComplete
+        for (CompletableFuture<PluginResult> future : toCancel) {
+            future.cancel(true);
+        }
+    }
+
+    private void finishIfDone() {
+        synchronized (this) {
+            boolean stopped = failedIndex >= 0 && active == 0;
+            if (outcome.isDone() || !(completed == results.length || stopped)) {
+                return;
+            }
+            for (int index : pending) {
+                results[index] = PluginResult.failure("CANCELLED", "未执行：请求 #" + failedIndex + " 失败");
+            }
+            pending.clear();
+        }
+        outcome.complete(new Outcome(List.of(results), failedIndex));
+    }
+
+    /**
+     * 执行结果
+     */
+    public static final class Outcome {
+        private final List<PluginResult> results;
+        private final int failedIndex;
+
+        private Outcome(List<PluginResult> results, int failedIndex) {
+            this.results = results;
+            this.failedIndex = failedIndex;
+        }
+
+        /**
+         * 与输入顺序一致的结果
+         */
+        public List<PluginResult> getResults() {
+            return results;
+        }
+
+        /**
+         * failFast 模式下触发停止的任务下标；没有停止时为 -1
+         */
+        public int getFailedIndex() {
+            return failedIndex;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package io.bolt.plugin.examples.http;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 按 host 分别统计的请求耗时分位数
+ * 不同 host 的耗时分布可能相差几个数量级，共用一个分位数时慢 host 几乎每次都被对冲，快 host 的长尾却等不到对冲。
+ * 最多跟踪 maxHosts 个 host，超出时淘汰最久没有请求的
+ */
+public final class HostLatency {
+
+    private final int capacity;
+    private final double percentile;
+    private final int maxHosts;
+    private final LinkedHashMap<String, LatencyTracker> trackers = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * @param capacity   每个 host 保留的样本数
+     * @param percentile 分位数，0 到 100
+     * @param maxHosts   跟踪的 host 上限
+     */
+    public HostLatency(int capacity, double percentile, int maxHosts) {
+        this.capacity = capacity;
+        this.percentile = percentile;
+        this.maxHosts = Math.max(1, maxHosts);
+    }
+
+    /**
+     * 统计用的 host 键：host 加端口，同一主机上的不同服务分开统计
+     */
+    public static String keyOf(URI uri) {
+        return uri.getPort() < 0 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+    }
+
+    public void record(String host, long millis) {
+        LatencyTracker tracker;
+        synchronized (trackers) {
+            tracker = trackers.get(host);
+            if (tracker == null) {
+                tracker = new LatencyTracker(capacity, percentile);
+                trackers.put(host, tracker);
+                if (trackers.size() > maxHosts) {
+                    trackers.remove(trackers.keySet().iterator().next());
+                }
+            }
+        }
+        tracker.record(millis);
+    }
+
+    /**
+     * 该 host 当前的分位数（毫秒）；样本少于 minSamples 时返回 -1
+     */
+    public long get(String host, int minSamples) {
+        LatencyTracker tracker;
+        synchronized (trackers) {
+            tracker = trackers.get(host);
+        }
+        return tracker == null ? -1 : tracker.get(minSamples);
+    }
+
+    /**
+     * 各 host 当前的分位数，样本不足的 host 为 -1
+     */
+    public Map<String, Long> stats(int minSamples) {
+        Map<String, LatencyTracker> snapshot;
+        synchronized (trackers) {
+            snapshot = new TreeMap<>(trackers);
+        }
+        Map<String, Long> result = new TreeMap<>();
+        snapshot.forEach((host, tracker) -> result.put(host, tracker.get(minSamples)));
+        return result;
+    }
+}
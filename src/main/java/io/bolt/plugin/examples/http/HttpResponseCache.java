@@ -0,0 +1,801 @@
+package io.bolt.plugin.examples.http;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP 响应缓存
+ * 按 RFC 9111 的共享缓存语义缓存 GET 响应：新鲜度取 s-maxage、max-age 或 Expires，并扣除 Age 和传输耗时；
+ * no-store、private、Vary: * 以及带 Authorization 的请求（响应未声明 public / s-maxage）不缓存。
+ * 过期条目带有 ETag / Last-Modified 时用条件请求重新验证，304 只刷新头部和有效期；
+ * stale-while-revalidate 窗口内直接返回旧内容，由调用方在后台重新验证。
+ * 内存层按 LRU 淘汰，受条目数和字节数限制；配置了目录时条目同时写入磁盘层，
+ * 内存未命中再查磁盘，磁盘层按最早写入淘汰，重启后保留。
+ * 磁盘读写都在单独的磁盘线程上按提交顺序执行，不占用调用方和 HttpClient 的线程；
+ * 内容已解压的条目不保留 Content-Encoding / Content-Length 头
+ */
+public final class HttpResponseCache implements AutoCloseable {
+
+    private static final int FILE_MAGIC = 0x42484331; // "BHC1"
+    private static final Set<Integer> CACHEABLE_STATUS = Set.of(200, 203, 204, 300, 301, 308, 404, 405, 410, 414, 501);
+
+    /**
+     * 查找结果
+     */
+    public enum State {
+        /**
+         * 新鲜，直接使用
+         */
+        FRESH,
+        /**
+         * 已过期但在 stale-while-revalidate 窗口内，先返回再后台验证
+         */
+        STALE_WHILE_REVALIDATE,
+        /**
+         * 需要带条件头重新验证
+         */
+        STALE,
+        MISS
+    }
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final Path diskDir;
+    private final long diskMaxBytes;
+    private final ExecutorService diskExecutor;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes = 0;
+    // 磁盘层索引：键 -> 文件大小，按写入顺序
+    private final LinkedHashMap<String, Long> diskIndex = new LinkedHashMap<>();
+    private long diskBytes = 0;
+    private final Set<String> revalidating = new HashSet<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong diskWrites = new AtomicLong();
+    private final AtomicLong diskEvictions = new AtomicLong();
+    private final AtomicLong diskErrors = new AtomicLong();
+
+    /**
+     * @param maxEntries   内存层条目数上限
+     * @param maxBytes     内存层字节数上限（响应体加头部的估算值）
+     * @param diskDir      磁盘层目录，为 null 时只用内存
+     * @param diskMaxBytes 磁盘层字节数上限
+     */
+    public HttpResponseCache(int maxEntries, long maxBytes, Path diskDir, long diskMaxBytes) throws IOException {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxBytes = maxBytes;
+        this.diskDir = diskDir;
+        this.diskMaxBytes = diskMaxBytes;
+        if (diskDir != null) {
+            Files.createDirectories(diskDir);
+            loadDiskIndex();
+            this.diskExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "bolt-http-cache-disk");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.diskExecutor = null;
+        }
+    }
+
+    /**
+     * 缓存键：只缓存 GET，键为规范化后的 URI
+     */
+    public static String keyOf(URI uri) {
+        return "GET " + uri.normalize();
+    }
+
+    /**
+     * 请求是否可以使用缓存：请求头 Cache-Control: no-store 时完全绕过
+     */
+    public static boolean isCacheableRequest(String method, HttpHeaders requestHeaders) {
+        return "GET".equals(method) && !CacheControl.parse(requestHeaders).has("no-store");
+    }
+
+    /**
+     * 查找条目；请求头 Cache-Control 为 no-cache 或 max-age=0 时即使新鲜也要求重新验证。
+     * 内存命中或磁盘层没有该键时立即完成，否则在磁盘线程上读取
+     */
+    public CompletableFuture<Lookup> lookup(String key, HttpHeaders requestHeaders) {
+        Entry entry;
+        boolean onDisk;
+        synchronized (entries) {
+            entry = entries.get(key);
+            onDisk = entry == null && diskIndex.containsKey(key);
+        }
+        if (!onDisk) {
+            return CompletableFuture.completedFuture(evaluate(entry, requestHeaders));
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> evaluate(readFromDisk(key), requestHeaders), diskExecutor);
+        } catch (RejectedExecutionException e) {
+            // 已关闭
+            return CompletableFuture.completedFuture(evaluate(null, requestHeaders));
+        }
+    }
+
+    private Lookup evaluate(Entry entry, HttpHeaders requestHeaders) {
+        if (entry == null || !entry.matchesVary(requestHeaders)) {
+            misses.incrementAndGet();
+            return new Lookup(State.MISS, null);
+        }
+
+        long now = System.currentTimeMillis();
+        CacheControl requestControl = CacheControl.parse(requestHeaders);
+        boolean forceRevalidate = requestControl.has("no-cache") || requestControl.seconds("max-age") == 0;
+        if (!forceRevalidate && now < entry.expiresAt) {
+            hits.incrementAndGet();
+            return new Lookup(State.FRESH, entry);
+        }
+        if (!forceRevalidate && now < entry.staleWhileRevalidateUntil) {
+            staleHits.incrementAndGet();
+            return new Lookup(State.STALE_WHILE_REVALIDATE, entry);
+        }
+        if (entry.hasValidators()) {
+            revalidations.incrementAndGet();
+            return new Lookup(State.STALE, entry);
+        }
+        misses.incrementAndGet();
+        return new Lookup(State.MISS, null);
+    }
+
+    /**
+     * 保存响应；不可缓存、被截断或写入了文件的响应忽略
+     *
+     * @param requestHeaders 实际发出的请求头，用于 Vary 匹配
+     * @param requestTime    发出请求的时间
+     * @return 保存的条目，未保存时为 null
+     */
+    public Entry store(String key, HttpHeaders requestHeaders, HttpResponse<ResponseBody> response, long requestTime) {
+        ResponseBody body = response.body();
+        if (body.getBytes() == null || body.isTruncated() || !CACHEABLE_STATUS.contains(response.statusCode())) {
+            return null;
+        }
+        HttpHeaders headers = response.headers();
+        CacheControl control = CacheControl.parse(headers);
+        if (control.has("no-store") || control.has("private")) {
+            return null;
+        }
+        if (requestHeaders.firstValue("Authorization").isPresent()
+                && !control.has("public") && control.seconds("s-maxage") < 0) {
+            return null;
+        }
+        List<String> vary = varyNames(headers);
+        if (vary.contains("*")) {
+            return null;
+        }
+
+        Map<String, String> varyValues = new TreeMap<>();
+        for (String name : vary) {
+            varyValues.put(name, String.join(",", requestHeaders.allValues(name)));
+        }
+        Map<String, List<String>> copy = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        copy.putAll(headers.map());
+        Entry entry = new Entry(key, response.statusCode(), response.version().name(), copy, body.getBytes(),
+                body.getContentEncoding(), body.isDecoded(), varyValues);
+        entry.computeFreshness(requestTime, System.currentTimeMillis());
+        if (!entry.hasValidators() && entry.expiresAt <= System.currentTimeMillis()) {
+            // 既不新鲜也无法验证，存了也用不上
+            return null;
+        }
+        put(entry, true);
+        stores.incrementAndGet();
+        return entry;
+    }
+
+    /**
+     * 304 响应：合并新头部并重新计算有效期，返回刷新后的条目
+     */
+    public Entry refresh(Entry entry, HttpHeaders notModifiedHeaders, long requestTime) {
+        notModified.incrementAndGet();
+        Map<String, List<String>> merged = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        merged.putAll(entry.headers);
+        notModifiedHeaders.map().forEach((name, values) -> {
+            // 304 不带响应体，长度相关的头沿用原值
+            if (!name.equalsIgnoreCase("content-length") && !name.equalsIgnoreCase("content-encoding")) {
+                merged.put(name, values);
+            }
+        });
+        Entry refreshed = new Entry(entry.key, entry.statusCode, entry.version, merged, entry.body,
+                entry.contentEncoding, entry.decoded, entry.vary);
+        refreshed.computeFreshness(requestTime, System.currentTimeMillis());
+        put(refreshed, true);
+        return refreshed;
+    }
+
+    /**
+     * 对该 URI 的非安全请求成功后调用，删除对应条目；磁盘文件在磁盘线程上删除
+     */
+    public void invalidate(String key) {
+        boolean removed;
+        boolean onDisk = false;
+        synchronized (entries) {
+            removed = remove(key);
+            if (diskDir != null) {
+                Long size = diskIndex.remove(key);
+                if (size != null) {
+                    diskBytes -= size;
+                    onDisk = true;
+                }
+            }
+        }
+        if (onDisk) {
+            onDisk(() -> deleteFile(key));
+        }
+        if (removed || onDisk) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    /**
+     * 等待已提交的磁盘写入完成后停止磁盘线程
+     */
+    @Override
+    public void close() {
+        if (diskExecutor == null) {
+            return;
+        }
+        diskExecutor.shutdown();
+        try {
+            if (!diskExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                diskExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            diskExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 登记后台验证；同一个键同时只有一个，返回 false 表示已有进行中的验证
+     */
+    public boolean beginRevalidation(String key) {
+        synchronized (revalidating) {
+            return revalidating.add(key);
+        }
+    }
+
+    public void endRevalidation(String key) {
+        synchronized (revalidating) {
+            revalidating.remove(key);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (entries) {
+            stats.put("entries", entries.size());
+            stats.put("bytes", totalBytes);
+            if (diskDir != null) {
+                stats.put("diskEntries", diskIndex.size());
+                stats.put("diskBytes", diskBytes);
+            }
+        }
+        stats.put("hits", hits.get());
+        stats.put("staleHits", staleHits.get());
+        stats.put("revalidations", revalidations.get());
+        stats.put("notModified", notModified.get());
+        stats.put("misses", misses.get());
+        stats.put("stores", stores.get());
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        if (diskDir != null) {
+            stats.put("diskHits", diskHits.get());
+            stats.put("diskWrites", diskWrites.get());
+            stats.put("diskEvictions", diskEvictions.get());
+            stats.put("diskErrors", diskErrors.get());
+        }
+        return stats;
+    }
+
+    private void put(Entry entry, boolean writeDisk) {
+        if (entry.bytes > maxBytes) {
+            return;
+        }
+        synchronized (entries) {
+            remove(entry.key);
+            entries.put(entry.key, entry);
+            totalBytes += entry.bytes;
+            Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || totalBytes > maxBytes) && it.hasNext()) {
+                totalBytes -= it.next().getValue().bytes;
+                it.remove();
+                evictions.incrementAndGet();
+            }
+        }
+        if (writeDisk && diskDir != null) {
+            onDisk(() -> writeToDisk(entry));
+        }
+    }
+
+    /**
+     * 提交到磁盘线程；关闭后提交的任务直接丢弃
+     */
+    private void onDisk(Runnable task) {
+        try {
+            diskExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            diskErrors.incrementAndGet();
+        }
+    }
+
+    private boolean remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            totalBytes -= removed.bytes;
+            return true;
+        }
+        return false;
+    }
+
+    private static List<String> varyNames(HttpHeaders headers) {
+        List<String> names = new ArrayList<>();
+        for (String value : headers.allValues("Vary")) {
+            for (String name : value.split(",")) {
+                if (!name.isBlank()) {
+                    names.add(name.trim().toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return names;
+    }
+
+    // ---------------------------------------------------------------- 磁盘层
+
+    private void loadDiskIndex() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(diskDir, "*.entry")) {
+            stream.forEach(files::add);
+        }
+        // 按修改时间排序，先写入的先淘汰
+        files.sort((a, b) -> Long.compare(a.toFile().lastModified(), b.toFile().lastModified()));
+        for (Path file : files) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != FILE_MAGIC) {
+                    continue;
+                }
+                String key = readString(in);
+                if (file.getFileName().toString().equals(fileName(key))) {
+                    long size = Files.size(file);
+                    diskIndex.put(key, size);
+                    diskBytes += size;
+                }
+            } catch (IOException e) {
+                diskErrors.incrementAndGet();
+            }
+        }
+    }
+
+    private Entry readFromDisk(String key) {
+        synchronized (entries) {
+            if (!diskIndex.containsKey(key)) {
+                return null;
+            }
+        }
+        Path file = diskDir.resolve(fileName(key));
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC || !key.equals(readString(in))) {
+                return null;
+            }
+            Entry entry = Entry.read(key, in);
+            diskHits.incrementAndGet();
+            put(entry, false);
+            return entry;
+        } catch (IOException | RuntimeException e) {
+            // 文件损坏时按未命中处理并删除
+            diskErrors.incrementAndGet();
+            removeFromDisk(key);
+            return null;
+        }
+    }
+
+    private void writeToDisk(Entry entry) {
+        Path target = diskDir.resolve(fileName(entry.key));
+        try {
+            Path temp = Files.createTempFile(diskDir, ".", ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    out.writeInt(FILE_MAGIC);
+                    writeString(out, entry.key);
+                    entry.write(out);
+                }
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            long size = Files.size(target);
+            diskWrites.incrementAndGet();
+
+            List<String> evicted = new ArrayList<>();
+            synchronized (entries) {
+                Long previous = diskIndex.remove(entry.key);
+                diskBytes -= previous == null ? 0 : previous;
+                diskIndex.put(entry.key, size);
+                diskBytes += size;
+                Iterator<Map.Entry<String, Long>> it = diskIndex.entrySet().iterator();
+                while (diskBytes > diskMaxBytes && it.hasNext()) {
+                    Map.Entry<String, Long> oldest = it.next();
+                    if (oldest.getKey().equals(entry.key)) {
+                        continue;
+                    }
+                    diskBytes -= oldest.getValue();
+                    evicted.add(oldest.getKey());
+                    it.remove();
+                }
+            }
+            for (String key : evicted) {
+                Files.deleteIfExists(diskDir.resolve(fileName(key)));
+                diskEvictions.incrementAndGet();
+            }
+        } catch (IOException e) {
+            diskErrors.incrementAndGet();
+        }
+    }
+
+    private void removeFromDisk(String key) {
+        synchronized (entries) {
+            Long size = diskIndex.remove(key);
+            if (size == null) {
+                return;
+            }
+            diskBytes -= size;
+        }
+        deleteFile(key);
+    }
+
+    private void deleteFile(String key) {
+        try {
+            Files.deleteIfExists(diskDir.resolve(fileName(key)));
+        } catch (IOException e) {
+            diskErrors.incrementAndGet();
+        }
+    }
+
+    private static String fileName(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(digest.length * 2 + 6);
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return name.append(".entry").toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(readBytes(in, length), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(InputStream in, int length) throws IOException {
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new IOException("缓存文件不完整");
+        }
+        return bytes;
+    }
+
+    // ---------------------------------------------------------------- 条目
+
+    /**
+     * 查找结果：状态和条目（MISS 时为 null）
+     */
+    public static final class Lookup {
+        private final State state;
+        private final Entry entry;
+
+        private Lookup(State state, Entry entry) {
+            this.state = state;
+            this.entry = entry;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public Entry getEntry() {
+            return entry;
+        }
+    }
+
+    /**
+     * 缓存的响应，创建后不再修改
+     */
+    public static final class Entry {
+        private final String key;
+        private final int statusCode;
+        private final String version;
+        private final Map<String, List<String>> headers;
+        private final byte[] body;
+        private final String contentEncoding;
+        private final boolean decoded;
+        private final Map<String, String> vary;
+        private final long bytes;
+        private long expiresAt;
+        private long staleWhileRevalidateUntil;
+
+        private Entry(String key, int statusCode, String version, Map<String, List<String>> headers, byte[] body,
+                      String contentEncoding, boolean decoded, Map<String, String> vary) {
+            this.key = key;
+            this.statusCode = statusCode;
+            this.version = version;
+            // 刷新和从磁盘读出的条目也经过这里，旧版本写入的头在此一并去掉
+            this.headers = Collections.unmodifiableMap(ResponseBody.visibleHeaders(headers, decoded));
+            this.body = body;
+            this.contentEncoding = contentEncoding;
+            this.decoded = decoded;
+            this.vary = vary;
+            long headerBytes = 0;
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                headerBytes += header.getKey().length();
+                for (String value : header.getValue()) {
+                    headerBytes += value.length();
+                }
+            }
+            this.bytes = body.length + 2 * (headerBytes + key.length()) + 128;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public Map<String, List<String>> getHeaders() {
+            return headers;
+        }
+
+        /**
+         * 条件请求头：If-None-Match 和 / 或 If-Modified-Since
+         */
+        public Map<String, String> conditionalHeaders() {
+            Map<String, String> conditional = new HashMap<>();
+            first("ETag").ifPresent(etag -> conditional.put("If-None-Match", etag));
+            first("Last-Modified").ifPresent(date -> conditional.put("If-Modified-Since", date));
+            return conditional;
+        }
+
+        /**
+         * 转成响应体；传输字节数为 0
+         */
+        public ResponseBody toBody() {
+            ContentType contentType = ContentType.parse(first("Content-Type").orElse(null));
+            return ResponseBody.inMemory(contentType, body, false).withEncoding(contentEncoding, decoded, 0);
+        }
+
+        private boolean hasValidators() {
+            return first("ETag").isPresent() || first("Last-Modified").isPresent();
+        }
+
+        private boolean matchesVary(HttpHeaders requestHeaders) {
+            for (Map.Entry<String, String> header : vary.entrySet()) {
+                if (!header.getValue().equals(String.join(",", requestHeaders.allValues(header.getKey())))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private Optional<String> first(String name) {
+            List<String> values = headers.get(name);
+            return values == null || values.isEmpty() ? Optional.empty() : Optional.of(values.get(0));
+        }
+
+        /**
+         * 按 RFC 9111 第 4.2 节计算过期时间：当前年龄 = 修正后的初始年龄 + 驻留时间
+         */
+        private void computeFreshness(long requestTime, long responseTime) {
+            CacheControl control = CacheControl.parse(headers);
+            long date = first("Date").map(HttpResponseCache::parseDate).orElse(-1L);
+            long ageValue = first("Age").map(HttpResponseCache::parseSeconds).orElse(0L) * 1000;
+            long apparentAge = date > 0 ? Math.max(0, responseTime - date) : 0;
+            long initialAge = Math.max(apparentAge, ageValue + (responseTime - requestTime));
+
+            long lifetime;
+            if (control.has("no-cache")) {
+                lifetime = 0;
+            } else if (control.seconds("s-maxage") >= 0) {
+                lifetime = control.seconds("s-maxage") * 1000;
+            } else if (control.seconds("max-age") >= 0) {
+                lifetime = control.seconds("max-age") * 1000;
+            } else {
+                long expires = first("Expires").map(HttpResponseCache::parseDate).orElse(-1L);
+                lifetime = expires > 0 ? Math.max(0, expires - (date > 0 ? date : responseTime)) : 0;
+            }
+            this.expiresAt = responseTime + lifetime - initialAge;
+            long swr = control.seconds("stale-while-revalidate");
+            boolean mustRevalidate = control.has("must-revalidate") || control.has("proxy-revalidate")
+                    || control.has("no-cache");
+            this.staleWhileRevalidateUntil = swr > 0 && !mustRevalidate ? expiresAt + swr * 1000 : expiresAt;
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            out.writeInt(statusCode);
+            writeString(out, version);
+            out.writeLong(expiresAt);
+            out.writeLong(staleWhileRevalidateUntil);
+            writeString(out, contentEncoding);
+            out.writeBoolean(decoded);
+            out.writeInt(headers.size());
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                writeString(out, header.getKey());
+                out.writeInt(header.getValue().size());
+                for (String value : header.getValue()) {
+                    writeString(out, value);
+                }
+            }
+            out.writeInt(vary.size());
+            for (Map.Entry<String, String> header : vary.entrySet()) {
+                writeString(out, header.getKey());
+                writeString(out, header.getValue());
+            }
+            out.writeInt(body.length);
+            out.write(body);
+        }
+
+        private static Entry read(String key, DataInputStream in) throws IOException {
+            int statusCode = in.readInt();
+            String version = readString(in);
+            long expiresAt = in.readLong();
+            long staleUntil = in.readLong();
+            String contentEncoding = readString(in);
+            boolean decoded = in.readBoolean();
+            Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            int headerCount = in.readInt();
+            for (int i = 0; i < headerCount; i++) {
+                String name = readString(in);
+                int valueCount = in.readInt();
+                List<String> values = new ArrayList<>(valueCount);
+                for (int j = 0; j < valueCount; j++) {
+                    values.add(readString(in));
+                }
+                headers.put(name, Collections.unmodifiableList(values));
+            }
+            Map<String, String> vary = new TreeMap<>();
+            int varyCount = in.readInt();
+            for (int i = 0; i < varyCount; i++) {
+                vary.put(readString(in), readString(in));
+            }
+            byte[] body = readBytes(in, in.readInt());
+            Entry entry = new Entry(key, statusCode, version, headers, body, contentEncoding, decoded, vary);
+            entry.expiresAt = expiresAt;
+            entry.staleWhileRevalidateUntil = staleUntil;
+            return entry;
+        }
+    }
+
+    private static long parseDate(String value) {
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    private static long parseSeconds(String value) {
+        try {
+            return Math.max(0, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Cache-Control 指令
+     */
+    private static final class CacheControl {
+        private final Map<String, String> directives = new HashMap<>();
+
+        static CacheControl parse(HttpHeaders headers) {
+            return parse(headers.allValues("Cache-Control"));
+        }
+
+        static CacheControl parse(Map<String, List<String>> headers) {
+            List<String> values = headers.get("Cache-Control");
+            return parse(values == null ? List.of() : values);
+        }
+
+        private static CacheControl parse(List<String> values) {
+            CacheControl control = new CacheControl();
+            for (String value : values) {
+                for (String directive : value.split(",")) {
+                    String trimmed = directive.trim();
+                    if (trimmed.isEmpty()) {
+                        continue;
+                    }
+                    int eq = trimmed.indexOf('=');
+                    String name = (eq < 0 ? trimmed : trimmed.substring(0, eq)).trim().toLowerCase(Locale.ROOT);
+                    String argument = eq < 0 ? "" : trimmed.substring(eq + 1).trim().replace("\"", "");
+                    control.directives.putIfAbsent(name, argument);
+                }
+            }
+            return control;
+        }
+
+        boolean has(String name) {
+            return directives.containsKey(name);
+        }
+
+        /**
+         * 秒数参数；不存在或格式错误返回 -1
+         */
+        long seconds(String name) {
+            String value = directives.get(name);
+            if (value == null || value.isEmpty()) {
+                return -1;
+            }
+            try {
+                return Math.max(0, Long.parseLong(value));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package io.bolt.plugin.examples.http;
+
+import java.util.Arrays;
+
+/**
+ * 最近若干次请求耗时的分位数
+ * 环形数组保存最近 capacity 个样本；分位数每记录 REFRESH_INTERVAL 个样本重新计算一次，
+ * 读取时不需要排序
+ */
+public final class LatencyTracker {
+
+    private static final int REFRESH_INTERVAL = 32;
+
+    private final long[] samples;
+    private final double percentile;
+    private int count = 0;
+    private int next = 0;
+    private int sinceRefresh = 0;
+    private long cached = -1;
+
+    /**
+     * @param capacity   保留的样本数
+     * @param percentile 分位数，0 到 100
+     */
+    public LatencyTracker(int capacity, double percentile) {
+        this.samples = new long[Math.max(1, capacity)];
+        this.percentile = Math.min(100, Math.max(0, percentile));
+    }
+
+    public synchronized void record(long millis) {
+        samples[next] = millis;
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+        if (++sinceRefresh >= REFRESH_INTERVAL || cached < 0) {
+            refresh();
+        }
+    }
+
+    /**
+     * 当前分位数（毫秒）；样本少于 minSamples 时返回 -1
+     */
+    public synchronized long get(int minSamples) {
+        if (count < Math.max(1, minSamples)) {
+            return -1;
+        }
+        return cached;
+    }
+
+    public synchronized int getCount() {
+        return count;
+    }
+
+    private void refresh() {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * count) - 1;
+        cached = sorted[Math.max(0, Math.min(count - 1, index))];
+        sinceRefresh = 0;
+    }
+}
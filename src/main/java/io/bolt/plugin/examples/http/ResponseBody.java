@@ -0,0 +1,214 @@
+package io.bolt.plugin.examples.http;
+
+import io.bolt.plugin.api.PluginException;
+
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 读取完成的响应体：内存中的字节，已写入本地文件的路径与大小，或边收边解析出的 JSON 值
+ */
+public final class ResponseBody {
+
+    /**
+     * 响应体输出格式
+     */
+    public enum Format {
+        /**
+         * 文本类型按 charset 解码为字符串，其他类型输出 Base64
+         */
+        AUTO,
+        TEXT,
+        BASE64,
+        /**
+         * 原始 byte[]，适合在同一 JVM 内继续处理
+         */
+        BYTES,
+        /**
+         * 2xx 响应边收边解析为 Map / List，可只取部分路径；其他响应按 AUTO 输出
+         */
+        JSON;
+
+        public static Format of(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new PluginException("INVALID_PARAM", "不支持的 bodyFormat: " + value);
+            }
+        }
+    }
+
+    private final ContentType contentType;
+    private final byte[] bytes;
+    private final Path file;
+    private final long size;
+    private final boolean truncated;
+    private final String contentEncoding;
+    private final boolean decoded;
+    private final long wireBytes;
+    private final boolean parsed;
+    private final Object json;
+
+    private ResponseBody(ContentType contentType, byte[] bytes, Path file, long size, boolean truncated,
+                         String contentEncoding, boolean decoded, long wireBytes, boolean parsed, Object json) {
+        this.contentType = contentType;
+        this.bytes = bytes;
+        this.file = file;
+        this.size = size;
+        this.truncated = truncated;
+        this.contentEncoding = contentEncoding;
+        this.decoded = decoded;
+        this.wireBytes = wireBytes;
+        this.parsed = parsed;
+        this.json = json;
+    }
+
+    static ResponseBody inMemory(ContentType contentType, byte[] bytes, boolean truncated) {
+        return new ResponseBody(contentType, bytes, null, bytes.length, truncated, null, false, bytes.length,
+                false, null);
+    }
+
+    static ResponseBody inFile(ContentType contentType, Path file, long size, boolean truncated) {
+        return new ResponseBody(contentType, null, file, size, truncated, null, false, size, false, null);
+    }
+
+    /**
+     * @param json      解析结果，整个文档或投影出的路径；文档被截断时为 null
+     * @param size      解析器读取的字节数
+     * @param truncated 文档超过上限，只读了一部分
+     */
+    static ResponseBody parsed(ContentType contentType, Object json, long size, boolean truncated) {
+        return new ResponseBody(contentType, null, null, size, truncated, null, false, size, true, json);
+    }
+
+    /**
+     * 附加传输编码信息
+     *
+     * @param contentEncoding 响应的 Content-Encoding
+     * @param decoded         是否已解压
+     * @param wireBytes       实际传输的字节数
+     */
+    ResponseBody withEncoding(String contentEncoding, boolean decoded, long wireBytes) {
+        return new ResponseBody(contentType, bytes, file, size, truncated, contentEncoding, decoded, wireBytes,
+                parsed, json);
+    }
+
+    public ContentType getContentType() {
+        return contentType;
+    }
+
+    /**
+     * 内存中的响应体；写入文件时为 null
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * 是否已解析为 JSON；此时没有字节内容
+     */
+    public boolean isParsed() {
+        return parsed;
+    }
+
+    /**
+     * 解析出的 JSON 值
+     */
+    public Object getJson() {
+        return json;
+    }
+
+    /**
+     * 响应体所在的文件；未写入文件时为 null
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * 读取到的字节数（截断后的大小）
+     */
+    public long getSize() {
+        return size;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * 响应的 Content-Encoding；未压缩时为 null
+     */
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    /**
+     * 内容是否已按 Content-Encoding 解压；不支持的编码保持原样
+     */
+    public boolean isDecoded() {
+        return decoded;
+    }
+
+    /**
+     * 返回给调用方的响应头：内容已解压时 Content-Encoding 和 Content-Length 描述的是压缩后的传输内容，与返回的内容不符，去掉这两个头
+     */
+    public static Map<String, List<String>> visibleHeaders(Map<String, List<String>> headers, boolean decoded) {
+        if (!decoded) {
+            return headers;
+        }
+        Map<String, List<String>> visible = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        visible.putAll(headers);
+        visible.remove("Content-Encoding");
+        visible.remove("Content-Length");
+        return visible;
+    }
+
+    /**
+     * 实际传输的字节数（压缩后，不含分块传输的帧开销）
+     */
+    public long getWireBytes() {
+        return wireBytes;
+    }
+
+    /**
+     * 按格式写入结果：body、bodyEncoding、bodySize、truncated、contentType、charset；
+     * 写入文件时只有 path 而没有 body，已解析的 JSON 直接作为 body
+     */
+    public void writeTo(Map<String, Object> result, Format format) {
+        result.put("bodySize", size);
+        result.put("truncated", truncated);
+        result.put("contentType", contentType.getMimeType());
+        if (file != null) {
+            result.put("path", file.toString());
+            return;
+        }
+        if (parsed) {
+            result.put("body", json);
+            result.put("bodyEncoding", "json");
+            return;
+        }
+
+        // 未能解压的内容不能按文本解码
+        boolean text = contentType.isText() && (contentEncoding == null || decoded);
+        Format effective = format == Format.AUTO || format == Format.JSON
+                ? (text ? Format.TEXT : Format.BASE64) : format;
+        switch (effective) {
+            case TEXT:
+                result.put("body", new String(bytes, contentType.charsetOrDefault()));
+                result.put("charset", contentType.charsetOrDefault().name());
+                break;
+            case BYTES:
+                result.put("body", bytes);
+                break;
+            default:
+                result.put("body", Base64.getEncoder().encodeToString(bytes));
+                break;
+        }
+        result.put("bodyEncoding", effective.name().toLowerCase(Locale.ROOT));
+    }
+}
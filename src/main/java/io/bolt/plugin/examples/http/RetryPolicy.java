@@ -0,0 +1,151 @@
+package io.bolt.plugin.examples.http;
+
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 重试策略
+ * 退避时间取 [0, min(maxDelay, baseDelay * 2^(n-1))] 内的随机值（full jitter），避免大量客户端同时重试；
+ * 只有幂等请求在网络错误和 502 / 504 后重试，429 和带 Retry-After 的 503 表示服务端没有处理请求，任何方法都可以重试，
+ * 等待时间以 Retry-After 为准。
+ * 每次重试（包括对冲请求）消耗一个令牌，每个新请求存入 budgetRatio 个令牌，令牌不足时不再重试，
+ * 上游故障时重试流量最多是正常流量的 budgetRatio 倍，不会成倍放大
+ */
+public final class RetryPolicy {
+
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "PUT", "DELETE", "OPTIONS", "TRACE");
+
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final long maxRetryAfterMs;
+    private final double budgetTokens;
+    private final double budgetRatio;
+
+    private double tokens;
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong budgetExhausted = new AtomicLong();
+    private final AtomicLong retryAfterTooLong = new AtomicLong();
+
+    /**
+     * @param baseDelayMs     第一次重试的退避上限
+     * @param maxDelayMs      退避上限
+     * @param maxRetryAfterMs Retry-After 超过该值时不重试，直接返回响应
+     * @param budgetTokens    令牌桶容量，小于等于 0 表示不限制重试总量
+     * @param budgetRatio     每个新请求存入的令牌数
+     */
+    public RetryPolicy(long baseDelayMs, long maxDelayMs, long maxRetryAfterMs, double budgetTokens, double budgetRatio) {
+        this.baseDelayMs = Math.max(1, baseDelayMs);
+        this.maxDelayMs = Math.max(this.baseDelayMs, maxDelayMs);
+        this.maxRetryAfterMs = maxRetryAfterMs;
+        this.budgetTokens = budgetTokens;
+        this.budgetRatio = budgetRatio;
+        this.tokens = budgetTokens;
+    }
+
+    /**
+     * 方法本身幂等，或调用方带了 Idempotency-Key
+     */
+    public static boolean isIdempotent(String method, HttpHeaders headers) {
+        return IDEMPOTENT_METHODS.contains(method.toUpperCase(Locale.ROOT))
+                || headers.firstValue("Idempotency-Key").isPresent();
+    }
+
+    /**
+     * 新请求发出前调用，向令牌桶存入 budgetRatio 个令牌
+     */
+    public synchronized void onRequest() {
+        if (budgetTokens > 0) {
+            tokens = Math.min(budgetTokens, tokens + budgetRatio);
+        }
+    }
+
+    /**
+     * 取一个令牌；返回 false 表示预算用尽，不应再发请求
+     */
+    public boolean tryAcquire() {
+        if (budgetTokens > 0) {
+            synchronized (this) {
+                if (tokens < 1) {
+                    budgetExhausted.incrementAndGet();
+                    return false;
+                }
+                tokens -= 1;
+            }
+        }
+        retries.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 第 attempt 次失败后的退避时间（毫秒）
+     */
+    public long backoff(int attempt) {
+        int shift = Math.min(attempt - 1, 30);
+        long cap = Math.min(maxDelayMs, baseDelayMs << shift);
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    /**
+     * 按响应状态判断是否重试
+     *
+     * @return 重试前等待的毫秒数；不应重试时返回 -1
+     */
+    public long retryDelay(HttpResponse<?> response, boolean idempotent, int attempt) {
+        int status = response.statusCode();
+        long retryAfter = response.headers().firstValue("Retry-After")
+                .map(value -> parseRetryAfter(value, System.currentTimeMillis())).orElse(-1L);
+        boolean retryable = status == 429
+                || (status == 503 && (idempotent || retryAfter >= 0))
+                || (idempotent && (status == 502 || status == 504));
+        if (!retryable) {
+            return -1;
+        }
+        if (retryAfter < 0) {
+            return backoff(attempt);
+        }
+        if (retryAfter > maxRetryAfterMs) {
+            retryAfterTooLong.incrementAndGet();
+            return -1;
+        }
+        return retryAfter;
+    }
+
+    /**
+     * 解析 Retry-After：秒数或 HTTP 日期；无法解析时返回 -1
+     */
+    static long parseRetryAfter(String value, long now) {
+        String trimmed = value.trim();
+        try {
+            return Math.max(0, Long.parseLong(trimmed) * 1000);
+        } catch (NumberFormatException e) {
+            // 不是秒数，按日期解析
+        }
+        try {
+            long at = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return Math.max(0, at - now);
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("retries", retries.get());
+        stats.put("budgetExhausted", budgetExhausted.get());
+        stats.put("retryAfterTooLong", retryAfterTooLong.get());
+        if (budgetTokens > 0) {
+            stats.put("budgetTokens", Math.round(tokens * 100) / 100.0);
+            stats.put("budgetCapacity", budgetTokens);
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,133 @@
+package io.bolt.plugin.examples.jdbc;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 批量写入结果汇总
+ * 可被多个并行写入线程同时更新；行数已知时记录每行的影响行数，
+ * 失败行只保留前 maxReportedErrors 条明细，计数不受限制
+ */
+public final class BatchReport {
+
+    private final int[] results;
+    private final int maxReportedErrors;
+
+    private final AtomicLong totalAffected = new AtomicLong();
+    private final AtomicLong succeededRows = new AtomicLong();
+    private final AtomicLong failedRows = new AtomicLong();
+    private final AtomicLong committedRows = new AtomicLong();
+    private final AtomicInteger chunks = new AtomicInteger();
+    private final AtomicInteger committedChunks = new AtomicInteger();
+    private final List<Map<String, Object>> errors = new ArrayList<>();
+
+    /**
+     * @param totalRows         总行数，未知时传 -1（不记录每行结果）
+     * @param maxReportedErrors 失败明细最多保留条数
+     */
+    public BatchReport(int totalRows, int maxReportedErrors) {
+        this.results = totalRows >= 0 ? new int[totalRows] : null;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    void recordRow(long index, int count) {
+        if (results != null) {
+            results[(int) index] = count;
+        }
+        if (count > 0) {
+            totalAffected.addAndGet(count);
+        }
+        succeededRows.incrementAndGet();
+    }
+
+    /**
+     * 记录一个成功执行的分片
+     *
+     * @param counts   每行影响行数（可能为 SUCCESS_NO_INFO）
+     * @param affected 分片总影响行数
+     */
+    void recordRows(long offset, int[] counts, long affected) {
+        if (results != null) {
+            System.arraycopy(counts, 0, results, (int) offset, counts.length);
+        }
+        totalAffected.addAndGet(affected);
+        succeededRows.addAndGet(counts.length);
+    }
+
+    void recordFailure(long index, String message) {
+        if (results != null) {
+            results[(int) index] = Statement.EXECUTE_FAILED;
+        }
+        failedRows.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < maxReportedErrors) {
+                Map<String, Object> error = new HashMap<>();
+                error.put("index", index);
+                error.put("error", message);
+                errors.add(error);
+            }
+        }
+    }
+
+    /**
+     * 记录一个完成的分片
+     *
+     * @param rows 分片中成功写入的行数，逐行重试时不含失败的行
+     */
+    void chunkDone(boolean committed, int rows) {
+        chunks.incrementAndGet();
+        if (committed) {
+            committedChunks.incrementAndGet();
+            committedRows.addAndGet(rows);
+        }
+    }
+
+    /**
+     * 单事务模式最终提交
+     */
+    void committedAll() {
+        committedChunks.set(chunks.get());
+        committedRows.set(succeededRows.get());
+    }
+
+    public long getSucceededRows() {
+        return succeededRows.get();
+    }
+
+    public long getFailedRows() {
+        return failedRows.get();
+    }
+
+    public long getCommittedRows() {
+        return committedRows.get();
+    }
+
+    public long getTotalAffected() {
+        return totalAffected.get();
+    }
+
+    public Map<String, Object> toResult() {
+        Map<String, Object> result = new HashMap<>();
+        if (results != null) {
+            result.put("batchSize", results.length);
+            result.put("results", results);
+        }
+        result.put("totalAffected", totalAffected.get());
+        result.put("succeededRows", succeededRows.get());
+        result.put("failedCount", failedRows.get());
+        result.put("chunks", chunks.get());
+        result.put("committedChunks", committedChunks.get());
+        result.put("committedRows", committedRows.get());
+        synchronized (errors) {
+            if (!errors.isEmpty()) {
+                result.put("errors", new ArrayList<>(errors));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,384 @@
+package io.bolt.plugin.examples.jdbc;
+
+import io.bolt.plugin.api.PluginException;
+import io.bolt.plugin.util.Params;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分片批量写入器
+ * 将参数集按 chunkSize 切片执行，可选每片提交、多连接并行、多行 INSERT 改写，
+ * continueOnError 时失败分片回滚到保存点后逐行重试，定位并跳过失败行
+ */
+public final class BatchWriter {
+
+    private final String sql;
+    private final Options options;
+    private final InsertRewriter rewriter;
+    private volatile int maxRowsPerStatement = -1;
+
+    public BatchWriter(String sql, Options options) {
+        this.sql = sql;
+        this.options = options;
+        this.rewriter = options.rewriteInserts ? InsertRewriter.parse(sql) : null;
+    }
+
+    public Options getOptions() {
+        return options;
+    }
+
+    /**
+     * 写入全部参数集
+     * 单连接时顺序执行；parallelism 大于 1 时每个工作线程各持有一个连接，按分片轮流领取任务
+     *
+     * @throws BatchFailedException 未开启 continueOnError 且有行失败时抛出，已提交的分片不会回滚
+     */
+    public void writeAll(ConnectionProvider connections, List<List<Object>> batchParams,
+                         BatchReport report) throws SQLException {
+        int chunkCount = (batchParams.size() + options.chunkSize - 1) / options.chunkSize;
+        int workers = Math.min(options.parallelism, chunkCount);
+
+        if (workers <= 1) {
+            try (Connection conn = connections.getConnection()) {
+                writeChunks(conn, batchParams, new AtomicInteger(), chunkCount, new AtomicBoolean(), report);
+            }
+            return;
+        }
+
+        AtomicInteger nextChunk = new AtomicInteger();
+        AtomicBoolean stop = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(workers, r -> {
+            Thread thread = new Thread(r, "bolt-batch-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(() -> {
+                    try (Connection conn = connections.getConnection()) {
+                        writeChunks(conn, batchParams, nextChunk, chunkCount, stop, report);
+                    } catch (SQLException | RuntimeException e) {
+                        stop.set(true);
+                        throw e;
+                    }
+                    return null;
+                }));
+            }
+
+            SQLException failure = null;
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (failure == null) {
+                        failure = cause instanceof SQLException
+                                ? (SQLException) cause
+                                : new SQLException(cause.getMessage(), cause);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    stop.set(true);
+                    throw new SQLException("批量写入被中断", e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void writeChunks(Connection conn, List<List<Object>> batchParams, AtomicInteger nextChunk,
+                             int chunkCount, AtomicBoolean stop, BatchReport report) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            int chunk;
+            while (!stop.get() && (chunk = nextChunk.getAndIncrement()) < chunkCount) {
+                int from = chunk * options.chunkSize;
+                int to = Math.min(from + options.chunkSize, batchParams.size());
+                writeChunk(conn, batchParams.subList(from, to), from, report);
+            }
+            if (!options.commitPerChunk) {
+                conn.commit();
+                report.committedAll();
+            }
+        } catch (SQLException | RuntimeException e) {
+            rollbackQuietly(conn);
+            throw e;
+        }
+    }
+
+    /**
+     * 在调用方提供的连接上写入一个分片，连接必须已关闭 autoCommit
+     * commitPerChunk 时本方法负责提交；否则由调用方在全部分片完成后提交
+     *
+     * @param offset 分片第一行在整个批次中的序号
+     */
+    public void writeChunk(Connection conn, List<List<Object>> rows, long offset, BatchReport report) throws SQLException {
+        Savepoint chunkSavepoint = options.continueOnError && !options.commitPerChunk ? conn.setSavepoint() : null;
+        int succeeded = rows.size();
+        try {
+            int[] counts = new int[rows.size()];
+            long affected = useRewrite(conn)
+                    ? executeRewritten(conn, rows, offset, counts)
+                    : executeBatch(conn, rows, counts);
+            report.recordRows(offset, counts, affected);
+        } catch (SQLException e) {
+            if (!options.continueOnError) {
+                throw toFailure(e, rows.size(), offset);
+            }
+            if (chunkSavepoint != null) {
+                conn.rollback(chunkSavepoint);
+            } else {
+                conn.rollback();
+            }
+            succeeded = executeRowByRow(conn, rows, offset, report);
+        }
+
+        if (options.commitPerChunk) {
+            conn.commit();
+        }
+        report.chunkDone(options.commitPerChunk, succeeded);
+    }
+
+    private long executeBatch(Connection conn, List<List<Object>> rows, int[] counts) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (List<Object> row : rows) {
+                setParameters(stmt, row, 0);
+                stmt.addBatch();
+            }
+            int[] results = stmt.executeBatch();
+            long affected = 0;
+            for (int i = 0; i < results.length && i < counts.length; i++) {
+                counts[i] = results[i];
+                if (results[i] > 0) {
+                    affected += results[i];
+                }
+            }
+            return affected;
+        }
+    }
+
+    /**
+     * 多行改写执行，每条语句只能拿到整体影响行数：与行数一致时每行记 1，否则记 SUCCESS_NO_INFO
+     */
+    private long executeRewritten(Connection conn, List<List<Object>> rows, long offset, int[] counts) throws SQLException {
+        int perRow = rewriter.getParamsPerRow();
+        for (int i = 0; i < rows.size(); i++) {
+            List<Object> row = rows.get(i);
+            if (row == null || row.size() != perRow) {
+                throw new SQLException("第 " + (offset + i) + " 行参数个数与语句不匹配");
+            }
+        }
+
+        int groupSize = Math.min(maxRowsPerStatement, rows.size());
+        long affected = 0;
+        PreparedStatement fullGroup = null;
+        try {
+            for (int start = 0; start < rows.size(); start += groupSize) {
+                int size = Math.min(groupSize, rows.size() - start);
+                PreparedStatement stmt;
+                if (size == groupSize) {
+                    if (fullGroup == null) {
+                        fullGroup = conn.prepareStatement(rewriter.build(groupSize));
+                    }
+                    stmt = fullGroup;
+                } else {
+                    stmt = conn.prepareStatement(rewriter.build(size));
+                }
+                try {
+                    for (int i = 0; i < size; i++) {
+                        setParameters(stmt, rows.get(start + i), i * perRow);
+                    }
+                    int total = stmt.executeUpdate();
+                    Arrays.fill(counts, start, start + size, total == size ? 1 : Statement.SUCCESS_NO_INFO);
+                    affected += Math.max(total, 0);
+                } finally {
+                    if (stmt != fullGroup) {
+                        stmt.close();
+                    }
+                }
+            }
+        } finally {
+            if (fullGroup != null) {
+                fullGroup.close();
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * 逐行执行，每行使用独立保存点，失败行回滚后继续
+     *
+     * @return 成功的行数
+     */
+    private int executeRowByRow(Connection conn, List<List<Object>> rows, long offset, BatchReport report) throws SQLException {
+        int succeeded = 0;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < rows.size(); i++) {
+                Savepoint savepoint = conn.setSavepoint();
+                try {
+                    stmt.clearParameters();
+                    setParameters(stmt, rows.get(i), 0);
+                    report.recordRow(offset + i, stmt.executeUpdate());
+                    succeeded++;
+                } catch (SQLException e) {
+                    conn.rollback(savepoint);
+                    report.recordFailure(offset + i, e.getMessage());
+                }
+            }
+        }
+        return succeeded;
+    }
+
+    private boolean useRewrite(Connection conn) throws SQLException {
+        if (rewriter == null) {
+            return false;
+        }
+        if (maxRowsPerStatement < 0) {
+            int maxParams = InsertRewriter.maxParamsFor(conn.getMetaData().getDatabaseProductName());
+            maxRowsPerStatement = maxParams / rewriter.getParamsPerRow();
+        }
+        return maxRowsPerStatement > 1;
+    }
+
+    private BatchFailedException toFailure(SQLException e, int rows, long offset) {
+        long failedIndex = offset;
+        String detail = "";
+        if (e instanceof BatchUpdateException && rewriter == null) {
+            int[] counts = ((BatchUpdateException) e).getUpdateCounts();
+            int index = counts != null ? counts.length : 0;
+            if (counts != null && counts.length >= rows) {
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == Statement.EXECUTE_FAILED) {
+                        index = i;
+                        break;
+                    }
+                }
+            }
+            failedIndex = offset + index;
+        } else if (rows > 1) {
+            detail = "（分片 " + offset + "-" + (offset + rows - 1) + " 内）";
+        }
+        return new BatchFailedException(failedIndex,
+                "第 " + failedIndex + " 行执行失败" + detail + ": " + e.getMessage(), e);
+    }
+
+    private static void setParameters(PreparedStatement stmt, List<Object> params, int base) throws SQLException {
+        if (params != null) {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(base + i + 1, params.get(i));
+            }
+        }
+    }
+
+    private static void rollbackQuietly(Connection conn) {
+        try {
+            conn.rollback();
+        } catch (SQLException ignored) {
+            // 回滚失败时连接会在归还连接池时被丢弃
+        }
+    }
+
+    /**
+     * 批量写入选项
+     */
+    public static final class Options {
+
+        private final int chunkSize;
+        private final boolean commitPerChunk;
+        private final boolean continueOnError;
+        private final boolean rewriteInserts;
+        private final int parallelism;
+        private final int maxReportedErrors;
+
+        private Options(int chunkSize, boolean commitPerChunk, boolean continueOnError,
+                        boolean rewriteInserts, int parallelism, int maxReportedErrors) {
+            this.chunkSize = chunkSize;
+            this.commitPerChunk = commitPerChunk;
+            this.continueOnError = continueOnError;
+            this.rewriteInserts = rewriteInserts;
+            this.parallelism = parallelism;
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        /**
+         * 从动作参数解析
+         *
+         * @param defaultChunkSize 插件配置的默认分片大小
+         * @param maxParallelism   并行度上限（通常为连接池大小）
+         * @param commitPerChunk   未显式指定时是否每片提交
+         */
+        public static Options from(Map<String, Object> params, int defaultChunkSize,
+                                   int maxParallelism, boolean commitPerChunk) {
+            int chunkSize = Params.getInt(params, "chunkSize", defaultChunkSize);
+            boolean perChunk = Params.getBoolean(params, "commitPerChunk", commitPerChunk);
+            int parallelism = Math.min(Params.getInt(params, "parallelism", 1), maxParallelism);
+
+            if (chunkSize <= 0) {
+                throw new PluginException("INVALID_PARAM", "chunkSize 必须为正整数");
+            }
+            if (parallelism > 1 && !perChunk) {
+                throw new PluginException("INVALID_PARAM", "并行写入需要开启 commitPerChunk");
+            }
+
+            return new Options(chunkSize, perChunk,
+                    Params.getBoolean(params, "continueOnError", false),
+                    Params.getBoolean(params, "rewriteInserts", false),
+                    Math.max(1, parallelism),
+                    Params.getInt(params, "maxReportedErrors", 100));
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public boolean isCommitPerChunk() {
+            return commitPerChunk;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public int getMaxReportedErrors() {
+            return maxReportedErrors;
+        }
+    }
+
+    /**
+     * 批量写入失败，携带失败行序号
+     */
+    public static final class BatchFailedException extends SQLException {
+        private static final long serialVersionUID = 1L;
+
+        private final long rowIndex;
+
+        BatchFailedException(long rowIndex, String message, SQLException cause) {
+            super(message, cause.getSQLState(), cause.getErrorCode(), cause);
+            this.rowIndex = rowIndex;
+        }
+
+        public long getRowIndex() {
+            return rowIndex;
+        }
+    }
+}
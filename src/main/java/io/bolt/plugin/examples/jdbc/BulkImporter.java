@@ -0,0 +1,434 @@
+package io.bolt.plugin.examples.jdbc;
+
+import io.bolt.plugin.api.PluginException;
+import io.bolt.plugin.util.Json;
+import io.bolt.plugin.util.JsonWriter;
+import io.bolt.plugin.util.Params;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 流式批量导入
+ * 读取线程通过 FileChannel 解码文件、解析 CSV / JSONL 记录并按分片放入有界队列，
+ * 写入线程同时从队列取分片执行 JDBC 批量写入；内存占用只与 chunkSize × pipelineDepth 相关，与文件大小无关
+ */
+public final class BulkImporter {
+
+    /**
+     * 文件格式
+     */
+    public enum Format {
+        CSV, JSONL;
+
+        static Format of(String format, Path file) {
+            String value = format;
+            if (value == null) {
+                String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+                value = name.endsWith(".jsonl") || name.endsWith(".ndjson") ? "jsonl" : "csv";
+            }
+            switch (value.toLowerCase(Locale.ROOT)) {
+                case "csv":
+                    return CSV;
+                case "jsonl":
+                case "ndjson":
+                    return JSONL;
+                default:
+                    throw new PluginException("INVALID_PARAM", "不支持的导入格式: " + format);
+            }
+        }
+    }
+
+    private static final List<List<Object>> END = Collections.emptyList();
+
+    private final Path file;
+    private final BatchWriter writer;
+    private final Format format;
+    private final List<Object> columns;
+    private final boolean header;
+    private final char delimiter;
+    private final char quote;
+    private final boolean emptyAsNull;
+    private final Charset charset;
+    private final int pipelineDepth;
+    private final long progressIntervalRows;
+    private final boolean continueOnError;
+
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private long fileSize;
+    private volatile boolean stopped = false;
+
+    @SuppressWarnings("unchecked")
+    public BulkImporter(Path file, BatchWriter writer, Map<String, Object> params) {
+        this.file = file;
+        this.writer = writer;
+        this.format = Format.of(Params.getString(params, "format", null), file);
+        this.columns = (List<Object>) params.get("columns");
+        this.header = Params.getBoolean(params, "header", true);
+        this.delimiter = singleChar(Params.getString(params, "delimiter", ","), "delimiter");
+        this.quote = singleChar(Params.getString(params, "quote", "\""), "quote");
+        this.emptyAsNull = Params.getBoolean(params, "emptyAsNull", true);
+        this.charset = Charset.forName(Params.getString(params, "charset", "UTF-8"));
+        this.pipelineDepth = Math.max(1, Params.getInt(params, "pipelineDepth", 4));
+        this.progressIntervalRows = Params.getLong(params, "progressIntervalRows", 100_000);
+        this.continueOnError = Params.getBoolean(params, "continueOnError", false);
+
+        if (format == Format.JSONL && (columns == null || columns.isEmpty())) {
+            throw new PluginException("INVALID_PARAM", "JSONL 导入需要通过 columns 指定字段顺序");
+        }
+    }
+
+    /**
+     * 执行导入
+     *
+     * @param progress 每写入 progressIntervalRows 行回调一次进度
+     */
+    public void run(ConnectionProvider connections, BatchReport report,
+                    Consumer<Map<String, Object>> progress) throws SQLException, IOException {
+        BlockingQueue<List<List<Object>>> queue = new ArrayBlockingQueue<>(pipelineDepth);
+        int workers = writer.getOptions().getParallelism();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            this.fileSize = channel.size();
+            Reader reader = Channels.newReader(channel, charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT), 64 * 1024);
+
+            ExecutorService executor = Executors.newFixedThreadPool(workers + 1, r -> {
+                Thread thread = new Thread(r, "bolt-import");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                Future<?> producer = executor.submit(() -> {
+                    try {
+                        produce(reader, channel, queue, report);
+                        return null;
+                    } catch (Exception e) {
+                        stopped = true;
+                        throw e;
+                    } finally {
+                        for (int i = 0; i < workers; i++) {
+                            enqueue(queue, END, true);
+                        }
+                    }
+                });
+
+                List<Future<?>> consumers = new ArrayList<>();
+                for (int i = 0; i < workers; i++) {
+                    consumers.add(executor.submit(() -> {
+                        consume(connections, queue, report, progress);
+                        return null;
+                    }));
+                }
+
+                Exception failure = null;
+                for (Future<?> consumer : consumers) {
+                    failure = await(consumer, failure);
+                }
+                stopped = true;
+                queue.clear();
+                failure = await(producer, failure);
+
+                if (failure instanceof SQLException) {
+                    throw (SQLException) failure;
+                }
+                if (failure instanceof IOException) {
+                    throw (IOException) failure;
+                }
+                if (failure != null) {
+                    throw (RuntimeException) failure;
+                }
+            } finally {
+                stopped = true;
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * 当前进度快照
+     */
+    public Map<String, Object> progress() {
+        Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("file", file.toString());
+        snapshot.put("format", format.name().toLowerCase(Locale.ROOT));
+        snapshot.put("rowsRead", rowsRead.get());
+        snapshot.put("rowsWritten", rowsWritten.get());
+        snapshot.put("bytesRead", bytesRead.get());
+        snapshot.put("fileSize", fileSize);
+        snapshot.put("percent", fileSize > 0 ? Math.min(100.0, bytesRead.get() * 100.0 / fileSize) : 100.0);
+        return snapshot;
+    }
+
+    private void produce(Reader reader, FileChannel channel, BlockingQueue<List<List<Object>>> queue,
+                         BatchReport report) throws IOException, InterruptedException {
+        int chunkSize = writer.getOptions().getChunkSize();
+        OffsetChunk chunk = new OffsetChunk(chunkSize, 0);
+        RecordSource source = format == Format.CSV ? new CsvSource(reader) : new JsonlSource(reader);
+        long index = 0;
+
+        while (!stopped) {
+            List<Object> record;
+            try {
+                record = source.next();
+            } catch (RecordException e) {
+                if (!continueOnError) {
+                    throw new IOException(e.getMessage(), e);
+                }
+                // 保持分片内行号连续：先提交已解析的部分，再记录失败行
+                if (!chunk.isEmpty()) {
+                    enqueue(queue, chunk, false);
+                }
+                report.recordFailure(index++, e.getMessage());
+                rowsRead.incrementAndGet();
+                chunk = new OffsetChunk(chunkSize, index);
+                continue;
+            }
+            if (record == null) {
+                break;
+            }
+            chunk.add(record);
+            index++;
+            rowsRead.incrementAndGet();
+            if (chunk.size() >= chunkSize) {
+                bytesRead.set(channel.position());
+                enqueue(queue, chunk, false);
+                chunk = new OffsetChunk(chunkSize, index);
+            }
+        }
+        bytesRead.set(fileSize);
+        if (!chunk.isEmpty()) {
+            enqueue(queue, chunk, false);
+        }
+    }
+
+    private void consume(ConnectionProvider connections, BlockingQueue<List<List<Object>>> queue,
+                         BatchReport report, Consumer<Map<String, Object>> progress)
+            throws SQLException, InterruptedException {
+        try (Connection conn = connections.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                while (true) {
+                    List<List<Object>> chunk = queue.take();
+                    if (chunk == END || stopped) {
+                        break;
+                    }
+                    writer.writeChunk(conn, chunk, ((OffsetChunk) chunk).offset, report);
+
+                    long before = rowsWritten.getAndAdd(chunk.size());
+                    if (progressIntervalRows > 0 && progress != null
+                            && (before + chunk.size()) / progressIntervalRows > before / progressIntervalRows) {
+                        progress.accept(progress());
+                    }
+                }
+                if (stopped) {
+                    // 读取失败或其他写入线程失败，未提交的部分全部回滚
+                    conn.rollback();
+                } else if (!writer.getOptions().isCommitPerChunk()) {
+                    conn.commit();
+                    report.committedAll();
+                }
+            } catch (SQLException | RuntimeException e) {
+                stopped = true;
+                try {
+                    conn.rollback();
+                } catch (SQLException ignored) {
+                    // 连接归还时会再次回滚
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void enqueue(BlockingQueue<List<List<Object>>> queue, List<List<Object>> chunk, boolean force)
+            throws InterruptedException {
+        while (!queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+            if (stopped && !force) {
+                return;
+            }
+            if (stopped) {
+                queue.clear();
+            }
+        }
+    }
+
+    private static Exception await(Future<?> future, Exception failure) {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            if (failure == null && e.getCause() instanceof Exception) {
+                return (Exception) e.getCause();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failure != null ? failure : new IOException("导入被中断", e);
+        }
+        return failure;
+    }
+
+    private static char singleChar(String value, String name) {
+        if (value.length() != 1) {
+            throw new PluginException("INVALID_PARAM", "参数 " + name + " 必须为单个字符");
+        }
+        return value.charAt(0);
+    }
+
+    private Object cell(String value) {
+        return emptyAsNull && value.isEmpty() ? null : value;
+    }
+
+    private interface RecordSource {
+        List<Object> next() throws IOException, RecordException;
+    }
+
+    private static final class RecordException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        RecordException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * 携带首行序号的分片，并行写入时取出顺序与读取顺序不同，错误序号仍与文件记录对应
+     */
+    private static final class OffsetChunk extends ArrayList<List<Object>> {
+        private static final long serialVersionUID = 1L;
+
+        private final long offset;
+
+        OffsetChunk(int capacity, long offset) {
+            super(capacity);
+            this.offset = offset;
+        }
+    }
+
+    private final class CsvSource implements RecordSource {
+
+        private final CsvRecordReader csv;
+        private int[] selected;
+
+        CsvSource(Reader reader) throws IOException {
+            this.csv = new CsvRecordReader(reader, delimiter, quote);
+            List<String> headerRow = header ? csv.next() : null;
+            if (columns != null && !columns.isEmpty()) {
+                selected = new int[columns.size()];
+                for (int i = 0; i < columns.size(); i++) {
+                    selected[i] = columnIndex(columns.get(i), headerRow);
+                }
+            }
+        }
+
+        @Override
+        public List<Object> next() throws IOException, RecordException {
+            List<String> fields = csv.next();
+            if (fields == null) {
+                return null;
+            }
+            if (selected == null) {
+                List<Object> values = new ArrayList<>(fields.size());
+                for (String field : fields) {
+                    values.add(cell(field));
+                }
+                return values;
+            }
+            List<Object> values = new ArrayList<>(selected.length);
+            for (int index : selected) {
+                if (index >= fields.size()) {
+                    throw new RecordException("第 " + (csv.getLine() - 1) + " 行字段数不足: " + fields.size());
+                }
+                values.add(cell(fields.get(index)));
+            }
+            return values;
+        }
+
+        private int columnIndex(Object column, List<String> headerRow) {
+            if (column instanceof Number) {
+                return ((Number) column).intValue();
+            }
+            if (headerRow != null) {
+                for (int i = 0; i < headerRow.size(); i++) {
+                    if (headerRow.get(i).trim().equalsIgnoreCase(String.valueOf(column))) {
+                        return i;
+                    }
+                }
+            }
+            throw new PluginException("INVALID_PARAM", "CSV 中找不到列: " + column);
+        }
+    }
+
+    private final class JsonlSource implements RecordSource {
+
+        private final BufferedReader lines;
+        private long line = 0;
+
+        JsonlSource(Reader reader) {
+            this.lines = new BufferedReader(reader, 64 * 1024);
+        }
+
+        @Override
+        public List<Object> next() throws IOException, RecordException {
+            String text;
+            do {
+                text = lines.readLine();
+                line++;
+                if (text == null) {
+                    return null;
+                }
+                if (line == 1 && !text.isEmpty() && text.charAt(0) == '\uFEFF') {
+                    text = text.substring(1);
+                }
+            } while (text.isBlank());
+
+            Object value;
+            try {
+                value = Json.parse(text);
+            } catch (IOException e) {
+                throw new RecordException("第 " + line + " 行: " + e.getMessage());
+            }
+
+            List<Object> values = new ArrayList<>(columns.size());
+            for (Object column : columns) {
+                Object cell;
+                if (value instanceof Map && !(column instanceof Number)) {
+                    cell = ((Map<?, ?>) value).get(String.valueOf(column));
+                } else if (value instanceof List && column instanceof Number) {
+                    List<?> list = (List<?>) value;
+                    int index = ((Number) column).intValue();
+                    cell = index < list.size() ? list.get(index) : null;
+                } else {
+                    throw new RecordException("第 " + line + " 行: 记录结构与 columns 不匹配");
+                }
+                values.add(cell instanceof Map || cell instanceof List ? JsonWriter.toJson(cell) : cell);
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package io.bolt.plugin.examples.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 连接来源
+ * 由插件提供，可以是连接池、主库或只读副本
+ */
+@FunctionalInterface
+public interface ConnectionProvider {
+
+    Connection getConnection() throws SQLException;
+}
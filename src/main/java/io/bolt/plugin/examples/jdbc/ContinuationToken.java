@@ -0,0 +1,133 @@
+package io.bolt.plugin.examples.jdbc;
+
+import io.bolt.plugin.api.PluginException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Keyset 分页续传令牌
+ * 令牌对调用方不透明，内容为：版本 | SQL 指纹 | 键类型 | 最后一行的键值，
+ * 通过 SQL 指纹校验令牌是否属于同一个查询，防止误用到其他语句上。
+ * 键值连同类型一起编码，解码后按原类型绑定参数，保证 {@code key > ?} 按键的类型比较而不是按文本比较；
+ * 不在支持范围内的键类型直接拒绝
+ */
+public final class ContinuationToken {
+
+    private static final String VERSION = "1";
+
+    private ContinuationToken() {
+    }
+
+    /**
+     * 根据最后一行的键值生成续传令牌
+     *
+     * @throws PluginException 键的类型不支持 keyset 分页时抛出 INVALID_PARAM
+     */
+    public static String encode(String sql, String keyColumn, Object lastKey) {
+        String typed;
+        if (lastKey instanceof Long || lastKey instanceof Integer
+                || lastKey instanceof Short || lastKey instanceof Byte) {
+            typed = "L|" + lastKey;
+        } else if (lastKey instanceof BigDecimal || lastKey instanceof BigInteger
+                || lastKey instanceof Double || lastKey instanceof Float) {
+            typed = "D|" + new BigDecimal(lastKey.toString()).toPlainString();
+        } else if (lastKey instanceof Timestamp) {
+            typed = "T|" + lastKey;
+        } else if (lastKey instanceof Date) {
+            typed = "d|" + lastKey;
+        } else if (lastKey instanceof Time) {
+            typed = "t|" + ((Time) lastKey).toLocalTime();
+        } else if (lastKey instanceof LocalDateTime) {
+            typed = "LDT|" + lastKey;
+        } else if (lastKey instanceof LocalDate) {
+            typed = "LD|" + lastKey;
+        } else if (lastKey instanceof LocalTime) {
+            typed = "LT|" + lastKey;
+        } else if (lastKey instanceof OffsetDateTime) {
+            typed = "ODT|" + lastKey;
+        } else if (lastKey instanceof Instant) {
+            typed = "I|" + lastKey;
+        } else if (lastKey instanceof UUID) {
+            typed = "U|" + lastKey;
+        } else if (lastKey instanceof String || lastKey instanceof Character) {
+            typed = "S|" + lastKey;
+        } else {
+            throw new PluginException("INVALID_PARAM", "keyColumn 的类型不支持 keyset 分页: "
+                    + lastKey.getClass().getName());
+        }
+        String raw = VERSION + "|" + fingerprint(sql, keyColumn) + "|" + typed;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析续传令牌，返回上一页最后一行的键值
+     *
+     * @throws PluginException 令牌格式错误或不属于当前查询时抛出 INVALID_TOKEN
+     */
+    public static Object decode(String token, String sql, String keyColumn) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new PluginException("INVALID_TOKEN", "续传令牌格式错误");
+        }
+
+        String[] parts = raw.split("\\|", 4);
+        if (parts.length != 4 || !VERSION.equals(parts[0])) {
+            throw new PluginException("INVALID_TOKEN", "续传令牌格式错误");
+        }
+        if (!fingerprint(sql, keyColumn).equals(parts[1])) {
+            throw new PluginException("INVALID_TOKEN", "续传令牌与当前查询不匹配");
+        }
+
+        try {
+            switch (parts[2]) {
+                case "L":
+                    return Long.parseLong(parts[3]);
+                case "D":
+                    return new BigDecimal(parts[3]);
+                case "T":
+                    return Timestamp.valueOf(parts[3]);
+                case "d":
+                    return Date.valueOf(parts[3]);
+                case "t":
+                    return Time.valueOf(LocalTime.parse(parts[3]));
+                case "LDT":
+                    return LocalDateTime.parse(parts[3]);
+                case "LD":
+                    return LocalDate.parse(parts[3]);
+                case "LT":
+                    return LocalTime.parse(parts[3]);
+                case "ODT":
+                    return OffsetDateTime.parse(parts[3]);
+                case "I":
+                    return Instant.parse(parts[3]);
+                case "U":
+                    return UUID.fromString(parts[3]);
+                case "S":
+                    return parts[3];
+                default:
+                    throw new PluginException("INVALID_TOKEN", "续传令牌键类型未知: " + parts[2]);
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new PluginException("INVALID_TOKEN", "续传令牌键值无法解析: " + e.getMessage());
+        }
+    }
+
+    private static String fingerprint(String sql, String keyColumn) {
+        return Integer.toHexString((sql.trim() + "#" + keyColumn).hashCode());
+    }
+}
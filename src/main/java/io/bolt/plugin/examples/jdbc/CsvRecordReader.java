@@ -0,0 +1,133 @@
+package io.bolt.plugin.examples.jdbc;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 流式 CSV 记录读取（RFC 4180）
+ * 支持引号包裹的字段、字段内的分隔符与换行、以及 "" 转义，
+ * 只保留固定大小的字符缓冲区和当前记录
+ */
+final class CsvRecordReader {
+
+    private final Reader in;
+    private final char delimiter;
+    private final char quote;
+    private final char[] buffer = new char[64 * 1024];
+    private int pos = 0;
+    private int limit = 0;
+    private long line = 1;
+    private boolean started = false;
+
+    CsvRecordReader(Reader in, char delimiter, char quote) {
+        this.in = in;
+        this.delimiter = delimiter;
+        this.quote = quote;
+    }
+
+    /**
+     * 当前读取位置所在的行号（从 1 开始）
+     */
+    long getLine() {
+        return line;
+    }
+
+    /**
+     * 读取下一条记录，文件结束返回 null；空行会被跳过
+     */
+    List<String> next() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        boolean quotedField = false;
+        boolean any = false;
+
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                if (inQuotes) {
+                    throw new IOException("第 " + line + " 行: 引号未闭合");
+                }
+                if (!any) {
+                    return null;
+                }
+                fields.add(field.toString());
+                return fields;
+            }
+            any = true;
+            char ch = (char) c;
+
+            if (inQuotes) {
+                if (ch == quote) {
+                    if (peek() == quote) {
+                        pos++;
+                        field.append(quote);
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    if (ch == '\n') {
+                        line++;
+                    }
+                    field.append(ch);
+                }
+                continue;
+            }
+
+            if (ch == quote && field.length() == 0 && !quotedField) {
+                inQuotes = true;
+                quotedField = true;
+            } else if (ch == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+                quotedField = false;
+            } else if (ch == '\r' || ch == '\n') {
+                if (ch == '\r' && peek() == '\n') {
+                    pos++;
+                }
+                line++;
+                if (fields.isEmpty() && field.length() == 0 && !quotedField) {
+                    any = false;
+                    continue;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append(ch);
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (pos >= limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos++];
+    }
+
+    private int peek() throws IOException {
+        if (pos >= limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos];
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        pos = 0;
+        limit = Math.max(n, 0);
+        if (!started && n > 0) {
+            started = true;
+            // 跳过 UTF-8 BOM
+            if (buffer[0] == '\uFEFF') {
+                pos = 1;
+                if (limit == 1) {
+                    return fill();
+                }
+            }
+        }
+        return n > 0;
+    }
+}
@@ -0,0 +1,293 @@
+package io.bolt.plugin.examples.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 组提交
+ * 并发到达的相同 SQL 单行写入在 maxDelayMs 窗口内合并为一个 JDBC 批次、一次提交，
+ * 每个调用方拿到自己那一行的影响行数。批次凑满 maxBatchSize 时由最后到达的调用方立即执行，
+ * 否则由定时线程在窗口结束时执行；批次失败时逐行重试，失败只影响对应的调用方。
+ * 批次取走后对应的组即从表中移除，表中只保留正在收集的组
+ */
+public final class GroupCommitter implements AutoCloseable {
+
+    private final ConnectionProvider connections;
+    private final long maxDelayMs;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+
+    private final Map<String, Group> groups = new ConcurrentHashMap<>();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong rows = new AtomicLong();
+    private volatile boolean closed = false;
+
+    public GroupCommitter(ConnectionProvider connections, long maxDelayMs, int maxBatchSize, int flushThreads) {
+        this.connections = connections;
+        this.maxDelayMs = Math.max(0, maxDelayMs);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(Math.max(1, flushThreads), r -> {
+            Thread thread = new Thread(r, "bolt-group-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.scheduler = executor;
+    }
+
+    /**
+     * 提交一行写入并等待所在批次提交
+     * 等待超时或被中断时，该行若还未进入执行中的批次则撤回不再执行，否则结果未知
+     *
+     * @param timeoutMs 最长等待毫秒数，Long.MAX_VALUE 表示不限制
+     * @return 该行的影响行数
+     */
+    public Result submit(String sql, List<Object> params, long timeoutMs) throws SQLException {
+        if (timeoutMs <= 0) {
+            throw new SQLTimeoutException("执行超时，未提交组提交");
+        }
+        Request request = new Request(params);
+        List<Request> full = null;
+        Group group;
+        while (true) {
+            group = groups.computeIfAbsent(sql, Group::new);
+            synchronized (group) {
+                if (group.retired) {
+                    // 拿到的组刚被取走批次，重新取当前的组
+                    continue;
+                }
+                // 在组锁内检查，close 持同一把锁取走批次，之后不会再有请求入队或调度定时器
+                if (closed) {
+                    throw new SQLException("组提交已关闭");
+                }
+                group.pending.add(request);
+                if (group.pending.size() >= maxBatchSize) {
+                    full = take(group);
+                } else if (group.pending.size() == 1) {
+                    Group scheduled = group;
+                    try {
+                        group.timer = scheduler.schedule(() -> flush(scheduled), maxDelayMs, TimeUnit.MILLISECONDS);
+                    } catch (RejectedExecutionException e) {
+                        take(group);
+                        throw new SQLException("组提交已关闭", e);
+                    }
+                }
+                break;
+            }
+        }
+        if (full != null) {
+            execute(sql, full);
+        }
+
+        try {
+            return timeoutMs == Long.MAX_VALUE
+                    ? request.future.get()
+                    : request.future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof SQLException ? (SQLException) cause : new SQLException(cause.getMessage(), cause);
+        } catch (TimeoutException e) {
+            throw new SQLTimeoutException(withdraw(group, request)
+                    ? "等待组提交超时 (" + timeoutMs + "ms)，该行未执行"
+                    : "等待组提交超时 (" + timeoutMs + "ms)，所在批次已开始执行，结果未知");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(withdraw(group, request)
+                    ? "等待组提交被中断，该行未执行"
+                    : "等待组提交被中断，所在批次已开始执行，结果未知", e);
+        }
+    }
+
+    /**
+     * 从尚未取走的批次中撤回请求
+     *
+     * @return 是否撤回成功；失败说明请求已在执行中的批次里
+     */
+    private boolean withdraw(Group group, Request request) {
+        synchronized (group) {
+            // 退役组的 pending 就是已取走的批次
+            if (group.retired || !group.pending.remove(request)) {
+                return false;
+            }
+            if (group.pending.isEmpty()) {
+                take(group);
+            }
+            return true;
+        }
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    public long getRowCount() {
+        return rows.get();
+    }
+
+    /**
+     * 正在收集请求的组数
+     */
+    public int getPendingGroupCount() {
+        return groups.size();
+    }
+
+    /**
+     * 关闭前执行所有待提交的批次
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Group group : groups.values()) {
+            flush(group);
+        }
+        scheduler.shutdown();
+    }
+
+    private void flush(Group group) {
+        List<Request> batch;
+        synchronized (group) {
+            if (group.retired) {
+                // 批次已被凑满的调用方或 close 取走
+                return;
+            }
+            batch = take(group);
+        }
+        if (!batch.isEmpty()) {
+            execute(group.sql, batch);
+        }
+    }
+
+    /**
+     * 取走当前批次、取消定时器并把组移出表，调用方需持有组锁
+     */
+    private List<Request> take(Group group) {
+        if (group.timer != null) {
+            group.timer.cancel(false);
+            group.timer = null;
+        }
+        group.retired = true;
+        groups.remove(group.sql, group);
+        return group.pending;
+    }
+
+    private void execute(String sql, List<Request> batch) {
+        batches.incrementAndGet();
+        rows.addAndGet(batch.size());
+        try (Connection conn = connections.getConnection()) {
+            conn.setAutoCommit(false);
+            int[] counts;
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (Request request : batch) {
+                    setParameters(stmt, request.params);
+                    stmt.addBatch();
+                }
+                counts = stmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                executeOneByOne(conn, sql, batch);
+                return;
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                int count = i < counts.length ? counts[i] : Statement.SUCCESS_NO_INFO;
+                batch.get(i).future.complete(new Result(count, batch.size()));
+            }
+        } catch (SQLException | RuntimeException e) {
+            for (Request request : batch) {
+                request.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 批次失败后逐行执行，找出真正失败的行；每行单独提交，互不影响
+     */
+    private void executeOneByOne(Connection conn, String sql, List<Request> batch) throws SQLException {
+        conn.setAutoCommit(true);
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (Request request : batch) {
+                try {
+                    setParameters(stmt, request.params);
+                    request.future.complete(new Result(stmt.executeUpdate(), 1));
+                } catch (SQLException e) {
+                    request.future.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private static void setParameters(PreparedStatement stmt, List<Object> params) throws SQLException {
+        stmt.clearParameters();
+        if (params != null) {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+        }
+    }
+
+    /**
+     * 单个调用方的结果
+     */
+    public static final class Result {
+        private final int affectedRows;
+        private final int groupSize;
+
+        private Result(int affectedRows, int groupSize) {
+            this.affectedRows = affectedRows;
+            this.groupSize = groupSize;
+        }
+
+        /**
+         * 影响行数；驱动未返回逐行计数时为 Statement.SUCCESS_NO_INFO
+         */
+        public int getAffectedRows() {
+            return affectedRows;
+        }
+
+        /**
+         * 与本行一起提交的行数
+         */
+        public int getGroupSize() {
+            return groupSize;
+        }
+    }
+
+    private static final class Request {
+        private final List<Object> params;
+        private final CompletableFuture<Result> future = new CompletableFuture<>();
+
+        private Request(List<Object> params) {
+            this.params = params;
+        }
+    }
+
+    /**
+     * 一个 SQL 正在收集的批次；批次取走后组即退役，之后到达的请求使用新的组
+     */
+    private static final class Group {
+        private final String sql;
+        private final List<Request> pending = new ArrayList<>();
+        private ScheduledFuture<?> timer;
+        private boolean retired = false;
+
+        private Group(String sql) {
+            this.sql = sql;
+        }
+    }
+}
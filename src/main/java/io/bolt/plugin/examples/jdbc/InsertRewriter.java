@@ -0,0 +1,132 @@
+package io.bolt.plugin.examples.jdbc;
+
+import java.util.Locale;
+
+/**
+ * 多行 INSERT 改写
+ * 将 {@code INSERT INTO t (a, b) VALUES (?, ?)} 改写为
+ * {@code INSERT INTO t (a, b) VALUES (?, ?), (?, ?), ...}，一次往返写入多行。
+ * 只处理 VALUES 后紧跟单个括号组的语句，其他形式（INSERT ... SELECT 等）返回 null 表示不可改写
+ */
+final class InsertRewriter {
+
+    private final String head;
+    private final String tuple;
+    private final String tail;
+    private final int paramsPerRow;
+
+    private InsertRewriter(String head, String tuple, String tail, int paramsPerRow) {
+        this.head = head;
+        this.tuple = tuple;
+        this.tail = tail;
+        this.paramsPerRow = paramsPerRow;
+    }
+
+    /**
+     * 解析 INSERT 语句，不可改写时返回 null
+     */
+    static InsertRewriter parse(String sql) {
+        String trimmed = sql.trim();
+        if (!trimmed.regionMatches(true, 0, "INSERT", 0, 6)) {
+            return null;
+        }
+
+        int valuesAt = indexOfKeyword(trimmed, "VALUES");
+        if (valuesAt < 0) {
+            return null;
+        }
+
+        int open = valuesAt + "VALUES".length();
+        while (open < trimmed.length() && Character.isWhitespace(trimmed.charAt(open))) {
+            open++;
+        }
+        if (open >= trimmed.length() || trimmed.charAt(open) != '(') {
+            return null;
+        }
+
+        int depth = 0;
+        int params = 0;
+        int close = -1;
+        boolean inQuote = false;
+        for (int i = open; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (c == '\'') {
+                inQuote = !inQuote;
+            } else if (!inQuote) {
+                if (c == '(') {
+                    depth++;
+                } else if (c == ')' && --depth == 0) {
+                    close = i;
+                    break;
+                } else if (c == '?') {
+                    params++;
+                }
+            }
+        }
+        if (close < 0 || params == 0) {
+            return null;
+        }
+
+        String tail = trimmed.substring(close + 1);
+        // VALUES 后还有第二个元组说明已经是多行语句
+        if (tail.trim().startsWith(",") || tail.indexOf('?') >= 0) {
+            return null;
+        }
+        return new InsertRewriter(trimmed.substring(0, open), trimmed.substring(open, close + 1), tail, params);
+    }
+
+    int getParamsPerRow() {
+        return paramsPerRow;
+    }
+
+    /**
+     * 生成写入 rows 行的语句
+     */
+    String build(int rows) {
+        StringBuilder sql = new StringBuilder(head.length() + tail.length() + rows * (tuple.length() + 2));
+        sql.append(head);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(tuple);
+        }
+        return sql.append(tail).toString();
+    }
+
+    /**
+     * 数据库是否支持多行 VALUES 以及单条语句允许的最大参数个数，0 表示不支持
+     */
+    static int maxParamsFor(String databaseProductName) {
+        String product = databaseProductName == null ? "" : databaseProductName.toLowerCase(Locale.ROOT);
+        if (product.contains("oracle")) {
+            return 0;
+        }
+        if (product.contains("microsoft") || product.contains("sql server")) {
+            return 2000;
+        }
+        if (product.contains("sqlite")) {
+            return 999;
+        }
+        return 32000;
+    }
+
+    private static int indexOfKeyword(String sql, String keyword) {
+        String upper = sql.toUpperCase(Locale.ROOT);
+        boolean inQuote = false;
+        for (int i = 0; i + keyword.length() <= upper.length(); i++) {
+            char c = upper.charAt(i);
+            if (c == '\'') {
+                inQuote = !inQuote;
+                continue;
+            }
+            if (!inQuote && upper.startsWith(keyword, i)
+                    && (i == 0 || !Character.isLetterOrDigit(upper.charAt(i - 1)))
+                    && (i + keyword.length() == upper.length()
+                        || !Character.isLetterOrDigit(upper.charAt(i + keyword.length())))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,498 @@
+package io.bolt.plugin.examples.jdbc;
+
+import io.bolt.plugin.api.PluginException;
+import io.bolt.plugin.util.Params;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 分区并行查询
+ * 按分区列把查询拆成 N 个子查询（range：按上下界等宽切分，首尾分区不设边界；hash：按 MOD(列, N) 取模），
+ * 在连接池上以有限并发执行，任一分区失败时取消其余分区。
+ * ordered 模式下各分区按分区列排序，range 直接按分区顺序拼接，hash 做多路归并，保证结果整体有序；
+ * 否则按分区完成顺序拼接。maxRows / maxBytes 是所有分区共用的额度（见 {@link ResultBudget}），
+ * 读取中合计超出时淘汰合并输出中排在最后的行，任何时刻保留的行都不超过单个查询的上限
+ */
+public final class PartitionedQuery {
+
+    /**
+     * 分区方式
+     */
+    public enum Mode {
+        RANGE, HASH
+    }
+
+    private final String sql;
+    private final List<Object> sqlParams;
+    private final String column;
+    private final Mode mode;
+    private final int partitions;
+    private final long lowerBound;
+    private final long upperBound;
+    private final int parallelism;
+    private final boolean ordered;
+    private final QueryOptions options;
+
+    private final Set<Statement> running = ConcurrentHashMap.newKeySet();
+    private volatile boolean failed = false;
+    private long estimatedBytes = 0;
+
+    private PartitionedQuery(String sql, List<Object> sqlParams, String column, Mode mode, int partitions,
+                             long lowerBound, long upperBound, int parallelism, boolean ordered,
+                             QueryOptions options) {
+        this.sql = sql;
+        this.sqlParams = sqlParams;
+        this.column = column;
+        this.mode = mode;
+        this.partitions = partitions;
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        this.parallelism = parallelism;
+        this.ordered = ordered;
+        this.options = options;
+    }
+
+    /**
+     * 解析动作参数
+     *
+     * @param maxParallelism 并发上限（连接池大小）
+     */
+    public static PartitionedQuery from(String sql, List<Object> sqlParams, Map<String, Object> params,
+                                        QueryOptions options, int maxParallelism) {
+        if (options.isPaged()) {
+            throw new PluginException("INVALID_PARAM", "parallelQuery 不支持 keyset 分页参数");
+        }
+        String column = Params.getString(params, "partitionColumn", null);
+        if (!QueryOptions.isIdentifier(column)) {
+            throw new PluginException("INVALID_PARAM", "parallelQuery 需要合法的 partitionColumn 参数");
+        }
+
+        int partitions = Params.getInt(params, "partitions", Math.min(4, maxParallelism));
+        if (partitions < 1 || partitions > 256) {
+            throw new PluginException("INVALID_PARAM", "partitions 必须在 1 到 256 之间");
+        }
+
+        Mode mode;
+        long lower = 0;
+        long upper = 0;
+        String modeValue = Params.getString(params, "partitionMode",
+                params.containsKey("lowerBound") ? "range" : "hash");
+        switch (modeValue.toLowerCase(Locale.ROOT)) {
+            case "range":
+                mode = Mode.RANGE;
+                if (!params.containsKey("lowerBound") || !params.containsKey("upperBound")) {
+                    throw new PluginException("INVALID_PARAM", "range 分区需要 lowerBound 和 upperBound 参数");
+                }
+                lower = Params.getLong(params, "lowerBound", 0);
+                upper = Params.getLong(params, "upperBound", 0);
+                if (upper <= lower) {
+                    throw new PluginException("INVALID_PARAM", "upperBound 必须大于 lowerBound");
+                }
+                partitions = (int) Math.min(partitions, upper - lower);
+                break;
+            case "hash":
+                mode = Mode.HASH;
+                break;
+            default:
+                throw new PluginException("INVALID_PARAM", "不支持的分区方式: " + modeValue);
+        }
+
+        int parallelism = Math.max(1, Math.min(Params.getInt(params, "parallelism", partitions),
+                Math.min(partitions, maxParallelism)));
+        return new PartitionedQuery(sql, sqlParams, column, mode, partitions, lower, upper, parallelism,
+                Params.getBoolean(params, "ordered", true), options);
+    }
+
+    /**
+     * 执行所有分区并合并结果
+     *
+     * @param scope 各分区语句共用的超时范围
+     */
+    public Map<String, Object> run(ReplicaRouter router, String executionKey, boolean readFromPrimary,
+                                   StatementTracker.Scope scope)
+            throws SQLException, IOException {
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "bolt-partition");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ResultBudget budget = new ResultBudget(partitions, options.getMaxRows(), options.getMaxBytes(), tailOrder());
+        CompletionService<Partition> completion = new ExecutorCompletionService<>(executor);
+        List<Future<Partition>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < partitions; i++) {
+                int index = i;
+                futures.add(completion.submit(() -> router.read(executionKey, readFromPrimary,
+                        scope.guard(conn -> readPartition(conn, index, budget.share(index, column))))));
+            }
+
+            List<Partition> done = new ArrayList<>(partitions);
+            for (int i = 0; i < partitions; i++) {
+                try {
+                    done.add(completion.take().get());
+                } catch (ExecutionException e) {
+                    cancelAll(futures);
+                    Throwable cause = e.getCause();
+                    if (cause instanceof SQLException) {
+                        throw (SQLException) cause;
+                    }
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                    throw new SQLException("分区查询失败: " + cause.getMessage(), cause);
+                } catch (InterruptedException e) {
+                    cancelAll(futures);
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("分区查询被中断", e);
+                }
+            }
+            return merge(done, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Partition readPartition(Connection conn, int index, ResultBudget.Share share) throws SQLException {
+        if (failed) {
+            throw new SQLException("分区查询已取消");
+        }
+        long start = System.nanoTime();
+        List<Object> params = sqlParams != null ? new ArrayList<>(sqlParams) : new ArrayList<>();
+        String partitionSql = partitionSql(index, params);
+        try (PreparedStatement stmt = conn.prepareStatement(partitionSql)) {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            options.applyTo(stmt);
+            running.add(stmt);
+            try {
+                // 加入跟踪集合后再检查一次，避免与 cancelAll 交错时漏掉取消
+                if (failed) {
+                    throw new SQLException("分区查询已取消");
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    QueryPage page = QueryPage.read(rs, options, sql, share);
+                    return new Partition(index, page, share, (System.nanoTime() - start) / 1_000_000);
+                }
+            } finally {
+                running.remove(stmt);
+            }
+        }
+    }
+
+    /**
+     * 生成分区子查询，分区边界追加到参数列表末尾
+     */
+    String partitionSql(int index, List<Object> params) {
+        String col = "bolt_part." + column;
+        StringBuilder where = new StringBuilder();
+        if (mode == Mode.RANGE) {
+            long stride = (upperBound - lowerBound + partitions - 1) / partitions;
+            if (index > 0) {
+                where.append(col).append(" >= ?");
+                params.add(lowerBound + stride * index);
+            }
+            if (index < partitions - 1) {
+                if (where.length() > 0) {
+                    where.append(" AND ");
+                }
+                where.append(col).append(" < ?");
+                params.add(lowerBound + stride * (index + 1));
+            }
+            if (index == 0 && partitions > 1) {
+                where.insert(0, '(').append(" OR ").append(col).append(" IS NULL)");
+            }
+        } else if (partitions > 1) {
+            where.append("ABS(MOD(").append(col).append(", ").append(partitions).append(")) = ").append(index);
+            if (index == 0) {
+                where.insert(0, '(').append(" OR ").append(col).append(" IS NULL)");
+            }
+        }
+
+        StringBuilder wrapped = new StringBuilder("SELECT * FROM (").append(stripTrailingSemicolon(sql))
+                .append(") bolt_part");
+        if (where.length() > 0) {
+            wrapped.append(" WHERE ").append(where);
+        }
+        if (ordered) {
+            // NULL 统一排在最后，各数据库默认的 NULL 顺序不同
+            wrapped.append(" ORDER BY CASE WHEN ").append(col).append(" IS NULL THEN 1 ELSE 0 END, ").append(col);
+        }
+        return wrapped.toString();
+    }
+
+    /**
+     * 合并输出中各分区末尾行的先后：range 按分区序号，hash 按分区列的值，不要求有序时为 null
+     */
+    private ResultBudget.TailOrder tailOrder() {
+        if (!ordered) {
+            return null;
+        }
+        if (mode == Mode.RANGE) {
+            return (partitionA, keyA, partitionB, keyB) -> Integer.compare(partitionA, partitionB);
+        }
+        return (partitionA, keyA, partitionB, keyB) -> {
+            int result = compare(keyA, keyB);
+            return result != 0 ? result : Integer.compare(partitionA, partitionB);
+        };
+    }
+
+    private Map<String, Object> merge(List<Partition> done, long elapsedMs) {
+        List<String> columns = List.of();
+        for (Partition partition : done) {
+            if (!partition.page.getColumns().isEmpty()) {
+                columns = partition.page.getColumns();
+                break;
+            }
+        }
+        List<Map<String, Object>> rows = new ArrayList<>();
+        boolean truncated = false;
+        Map<Partition, Integer> emitted = new HashMap<>();
+
+        if (ordered && mode == Mode.HASH) {
+            String key = columnLabel(columns);
+            PriorityQueue<Cursor> heads = new PriorityQueue<>((a, b) -> compare(a.current(key), b.current(key)));
+            List<Partition> exhausted = new ArrayList<>();
+            for (Partition partition : done) {
+                Cursor cursor = new Cursor(partition);
+                if (cursor.hasRow()) {
+                    heads.add(cursor);
+                } else if (partition.isTruncated()) {
+                    exhausted.add(partition);
+                }
+            }
+            Cursor cursor;
+            while ((cursor = heads.poll()) != null) {
+                // 被截断的分区读完后，只有不大于它缺失行的行才能确定先后，其余行合并到此为止
+                if (!precedesMissing(cursor.current(key), exhausted)) {
+                    truncated = true;
+                    break;
+                }
+                rows.add(cursor.next());
+                emitted.merge(cursor.partition, 1, Integer::sum);
+                if (cursor.hasRow()) {
+                    heads.add(cursor);
+                } else if (cursor.partition.isTruncated()) {
+                    exhausted.add(cursor.partition);
+                }
+            }
+            truncated |= !exhausted.isEmpty();
+        } else {
+            List<Partition> sources = new ArrayList<>(done);
+            if (ordered) {
+                sources.sort((a, b) -> Integer.compare(a.index, b.index));
+            }
+            for (Partition partition : sources) {
+                List<Map<String, Object>> partitionRows = partition.rows();
+                rows.addAll(partitionRows);
+                emitted.put(partition, partitionRows.size());
+                if (partition.isTruncated()) {
+                    truncated = true;
+                    if (ordered) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        estimatedBytes = 0;
+        for (Map.Entry<Partition, Integer> entry : emitted.entrySet()) {
+            estimatedBytes += entry.getKey().share.bytesOf(entry.getValue());
+        }
+
+        List<Map<String, Object>> partitionStats = new ArrayList<>();
+        for (Partition partition : done) {
+            Map<String, Object> stat = new HashMap<>();
+            stat.put("index", partition.index);
+            stat.put("rows", partition.rows().size());
+            stat.put("truncated", partition.isTruncated());
+            stat.put("elapsedMs", partition.elapsedMs);
+            partitionStats.add(stat);
+        }
+        partitionStats.sort((a, b) -> Integer.compare((Integer) a.get("index"), (Integer) b.get("index")));
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("rows", rows);
+        result.put("count", rows.size());
+        result.put("columns", columns);
+        result.put("truncated", truncated);
+        result.put("partitions", partitionStats);
+        result.put("parallelism", parallelism);
+        result.put("elapsedMs", elapsedMs);
+        return result;
+    }
+
+    /**
+     * 最近一次 {@link #run} 合并结果的估算字节数
+     */
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    private String columnLabel(List<String> columns) {
+        for (String label : columns) {
+            if (label.equalsIgnoreCase(column)) {
+                return label;
+            }
+        }
+        return column;
+    }
+
+    /**
+     * 值是否排在所有已读完的截断分区缺失的行之前
+     * 分区缺失的行都不小于它最后被淘汰的键值
+     */
+    private static boolean precedesMissing(Object value, List<Partition> exhausted) {
+        for (Partition partition : exhausted) {
+            if (compare(value, partition.share.evictedKey()) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : 1) : -1;
+        }
+        if (a instanceof Number && b instanceof Number) {
+            return compareNumbers((Number) a, (Number) b);
+        }
+        return ((Comparable) a).compareTo(b);
+    }
+
+    /**
+     * 精确比较数值，超过 2^53 的整数和高精度小数转换为 double 会丢失精度
+     */
+    private static int compareNumbers(Number a, Number b) {
+        if (isIntegral(a) && isIntegral(b)) {
+            return Long.compare(a.longValue(), b.longValue());
+        }
+        BigDecimal x = toBigDecimal(a);
+        BigDecimal y = toBigDecimal(b);
+        if (x == null || y == null) {
+            return Double.compare(a.doubleValue(), b.doubleValue());
+        }
+        return x.compareTo(y);
+    }
+
+    private static boolean isIntegral(Number value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    private static BigDecimal toBigDecimal(Number value) {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        }
+        if (isIntegral(value)) {
+            return BigDecimal.valueOf(value.longValue());
+        }
+        if (value instanceof Double || value instanceof Float) {
+            double d = value.doubleValue();
+            return Double.isFinite(d) ? new BigDecimal(d) : null;
+        }
+        try {
+            return new BigDecimal(value.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void cancelAll(List<Future<Partition>> futures) {
+        failed = true;
+        for (Statement stmt : running) {
+            try {
+                stmt.cancel();
+            } catch (SQLException ignored) {
+                // 语句可能已结束
+            }
+        }
+        for (Future<Partition> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    private static String stripTrailingSemicolon(String sql) {
+        String trimmed = sql.trim();
+        while (trimmed.endsWith(";")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+        }
+        return trimmed;
+    }
+
+    private static final class Partition {
+        private final int index;
+        private final QueryPage page;
+        private final ResultBudget.Share share;
+        private final long elapsedMs;
+
+        private Partition(int index, QueryPage page, ResultBudget.Share share, long elapsedMs) {
+            this.index = index;
+            this.page = page;
+            this.share = share;
+            this.elapsedMs = elapsedMs;
+        }
+
+        /**
+         * 仍在额度内的行；分区读完后其他分区仍可能挤出它末尾的行
+         */
+        private List<Map<String, Object>> rows() {
+            List<Map<String, Object>> rows = page.getRows();
+            int retained = share.retained();
+            return retained < rows.size() ? rows.subList(0, retained) : rows;
+        }
+
+        private boolean isTruncated() {
+            return page.isTruncated() || share.isStopped();
+        }
+    }
+
+    private static final class Cursor {
+        private final Partition partition;
+        private final List<Map<String, Object>> rows;
+        private int position = 0;
+
+        private Cursor(Partition partition) {
+            this.partition = partition;
+            this.rows = partition.rows();
+        }
+
+        private boolean hasRow() {
+            return position < rows.size();
+        }
+
+        private Object current(String key) {
+            return rows.get(position).get(key);
+        }
+
+        private Map<String, Object> next() {
+            return rows.get(position++);
+        }
+    }
+}
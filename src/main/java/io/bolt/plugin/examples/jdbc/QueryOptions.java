@@ -0,0 +1,179 @@
+package io.bolt.plugin.examples.jdbc;
+
+import io.bolt.plugin.api.PluginException;
+import io.bolt.plugin.util.Params;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 查询选项
+ * 控制单次查询的内存占用：fetchSize 决定驱动每次往返拉取的行数，
+ * maxRows / maxBytes 是结果集的硬上限，pageSize + keyColumn 开启 keyset 分页
+ */
+public final class QueryOptions {
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*");
+
+    private final int fetchSize;
+    private final int maxRows;
+    private final long maxBytes;
+    private final int pageSize;
+    private final String keyColumn;
+    private final boolean descending;
+    private final String continuationToken;
+
+    private QueryOptions(int fetchSize, int maxRows, long maxBytes, int pageSize,
+                         String keyColumn, boolean descending, String continuationToken) {
+        this.fetchSize = fetchSize;
+        this.maxRows = maxRows;
+        this.maxBytes = maxBytes;
+        this.pageSize = pageSize;
+        this.keyColumn = keyColumn;
+        this.descending = descending;
+        this.continuationToken = continuationToken;
+    }
+
+    /**
+     * 插件级默认选项，0 表示不限制
+     */
+    public static QueryOptions defaults(int fetchSize, int maxRows, long maxBytes) {
+        return new QueryOptions(fetchSize, maxRows, maxBytes, 0, null, false, null);
+    }
+
+    /**
+     * 从动作参数解析查询选项，未提供的项使用默认值
+     * 单次调用的 maxRows / maxBytes 只能收紧插件级上限，不能放宽
+     */
+    public static QueryOptions from(Map<String, Object> params, QueryOptions defaults) {
+        int fetchSize = Params.getInt(params, "fetchSize", defaults.fetchSize);
+        int maxRows = tighten(Params.getInt(params, "maxRows", 0), defaults.maxRows);
+        long maxBytes = tighten(Params.getLong(params, "maxBytes", 0), defaults.maxBytes);
+        int pageSize = Params.getInt(params, "pageSize", 0);
+
+        String keyColumn = Params.getString(params, "keyColumn", null);
+        String token = Params.getString(params, "continuationToken", null);
+        boolean descending = "desc".equalsIgnoreCase(Params.getString(params, "keyOrder", "asc"));
+
+        if (pageSize > 0 || token != null) {
+            if (keyColumn == null || !IDENTIFIER.matcher(keyColumn).matches()) {
+                throw new PluginException("INVALID_PARAM", "分页查询需要合法的 keyColumn 参数");
+            }
+            if (pageSize <= 0) {
+                throw new PluginException("INVALID_PARAM", "分页查询需要正整数 pageSize 参数");
+            }
+        }
+
+        return new QueryOptions(fetchSize, maxRows, maxBytes, pageSize, keyColumn, descending, token);
+    }
+
+    /**
+     * 是否为可直接拼入 SQL 的简单标识符
+     */
+    static boolean isIdentifier(String name) {
+        return name != null && IDENTIFIER.matcher(name).matches();
+    }
+
+    public boolean isPaged() {
+        return pageSize > 0;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public String getKeyColumn() {
+        return keyColumn;
+    }
+
+    /**
+     * 本次最多读取的行数（分页大小与 maxRows 取较小者），0 表示不限制
+     */
+    public int getRowLimit() {
+        if (pageSize > 0 && maxRows > 0) {
+            return Math.min(pageSize, maxRows);
+        }
+        return pageSize > 0 ? pageSize : maxRows;
+    }
+
+    /**
+     * 分页模式下将原始 SQL 包装为按键排序、从令牌位置继续的子查询
+     */
+    public String effectiveSql(String sql) {
+        if (!isPaged()) {
+            return sql;
+        }
+        StringBuilder wrapped = new StringBuilder("SELECT * FROM (")
+                .append(stripTrailingSemicolon(sql))
+                .append(") bolt_page");
+        if (continuationToken != null) {
+            wrapped.append(" WHERE bolt_page.").append(keyColumn).append(descending ? " < ?" : " > ?");
+        }
+        wrapped.append(" ORDER BY bolt_page.").append(keyColumn).append(descending ? " DESC" : " ASC");
+        return wrapped.toString();
+    }
+
+    /**
+     * 分页模式下在原始参数后追加令牌中的键值
+     */
+    public List<Object> effectiveParams(String sql, List<Object> params) {
+        if (!isPaged() || continuationToken == null) {
+            return params;
+        }
+        List<Object> merged = params != null ? new ArrayList<>(params) : new ArrayList<>();
+        merged.add(ContinuationToken.decode(continuationToken, sql, keyColumn));
+        return merged;
+    }
+
+    /**
+     * 将 fetchSize 和行数上限应用到语句上
+     * 多取一行用于判断结果是否被截断
+     */
+    public void applyTo(Statement stmt) throws SQLException {
+        if (fetchSize > 0) {
+            stmt.setFetchSize(fetchSize);
+        }
+        int rowLimit = getRowLimit();
+        if (rowLimit > 0 && rowLimit < Integer.MAX_VALUE) {
+            stmt.setMaxRows(rowLimit + 1);
+        }
+    }
+
+    private static String stripTrailingSemicolon(String sql) {
+        String trimmed = sql.trim();
+        while (trimmed.endsWith(";")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+        }
+        return trimmed;
+    }
+
+    private static int tighten(int requested, int limit) {
+        if (requested <= 0) {
+            return limit;
+        }
+        return limit > 0 ? Math.min(requested, limit) : requested;
+    }
+
+    private static long tighten(long requested, long limit) {
+        if (requested <= 0) {
+            return limit;
+        }
+        return limit > 0 ? Math.min(requested, limit) : requested;
+    }
+}
@@ -0,0 +1,184 @@
+package io.bolt.plugin.examples.jdbc;
+
+import io.bolt.plugin.util.SizeEstimator;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一页查询结果
+ * 按 {@link QueryOptions} 的行数和字节上限从 ResultSet 中读取数据，超出上限时停止读取并标记截断
+ */
+public final class QueryPage {
+
+    private final List<Map<String, Object>> rows;
+    private final List<String> columns;
+    private final long estimatedBytes;
+    private final String truncatedBy;
+    private final String nextToken;
+    private final boolean paged;
+
+    private QueryPage(List<Map<String, Object>> rows, List<String> columns, long estimatedBytes,
+                      String truncatedBy, String nextToken, boolean paged) {
+        this.rows = rows;
+        this.columns = columns;
+        this.estimatedBytes = estimatedBytes;
+        this.truncatedBy = truncatedBy;
+        this.nextToken = nextToken;
+        this.paged = paged;
+    }
+
+    /**
+     * 读取结果集
+     *
+     * @param rs      结果集
+     * @param options 查询选项
+     * @param sql     调用方提交的原始 SQL，用于生成续传令牌
+     */
+    public static QueryPage read(ResultSet rs, QueryOptions options, String sql) throws SQLException {
+        return read(rs, options, sql, null);
+    }
+
+    /**
+     * 读取结果集，除自身上限外还受多个结果集共用的额度限制
+     *
+     * @param budget 共用额度，null 表示不限制
+     */
+    static QueryPage read(ResultSet rs, QueryOptions options, String sql, RowBudget budget) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        String[] labels = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            labels[i] = metaData.getColumnLabel(i + 1);
+        }
+
+        // 有共用额度时行数和字节上限由额度统一控制
+        int rowLimit = budget != null ? 0 : options.getRowLimit();
+        long maxBytes = budget != null ? 0 : options.getMaxBytes();
+        boolean paged = options.isPaged();
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        long bytes = 0;
+        Object lastKey = null;
+        String truncatedBy = null;
+
+        while (rs.next()) {
+            if (rowLimit > 0 && rows.size() >= rowLimit) {
+                truncatedBy = paged && rowLimit == options.getPageSize() ? "pageSize" : "maxRows";
+                break;
+            }
+
+            Map<String, Object> row = new HashMap<>(columnCount * 2);
+            long rowBytes = 0;
+            for (int i = 0; i < columnCount; i++) {
+                Object value = rs.getObject(i + 1);
+                row.put(labels[i], value);
+                rowBytes += SizeEstimator.estimate(value);
+            }
+
+            if (maxBytes > 0 && bytes + rowBytes > maxBytes && !rows.isEmpty()) {
+                truncatedBy = "maxBytes";
+                break;
+            }
+            if (budget != null && !budget.accept(row, rowBytes)) {
+                truncatedBy = budget.exhaustedBy();
+                break;
+            }
+
+            bytes += rowBytes;
+            rows.add(row);
+            if (paged) {
+                lastKey = rs.getObject(options.getKeyColumn());
+            }
+        }
+
+        int retained = budget != null ? budget.retained() : rows.size();
+        if (retained < rows.size()) {
+            // 已读的行被其他结果集挤出额度
+            rows.subList(retained, rows.size()).clear();
+            bytes = budget.retainedBytes();
+            truncatedBy = budget.exhaustedBy();
+        }
+
+        String nextToken = null;
+        if (paged && truncatedBy != null && lastKey != null) {
+            nextToken = ContinuationToken.encode(sql, options.getKeyColumn(), lastKey);
+        }
+
+        return new QueryPage(rows, Arrays.asList(labels), bytes, truncatedBy, nextToken, paged);
+    }
+
+    /**
+     * 多个结果集共用的行数和字节额度
+     */
+    interface RowBudget {
+
+        /**
+         * 登记新读到的一行，返回 false 表示该行不保留，停止读取
+         */
+        boolean accept(Map<String, Object> row, long rowBytes);
+
+        /**
+         * 当前仍保留的行数，可能因其他结果集占用额度而少于已登记的行数
+         */
+        int retained();
+
+        long retainedBytes();
+
+        String exhaustedBy();
+    }
+
+    public List<Map<String, Object>> getRows() {
+        return rows;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * 结果是否因行数或字节上限被截断（分页模式下到达页大小不算截断）
+     */
+    public boolean isTruncated() {
+        return truncatedBy != null && !"pageSize".equals(truncatedBy);
+    }
+
+    public boolean hasMore() {
+        return nextToken != null;
+    }
+
+    public String getNextToken() {
+        return nextToken;
+    }
+
+    /**
+     * 转换为动作返回结构
+     */
+    public Map<String, Object> toResult(boolean includeColumns) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("rows", rows);
+        result.put("count", rows.size());
+        if (includeColumns) {
+            result.put("columns", columns);
+        }
+        result.put("truncated", isTruncated());
+        if (isTruncated()) {
+            result.put("truncatedBy", truncatedBy);
+        }
+        if (paged) {
+            result.put("hasMore", hasMore());
+            result.put("nextToken", nextToken);
+        }
+        return result;
+    }
+}
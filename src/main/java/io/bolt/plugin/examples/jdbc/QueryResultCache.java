@@ -0,0 +1,312 @@
+package io.bolt.plugin.examples.jdbc;
+
+import io.bolt.plugin.util.JsonWriter;
+import io.bolt.plugin.util.SizeEstimator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 查询结果缓存
+ * 以 SQL + 参数 + 分页/上限参数为键，LRU 淘汰，受条目数、估算字节数和 TTL 限制。
+ * 同一插件实例的写操作按表名失效相关条目；每张表维护版本号，查询开始后表被写过则结果不入缓存，
+ * 避免慢查询把写入前读到的数据放回缓存。表失效后的 settleMs 内结果也不入缓存：
+ * 这段时间从库可能还没有同步到这次写入，读到的旧数据放回缓存后写入方会再读到它。
+ * 缓存内保存结果的只读深拷贝，调用方修改自己拿到的结果不会影响缓存
+ */
+public final class QueryResultCache {
+
+    /**
+     * 影响查询结果的参数，参与缓存键计算
+     */
+    private static final List<String> KEY_PARAMS = List.of(
+            "params", "maxRows", "maxBytes", "pageSize", "keyColumn", "keyOrder", "continuationToken");
+
+    private final long ttlMs;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long settleMs;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes = 0;
+
+    private final Map<String, AtomicLong> tableVersions = new ConcurrentHashMap<>();
+    private final AtomicLong globalVersion = new AtomicLong();
+    private final Map<String, Long> tableInvalidatedAt = new ConcurrentHashMap<>();
+    private volatile long globalInvalidatedAt = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public QueryResultCache(long ttlMs, int maxEntries, long maxBytes) {
+        this(ttlMs, maxEntries, maxBytes, 0);
+    }
+
+    /**
+     * @param settleMs 表失效后多长时间内读到的结果不入缓存，通常为从库的 read-your-writes 时长
+     */
+    public QueryResultCache(long ttlMs, int maxEntries, long maxBytes, long settleMs) {
+        this.ttlMs = ttlMs;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.settleMs = settleMs;
+    }
+
+    /**
+     * 计算缓存键
+     */
+    public static String keyOf(String sql, Map<String, Object> params) {
+        StringBuilder key = new StringBuilder(sql.length() + 64).append(sql);
+        for (String name : KEY_PARAMS) {
+            Object value = params.get(name);
+            if (value != null) {
+                key.append('\u0000').append(name).append('=').append(JsonWriter.toJson(value));
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * 查询开始前调用，返回的票据在 {@link #put} 时用于判断期间是否有写入
+     */
+    public Ticket begin(String sql) {
+        Set<String> tables = SqlTables.of(sql);
+        return new Ticket(tables, version(tables));
+    }
+
+    /**
+     * 命中时返回结果的浅拷贝（附带 cached: true），其中的 rows 等嵌套结构只读；未命中或已过期返回 null
+     */
+    public Hit get(String key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+                hits.incrementAndGet();
+                Map<String, Object> copy = new HashMap<>(entry.value);
+                copy.put("cached", true);
+                return new Hit(copy, entry.resultBytes);
+            }
+            if (entry != null) {
+                remove(key);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 放入结果；查询期间相关表有写入、相关表失效后不足 settleMs、或单条结果超过总容量时忽略
+     *
+     * @param resultBytes   读取结果时估算的字节数，命中时原样返回
+     * @param ttlOverrideMs 大于 0 时覆盖默认 TTL
+     */
+    public void put(String key, Ticket ticket, Map<String, Object> value, long resultBytes, long ttlOverrideMs) {
+        long bytes = SizeEstimator.estimate(value) + 2L * key.length();
+        if (bytes > maxBytes) {
+            return;
+        }
+        long ttl = ttlOverrideMs > 0 ? ttlOverrideMs : ttlMs;
+        synchronized (entries) {
+            if (version(ticket.tables) != ticket.version || settling(ticket.tables)) {
+                return;
+            }
+            remove(key);
+            entries.put(key, new Entry(frozenMap(value), ticket.tables, System.currentTimeMillis() + ttl, bytes,
+                    resultBytes));
+            totalBytes += bytes;
+
+            Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || totalBytes > maxBytes) && it.hasNext()) {
+                totalBytes -= it.next().getValue().bytes;
+                it.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 写操作完成后调用：失效引用了这些表的条目；无法识别表名时清空全部
+     */
+    public void invalidate(String writeSql) {
+        Set<String> tables = writeSql == null ? Set.of() : SqlTables.of(writeSql);
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            if (tables.isEmpty()) {
+                globalVersion.incrementAndGet();
+                globalInvalidatedAt = now;
+                invalidations.addAndGet(entries.size());
+                entries.clear();
+                totalBytes = 0;
+                return;
+            }
+            for (String table : tables) {
+                tableVersions.computeIfAbsent(table, t -> new AtomicLong()).incrementAndGet();
+                if (settleMs > 0) {
+                    tableInvalidatedAt.put(table, now);
+                }
+            }
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (entry.tables.isEmpty() || intersects(entry.tables, tables)) {
+                    totalBytes -= entry.bytes;
+                    it.remove();
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (entries) {
+            stats.put("entries", entries.size());
+            stats.put("bytes", totalBytes);
+        }
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    /**
+     * 表版本号之和：版本号只增不减，和不变即期间没有写入
+     */
+    private long version(Set<String> tables) {
+        long version = globalVersion.get();
+        for (String table : tables) {
+            AtomicLong tableVersion = tableVersions.get(table);
+            if (tableVersion != null) {
+                version += tableVersion.get();
+            }
+        }
+        return version;
+    }
+
+    /**
+     * 相关表是否在 settleMs 内失效过；没有解析出表名的查询看全局失效时间
+     */
+    private boolean settling(Set<String> tables) {
+        if (settleMs <= 0) {
+            return false;
+        }
+        long since = System.currentTimeMillis() - settleMs;
+        if (globalInvalidatedAt > since) {
+            return true;
+        }
+        for (String table : tables.isEmpty() ? tableInvalidatedAt.keySet() : tables) {
+            Long at = tableInvalidatedAt.get(table);
+            if (at != null && at > since) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            totalBytes -= removed.bytes;
+        }
+    }
+
+    /**
+     * 只读深拷贝：Map 和 Collection 逐层复制后包装为只读，字节数组复制
+     */
+    private static Map<String, Object> frozenMap(Map<?, ?> map) {
+        Map<String, Object> copy = map instanceof LinkedHashMap
+                ? new LinkedHashMap<>(map.size() * 2) : new HashMap<>(map.size() * 2);
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            copy.put(String.valueOf(entry.getKey()), frozen(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    private static Object frozen(Object value) {
+        if (value instanceof Map) {
+            return frozenMap((Map<?, ?>) value);
+        }
+        if (value instanceof Collection) {
+            List<Object> copy = new ArrayList<>(((Collection<?>) value).size());
+            for (Object element : (Collection<?>) value) {
+                copy.add(frozen(element));
+            }
+            return Collections.unmodifiableList(copy);
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).clone();
+        }
+        return value;
+    }
+
+    private static boolean intersects(Set<String> a, Set<String> b) {
+        for (String table : a) {
+            if (b.contains(table)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 查询开始时的表版本快照
+     */
+    public static final class Ticket {
+        private final Set<String> tables;
+        private final long version;
+
+        private Ticket(Set<String> tables, long version) {
+            this.tables = tables;
+            this.version = version;
+        }
+    }
+
+    /**
+     * 命中的结果及其读取时估算的字节数
+     */
+    public static final class Hit {
+        private final Map<String, Object> value;
+        private final long resultBytes;
+
+        private Hit(Map<String, Object> value, long resultBytes) {
+            this.value = value;
+            this.resultBytes = resultBytes;
+        }
+
+        public Map<String, Object> getValue() {
+            return value;
+        }
+
+        public long getResultBytes() {
+            return resultBytes;
+        }
+    }
+
+    private static final class Entry {
+        private final Map<String, Object> value;
+        private final Set<String> tables;
+        private final long expiresAt;
+        private final long bytes;
+        private final long resultBytes;
+
+        private Entry(Map<String, Object> value, Set<String> tables, long expiresAt, long bytes, long resultBytes) {
+            this.value = value;
+            this.tables = tables;
+            this.expiresAt = expiresAt;
+            this.bytes = bytes;
+            this.resultBytes = resultBytes;
+        }
+    }
+}
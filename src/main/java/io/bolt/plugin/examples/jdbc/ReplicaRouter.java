@@ -0,0 +1,283 @@
+package io.bolt.plugin.examples.jdbc;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 读写分离路由
+ * 写操作始终使用主库；读操作在健康的从库中选择借出连接最少的一个（least outstanding），
+ * 连续失败达到阈值的从库被摘除一段时间，到期后再放回尝试；没有可用从库时退回主库。
+ * 只有借连接阶段（读操作开始前）的节点故障会换节点重试；从库连接池借满只说明繁忙，不计为故障，
+ * 换其他从库，从库都繁忙时直接报错而不是把负载转到主库；读操作开始后的错误原样抛出，不会重复执行。
+ * 同一执行（executionId）写入之后的 readYourWritesMs 内，读操作固定走主库
+ */
+public final class ReplicaRouter implements AutoCloseable {
+
+    /**
+     * 在借出的连接上执行的读操作
+     */
+    @FunctionalInterface
+    public interface ReadWork<T> {
+        T apply(Connection conn) throws SQLException, IOException;
+    }
+
+    private static final int MAX_PINNED_EXECUTIONS = 10_000;
+
+    private final SimpleConnectionPool primary;
+    private final List<Replica> replicas;
+    private final int ejectAfterFailures;
+    private final long ejectMs;
+    private final long readYourWritesMs;
+
+    private final AtomicInteger rotation = new AtomicInteger();
+    private final AtomicLong primaryReads = new AtomicLong();
+    private final Map<String, Long> pinnedUntil = new ConcurrentHashMap<>();
+
+    public ReplicaRouter(SimpleConnectionPool primary, List<SimpleConnectionPool> replicaPools,
+                         int ejectAfterFailures, long ejectMs, long readYourWritesMs) {
+        this.primary = primary;
+        List<Replica> list = new ArrayList<>();
+        for (SimpleConnectionPool pool : replicaPools) {
+            list.add(new Replica(pool));
+        }
+        this.replicas = Collections.unmodifiableList(list);
+        this.ejectAfterFailures = Math.max(1, ejectAfterFailures);
+        this.ejectMs = ejectMs;
+        this.readYourWritesMs = readYourWritesMs;
+    }
+
+    /**
+     * 解析从库地址配置：支持 JSON 数组或逗号分隔的字符串
+     */
+    public static List<String> parseUrls(Object value) {
+        List<String> urls = new ArrayList<>();
+        if (value instanceof List) {
+            for (Object url : (List<?>) value) {
+                if (url != null && !url.toString().isBlank()) {
+                    urls.add(url.toString().trim());
+                }
+            }
+        } else if (value != null) {
+            for (String url : value.toString().split(",")) {
+                if (!url.isBlank()) {
+                    urls.add(url.trim());
+                }
+            }
+        }
+        return urls;
+    }
+
+    public SimpleConnectionPool getPrimary() {
+        return primary;
+    }
+
+    public boolean hasReplicas() {
+        return !replicas.isEmpty();
+    }
+
+    /**
+     * 主库连接，用于写操作
+     */
+    public Connection primaryConnection() throws SQLException {
+        return primary.getConnection();
+    }
+
+    /**
+     * 记录一次写入，executionKey 为空时不固定
+     */
+    public void markWrite(String executionKey) {
+        if (executionKey == null || readYourWritesMs <= 0 || replicas.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (pinnedUntil.size() >= MAX_PINNED_EXECUTIONS) {
+            pinnedUntil.values().removeIf(until -> until <= now);
+        }
+        pinnedUntil.put(executionKey, now + readYourWritesMs);
+    }
+
+    /**
+     * 执行读操作；从库在借连接时故障则标记并换下一个节点，最终退回主库
+     *
+     * @param executionKey 当前执行标识，用于 read-your-writes 判断，可为 null
+     * @param usePrimary   调用方要求读主库
+     * @throws SimpleConnectionPool.PoolExhaustedException 可用的从库连接池都已借满
+     */
+    public <T> T read(String executionKey, boolean usePrimary, ReadWork<T> work) throws SQLException, IOException {
+        if (!usePrimary && !isPinned(executionKey)) {
+            List<Replica> tried = new ArrayList<>();
+            SQLException busy = null;
+            Replica replica;
+            while ((replica = choose(tried)) != null) {
+                tried.add(replica);
+                replica.outstanding.incrementAndGet();
+                try {
+                    Connection conn;
+                    try {
+                        conn = open(replica.pool);
+                    } catch (SimpleConnectionPool.PoolExhaustedException e) {
+                        replica.exhausted.incrementAndGet();
+                        busy = e;
+                        continue;
+                    } catch (SQLException e) {
+                        if (!isConnectionFailure(e) || e.getCause() instanceof InterruptedException) {
+                            throw e;
+                        }
+                        replica.failed(ejectAfterFailures, ejectMs);
+                        continue;
+                    }
+                    try (Connection borrowed = conn) {
+                        T result = work.apply(borrowed);
+                        replica.succeeded();
+                        return result;
+                    } catch (SQLException e) {
+                        // 读操作已经开始，不换节点重试；连接类错误仍计入节点健康状态
+                        if (isConnectionFailure(e)) {
+                            replica.failed(ejectAfterFailures, ejectMs);
+                        }
+                        throw e;
+                    }
+                } finally {
+                    replica.outstanding.decrementAndGet();
+                }
+            }
+            if (busy != null) {
+                throw busy;
+            }
+        }
+
+        primaryReads.incrementAndGet();
+        try (Connection conn = primary.getConnection()) {
+            return work.apply(conn);
+        }
+    }
+
+    private static Connection open(SimpleConnectionPool pool) throws SQLException {
+        Connection conn = pool.getConnection();
+        try {
+            conn.setReadOnly(true);
+            return conn;
+        } catch (SQLException e) {
+            try {
+                conn.close();
+            } catch (SQLException closeError) {
+                e.addSuppressed(closeError);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 各节点状态
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("primaryReads", primaryReads.get());
+        stats.put("pinnedExecutions", pinnedUntil.size());
+        List<Map<String, Object>> nodes = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (Replica replica : replicas) {
+            Map<String, Object> node = new HashMap<>();
+            node.put("url", replica.pool.getJdbcUrl());
+            node.put("outstanding", replica.outstanding.get());
+            node.put("reads", replica.reads.get());
+            node.put("consecutiveFailures", replica.consecutiveFailures.get());
+            node.put("exhausted", replica.exhausted.get());
+            node.put("ejected", replica.ejectedUntil > now);
+            nodes.add(node);
+        }
+        stats.put("replicas", nodes);
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        primary.close();
+        for (Replica replica : replicas) {
+            replica.pool.close();
+        }
+    }
+
+    /**
+     * 该执行是否在写入后的 readYourWritesMs 内，读操作固定走主库
+     */
+    public boolean isPinned(String executionKey) {
+        if (executionKey == null) {
+            return false;
+        }
+        Long until = pinnedUntil.get(executionKey);
+        if (until == null) {
+            return false;
+        }
+        if (until <= System.currentTimeMillis()) {
+            pinnedUntil.remove(executionKey, until);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 在未尝试过的健康从库中选借出最少的；相同时从轮转位置开始，避免总落在第一个
+     */
+    private Replica choose(List<Replica> tried) {
+        long now = System.currentTimeMillis();
+        int size = replicas.size();
+        int start = Math.floorMod(rotation.getAndIncrement(), Math.max(size, 1));
+        Replica best = null;
+        for (int i = 0; i < size; i++) {
+            Replica candidate = replicas.get((start + i) % size);
+            if (tried.contains(candidate) || candidate.ejectedUntil > now) {
+                continue;
+            }
+            if (best == null || candidate.outstanding.get() < best.outstanding.get()) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 连接类错误（SQLState 08xxx、连接异常）才影响节点健康，SQL 本身的错误直接抛给调用方
+     */
+    private static boolean isConnectionFailure(SQLException e) {
+        String state = e.getSQLState();
+        return e instanceof SQLNonTransientConnectionException
+                || e instanceof SQLTransientConnectionException
+                || (state != null && state.startsWith("08"));
+    }
+
+    private static final class Replica {
+        private final SimpleConnectionPool pool;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final AtomicLong reads = new AtomicLong();
+        private final AtomicLong exhausted = new AtomicLong();
+        private volatile long ejectedUntil = 0;
+
+        private Replica(SimpleConnectionPool pool) {
+            this.pool = pool;
+        }
+
+        private void succeeded() {
+            reads.incrementAndGet();
+            consecutiveFailures.set(0);
+        }
+
+        private void failed(int ejectAfterFailures, long ejectMs) {
+            if (consecutiveFailures.incrementAndGet() >= ejectAfterFailures) {
+                ejectedUntil = System.currentTimeMillis() + ejectMs;
+            }
+        }
+    }
+}
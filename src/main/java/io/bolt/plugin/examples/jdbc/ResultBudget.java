@@ -0,0 +1,218 @@
+package io.bolt.plugin.examples.jdbc;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * 分区查询共用的结果额度
+ * 所有分区保留的行合计不超过 maxRows / maxBytes，内存占用与单个查询相同。
+ * 超出额度时淘汰合并输出中排在最后的一行：它前面已有足够多的行，其他分区之后读到的行只会排在它前面，
+ * 所以它不可能进入最终结果。行被淘汰的分区停止读取并标记截断；不要求有序时直接拒绝新读到的行
+ */
+final class ResultBudget {
+
+    /**
+     * 比较两个分区末尾行在合并输出中的先后
+     */
+    interface TailOrder {
+        int compare(int partitionA, Object keyA, int partitionB, Object keyB);
+    }
+
+    private final int maxRows;
+    private final long maxBytes;
+    private final TailOrder order;
+    private final Held[] held;
+    private int rows = 0;
+    private long bytes = 0;
+    private String exhaustedBy;
+
+    /**
+     * @param order 合并输出的顺序，null 表示不要求有序
+     */
+    ResultBudget(int partitions, int maxRows, long maxBytes, TailOrder order) {
+        this.maxRows = maxRows;
+        this.maxBytes = maxBytes;
+        this.order = order;
+        this.held = new Held[partitions];
+        for (int i = 0; i < partitions; i++) {
+            held[i] = new Held();
+        }
+    }
+
+    /**
+     * 分区读取结果集时使用的额度视图
+     *
+     * @param keyColumn 排序键列名，读取每行时从中取键值
+     */
+    Share share(int partition, String keyColumn) {
+        return new Share(partition, keyColumn);
+    }
+
+    private synchronized boolean accept(int partition, Object key, long rowBytes) {
+        Held target = held[partition];
+        if (target.stopped) {
+            return false;
+        }
+        target.push(key, rowBytes);
+        rows++;
+        bytes += rowBytes;
+        while (exceeded()) {
+            Held victim = held[order == null ? partition : last()];
+            victim.stopped = true;
+            rows--;
+            bytes -= victim.pop();
+        }
+        return !target.stopped;
+    }
+
+    private boolean exceeded() {
+        if (maxRows > 0 && rows > maxRows) {
+            exhaustedBy = "maxRows";
+            return true;
+        }
+        // 与单个查询一致，第一行超过字节上限时仍然保留
+        if (maxBytes > 0 && bytes > maxBytes && rows > 1) {
+            exhaustedBy = "maxBytes";
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 末尾行在合并输出中排在最后的分区
+     */
+    private int last() {
+        int last = -1;
+        for (int i = 0; i < held.length; i++) {
+            if (held[i].count == 0) {
+                continue;
+            }
+            if (last < 0 || order.compare(i, held[i].tailKey(), last, held[last].tailKey()) > 0) {
+                last = i;
+            }
+        }
+        return last;
+    }
+
+    /**
+     * 一个分区在额度中的份额，同时作为 {@link QueryPage} 读取时的额度
+     */
+    final class Share implements QueryPage.RowBudget {
+        private final int partition;
+        private final String keyColumn;
+        private String keyLabel;
+
+        private Share(int partition, String keyColumn) {
+            this.partition = partition;
+            this.keyColumn = keyColumn;
+        }
+
+        @Override
+        public boolean accept(Map<String, Object> row, long rowBytes) {
+            return ResultBudget.this.accept(partition, key(row), rowBytes);
+        }
+
+        private Object key(Map<String, Object> row) {
+            if (order == null) {
+                return null;
+            }
+            if (keyLabel == null) {
+                keyLabel = keyColumn;
+                for (String label : row.keySet()) {
+                    if (label.equalsIgnoreCase(keyColumn)) {
+                        keyLabel = label;
+                        break;
+                    }
+                }
+            }
+            return row.get(keyLabel);
+        }
+
+        @Override
+        public int retained() {
+            synchronized (ResultBudget.this) {
+                return held[partition].count;
+            }
+        }
+
+        @Override
+        public long retainedBytes() {
+            synchronized (ResultBudget.this) {
+                return held[partition].bytes;
+            }
+        }
+
+        @Override
+        public String exhaustedBy() {
+            synchronized (ResultBudget.this) {
+                return exhaustedBy;
+            }
+        }
+
+        /**
+         * 前 rows 行的估算字节数
+         */
+        long bytesOf(int rows) {
+            synchronized (ResultBudget.this) {
+                Held target = held[partition];
+                long total = 0;
+                for (int i = 0; i < Math.min(rows, target.count); i++) {
+                    total += target.sizes[i];
+                }
+                return total;
+            }
+        }
+
+        /**
+         * 是否有行被淘汰
+         */
+        boolean isStopped() {
+            synchronized (ResultBudget.this) {
+                return held[partition].stopped;
+            }
+        }
+
+        /**
+         * 最后一个被淘汰的行的键值；该分区缺失的行都不小于它
+         */
+        Object evictedKey() {
+            synchronized (ResultBudget.this) {
+                return held[partition].evictedKey;
+            }
+        }
+    }
+
+    /**
+     * 一个分区保留的行的键值和估算字节数
+     */
+    private static final class Held {
+        private Object[] keys = new Object[16];
+        private long[] sizes = new long[16];
+        private int count = 0;
+        private long bytes = 0;
+        private boolean stopped = false;
+        private Object evictedKey;
+
+        private void push(Object key, long rowBytes) {
+            if (count == sizes.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+                sizes = Arrays.copyOf(sizes, count * 2);
+            }
+            keys[count] = key;
+            sizes[count++] = rowBytes;
+            bytes += rowBytes;
+        }
+
+        private long pop() {
+            count--;
+            evictedKey = keys[count];
+            keys[count] = null;
+            bytes -= sizes[count];
+            return sizes[count];
+        }
+
+        private Object tailKey() {
+            return keys[count - 1];
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package io.bolt.plugin.examples.jdbc;
+
+import io.bolt.plugin.api.PluginException;
+import io.bolt.plugin.util.BinaryWriter;
+import io.bolt.plugin.util.JsonWriter;
+import io.bolt.plugin.util.Params;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 流式导出
+ * 逐行读取 ResultSet 直接写入文件，不经过插件结果；先写同目录临时文件，完成后再原子替换为目标文件，
+ * 堆内存只与缓冲区大小相关，与行数无关
+ *
+ * <p>binary 格式（大端）：魔数 "BOLT" + 版本号 1 字节 + 列数 varint + 每列（列名、类型名），
+ * 之后每行以 0x01 开头依次写入带类型标签的值，以 0x00 + 行数 varint 结尾。
+ * 值的编码与 {@link BinaryWriter} 相同：字符串与字节串均为 varint 长度前缀，整数为 zigzag varint
+ */
+public final class ResultSetExporter {
+
+    /**
+     * 文件格式
+     */
+    public enum Format {
+        CSV, JSONL, BINARY;
+
+        static Format of(String format, String fileName) {
+            String value = format;
+            if (value == null) {
+                String name = fileName.toLowerCase(Locale.ROOT);
+                if (name.endsWith(".gz")) {
+                    name = name.substring(0, name.length() - 3);
+                }
+                value = name.endsWith(".jsonl") || name.endsWith(".ndjson") ? "jsonl"
+                        : name.endsWith(".bin") ? "binary" : "csv";
+            }
+            switch (value.toLowerCase(Locale.ROOT)) {
+                case "csv":
+                    return CSV;
+                case "jsonl":
+                case "ndjson":
+                    return JSONL;
+                case "binary":
+                    return BINARY;
+                default:
+                    throw new PluginException("INVALID_PARAM", "不支持的导出格式: " + format);
+            }
+        }
+    }
+
+    static final byte[] MAGIC = {'B', 'O', 'L', 'T'};
+    static final int VERSION = 1;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path target;
+    private final Format format;
+    private final boolean gzip;
+    private final boolean overwrite;
+    private final boolean header;
+    private final char delimiter;
+    private final long maxRows;
+    private final long progressIntervalRows;
+
+    public ResultSetExporter(Path target, Map<String, Object> params) {
+        String fileName = target.getFileName().toString();
+        this.target = target;
+        this.format = Format.of(Params.getString(params, "format", null), fileName);
+        this.gzip = Params.getBoolean(params, "gzip", fileName.toLowerCase(Locale.ROOT).endsWith(".gz"));
+        this.overwrite = Params.getBoolean(params, "overwrite", false);
+        this.header = Params.getBoolean(params, "header", true);
+        String delimiterValue = Params.getString(params, "delimiter", ",");
+        if (delimiterValue.length() != 1) {
+            throw new PluginException("INVALID_PARAM", "参数 delimiter 必须为单个字符");
+        }
+        this.delimiter = delimiterValue.charAt(0);
+        this.maxRows = Params.getLong(params, "maxRows", 0);
+        this.progressIntervalRows = Params.getLong(params, "progressIntervalRows", 1_000_000);
+    }
+
+    /**
+     * 执行查询并导出
+     *
+     * @param fetchSize 驱动每次往返拉取的行数
+     * @param progress  每导出 progressIntervalRows 行回调一次已导出行数，可为 null
+     * @return path、format、compressed、rowCount、byteCount、elapsedMs
+     */
+    public Map<String, Object> export(Connection conn, String sql, List<Object> sqlParams, int fetchSize,
+                                      Consumer<Long> progress) throws SQLException, IOException {
+        if (!overwrite && Files.exists(target)) {
+            throw new PluginException("FILE_EXISTS", "目标文件已存在: " + target.getFileName());
+        }
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+
+        long start = System.nanoTime();
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(),
+                "." + target.getFileName() + ".", ".tmp");
+        long rows;
+        CountingOutputStream counter;
+        try {
+            // 部分驱动（如 PostgreSQL）只有在事务内才会按 fetchSize 游标读取
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                if (sqlParams != null) {
+                    for (int i = 0; i < sqlParams.size(); i++) {
+                        stmt.setObject(i + 1, sqlParams.get(i));
+                    }
+                }
+                stmt.setFetchSize(fetchSize);
+                if (maxRows > 0) {
+                    stmt.setLargeMaxRows(maxRows);
+                }
+                try (ResultSet rs = stmt.executeQuery();
+                     FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                             StandardOpenOption.TRUNCATE_EXISTING)) {
+                    counter = new CountingOutputStream(Channels.newOutputStream(channel));
+                    OutputStream out = gzip ? new GZIPOutputStream(counter, BUFFER_SIZE) : counter;
+                    out = new BufferedOutputStream(out, BUFFER_SIZE);
+                    rows = format == Format.BINARY ? writeBinary(rs, out, progress) : writeText(rs, out, progress);
+                    out.close();
+                    channel.force(false);
+                }
+            } finally {
+                conn.rollback();
+            }
+            move(temp, target);
+        } catch (SQLException | IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("path", target.toString());
+        result.put("format", format.name().toLowerCase(Locale.ROOT));
+        result.put("compressed", gzip);
+        result.put("rowCount", rows);
+        result.put("byteCount", counter.count);
+        result.put("elapsedMs", (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    private long writeText(ResultSet rs, OutputStream out, Consumer<Long> progress) throws SQLException, IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        ResultSetMetaData meta = rs.getMetaData();
+        int columnCount = meta.getColumnCount();
+        String[] labels = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            labels[i] = meta.getColumnLabel(i + 1);
+        }
+
+        if (format == Format.CSV && header) {
+            for (int i = 0; i < columnCount; i++) {
+                if (i > 0) {
+                    writer.write(delimiter);
+                }
+                writeCsvField(labels[i], writer);
+            }
+            writer.write('\n');
+        }
+
+        long rows = 0;
+        while (rs.next()) {
+            if (format == Format.CSV) {
+                for (int i = 0; i < columnCount; i++) {
+                    if (i > 0) {
+                        writer.write(delimiter);
+                    }
+                    Object value = normalize(rs.getObject(i + 1));
+                    if (value != null) {
+                        writeCsvField(value instanceof byte[]
+                                ? Base64.getEncoder().encodeToString((byte[]) value) : value.toString(), writer);
+                    }
+                }
+            } else {
+                writer.write('{');
+                for (int i = 0; i < columnCount; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    JsonWriter.writeString(labels[i], writer);
+                    writer.write(':');
+                    JsonWriter.write(normalize(rs.getObject(i + 1)), writer);
+                }
+                writer.write('}');
+            }
+            writer.write('\n');
+            rows = reportProgress(rows + 1, progress);
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private long writeBinary(ResultSet rs, OutputStream out, Consumer<Long> progress) throws SQLException, IOException {
+        ResultSetMetaData meta = rs.getMetaData();
+        int columnCount = meta.getColumnCount();
+
+        // 每行先编码到复用的缓冲区，再整行写出
+        BinaryWriter row = new BinaryWriter();
+        row.writeBytes(MAGIC, 0, MAGIC.length);
+        row.writeByte(VERSION);
+        row.writeVarLong(columnCount);
+        for (int i = 1; i <= columnCount; i++) {
+            row.writeString(meta.getColumnLabel(i));
+            row.writeString(meta.getColumnTypeName(i));
+        }
+        row.writeTo(out);
+
+        long rows = 0;
+        while (rs.next()) {
+            row.reset();
+            row.writeByte(1);
+            for (int i = 1; i <= columnCount; i++) {
+                row.writeValue(normalize(rs.getObject(i)));
+            }
+            row.writeTo(out);
+            rows = reportProgress(rows + 1, progress);
+        }
+        row.reset();
+        row.writeByte(0);
+        row.writeVarLong(rows);
+        row.writeTo(out);
+        return rows;
+    }
+
+    private long reportProgress(long rows, Consumer<Long> progress) {
+        if (progress != null && progressIntervalRows > 0 && rows % progressIntervalRows == 0) {
+            progress.accept(rows);
+        }
+        return rows;
+    }
+
+    /**
+     * LOB 在结果集游标移动后可能失效，这里立即读取为 String / byte[]
+     */
+    private static Object normalize(Object value) throws SQLException {
+        if (value instanceof Clob) {
+            Clob clob = (Clob) value;
+            return clob.getSubString(1, (int) clob.length());
+        }
+        if (value instanceof Blob) {
+            Blob blob = (Blob) value;
+            return blob.getBytes(1, (int) blob.length());
+        }
+        return value;
+    }
+
+    private void writeCsvField(String value, Writer writer) throws IOException {
+        boolean quote = value.indexOf(delimiter) >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static void move(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 统计实际写入磁盘的字节数（压缩后）；close 只刷新，通道由调用方在 force 之后关闭
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
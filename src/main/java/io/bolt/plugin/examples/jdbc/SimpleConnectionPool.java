@@ -0,0 +1,225 @@
+package io.bolt.plugin.examples.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 简单连接池
+ * 示例插件不引入第三方连接池，这里提供一个有界、按需建连的最小实现：
+ * 借出的连接是代理对象，close() 时归还到池中并恢复 autoCommit / readOnly，
+ * 生产环境可替换为 HikariCP 等成熟实现
+ */
+public final class SimpleConnectionPool implements AutoCloseable {
+
+    private static final long VALIDATE_IDLE_AFTER_MS = 30_000;
+
+    private final String jdbcUrl;
+    private final String username;
+    private final String password;
+    private final int maxSize;
+    private final long borrowTimeoutMs;
+
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private volatile boolean closed = false;
+
+    public SimpleConnectionPool(String jdbcUrl, String username, String password, int maxSize, long borrowTimeoutMs) {
+        this.jdbcUrl = jdbcUrl;
+        this.username = username;
+        this.password = password;
+        this.maxSize = Math.max(1, maxSize);
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.permits = new Semaphore(this.maxSize, true);
+    }
+
+    /**
+     * 借出连接，池满时最多等待 borrowTimeoutMs
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("连接池已关闭");
+        }
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new PoolExhaustedException(
+                        "获取数据库连接超时 (" + borrowTimeoutMs + "ms)，连接池大小: " + maxSize);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("获取数据库连接被中断", e);
+        }
+
+        try {
+            Connection physical = takeIdle();
+            if (physical == null) {
+                physical = DriverManager.getConnection(jdbcUrl, username, password);
+            }
+            active.incrementAndGet();
+            return wrap(physical);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public String getJdbcUrl() {
+        return jdbcUrl;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * 当前借出未归还的连接数
+     */
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            closeQuietly(pooled.connection);
+        }
+    }
+
+    private Connection takeIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (System.currentTimeMillis() - pooled.returnedAt < VALIDATE_IDLE_AFTER_MS) {
+                return pooled.connection;
+            }
+            try {
+                if (pooled.connection.isValid(2)) {
+                    return pooled.connection;
+                }
+            } catch (SQLException ignored) {
+                // 校验失败按失效连接处理
+            }
+            closeQuietly(pooled.connection);
+        }
+        return null;
+    }
+
+    private void release(Connection physical) {
+        active.decrementAndGet();
+        try {
+            if (closed || physical.isClosed()) {
+                closeQuietly(physical);
+                return;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (physical.isReadOnly()) {
+                physical.setReadOnly(false);
+            }
+            idle.offerFirst(new PooledConnection(physical, System.currentTimeMillis()));
+        } catch (SQLException e) {
+            closeQuietly(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private Connection wrap(Connection physical) {
+        return (Connection) Proxy.newProxyInstance(
+                SimpleConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new ConnectionHandler(physical));
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // 关闭失败无需处理
+        }
+    }
+
+    /**
+     * 池中连接全部借出且等待超时；说明节点繁忙而不是不可用
+     */
+    public static final class PoolExhaustedException extends SQLTransientConnectionException {
+        private static final long serialVersionUID = 1L;
+
+        PoolExhaustedException(String message) {
+            super(message);
+        }
+    }
+
+    private static final class PooledConnection {
+        private final Connection connection;
+        private final long returnedAt;
+
+        private PooledConnection(Connection connection, long returnedAt) {
+            this.connection = connection;
+            this.returnedAt = returnedAt;
+        }
+    }
+
+    /**
+     * 连接代理：拦截 close()，归还后再调用其他方法会抛出异常
+     */
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection physical;
+        private volatile boolean returned = false;
+
+        private ConnectionHandler(Connection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    synchronized (this) {
+                        if (!returned) {
+                            returned = true;
+                            release(physical);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical + "]";
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("连接已归还到连接池");
+            }
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package io.bolt.plugin.examples.jdbc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * SQL 指纹
+ * 把结构相同、只有字面量不同的语句归为一类：去掉注释，字符串和数字替换为 {@code ?}，
+ * 未加引号的单词转小写，{@code IN (?, ?, ...)} 折叠为 {@code in (?+)}，
+ * 多行 {@code VALUES (...), (...)} 只保留第一组
+ */
+final class SqlFingerprint {
+
+    private static final int MAX_LENGTH = 2000;
+
+    private SqlFingerprint() {
+    }
+
+    static String of(String sql) {
+        List<String> tokens = normalize(SqlTables.tokenize(sql, true));
+        StringBuilder out = new StringBuilder(Math.min(sql.length(), MAX_LENGTH));
+        String previous = null;
+        for (String token : tokens) {
+            if (previous != null && needsSpace(previous, token)) {
+                out.append(' ');
+            }
+            out.append(token);
+            previous = token;
+            if (out.length() >= MAX_LENGTH) {
+                out.setLength(MAX_LENGTH);
+                break;
+            }
+        }
+        return out.toString();
+    }
+
+    private static List<String> normalize(List<String> tokens) {
+        List<String> out = new ArrayList<>(tokens.size());
+        int i = 0;
+        while (i < tokens.size()) {
+            String token = tokens.get(i);
+            String lower = isQuoted(token) ? token : token.toLowerCase(Locale.ROOT);
+
+            // 负数字面量：运算符或左括号之后的 "- ?"
+            if ("-".equals(token) && i + 1 < tokens.size() && "?".equals(tokens.get(i + 1))
+                    && (out.isEmpty() || !isOperand(out.get(out.size() - 1)))) {
+                i++;
+                continue;
+            }
+
+            if ("in".equals(lower)) {
+                int end = placeholderList(tokens, i + 1);
+                if (end > 0) {
+                    out.add("in");
+                    out.add("(");
+                    out.add("?+");
+                    out.add(")");
+                    i = end;
+                    continue;
+                }
+            }
+
+            out.add(lower);
+            i++;
+
+            if ("values".equals(lower) && i < tokens.size() && "(".equals(tokens.get(i))) {
+                int end = closing(tokens, i);
+                if (end < 0) {
+                    continue;
+                }
+                for (int j = i; j <= end; j++) {
+                    out.add(tokens.get(j).toLowerCase(Locale.ROOT));
+                }
+                i = end + 1;
+                // 跳过后续的 , (...) 组
+                while (i + 1 < tokens.size() && ",".equals(tokens.get(i)) && "(".equals(tokens.get(i + 1))) {
+                    int next = closing(tokens, i + 1);
+                    if (next < 0) {
+                        break;
+                    }
+                    i = next + 1;
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * start 处为 {@code ( ?, ?, ... )} 时返回右括号之后的位置，否则返回 -1
+     */
+    private static int placeholderList(List<String> tokens, int start) {
+        if (start >= tokens.size() || !"(".equals(tokens.get(start))) {
+            return -1;
+        }
+        int i = start + 1;
+        boolean expectValue = true;
+        while (i < tokens.size()) {
+            String token = tokens.get(i);
+            if (expectValue && "-".equals(token) && i + 1 < tokens.size() && "?".equals(tokens.get(i + 1))) {
+                i++;
+                continue;
+            }
+            if (expectValue && "?".equals(token)) {
+                expectValue = false;
+            } else if (!expectValue && ",".equals(token)) {
+                expectValue = true;
+            } else if (!expectValue && ")".equals(token)) {
+                return i + 1;
+            } else {
+                return -1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    private static int closing(List<String> tokens, int open) {
+        int depth = 0;
+        for (int i = open; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if ("(".equals(token)) {
+                depth++;
+            } else if (")".equals(token) && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isOperand(String token) {
+        return ")".equals(token) || "?".equals(token) || "?+".equals(token) || isQuoted(token)
+                || Character.isLetterOrDigit(token.charAt(0)) || token.charAt(0) == '_';
+    }
+
+    private static boolean isQuoted(String token) {
+        char c = token.charAt(0);
+        return c == '"' || c == '`' || c == '[';
+    }
+
+    private static boolean needsSpace(String previous, String token) {
+        return !"(".equals(previous) && !".".equals(previous)
+                && !")".equals(token) && !",".equals(token) && !".".equals(token)
+                && !("(".equals(token) && isOperand(previous) && !"in".equals(previous) && !"values".equals(previous));
+    }
+}
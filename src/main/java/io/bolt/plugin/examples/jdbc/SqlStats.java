@@ -0,0 +1,313 @@
+package io.bolt.plugin.examples.jdbc;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按 SQL 指纹聚合的执行统计
+ * 每个指纹记录调用次数、失败次数、缓存命中、耗时分布（固定桶直方图）、返回行数和结果字节数。
+ * 指纹数量有上限：满了以后新指纹挤掉累计耗时最少的一个，被挤掉的调用计入 evictedCalls，
+ * 因此保留的是耗时最多的 top-K。超过阈值的单次执行写入定长的慢查询日志
+ */
+public final class SqlStats {
+
+    /**
+     * 直方图桶上界（毫秒），最后一个桶不设上界
+     */
+    private static final long[] BUCKET_BOUNDS_MS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+    private static final int MAX_SQL_LENGTH = 2000;
+
+    private final int maxFingerprints;
+    private final long slowThresholdMs;
+    private final int slowLogSize;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+    private final Deque<Map<String, Object>> slowLog = new ArrayDeque<>();
+    private final Object evictionLock = new Object();
+    private final AtomicLong evictedFingerprints = new AtomicLong();
+    private final AtomicLong evictedCalls = new AtomicLong();
+    private final AtomicLong slowCount = new AtomicLong();
+    private volatile long since = System.currentTimeMillis();
+
+    public SqlStats(int maxFingerprints, long slowThresholdMs, int slowLogSize) {
+        this.maxFingerprints = Math.max(1, maxFingerprints);
+        this.slowThresholdMs = slowThresholdMs;
+        this.slowLogSize = Math.max(0, slowLogSize);
+    }
+
+    /**
+     * 计算指纹；相同的 SQL 文本只解析一次
+     */
+    public String fingerprint(String sql) {
+        String cached = fingerprints.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        String fingerprint = SqlFingerprint.of(sql);
+        if (fingerprints.size() >= maxFingerprints * 4) {
+            // 拼接了字面量的 SQL 文本各不相同，定期清空避免无限增长
+            fingerprints.clear();
+        }
+        fingerprints.put(sql, fingerprint);
+        return fingerprint;
+    }
+
+    /**
+     * 记录一次执行
+     *
+     * @param error       失败时的错误信息，成功为 null
+     * @param executionId 写入慢查询日志的执行标识，可为 null
+     * @return 是否为慢查询
+     */
+    public boolean record(String sql, long elapsedNanos, long rows, long bytes, String error, String executionId) {
+        String fingerprint = fingerprint(sql);
+        Entry entry = entry(fingerprint, sql);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        entry.calls.increment();
+        if (error != null) {
+            entry.errors.increment();
+        }
+        entry.totalNanos.add(elapsedNanos);
+        entry.maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+        entry.rows.add(Math.max(0, rows));
+        entry.bytes.add(Math.max(0, bytes));
+        entry.buckets.incrementAndGet(bucket(elapsedMs));
+        entry.lastSeen = System.currentTimeMillis();
+
+        if (slowThresholdMs <= 0 || elapsedMs < slowThresholdMs) {
+            return false;
+        }
+        slowCount.incrementAndGet();
+        if (slowLogSize > 0) {
+            Map<String, Object> slow = new HashMap<>();
+            slow.put("timestamp", System.currentTimeMillis());
+            slow.put("fingerprint", fingerprint);
+            slow.put("sql", truncate(sql));
+            slow.put("elapsedMs", elapsedMs);
+            slow.put("rows", rows);
+            if (executionId != null) {
+                slow.put("executionId", executionId);
+            }
+            if (error != null) {
+                slow.put("error", error);
+            }
+            synchronized (slowLog) {
+                if (slowLog.size() >= slowLogSize) {
+                    slowLog.removeFirst();
+                }
+                slowLog.addLast(slow);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 记录一次查询缓存命中（不计入耗时）
+     */
+    public void recordCacheHit(String sql) {
+        entry(fingerprint(sql), sql).cacheHits.increment();
+    }
+
+    /**
+     * 统计快照
+     *
+     * @param sortBy 排序字段：totalTime、count、avgTime、maxTime、rows、bytes、errors
+     * @param limit  最多返回的指纹数
+     */
+    public Map<String, Object> snapshot(String sortBy, int limit) {
+        List<Map<String, Object>> list = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            list.add(e.getValue().toMap(e.getKey()));
+        }
+        String key = sortKey(sortBy);
+        list.sort(Comparator.comparingDouble((Map<String, Object> m) -> ((Number) m.get(key)).doubleValue()).reversed());
+        if (limit > 0 && list.size() > limit) {
+            list = new ArrayList<>(list.subList(0, limit));
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("since", since);
+        result.put("fingerprintCount", entries.size());
+        result.put("evictedFingerprints", evictedFingerprints.get());
+        result.put("evictedCalls", evictedCalls.get());
+        result.put("slowThresholdMs", slowThresholdMs);
+        result.put("slowCount", slowCount.get());
+        result.put("fingerprints", list);
+        synchronized (slowLog) {
+            List<Map<String, Object>> slow = new ArrayList<>(slowLog);
+            // 最近的在前
+            Collections.reverse(slow);
+            result.put("slowQueries", slow);
+        }
+        return result;
+    }
+
+    public void reset() {
+        entries.clear();
+        synchronized (slowLog) {
+            slowLog.clear();
+        }
+        evictedFingerprints.set(0);
+        evictedCalls.set(0);
+        slowCount.set(0);
+        since = System.currentTimeMillis();
+    }
+
+    private Entry entry(String fingerprint, String sql) {
+        Entry entry = entries.get(fingerprint);
+        if (entry != null) {
+            return entry;
+        }
+        if (entries.size() >= maxFingerprints) {
+            evictSmallest();
+        }
+        return entries.computeIfAbsent(fingerprint, f -> new Entry(truncate(sql)));
+    }
+
+    /**
+     * 挤掉累计耗时最少的指纹；只在出现新指纹且已满时发生，线性扫描即可
+     */
+    private void evictSmallest() {
+        synchronized (evictionLock) {
+            if (entries.size() < maxFingerprints) {
+                return;
+            }
+            String smallest = null;
+            long smallestNanos = Long.MAX_VALUE;
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                long nanos = e.getValue().totalNanos.sum();
+                if (nanos < smallestNanos) {
+                    smallest = e.getKey();
+                    smallestNanos = nanos;
+                }
+            }
+            Entry removed = smallest == null ? null : entries.remove(smallest);
+            if (removed != null) {
+                evictedFingerprints.incrementAndGet();
+                evictedCalls.addAndGet(removed.calls.sum());
+            }
+        }
+    }
+
+    private static int bucket(long elapsedMs) {
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            if (elapsedMs < BUCKET_BOUNDS_MS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS_MS.length;
+    }
+
+    private static String sortKey(String sortBy) {
+        if (sortBy == null) {
+            return "totalTimeMs";
+        }
+        switch (sortBy) {
+            case "count":
+                return "count";
+            case "avgTime":
+                return "avgTimeMs";
+            case "maxTime":
+                return "maxTimeMs";
+            case "rows":
+                return "rows";
+            case "bytes":
+                return "bytes";
+            case "errors":
+                return "errors";
+            default:
+                return "totalTimeMs";
+        }
+    }
+
+    private static String truncate(String sql) {
+        return sql.length() <= MAX_SQL_LENGTH ? sql : sql.substring(0, MAX_SQL_LENGTH) + "...";
+    }
+
+    private static final class Entry {
+        private final String sample;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder cacheHits = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MS.length + 1);
+        private volatile long lastSeen = System.currentTimeMillis();
+
+        private Entry(String sample) {
+            this.sample = sample;
+        }
+
+        private Map<String, Object> toMap(String fingerprint) {
+            long count = calls.sum();
+            double totalMs = totalNanos.sum() / 1_000_000.0;
+            long maxMs = TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+
+            long[] counts = new long[buckets.length()];
+            List<Map<String, Object>> histogram = new ArrayList<>();
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets.get(i);
+                if (counts[i] > 0) {
+                    Map<String, Object> bucket = new HashMap<>();
+                    bucket.put("lessThanMs", i < BUCKET_BOUNDS_MS.length ? BUCKET_BOUNDS_MS[i] : null);
+                    bucket.put("count", counts[i]);
+                    histogram.add(bucket);
+                }
+            }
+
+            Map<String, Object> map = new HashMap<>();
+            map.put("fingerprint", fingerprint);
+            map.put("sample", sample);
+            map.put("count", count);
+            map.put("errors", errors.sum());
+            map.put("cacheHits", cacheHits.sum());
+            map.put("totalTimeMs", totalMs);
+            map.put("avgTimeMs", count == 0 ? 0.0 : totalMs / count);
+            map.put("maxTimeMs", maxMs);
+            map.put("p50Ms", percentile(counts, 0.50, maxMs));
+            map.put("p95Ms", percentile(counts, 0.95, maxMs));
+            map.put("p99Ms", percentile(counts, 0.99, maxMs));
+            map.put("rows", rows.sum());
+            map.put("bytes", bytes.sum());
+            map.put("lastSeen", lastSeen);
+            map.put("histogram", histogram);
+            return map;
+        }
+
+        /**
+         * 按桶估算分位数：取所在桶的上界，不超过观测到的最大值
+         */
+        private static long percentile(long[] counts, double quantile, long maxMs) {
+            long total = 0;
+            for (long c : counts) {
+                total += c;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(total * quantile);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return i < BUCKET_BOUNDS_MS.length ? Math.min(BUCKET_BOUNDS_MS[i], maxMs) : maxMs;
+                }
+            }
+            return maxMs;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package io.bolt.plugin.examples.jdbc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 轻量 SQL 表名提取
+ * 只做词法扫描：跳过注释、字符串字面量，取 FROM / JOIN / INTO / UPDATE / TABLE 之后的表名，
+ * 表名统一为不带 schema 的小写形式。结果偏宽（可能包含别名或函数参数），只用于缓存失效判断
+ */
+final class SqlTables {
+
+    private static final Set<String> TABLE_KEYWORDS = Set.of("FROM", "JOIN", "INTO", "UPDATE", "TABLE", "TRUNCATE");
+    private static final Set<String> SKIP_WORDS = Set.of("IF", "NOT", "EXISTS", "ONLY", "TABLE", "LATERAL");
+    private static final Set<String> CLAUSE_WORDS = Set.of("WHERE", "JOIN", "INNER", "LEFT", "RIGHT", "FULL",
+            "CROSS", "OUTER", "ON", "USING", "GROUP", "ORDER", "HAVING", "LIMIT", "OFFSET", "UNION", "EXCEPT",
+            "INTERSECT", "SET", "VALUES", "SELECT", "WINDOW", "FETCH", "FOR", "NATURAL", "RETURNING");
+
+    private SqlTables() {
+    }
+
+    /**
+     * 提取语句引用的表名，无法识别任何表时返回空集合
+     */
+    static Set<String> of(String sql) {
+        List<String> tokens = tokenize(sql);
+        Set<String> tables = new LinkedHashSet<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            String keyword = tokens.get(i).toUpperCase(Locale.ROOT);
+            if (!TABLE_KEYWORDS.contains(keyword)) {
+                continue;
+            }
+            int j = i + 1;
+            while (j < tokens.size() && SKIP_WORDS.contains(tokens.get(j).toUpperCase(Locale.ROOT))) {
+                j++;
+            }
+            // FROM a x, b y 形式的表列表
+            while (j < tokens.size()) {
+                j = readName(tokens, j, tables);
+                if (j < 0 || !"FROM".equals(keyword)) {
+                    break;
+                }
+                while (j < tokens.size() && !",".equals(tokens.get(j)) && isWord(tokens.get(j))
+                        && !CLAUSE_WORDS.contains(tokens.get(j).toUpperCase(Locale.ROOT))) {
+                    j++;
+                }
+                if (j >= tokens.size() || !",".equals(tokens.get(j))) {
+                    break;
+                }
+                j++;
+            }
+        }
+        return tables.isEmpty() ? Collections.emptySet() : tables;
+    }
+
+    /**
+     * 读取 a.b.c 形式的限定名，记录最后一段；不是名字时返回 -1
+     */
+    private static int readName(List<String> tokens, int start, Set<String> tables) {
+        if (start >= tokens.size() || !isWord(tokens.get(start))) {
+            return -1;
+        }
+        String name = tokens.get(start);
+        int j = start + 1;
+        while (j + 1 < tokens.size() && ".".equals(tokens.get(j)) && isWord(tokens.get(j + 1))) {
+            name = tokens.get(j + 1);
+            j += 2;
+        }
+        tables.add(unquote(name).toLowerCase(Locale.ROOT));
+        return j;
+    }
+
+    private static boolean isWord(String token) {
+        char c = token.charAt(0);
+        return Character.isLetter(c) || c == '_' || c == '"' || c == '`' || c == '[';
+    }
+
+    private static String unquote(String name) {
+        char c = name.charAt(0);
+        return c == '"' || c == '`' || c == '[' ? name.substring(1, name.length() - 1) : name;
+    }
+
+    /**
+     * 拆分为单词、带引号标识符和单字符符号；字符串字面量、数字和注释被丢弃
+     */
+    static List<String> tokenize(String sql) {
+        return tokenize(sql, false);
+    }
+
+    /**
+     * 同 {@link #tokenize(String)}，literals 为 true 时字符串字面量和数字以 {@code ?} 占位
+     */
+    static List<String> tokenize(String sql, boolean literals) {
+        List<String> tokens = new ArrayList<>();
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                while (i < length && sql.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == '\'') {
+                i = skipQuoted(sql, i, '\'');
+                if (literals) {
+                    tokens.add("?");
+                }
+            } else if (c == '"' || c == '`' || c == '[') {
+                int end = skipQuoted(sql, i, c == '[' ? ']' : c);
+                tokens.add(sql.substring(i, Math.min(end, length)));
+                i = end;
+            } else if (Character.isLetter(c) || c == '_') {
+                int start = i;
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_'
+                        || sql.charAt(i) == '$')) {
+                    i++;
+                }
+                tokens.add(sql.substring(start, i));
+            } else if (Character.isDigit(c)) {
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                if (literals) {
+                    tokens.add("?");
+                }
+            } else {
+                tokens.add(String.valueOf(c));
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    private static int skipQuoted(String sql, int start, char close) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == close) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == close) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return sql.length();
+    }
+}
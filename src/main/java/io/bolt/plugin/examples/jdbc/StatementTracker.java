@@ -0,0 +1,297 @@
+package io.bolt.plugin.examples.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 语句超时与取消
+ * 每次调用打开一个 {@link Scope}，经 Scope 包装的连接创建的语句都会登记并设置
+ * {@code setQueryTimeout}（按剩余时间向上取整到秒）。后台线程定期检查，调用方截止时间已过
+ * 或被取消时对仍在执行的语句调用 {@code Statement.cancel()}，由数据库端中止执行；
+ * 插件销毁时取消全部语句
+ */
+public final class StatementTracker implements AutoCloseable {
+
+    private final Set<Scope> scopes = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService watchdog;
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private volatile boolean closed = false;
+
+    public StatementTracker(long checkIntervalMs) {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "bolt-statement-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(10, checkIntervalMs);
+        executor.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+        this.watchdog = executor;
+    }
+
+    /**
+     * 打开一次调用的跟踪范围
+     *
+     * @param timeoutMs 从现在起的时限，小于等于 0 表示不限制
+     * @param cancelled 调用方取消信号，可为 null
+     */
+    public Scope open(long timeoutMs, BooleanSupplier cancelled) {
+        Scope scope = new Scope(timeoutMs, cancelled, false);
+        scopes.add(scope);
+        return scope;
+    }
+
+    /**
+     * 每个借出的连接各自一个时限为 timeoutMs 的范围，连接关闭时结束；
+     * 用于组提交等多个调用方共享语句、没有单一截止时间的场景
+     */
+    public ConnectionProvider provider(ConnectionProvider connections, long timeoutMs) {
+        return () -> {
+            Connection conn = connections.getConnection();
+            Scope scope = new Scope(timeoutMs, null, true);
+            scopes.add(scope);
+            return scope.wrap(conn);
+        };
+    }
+
+    public Map<String, Object> stats() {
+        int running = 0;
+        for (Scope scope : scopes) {
+            running += scope.running();
+        }
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("activeScopes", scopes.size());
+        stats.put("runningStatements", running);
+        stats.put("cancelledStatements", cancelled.get());
+        stats.put("timedOutScopes", timedOut.get());
+        return stats;
+    }
+
+    /**
+     * 取消所有仍在执行的语句并停止检查线程
+     */
+    @Override
+    public void close() {
+        closed = true;
+        watchdog.shutdownNow();
+        for (Scope scope : scopes) {
+            scope.cancelAll("插件已关闭，语句被取消");
+        }
+    }
+
+    private void sweep() {
+        long now = System.nanoTime();
+        for (Scope scope : scopes) {
+            if (scope.reason == null) {
+                if (scope.deadline != 0 && now - scope.deadline >= 0) {
+                    timedOut.incrementAndGet();
+                    scope.cancelAll("执行超时 (" + scope.timeoutMs + "ms)");
+                } else if (scope.cancelSignal != null && scope.cancelSignal.getAsBoolean()) {
+                    scope.cancelAll("执行已被取消");
+                }
+            }
+            scope.prune();
+        }
+    }
+
+    /**
+     * 一次调用的跟踪范围，使用完毕后必须关闭
+     */
+    public final class Scope implements AutoCloseable {
+
+        private final long timeoutMs;
+        private final long deadline;
+        private final BooleanSupplier cancelSignal;
+        private final boolean ownedByConnection;
+        private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+        private volatile String reason;
+
+        private Scope(long timeoutMs, BooleanSupplier cancelSignal, boolean ownedByConnection) {
+            this.timeoutMs = timeoutMs;
+            // nanoTime 可能为 0，截止时间用 0 表示不限制时避开它
+            long deadline = timeoutMs > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs) : 0;
+            this.deadline = timeoutMs > 0 && deadline == 0 ? 1 : deadline;
+            this.cancelSignal = cancelSignal;
+            this.ownedByConnection = ownedByConnection;
+        }
+
+        /**
+         * 包装连接：之后通过它创建的语句都受本范围的时限约束
+         */
+        public Connection wrap(Connection conn) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new TrackingHandler(conn));
+        }
+
+        /**
+         * 包装读操作，供 {@link ReplicaRouter#read} 使用
+         */
+        public <T> ReplicaRouter.ReadWork<T> guard(ReplicaRouter.ReadWork<T> work) {
+            return conn -> work.apply(wrap(conn));
+        }
+
+        /**
+         * 包装连接来源，供多连接并行写入使用
+         */
+        public ConnectionProvider provider(ConnectionProvider connections) {
+            return () -> wrap(connections.getConnection());
+        }
+
+        /**
+         * 剩余毫秒数；不限制时返回 Long.MAX_VALUE
+         */
+        public long remainingMs() {
+            if (deadline == 0) {
+                return Long.MAX_VALUE;
+            }
+            return TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        }
+
+        /**
+         * 超时或取消时返回对应错误码，否则返回 defaultCode
+         */
+        public String errorCode(String defaultCode) {
+            String current = reason;
+            if (current == null && deadline != 0 && remainingMs() <= 0) {
+                return "QUERY_TIMEOUT";
+            }
+            if (current == null) {
+                return defaultCode;
+            }
+            return current.startsWith("执行超时") ? "QUERY_TIMEOUT" : "QUERY_CANCELLED";
+        }
+
+        /**
+         * 附带中止原因的错误信息
+         */
+        public String describe(Exception e) {
+            String current = reason;
+            return current == null || current.equals(e.getMessage()) ? e.getMessage() : current + ": " + e.getMessage();
+        }
+
+        @Override
+        public void close() {
+            scopes.remove(this);
+            statements.clear();
+        }
+
+        private void register(Statement stmt) throws SQLException {
+            long remaining = remainingMs();
+            if (remaining != Long.MAX_VALUE) {
+                // 驱动端超时作为兜底，精确到毫秒的截止时间由检查线程保证
+                stmt.setQueryTimeout((int) Math.max(1, Math.min(Integer.MAX_VALUE, (remaining + 999) / 1000)));
+            }
+            statements.add(stmt);
+        }
+
+        private void checkOpen() throws SQLException {
+            if (closed) {
+                throw new SQLException("语句跟踪已关闭");
+            }
+            if (reason != null) {
+                throw new SQLTimeoutException(reason);
+            }
+            if (remainingMs() <= 0) {
+                reason = "执行超时 (" + timeoutMs + "ms)";
+                throw new SQLTimeoutException(reason);
+            }
+            if (cancelSignal != null && cancelSignal.getAsBoolean()) {
+                reason = "执行已被取消";
+                throw new SQLTimeoutException(reason);
+            }
+        }
+
+        private void cancelAll(String why) {
+            reason = why;
+            for (Statement stmt : statements) {
+                try {
+                    if (!stmt.isClosed()) {
+                        stmt.cancel();
+                        cancelled.incrementAndGet();
+                    }
+                } catch (SQLException ignored) {
+                    // 语句可能已结束
+                }
+            }
+        }
+
+        private void prune() {
+            Iterator<Statement> it = statements.iterator();
+            while (it.hasNext()) {
+                try {
+                    if (it.next().isClosed()) {
+                        it.remove();
+                    }
+                } catch (SQLException e) {
+                    it.remove();
+                }
+            }
+        }
+
+        private int running() {
+            int count = 0;
+            for (Statement stmt : statements) {
+                try {
+                    if (!stmt.isClosed()) {
+                        count++;
+                    }
+                } catch (SQLException ignored) {
+                    // 忽略已失效的语句
+                }
+            }
+            return count;
+        }
+
+        /**
+         * 连接代理：登记新建的语句，其余调用原样转发
+         */
+        private final class TrackingHandler implements InvocationHandler {
+
+            private final Connection target;
+
+            private TrackingHandler(Connection target) {
+                this.target = target;
+            }
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                String name = method.getName();
+                boolean creates = "createStatement".equals(name) || "prepareStatement".equals(name)
+                        || "prepareCall".equals(name);
+                if (creates) {
+                    checkOpen();
+                }
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                } finally {
+                    if ("close".equals(name) && ownedByConnection) {
+                        Scope.this.close();
+                    }
+                }
+                if (creates) {
+                    register((Statement) result);
+                }
+                return result;
+            }
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package io.bolt.plugin.examples.jdbc;
+
+import io.bolt.plugin.api.PluginException;
+import io.bolt.plugin.util.Params;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 事务脚本
+ * 在一个连接、一个事务中按顺序执行多条语句，最后统一提交；任一语句失败则整体回滚。
+ * 参数中可以用 {@code {"$ref": "name.path"}} 引用前面语句的结果，例如
+ * {@code order.generatedKey}、{@code order.affectedRows}、{@code user.rows[0].ID}
+ */
+public final class TransactionScript {
+
+    private static final int MAX_STATEMENTS = 1000;
+
+    private final List<Step> steps;
+    private final Integer isolation;
+    private final QueryOptions queryOptions;
+
+    private TransactionScript(List<Step> steps, Integer isolation, QueryOptions queryOptions) {
+        this.steps = steps;
+        this.isolation = isolation;
+        this.queryOptions = queryOptions;
+    }
+
+    /**
+     * 解析 statements 参数
+     */
+    @SuppressWarnings("unchecked")
+    public static TransactionScript from(Map<String, Object> params, QueryOptions queryOptions) {
+        Object value = params.get("statements");
+        if (!(value instanceof List) || ((List<?>) value).isEmpty()) {
+            throw new PluginException("INVALID_PARAM", "statements 必须为非空数组");
+        }
+        List<?> statements = (List<?>) value;
+        if (statements.size() > MAX_STATEMENTS) {
+            throw new PluginException("INVALID_PARAM", "statements 最多 " + MAX_STATEMENTS + " 条");
+        }
+
+        List<Step> steps = new ArrayList<>(statements.size());
+        for (int i = 0; i < statements.size(); i++) {
+            if (!(statements.get(i) instanceof Map)) {
+                throw new PluginException("INVALID_PARAM", "statements[" + i + "] 必须为对象");
+            }
+            Map<String, Object> statement = (Map<String, Object>) statements.get(i);
+            String sql = Params.getString(statement, "sql", null);
+            if (sql == null || sql.isBlank()) {
+                throw new PluginException("INVALID_PARAM", "statements[" + i + "] 缺少 sql");
+            }
+            String type = Params.getString(statement, "type", inferType(sql));
+            if (!"query".equals(type) && !"update".equals(type)) {
+                throw new PluginException("INVALID_PARAM", "statements[" + i + "] 的 type 只能是 query 或 update");
+            }
+            steps.add(new Step(
+                    Params.getString(statement, "name", String.valueOf(i)),
+                    sql,
+                    (List<Object>) statement.get("params"),
+                    "query".equals(type),
+                    Params.getBoolean(statement, "returnGeneratedKeys", isInsert(sql)),
+                    Params.getBoolean(statement, "expectRows", false)));
+        }
+        return new TransactionScript(steps, isolationLevel(Params.getString(params, "isolation", null)),
+                queryOptions);
+    }
+
+    /**
+     * 执行脚本并提交
+     *
+     * @throws StepFailedException 某条语句失败，事务已回滚；引用无法解析时 cause 为原 PluginException
+     */
+    public Map<String, Object> execute(Connection conn) throws SQLException {
+        Map<String, Object> named = new HashMap<>();
+        List<Map<String, Object>> results = new ArrayList<>(steps.size());
+        long totalAffected = 0;
+
+        conn.setAutoCommit(false);
+        int previousIsolation = conn.getTransactionIsolation();
+        if (isolation != null) {
+            conn.setTransactionIsolation(isolation);
+        }
+        int index = 0;
+        Throwable failure = null;
+        try {
+            for (; index < steps.size(); index++) {
+                Step step = steps.get(index);
+                List<Object> params = resolve(step.params, named, index);
+                Map<String, Object> result = step.query ? runQuery(conn, step, params) : runUpdate(conn, step, params);
+                if (!step.query) {
+                    totalAffected += ((Number) result.get("affectedRows")).longValue();
+                }
+                if (step.expectRows && ((Number) result.getOrDefault("affectedRows",
+                        result.get("count"))).longValue() == 0) {
+                    throw new SQLException("语句 " + step.name + " 没有影响或返回任何行");
+                }
+                result.put("name", step.name);
+                named.put(step.name, result);
+                results.add(result);
+            }
+            conn.commit();
+        } catch (SQLException | RuntimeException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException ignored) {
+                // 连接归还时会再次回滚
+            }
+            StepFailedException stepFailed = new StepFailedException(index,
+                    index < steps.size() ? steps.get(index).name : "commit", e);
+            failure = stepFailed;
+            throw stepFailed;
+        } catch (Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            // 连接池不会重置隔离级别，这里恢复原值
+            if (isolation != null) {
+                restoreIsolation(conn, previousIsolation, failure);
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("results", results);
+        result.put("statementCount", steps.size());
+        result.put("totalAffected", totalAffected);
+        result.put("committed", true);
+        return result;
+    }
+
+    /**
+     * 恢复隔离级别；事务已经失败时恢复失败的异常附加到原异常上，不覆盖原异常
+     */
+    private static void restoreIsolation(Connection conn, int previousIsolation, Throwable failure)
+            throws SQLException {
+        try {
+            conn.setTransactionIsolation(previousIsolation);
+        } catch (SQLException e) {
+            if (failure == null) {
+                throw e;
+            }
+            failure.addSuppressed(e);
+        }
+    }
+
+    private Map<String, Object> runQuery(Connection conn, Step step, List<Object> params) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(step.sql)) {
+            setParameters(stmt, params);
+            queryOptions.applyTo(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return QueryPage.read(rs, queryOptions, step.sql).toResult(false);
+            }
+        }
+    }
+
+    private Map<String, Object> runUpdate(Connection conn, Step step, List<Object> params) throws SQLException {
+        try (PreparedStatement stmt = step.returnGeneratedKeys
+                ? conn.prepareStatement(step.sql, Statement.RETURN_GENERATED_KEYS)
+                : conn.prepareStatement(step.sql)) {
+            setParameters(stmt, params);
+            Map<String, Object> result = new HashMap<>();
+            result.put("affectedRows", stmt.executeUpdate());
+            if (step.returnGeneratedKeys) {
+                List<Object> keys = new ArrayList<>();
+                try (ResultSet rs = stmt.getGeneratedKeys()) {
+                    while (rs.next()) {
+                        keys.add(rs.getObject(1));
+                    }
+                }
+                result.put("generatedKeys", keys);
+                result.put("generatedKey", keys.isEmpty() ? null : keys.get(0));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 替换参数中的 $ref 引用
+     */
+    private static List<Object> resolve(List<Object> params, Map<String, Object> named, int index) {
+        if (params == null) {
+            return null;
+        }
+        List<Object> resolved = new ArrayList<>(params.size());
+        for (Object param : params) {
+            if (param instanceof Map && ((Map<?, ?>) param).containsKey("$ref")) {
+                resolved.add(lookup(String.valueOf(((Map<?, ?>) param).get("$ref")), named, index));
+            } else {
+                resolved.add(param);
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * 按 name.a.b[0].c 路径取值，引用不存在时报错而不是传入 null
+     */
+    static Object lookup(String ref, Map<String, Object> named, int index) {
+        int dot = ref.indexOf('.');
+        String name = dot < 0 ? ref : ref.substring(0, dot);
+        Object current = named.get(name);
+        if (current == null) {
+            throw new PluginException("INVALID_REF", "statements[" + index + "] 引用了未执行的语句: " + name);
+        }
+        if (dot < 0) {
+            return current;
+        }
+        for (String segment : ref.substring(dot + 1).split("\\.")) {
+            String field = segment;
+            List<Integer> indexes = new ArrayList<>();
+            int bracket = segment.indexOf('[');
+            if (bracket >= 0) {
+                field = segment.substring(0, bracket);
+                for (String part : segment.substring(bracket + 1).split("\\[")) {
+                    indexes.add(Integer.parseInt(part.replace("]", "").trim()));
+                }
+            }
+            if (!field.isEmpty()) {
+                current = field(current, field, ref, index);
+            }
+            for (int i : indexes) {
+                if (!(current instanceof List) || i >= ((List<?>) current).size()) {
+                    throw new PluginException("INVALID_REF", "statements[" + index + "] 引用越界: " + ref);
+                }
+                current = ((List<?>) current).get(i);
+            }
+        }
+        return current;
+    }
+
+    private static Object field(Object current, String field, String ref, int index) {
+        if (!(current instanceof Map)) {
+            throw new PluginException("INVALID_REF", "statements[" + index + "] 无法解析引用: " + ref);
+        }
+        Map<?, ?> map = (Map<?, ?>) current;
+        if (map.containsKey(field)) {
+            return map.get(field);
+        }
+        // 列名大小写随数据库而异
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (String.valueOf(entry.getKey()).equalsIgnoreCase(field)) {
+                return entry.getValue();
+            }
+        }
+        throw new PluginException("INVALID_REF", "statements[" + index + "] 引用的字段不存在: " + ref);
+    }
+
+    private static void setParameters(PreparedStatement stmt, List<Object> params) throws SQLException {
+        if (params != null) {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+        }
+    }
+
+    private static String inferType(String sql) {
+        String head = sql.trim().toUpperCase(Locale.ROOT);
+        return head.startsWith("SELECT") || head.startsWith("WITH") || head.startsWith("VALUES") ? "query" : "update";
+    }
+
+    private static boolean isInsert(String sql) {
+        return sql.trim().regionMatches(true, 0, "INSERT", 0, 6);
+    }
+
+    private static Integer isolationLevel(String value) {
+        if (value == null) {
+            return null;
+        }
+        switch (value.toUpperCase(Locale.ROOT).replace(' ', '_')) {
+            case "READ_UNCOMMITTED":
+                return Connection.TRANSACTION_READ_UNCOMMITTED;
+            case "READ_COMMITTED":
+                return Connection.TRANSACTION_READ_COMMITTED;
+            case "REPEATABLE_READ":
+                return Connection.TRANSACTION_REPEATABLE_READ;
+            case "SERIALIZABLE":
+                return Connection.TRANSACTION_SERIALIZABLE;
+            default:
+                throw new PluginException("INVALID_PARAM", "不支持的隔离级别: " + value);
+        }
+    }
+
+    private static final class Step {
+        private final String name;
+        private final String sql;
+        private final List<Object> params;
+        private final boolean query;
+        private final boolean returnGeneratedKeys;
+        private final boolean expectRows;
+
+        private Step(String name, String sql, List<Object> params, boolean query,
+                     boolean returnGeneratedKeys, boolean expectRows) {
+            this.name = name;
+            this.sql = sql;
+            this.params = params;
+            this.query = query;
+            this.returnGeneratedKeys = returnGeneratedKeys;
+            this.expectRows = expectRows;
+        }
+    }
+
+    /**
+     * 事务中某条语句失败，携带语句序号和名称
+     */
+    public static final class StepFailedException extends SQLException {
+        private static final long serialVersionUID = 1L;
+
+        private final int index;
+        private final String name;
+
+        StepFailedException(int index, String name, Exception cause) {
+            super("语句 " + name + " 执行失败: " + cause.getMessage(),
+                    cause instanceof SQLException ? ((SQLException) cause).getSQLState() : null, cause);
+            this.index = index;
+            this.name = name;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
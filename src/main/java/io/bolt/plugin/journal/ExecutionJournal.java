@@ -0,0 +1,372 @@
+package io.bolt.plugin.journal;
+
+import io.bolt.plugin.api.PluginContext;
+import io.bolt.plugin.api.PluginException;
+import io.bolt.plugin.util.JsonWriter;
+import io.bolt.plugin.util.Params;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 执行日志
+ * 把每次动作调用（动作、参数、上下文 ID、耗时、结果大小）追加到本地的内存映射文件，供之后回放和分析。
+ * 文件按 segmentBytes 预先映射，写满后切换到新文件，只保留最近 maxSegments 个；
+ * 进程崩溃时已写入映射区的记录由操作系统落盘，不会丢失。
+ *
+ * <p>文件格式：魔数 "BJNL" + 版本号 1 字节 + 采样率（double，大端 8 字节），之后是连续的记录，
+ * 每条记录为长度（int，大端）+ {@link JournalRecord} 的编码；长度为 0 表示后面没有记录。
+ * 先写记录内容再写长度，读取方不会看到写了一半的记录
+ *
+ * <p>参数按 journalParams 处理：full 原样记录，redacted（默认）把名称包含 journalRedactKeys 中任一词的字段替换为
+ * {@value #REDACTED}，none 不记录；序列化后超过 journalMaxParamsBytes 的参数不记录，序列化到上限即停止。
+ * 结果大小由插件给出（通常是生成结果时已经估算的字节数），记录时不再遍历结果。
+ * journalSampleRate 小于 1 时按比例抽样记录
+ */
+public final class ExecutionJournal implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionJournal.class);
+
+    static final byte[] MAGIC = "BJNL".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = MAGIC.length + 1 + Double.BYTES;
+    static final String SUFFIX = ".bjnl";
+    public static final String REDACTED = "***";
+
+    private static final String DEFAULT_REDACT_KEYS = "password,passwd,secret,token,authorization,cookie,apikey,credential";
+
+    /**
+     * 参数记录方式
+     */
+    enum ParamsMode {
+        FULL, REDACTED, NONE
+    }
+
+    private final Path dir;
+    private final String prefix;
+    private final long segmentBytes;
+    private final int maxSegments;
+    private final double sampleRate;
+    private final ParamsMode paramsMode;
+    private final List<String> redactKeys;
+    private final int maxParamsBytes;
+
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong sampledOut = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private Path current;
+    private long sequence = 0;
+    private boolean closed = false;
+
+    private ExecutionJournal(Path dir, String prefix, long segmentBytes, int maxSegments, double sampleRate,
+                             ParamsMode paramsMode, List<String> redactKeys, int maxParamsBytes) {
+        this.dir = dir;
+        this.prefix = prefix;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        this.sampleRate = sampleRate;
+        this.paramsMode = paramsMode;
+        this.redactKeys = redactKeys;
+        this.maxParamsBytes = maxParamsBytes;
+    }
+
+    /**
+     * 按插件配置打开执行日志；journalEnabled 不为 true 时返回 null
+     *
+     * @throws PluginException INVALID_CONFIG 配置取值错误
+     * @throws IOException     无法创建目录或日志文件
+     */
+    public static ExecutionJournal open(String instanceId, Map<String, Object> properties) throws IOException {
+        Map<String, Object> config = properties == null ? Map.of() : properties;
+        if (!Params.getBoolean(config, "journalEnabled", false)) {
+            return null;
+        }
+        long segmentBytes = Params.getLong(config, "journalSegmentBytes", 64L * 1024 * 1024);
+        if (segmentBytes < 4096 || segmentBytes > Integer.MAX_VALUE) {
+            throw new PluginException("INVALID_CONFIG", "journalSegmentBytes 必须在 4096 到 2147483647 之间");
+        }
+        double sampleRate = Params.getDouble(config, "journalSampleRate", 1.0);
+        if (sampleRate <= 0 || sampleRate > 1) {
+            throw new PluginException("INVALID_CONFIG", "journalSampleRate 必须大于 0 且不超过 1");
+        }
+        ParamsMode mode;
+        try {
+            mode = ParamsMode.valueOf(Params.getString(config, "journalParams", "redacted").toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new PluginException("INVALID_CONFIG", "journalParams 只能是 full、redacted 或 none");
+        }
+        Object keys = config.getOrDefault("journalRedactKeys", DEFAULT_REDACT_KEYS);
+        List<String> redactKeys = new ArrayList<>();
+        for (Object key : keys instanceof Collection ? (Collection<?>) keys
+                : Arrays.asList(String.valueOf(keys).split(","))) {
+            String normalized = normalize(String.valueOf(key));
+            if (!normalized.isEmpty()) {
+                redactKeys.add(normalized);
+            }
+        }
+
+        Path dir = Path.of(Params.getString(config, "journalDir", "journal"));
+        Files.createDirectories(dir);
+        ExecutionJournal journal = new ExecutionJournal(dir,
+                (instanceId == null ? "plugin" : instanceId).replaceAll("[^A-Za-z0-9._-]", "_"),
+                segmentBytes, Math.max(1, Params.getInt(config, "journalMaxSegments", 8)), sampleRate, mode,
+                redactKeys, Params.getInt(config, "journalMaxParamsBytes", 8192));
+        synchronized (journal) {
+            journal.rotate();
+        }
+        logger.info("执行日志已开启: {}，采样率 {}，参数 {}", dir.toAbsolutePath(), sampleRate,
+                mode.name().toLowerCase(Locale.ROOT));
+        return journal;
+    }
+
+    /**
+     * 记录一次调用；写入失败只记日志，不影响调用本身
+     *
+     * @param resultBytes 结果的估算字节数，未知时为 0
+     */
+    public void record(String action, Map<String, Object> params, PluginContext context, long startMillis,
+                       long durationNanos, boolean success, String errorCode, long resultBytes) {
+        if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            sampledOut.incrementAndGet();
+            return;
+        }
+        boolean[] redacted = new boolean[1];
+        String paramsJson = null;
+        if (paramsMode != ParamsMode.NONE && params != null) {
+            Object value = paramsMode == ParamsMode.REDACTED ? redact(params, redacted) : params;
+            paramsJson = toBoundedJson(value);
+        }
+        JournalRecord record = new JournalRecord(startMillis, durationNanos, action,
+                context == null ? null : context.getExecutionId(),
+                context == null ? null : context.getWorkflowInstanceId(),
+                context == null ? null : context.getNodeId(),
+                context == null ? null : context.getTraceId(),
+                success, errorCode, resultBytes, paramsJson, redacted[0]);
+        append(record.encode());
+    }
+
+    private synchronized void append(byte[] payload) {
+        if (closed) {
+            return;
+        }
+        int size = Integer.BYTES + payload.length;
+        if (HEADER_BYTES + size > segmentBytes) {
+            dropped.incrementAndGet();
+            return;
+        }
+        try {
+            if (buffer == null || buffer.remaining() < size) {
+                rotate();
+            }
+            int position = buffer.position();
+            buffer.position(position + Integer.BYTES);
+            buffer.put(payload);
+            // 长度最后写入，读取方看到非 0 长度时记录内容已经完整
+            buffer.putInt(position, payload.length);
+            records.incrementAndGet();
+            bytes.addAndGet(size);
+        } catch (IOException e) {
+            dropped.incrementAndGet();
+            logger.warn("执行日志写入失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 切换到新文件，并删除超出保留数量的旧文件
+     */
+    private void rotate() throws IOException {
+        closeSegment();
+        // 文件名按时间和序号排序
+        current = dir.resolve(String.format("%s-%013d-%06d%s", prefix, System.currentTimeMillis(),
+                sequence++ % 1_000_000, SUFFIX));
+        channel = FileChannel.open(current, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        buffer.put(MAGIC);
+        buffer.put((byte) VERSION);
+        buffer.putDouble(sampleRate);
+
+        List<Path> segments = JournalReader.segments(dir, prefix);
+        for (int i = 0; i < segments.size() - maxSegments; i++) {
+            try {
+                Files.deleteIfExists(segments.get(i));
+            } catch (IOException e) {
+                logger.warn("删除旧的执行日志失败: {}", segments.get(i));
+            }
+        }
+    }
+
+    private void closeSegment() throws IOException {
+        if (channel != null) {
+            buffer.force();
+            channel.close();
+            channel = null;
+            buffer = null;
+        }
+    }
+
+    /**
+     * 序列化参数，超过 maxParamsBytes 时立即停止并返回 null，大参数不会被完整序列化
+     */
+    private String toBoundedJson(Object value) {
+        BoundedBuilder out = new BoundedBuilder(maxParamsBytes);
+        try {
+            JsonWriter.write(value, out);
+        } catch (IOException e) {
+            return null;
+        }
+        return out.toString();
+    }
+
+    /**
+     * 超过上限时抛出 {@link ParamsTooLarge} 的字符缓冲区
+     */
+    private static final class BoundedBuilder implements Appendable {
+        private final StringBuilder sb = new StringBuilder();
+        private final int limit;
+
+        BoundedBuilder(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+            return append(csq, 0, csq == null ? 4 : csq.length());
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException {
+            check(end - start);
+            sb.append(csq, start, end);
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+            check(1);
+            sb.append(c);
+            return this;
+        }
+
+        private void check(int more) throws IOException {
+            if (sb.length() + more > limit) {
+                throw ParamsTooLarge.INSTANCE;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString();
+        }
+    }
+
+    /**
+     * 参数超过上限；只用于提前结束序列化，不需要堆栈
+     */
+    private static final class ParamsTooLarge extends IOException {
+        private static final long serialVersionUID = 1L;
+        private static final ParamsTooLarge INSTANCE = new ParamsTooLarge();
+
+        private ParamsTooLarge() {
+            super("参数超过记录上限");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * 把名称包含脱敏词的字段替换为 {@value #REDACTED}，递归处理嵌套的 Map 和 List
+     */
+    private Object redact(Object value, boolean[] redacted) {
+        if (value instanceof Map) {
+            Map<String, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                String key = String.valueOf(entry.getKey());
+                if (isSensitive(key)) {
+                    copy.put(key, REDACTED);
+                    redacted[0] = true;
+                } else {
+                    copy.put(key, redact(entry.getValue(), redacted));
+                }
+            }
+            return copy;
+        }
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>();
+            for (Object item : (List<?>) value) {
+                copy.add(redact(item, redacted));
+            }
+            return copy;
+        }
+        return value;
+    }
+
+    private boolean isSensitive(String key) {
+        String normalized = normalize(key);
+        for (String word : redactKeys) {
+            if (normalized.contains(word)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String normalize(String key) {
+        return key.toLowerCase(Locale.ROOT).replace("_", "").replace("-", "").trim();
+    }
+
+    /**
+     * 统计信息：写入记录数、未抽中数、丢弃数、写入字节数和当前文件
+     */
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("records", records.get());
+        stats.put("sampledOut", sampledOut.get());
+        stats.put("dropped", dropped.get());
+        stats.put("bytes", bytes.get());
+        stats.put("currentSegment", current == null ? null : current.toString());
+        try (Stream<Path> files = Files.list(dir)) {
+            stats.put("segments", files.filter(p -> p.getFileName().toString().startsWith(prefix + "-")).count());
+        } catch (IOException e) {
+            stats.put("segments", -1);
+        }
+        return stats;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            closeSegment();
+        } catch (IOException e) {
+            logger.warn("关闭执行日志失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package io.bolt.plugin.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 读取 {@link ExecutionJournal} 写出的日志文件
+ * 可以读正在写入的文件：遇到长度为 0 或不完整的记录即停止
+ */
+public final class JournalReader {
+
+    private JournalReader() {
+    }
+
+    /**
+     * 目录下按时间排序的日志文件；path 为单个文件时只返回它
+     */
+    public static List<Path> segments(Path path) throws IOException {
+        return Files.isDirectory(path) ? segments(path, null) : List.of(path);
+    }
+
+    static List<Path> segments(Path dir, String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            // 文件名为 前缀-时间戳-序号，同一前缀内按名称排序即按时间排序；不同前缀按时间戳部分排序
+            return files.filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.endsWith(ExecutionJournal.SUFFIX) && (prefix == null || name.startsWith(prefix + "-"));
+                    })
+                    .sorted(Comparator.comparing((Path p) -> timeKey(p.getFileName().toString()))
+                            .thenComparing(p -> p.getFileName().toString()))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * 读取目录或文件中的全部记录，按文件顺序逐条回调
+     *
+     * @return 采样率（多个文件时取第一个文件的）；没有文件时为 1
+     * @throws IOException 读取失败或文件头不正确
+     */
+    public static double read(Path path, Consumer<JournalRecord> consumer) throws IOException {
+        double sampleRate = -1;
+        for (Path segment : segments(path)) {
+            double rate = readSegment(segment, consumer);
+            if (sampleRate < 0) {
+                sampleRate = rate;
+            }
+        }
+        return sampleRate < 0 ? 1 : sampleRate;
+    }
+
+    /**
+     * 读取全部记录
+     */
+    public static List<JournalRecord> readAll(Path path) throws IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        read(path, records::add);
+        return records;
+    }
+
+    private static double readSegment(Path segment, Consumer<JournalRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < ExecutionJournal.HEADER_BYTES) {
+                throw new IOException("不是执行日志文件: " + segment);
+            }
+            byte[] magic = new byte[ExecutionJournal.MAGIC.length];
+            buffer.get(magic);
+            int version = buffer.get() & 0xFF;
+            if (!Arrays.equals(magic, ExecutionJournal.MAGIC) || version != ExecutionJournal.VERSION) {
+                throw new IOException("不是执行日志文件或版本不支持: " + segment);
+            }
+            double sampleRate = buffer.getDouble();
+            while (buffer.remaining() >= Integer.BYTES) {
+                int length = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+                ByteBuffer slice = buffer.slice();
+                slice.limit(length);
+                try {
+                    consumer.accept(JournalRecord.decode(slice));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("执行日志记录损坏: " + segment + " @" + (buffer.position() - Integer.BYTES), e);
+                }
+                buffer.position(buffer.position() + length);
+            }
+            return sampleRate;
+        }
+    }
+
+    private static String timeKey(String name) {
+        String base = name.substring(0, name.length() - ExecutionJournal.SUFFIX.length());
+        int last = base.lastIndexOf('-');
+        int previous = last <= 0 ? -1 : base.lastIndexOf('-', last - 1);
+        return previous < 0 ? base : base.substring(previous + 1);
+    }
+}
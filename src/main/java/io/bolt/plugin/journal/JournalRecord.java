@@ -0,0 +1,191 @@
+package io.bolt.plugin.journal;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 执行日志中的一条记录：一次动作调用
+ *
+ * <p>编码：标志位 1 字节（bit0 成功、bit1 参数已脱敏、bit2 参数未记录）+ 开始时间毫秒 varint + 耗时纳秒 varint
+ * + 动作名、executionId、workflowInstanceId、nodeId、traceId、errorCode（varint 长度前缀的 UTF-8，null 记为长度 0）
+ * + 结果大小 varint + 参数 JSON（同样是长度前缀的 UTF-8）。varint 的写法与 ResultSetExporter 的 binary 格式一致
+ */
+public final class JournalRecord {
+
+    static final int FLAG_SUCCESS = 1;
+    static final int FLAG_REDACTED = 1 << 1;
+    static final int FLAG_PARAMS_OMITTED = 1 << 2;
+
+    private final long startMillis;
+    private final long durationNanos;
+    private final String action;
+    private final String executionId;
+    private final String workflowInstanceId;
+    private final String nodeId;
+    private final String traceId;
+    private final boolean success;
+    private final String errorCode;
+    private final long resultBytes;
+    private final String paramsJson;
+    private final boolean redacted;
+
+    public JournalRecord(long startMillis, long durationNanos, String action, String executionId,
+                         String workflowInstanceId, String nodeId, String traceId, boolean success,
+                         String errorCode, long resultBytes, String paramsJson, boolean redacted) {
+        this.startMillis = startMillis;
+        this.durationNanos = durationNanos;
+        this.action = action;
+        this.executionId = executionId;
+        this.workflowInstanceId = workflowInstanceId;
+        this.nodeId = nodeId;
+        this.traceId = traceId;
+        this.success = success;
+        this.errorCode = errorCode;
+        this.resultBytes = resultBytes;
+        this.paramsJson = paramsJson;
+        this.redacted = redacted;
+    }
+
+    byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + (paramsJson == null ? 0 : paramsJson.length()));
+        int flags = (success ? FLAG_SUCCESS : 0) | (redacted ? FLAG_REDACTED : 0)
+                | (paramsJson == null ? FLAG_PARAMS_OMITTED : 0);
+        out.write(flags);
+        writeVarLong(out, Math.max(0, startMillis));
+        writeVarLong(out, Math.max(0, durationNanos));
+        writeUtf8(out, action);
+        writeUtf8(out, executionId);
+        writeUtf8(out, workflowInstanceId);
+        writeUtf8(out, nodeId);
+        writeUtf8(out, traceId);
+        writeUtf8(out, errorCode);
+        writeVarLong(out, Math.max(0, resultBytes));
+        writeUtf8(out, paramsJson);
+        return out.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException 记录内容不完整
+     */
+    static JournalRecord decode(ByteBuffer buffer) {
+        try {
+            int flags = buffer.get() & 0xFF;
+            long startMillis = readVarLong(buffer);
+            long durationNanos = readVarLong(buffer);
+            String action = readUtf8(buffer);
+            String executionId = readUtf8(buffer);
+            String workflowInstanceId = readUtf8(buffer);
+            String nodeId = readUtf8(buffer);
+            String traceId = readUtf8(buffer);
+            String errorCode = readUtf8(buffer);
+            long resultBytes = readVarLong(buffer);
+            String paramsJson = readUtf8(buffer);
+            return new JournalRecord(startMillis, durationNanos, action, executionId, workflowInstanceId, nodeId,
+                    traceId, (flags & FLAG_SUCCESS) != 0, errorCode, resultBytes,
+                    (flags & FLAG_PARAMS_OMITTED) != 0 ? null : paramsJson, (flags & FLAG_REDACTED) != 0);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("日志记录不完整", e);
+        }
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static void writeUtf8(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("varint 过长");
+    }
+
+    private static String readUtf8(ByteBuffer buffer) {
+        int length = (int) readVarLong(buffer);
+        if (length == 0) {
+            return null;
+        }
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("字符串长度超出记录: " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 开始时间（毫秒时间戳）
+     */
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public String getExecutionId() {
+        return executionId;
+    }
+
+    public String getWorkflowInstanceId() {
+        return workflowInstanceId;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public String getErrorCode() {
+        return errorCode;
+    }
+
+    /**
+     * 结果数据的估算大小（字节）
+     */
+    public long getResultBytes() {
+        return resultBytes;
+    }
+
+    /**
+     * 参数 JSON；未记录参数时为 null
+     */
+    public String getParamsJson() {
+        return paramsJson;
+    }
+
+    /**
+     * 参数中是否有字段被脱敏
+     */
+    public boolean isRedacted() {
+        return redacted;
+    }
+}
@@ -0,0 +1,197 @@
+package io.bolt.plugin.tools;
+
+import io.bolt.plugin.api.Plugin;
+import io.bolt.plugin.journal.JournalReader;
+import io.bolt.plugin.journal.JournalRecord;
+import io.bolt.plugin.util.Json;
+import io.bolt.plugin.util.JsonWriter;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 执行日志回放工具
+ * 按 {@link io.bolt.plugin.journal.ExecutionJournal} 记录的调用时间间隔（可按 speed 加速）重新调用插件，
+ * 与 {@link LoadGenerator} 一样是开环的，响应时间从计划时间算起。
+ * 报告中每个动作同时给出录制时的耗时和回放的响应时间，用于比较改动前后在真实负载形态下的延迟。
+ * <pre>
+ * java io.bolt.plugin.tools.JournalReplay --journal journal/ --plugin echo-plugin --speed 2
+ * </pre>
+ * 没有记录参数的调用（journalParams 为 none 或参数过大）无法回放，计入 skipped；
+ * 脱敏的字段按 {@value io.bolt.plugin.journal.ExecutionJournal#REDACTED} 原样传入
+ */
+public final class JournalReplay {
+
+    static final String USAGE = String.join("\n",
+            "用法: JournalReplay --journal <目录或文件> --plugin <插件ID或类名> [选项]",
+            "  --speed <倍数>          回放速度，1 为原速，2 为两倍速，0 为不等待、尽快发出，默认 1",
+            "  --actions <a,b,...>     只回放这些动作",
+            "  --config <JSON|@文件>   插件配置属性",
+            "  --concurrency <n>       同时执行的调用上限，默认 64",
+            "  --threads <virtual|platform>  执行线程，默认 virtual",
+            "  --async                 通过 executeAsync 调用",
+            "  --maxQueued <n>         等待执行的调用上限，默认 100000",
+            "  --output <文件>         结果另存为 JSON");
+
+    private final Plugin plugin;
+    private final List<JournalRecord> records;
+    private final double speed;
+    private final LoadOptions options;
+
+    /**
+     * @param records 要回放的记录
+     * @param speed   回放速度倍数，0 表示不等待
+     * @param options 并发、线程和调用方式
+     */
+    public JournalReplay(Plugin plugin, List<JournalRecord> records, double speed, LoadOptions options) {
+        this.plugin = plugin;
+        this.records = new ArrayList<>(records);
+        this.records.sort(Comparator.comparingLong(JournalRecord::getStartMillis));
+        this.speed = speed;
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path journal = null;
+        double speed = 1;
+        Set<String> actions = null;
+        List<String> rest = new ArrayList<>();
+        LoadOptions options;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String name = args[i];
+                boolean hasValue = i + 1 < args.length;
+                if (name.equals("--journal") && hasValue) {
+                    journal = Path.of(args[++i]);
+                } else if (name.equals("--speed") && hasValue) {
+                    speed = Math.max(0, LoadOptions.number(name, args[++i]));
+                } else if (name.equals("--actions") && hasValue) {
+                    actions = Set.of(args[++i].split("\\s*,\\s*"));
+                } else {
+                    rest.add(name);
+                }
+            }
+            if (journal == null) {
+                throw new IllegalArgumentException("缺少参数 --journal");
+            }
+            options = LoadOptions.parse(rest.toArray(new String[0]));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        List<JournalRecord> records = new ArrayList<>();
+        Set<String> filter = actions;
+        double sampleRate = JournalReader.read(journal, record -> {
+            if (filter == null || filter.contains(record.getAction())) {
+                records.add(record);
+            }
+        });
+        Plugin plugin = LoadGenerator.start(options.getPlugin(), options.getConfig());
+        Map<String, Object> report;
+        try {
+            report = new JournalReplay(plugin, records, speed, options).run();
+        } finally {
+            plugin.destroy();
+        }
+        report.put("sampleRate", sampleRate);
+
+        print(report, System.out);
+        if (options.getOutput() != null) {
+            Files.writeString(options.getOutput(), JsonWriter.toJson(report), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * 回放全部记录，返回结果报告；每个实例只运行一次
+     */
+    public Map<String, Object> run() throws InterruptedException {
+        OpenLoop loop = new OpenLoop(plugin, options.getConcurrency(), options.isVirtualThreads(),
+                options.isAsync(), options.getMaxQueued());
+        Map<String, LatencyHistogram> recorded = new TreeMap<>();
+        long skipped = 0;
+        long redacted = 0;
+
+        long start = System.nanoTime();
+        long end = start;
+        long first = records.isEmpty() ? 0 : records.get(0).getStartMillis();
+        for (JournalRecord record : records) {
+            if (record.getParamsJson() == null) {
+                skipped++;
+                continue;
+            }
+            if (record.isRedacted()) {
+                redacted++;
+            }
+            long intended = speed <= 0 ? start
+                    : start + (long) ((record.getStartMillis() - first) * 1e6 / speed);
+            OpenLoop.parkUntil(intended);
+            recorded.computeIfAbsent(record.getAction(), k -> new LatencyHistogram())
+                    .record(record.getDurationNanos());
+            loop.submit(record.getAction(), () -> params(record), intended, true);
+            end = Math.max(end, intended);
+        }
+        loop.finish(Math.max(30, (end - start) / 1_000_000_000L));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("plugin", plugin.getPluginId());
+        report.put("records", records.size());
+        report.put("skipped", skipped);
+        report.put("redacted", redacted);
+        report.put("speed", speed);
+        report.put("concurrency", options.getConcurrency());
+        loop.report(report, start, end);
+        Map<String, Object> original = new TreeMap<>();
+        recorded.forEach((action, histogram) -> original.put(action, histogram.toMillisMap()));
+        report.put("recorded", original);
+        return report;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> params(JournalRecord record) {
+        try {
+            Object params = Json.parse(record.getParamsJson());
+            return params instanceof Map ? (Map<String, Object>) params : new HashMap<>();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static void print(Map<String, Object> report, PrintStream out) {
+        out.printf("插件 %s  记录 %s  跳过 %s  脱敏 %s  速度 %sx  并发 %s  线程 %s%n",
+                report.get("plugin"), report.get("records"), report.get("skipped"), report.get("redacted"),
+                report.get("speed"), report.get("concurrency"), report.get("threads"));
+        out.printf("请求 %s  成功 %s  失败 %s  丢弃 %s  吞吐 %s/s%n",
+                report.get("requests"), report.get("succeeded"), report.get("failed"),
+                report.get("dropped"), report.get("throughput"));
+        out.println("响应时间（从计划时间算起）ms: " + OpenLoop.percentiles(report.get("responseTime")));
+        out.println("服务时间（从开始执行算起）ms: " + OpenLoop.percentiles(report.get("serviceTime")));
+        Map<String, Object> recorded = (Map<String, Object>) report.get("recorded");
+        ((Map<String, Object>) report.get("actions")).forEach((action, stats) -> {
+            out.println("  " + action + " 回放: " + OpenLoop.percentiles(stats)
+                    + "  failed=" + ((Map<String, Object>) stats).get("failed"));
+            if (recorded.containsKey(action)) {
+                out.println("  " + action + " 录制: " + OpenLoop.percentiles(recorded.get(action)));
+            }
+        });
+        Map<String, Object> errors = (Map<String, Object>) report.get("errors");
+        if (!errors.isEmpty()) {
+            out.println("错误: " + errors);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package io.bolt.plugin.tools;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * HDR 风格的延迟直方图（纳秒）
+ * 对数-线性分桶：小于 2^SUB_BITS 的值每个值一个桶，之后每个 2 的幂区间再均分为 2^SUB_BITS 个子桶，
+ * 任意值的相对误差不超过 1/2^SUB_BITS（约 0.8%），覆盖到 Long.MAX_VALUE，内存固定约 60KB。
+ * 记录是无锁的，多个线程可以同时写入；读取时给出的分位数取桶的上界，与 HdrHistogram 的习惯一致
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 7;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        total.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+        min.accumulateAndGet(value, Math::min);
+    }
+
+    public long getTotalCount() {
+        return total.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public long getMin() {
+        return total.get() == 0 ? 0 : min.get();
+    }
+
+    public double getMean() {
+        long count = total.get();
+        return count == 0 ? 0 : (double) sum.get() / count;
+    }
+
+    /**
+     * 分位数对应的值（纳秒），percentile 为 0 到 100；没有样本时返回 0
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = total.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                // 桶的上界不超过实际记录到的最大值
+                return Math.min(highestEquivalent(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * 常用分位数，单位毫秒
+     */
+    public Map<String, Object> toMillisMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("count", getTotalCount());
+        map.put("min", millis(getMin()));
+        map.put("mean", millis(getMean()));
+        map.put("p50", millis(getValueAtPercentile(50)));
+        map.put("p90", millis(getValueAtPercentile(90)));
+        map.put("p99", millis(getValueAtPercentile(99)));
+        map.put("p99.9", millis(getValueAtPercentile(99.9)));
+        map.put("p99.99", millis(getValueAtPercentile(99.99)));
+        map.put("max", millis(getMax()));
+        return map;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        int mantissa = (int) (value >>> shift);
+        return (shift + 1) * SUB_COUNT + (mantissa - SUB_COUNT);
+    }
+
+    static long highestEquivalent(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_COUNT - 1;
+        long lowest = (long) (SUB_COUNT + index % SUB_COUNT) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    private static double millis(double nanos) {
+        return Math.round(nanos / 1_000) / 1_000.0;
+    }
+}
@@ -0,0 +1,209 @@
+package io.bolt.plugin.tools;
+
+import io.bolt.plugin.api.Plugin;
+import io.bolt.plugin.api.PluginConfig;
+import io.bolt.plugin.api.PluginContext;
+import io.bolt.plugin.util.JsonWriter;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * 开环压测工具
+ * 按固定到达速率调用插件，不等上一次调用结束：第 i 次调用的计划时间为 start + i / rate，
+ * 插件变慢时后续调用照常到达并排队，不会像闭环压测那样跟着放慢（协调遗漏）。
+ * 响应时间从计划时间算起，包含排队等待，反映调用方实际感受到的延迟；服务时间从真正开始执行算起，两者之差即排队的代价。
+ * 每次调用在虚拟线程上执行（运行时为 JDK 21 及以上时），同时执行的调用数受 concurrency 限制。
+ * <pre>
+ * java io.bolt.plugin.tools.LoadGenerator --plugin echo-plugin --rate 5000 --duration 30 --mix echo:9,ping:1
+ * </pre>
+ * 插件通过 META-INF/services/io.bolt.plugin.api.Plugin 加载，按插件 ID 或类名选择
+ */
+public final class LoadGenerator {
+
+    private final Plugin plugin;
+    private final LoadOptions options;
+    private final String[] actions;
+    private final int[] cumulativeWeights;
+
+    public LoadGenerator(Plugin plugin, LoadOptions options) {
+        this.plugin = plugin;
+        this.options = options;
+        this.actions = options.getMix().keySet().toArray(new String[0]);
+        this.cumulativeWeights = new int[actions.length];
+        int total = 0;
+        for (int i = 0; i < actions.length; i++) {
+            total += options.getMix().get(actions[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options;
+        try {
+            options = LoadOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(LoadOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        Plugin plugin = start(options.getPlugin(), options.getConfig());
+        Map<String, Object> report;
+        try {
+            report = new LoadGenerator(plugin, options).run();
+        } finally {
+            plugin.destroy();
+        }
+
+        print(report, System.out);
+        if (options.getOutput() != null) {
+            Files.writeString(options.getOutput(), JsonWriter.toJson(report), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * 通过 SPI 加载插件，name 为插件 ID 或实现类的全限定名
+     *
+     * @throws IllegalArgumentException 没有匹配的插件
+     */
+    public static Plugin load(String name) {
+        List<String> available = new ArrayList<>();
+        for (Plugin candidate : ServiceLoader.load(Plugin.class)) {
+            if (name.equals(candidate.getPluginId()) || name.equals(candidate.getClass().getName())) {
+                return candidate;
+            }
+            available.add(candidate.getPluginId());
+        }
+        throw new IllegalArgumentException("未找到插件 " + name + "，已注册: " + available);
+    }
+
+    /**
+     * 加载并初始化插件，实例 ID 为 load-generator
+     */
+    static Plugin start(String name, Map<String, Object> config) {
+        Plugin plugin = load(name);
+        plugin.initialize(PluginConfig.builder()
+                .pluginId(plugin.getPluginId())
+                .version(plugin.getVersion())
+                .instanceId("load-generator")
+                .instanceName("Load Generator")
+                .properties(new HashMap<>(config))
+                .build(), PluginContext.create());
+        return plugin;
+    }
+
+    /**
+     * 执行预热和计量，返回结果报告；每个实例只运行一次
+     */
+    public Map<String, Object> run() throws InterruptedException {
+        OpenLoop loop = new OpenLoop(plugin, options.getConcurrency(), options.isVirtualThreads(),
+                options.isAsync(), options.getMaxQueued());
+        SplittableRandom random = new SplittableRandom(42);
+        double intervalNanos = 1e9 / options.getRate();
+
+        long start = System.nanoTime();
+        long measureFrom = start + (long) (options.getWarmupSeconds() * 1e9);
+        long end = measureFrom + (long) (options.getDurationSeconds() * 1e9);
+        for (long seq = 0; ; seq++) {
+            long intended = start + (long) (seq * intervalNanos);
+            if (intended >= end) {
+                break;
+            }
+            OpenLoop.parkUntil(intended);
+            String action = pick(random);
+            long sequence = seq;
+            loop.submit(action, () -> template(action, sequence), intended, intended >= measureFrom);
+        }
+        loop.finish(Math.max(30, (long) options.getDurationSeconds()));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("plugin", plugin.getPluginId());
+        report.put("mix", options.getMix());
+        report.put("targetRate", options.getRate());
+        report.put("durationSeconds", options.getDurationSeconds());
+        report.put("concurrency", options.getConcurrency());
+        loop.report(report, measureFrom, end);
+        return report;
+    }
+
+    private String pick(SplittableRandom random) {
+        int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return actions[i];
+            }
+        }
+        return actions[actions.length - 1];
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> template(String action, long seq) {
+        Object params = options.getParams().get(action);
+        return params instanceof Map ? (Map<String, Object>) expand(params, seq) : new HashMap<>();
+    }
+
+    /**
+     * 复制参数模板并替换占位符：${seq} 调用序号，${uuid} 随机 UUID，${now} 当前毫秒时间戳。
+     * 整个字符串就是一个占位符时替换为对应类型的值，否则替换为文本
+     */
+    static Object expand(Object template, long seq) {
+        if (template instanceof Map) {
+            Map<String, Object> copy = new HashMap<>();
+            ((Map<?, ?>) template).forEach((k, v) -> copy.put(String.valueOf(k), expand(v, seq)));
+            return copy;
+        }
+        if (template instanceof List) {
+            List<Object> copy = new ArrayList<>();
+            for (Object item : (List<?>) template) {
+                copy.add(expand(item, seq));
+            }
+            return copy;
+        }
+        if (!(template instanceof String) || !((String) template).contains("${")) {
+            return template;
+        }
+        String text = (String) template;
+        switch (text) {
+            case "${seq}":
+                return seq;
+            case "${now}":
+                return System.currentTimeMillis();
+            default:
+                return text.replace("${seq}", String.valueOf(seq))
+                        .replace("${now}", String.valueOf(System.currentTimeMillis()))
+                        .replace("${uuid}", UUID.randomUUID().toString());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static void print(Map<String, Object> report, PrintStream out) {
+        out.printf("插件 %s  动作 %s  速率 %s/s  时长 %ss  并发 %s  线程 %s%n",
+                report.get("plugin"), report.get("mix"), report.get("targetRate"),
+                report.get("durationSeconds"), report.get("concurrency"), report.get("threads"));
+        out.printf("请求 %s  成功 %s  失败 %s  丢弃 %s  吞吐 %s/s%n",
+                report.get("requests"), report.get("succeeded"), report.get("failed"),
+                report.get("dropped"), report.get("throughput"));
+        out.println("响应时间（从计划时间算起，已校正协调遗漏）ms: "
+                + OpenLoop.percentiles(report.get("responseTime")));
+        out.println("服务时间（从开始执行算起）ms: "
+                + OpenLoop.percentiles(report.get("serviceTime")));
+        ((Map<String, Object>) report.get("actions")).forEach((action, stats) ->
+                out.println("  " + action + ": " + OpenLoop.percentiles(stats)
+                        + "  failed=" + ((Map<String, Object>) stats).get("failed")));
+        Map<String, Object> errors = (Map<String, Object>) report.get("errors");
+        if (!errors.isEmpty()) {
+            out.println("错误: " + errors);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package io.bolt.plugin.tools;
+
+import io.bolt.plugin.util.Json;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 压测参数
+ * 命令行形如 {@code --rate 1000 --duration 30 --mix echo:9,ping:1}；
+ * --config 和 --params 接受 JSON 文本，或以 @ 开头的 JSON 文件路径
+ */
+public final class LoadOptions {
+
+    static final String USAGE = String.join("\n",
+            "用法: LoadGenerator --plugin <插件ID或类名> [选项]",
+            "  --rate <次/秒>          固定到达速率，默认 1000",
+            "  --duration <秒>         计量时长，默认 30",
+            "  --warmup <秒>           预热时长（不计入结果），默认 5",
+            "  --concurrency <n>       同时执行的调用上限，默认 64",
+            "  --mix <动作:权重,...>    动作及其比例，默认 ping:1",
+            "  --params <JSON|@文件>   动作到参数模板的映射，字符串中的 ${seq} ${uuid} ${now} 每次替换",
+            "  --config <JSON|@文件>   插件配置属性",
+            "  --threads <virtual|platform>  执行线程，默认 virtual（运行时不支持时退回 platform）",
+            "  --async                 通过 executeAsync 调用",
+            "  --maxQueued <n>         等待执行的调用上限，超过的计为丢弃，默认 100000",
+            "  --output <文件>         结果另存为 JSON");
+
+    private String plugin;
+    private double rate = 1000;
+    private double durationSeconds = 30;
+    private double warmupSeconds = 5;
+    private int concurrency = 64;
+    private Map<String, Integer> mix = Map.of("ping", 1);
+    private Map<String, Object> params = Map.of();
+    private Map<String, Object> config = Map.of();
+    private boolean virtualThreads = true;
+    private boolean async = false;
+    private int maxQueued = 100_000;
+    private Path output;
+
+    /**
+     * @throws IllegalArgumentException 参数缺失或格式错误
+     */
+    public static LoadOptions parse(String[] args) {
+        LoadOptions options = new LoadOptions();
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i];
+            if (name.equals("--async")) {
+                options.async = true;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("参数 " + name + " 缺少取值");
+            }
+            String value = args[++i];
+            switch (name) {
+                case "--plugin":
+                    options.plugin = value;
+                    break;
+                case "--rate":
+                    options.rate = positive(name, value);
+                    break;
+                case "--duration":
+                    options.durationSeconds = positive(name, value);
+                    break;
+                case "--warmup":
+                    options.warmupSeconds = Math.max(0, number(name, value));
+                    break;
+                case "--concurrency":
+                    options.concurrency = (int) positive(name, value);
+                    break;
+                case "--mix":
+                    options.mix = parseMix(value);
+                    break;
+                case "--params":
+                    options.params = jsonObject(name, value);
+                    break;
+                case "--config":
+                    options.config = jsonObject(name, value);
+                    break;
+                case "--threads":
+                    options.virtualThreads = !value.equalsIgnoreCase("platform");
+                    break;
+                case "--maxQueued":
+                    options.maxQueued = (int) positive(name, value);
+                    break;
+                case "--output":
+                    options.output = Path.of(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知参数: " + name);
+            }
+        }
+        if (options.plugin == null || options.plugin.isBlank()) {
+            throw new IllegalArgumentException("缺少参数 --plugin");
+        }
+        return options;
+    }
+
+    /**
+     * 解析 {@code echo:9,ping:1}，省略权重时为 1
+     */
+    static Map<String, Integer> parseMix(String text) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : text.split(",")) {
+            String item = part.trim();
+            if (item.isEmpty()) {
+                continue;
+            }
+            int colon = item.lastIndexOf(':');
+            String action = colon < 0 ? item : item.substring(0, colon).trim();
+            int weight = colon < 0 ? 1 : (int) positive("--mix", item.substring(colon + 1).trim());
+            mix.merge(action, weight, Integer::sum);
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("--mix 不能为空");
+        }
+        return mix;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> jsonObject(String name, String value) {
+        try {
+            String text = value.startsWith("@")
+                    ? Files.readString(Path.of(value.substring(1)), StandardCharsets.UTF_8)
+                    : value;
+            Object parsed = Json.parse(text);
+            if (!(parsed instanceof Map)) {
+                throw new IllegalArgumentException(name + " 必须是 JSON 对象");
+            }
+            return (Map<String, Object>) parsed;
+        } catch (IOException e) {
+            throw new IllegalArgumentException(name + " 无法解析: " + e.getMessage(), e);
+        }
+    }
+
+    static double positive(String name, String value) {
+        double number = number(name, value);
+        if (number <= 0) {
+            throw new IllegalArgumentException(name + " 必须大于 0");
+        }
+        return number;
+    }
+
+    static double number(String name, String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " 必须为数字: " + value);
+        }
+    }
+
+    public LoadOptions plugin(String plugin) {
+        this.plugin = plugin;
+        return this;
+    }
+
+    public LoadOptions rate(double rate) {
+        this.rate = rate;
+        return this;
+    }
+
+    public LoadOptions duration(double seconds) {
+        this.durationSeconds = seconds;
+        return this;
+    }
+
+    public LoadOptions warmup(double seconds) {
+        this.warmupSeconds = seconds;
+        return this;
+    }
+
+    public LoadOptions concurrency(int concurrency) {
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    public LoadOptions mix(Map<String, Integer> mix) {
+        this.mix = mix;
+        return this;
+    }
+
+    public LoadOptions params(Map<String, Object> params) {
+        this.params = params;
+        return this;
+    }
+
+    public LoadOptions config(Map<String, Object> config) {
+        this.config = config;
+        return this;
+    }
+
+    public LoadOptions virtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    public LoadOptions async(boolean async) {
+        this.async = async;
+        return this;
+    }
+
+    public LoadOptions maxQueued(int maxQueued) {
+        this.maxQueued = maxQueued;
+        return this;
+    }
+
+    public String getPlugin() {
+        return plugin;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public double getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public double getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public Map<String, Integer> getMix() {
+        return mix;
+    }
+
+    public Map<String, Object> getParams() {
+        return params;
+    }
+
+    public Map<String, Object> getConfig() {
+        return config;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public Path getOutput() {
+        return output;
+    }
+}
@@ -0,0 +1,196 @@
+package io.bolt.plugin.tools;
+
+import io.bolt.plugin.api.Plugin;
+import io.bolt.plugin.api.PluginContext;
+import io.bolt.plugin.api.PluginResult;
+import io.bolt.plugin.util.BoundedExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * 开环执行与统计，供 {@link LoadGenerator} 和 {@link JournalReplay} 共用
+ * 调用方按计划时间提交调用，这里负责在执行线程上调用插件、限制并发和排队数，
+ * 并分别统计从计划时间算起的响应时间和从开始执行算起的服务时间
+ */
+final class OpenLoop {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpenLoop.class);
+
+    private final Plugin plugin;
+    private final boolean async;
+    private final int maxQueued;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final boolean virtual;
+
+    private final LatencyHistogram responseTime = new LatencyHistogram();
+    private final LatencyHistogram serviceTime = new LatencyHistogram();
+    private final Map<String, ActionStats> actionStats = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong lastCompletion = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicInteger queued = new AtomicInteger();
+
+    OpenLoop(Plugin plugin, int concurrency, boolean virtualThreads, boolean async, int maxQueued) {
+        this.plugin = plugin;
+        this.async = async;
+        this.maxQueued = maxQueued;
+        this.permits = new Semaphore(concurrency);
+        ExecutorService virtualExecutor = virtualThreads ? BoundedExecutor.newVirtualThreadExecutor("bolt-load") : null;
+        if (virtualThreads && virtualExecutor == null) {
+            logger.warn("当前运行时不支持虚拟线程，改用 {} 个平台线程", concurrency);
+        }
+        this.virtual = virtualExecutor != null;
+        this.executor = virtual ? virtualExecutor : platformExecutor(concurrency);
+    }
+
+    /**
+     * 等到计划时间；已经落后时立即返回，延迟由响应时间体现
+     */
+    static void parkUntil(long intendedNanos) {
+        long wait;
+        while ((wait = intendedNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+    /**
+     * 提交一次调用；排队数已满时计为丢弃
+     *
+     * @param measured 是否计入统计（预热期间的调用不计）
+     */
+    void submit(String action, Supplier<Map<String, Object>> params, long intendedNanos, boolean measured) {
+        if (queued.get() >= maxQueued) {
+            if (measured) {
+                dropped.incrementAndGet();
+            }
+            return;
+        }
+        queued.incrementAndGet();
+        executor.execute(() -> call(action, params, intendedNanos, measured));
+    }
+
+    private void call(String action, Supplier<Map<String, Object>> params, long intended, boolean measured) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued.decrementAndGet();
+            return;
+        }
+        queued.decrementAndGet();
+        long begin = System.nanoTime();
+        String errorCode = null;
+        try {
+            PluginResult result = async
+                    ? plugin.executeAsync(action, params.get(), PluginContext.create()).join()
+                    : plugin.execute(action, params.get(), PluginContext.create());
+            if (!result.isSuccess()) {
+                errorCode = result.getErrorCode() == null ? "FAILED" : result.getErrorCode();
+            }
+        } catch (CompletionException e) {
+            errorCode = (e.getCause() == null ? e : e.getCause()).getClass().getSimpleName();
+        } catch (RuntimeException e) {
+            errorCode = e.getClass().getSimpleName();
+        } finally {
+            permits.release();
+        }
+        long done = System.nanoTime();
+        if (!measured) {
+            return;
+        }
+        lastCompletion.accumulateAndGet(done, Math::max);
+        responseTime.record(done - intended);
+        serviceTime.record(done - begin);
+        ActionStats stats = actionStats.computeIfAbsent(action, k -> new ActionStats());
+        stats.responseTime.record(done - intended);
+        if (errorCode != null) {
+            failed.incrementAndGet();
+            stats.failed.incrementAndGet();
+            errors.computeIfAbsent(errorCode, k -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    /**
+     * 不再接受新的调用，等待已提交的调用完成
+     */
+    void finish(long timeoutSeconds) throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+            logger.warn("压测结束 {} 秒后仍有调用未完成，不再等待", timeoutSeconds);
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 把统计结果写入报告
+     *
+     * @param measureFrom 计量开始的计划时间
+     * @param end         最后一次调用的计划时间之后
+     */
+    void report(Map<String, Object> report, long measureFrom, long end) {
+        long requests = responseTime.getTotalCount();
+        // 计量区间以最后一个调用完成为准，积压的调用拖长区间、拉低吞吐
+        double elapsed = Math.max(1, Math.max(end, lastCompletion.get()) - measureFrom);
+        report.put("threads", virtual ? "virtual" : "platform");
+        report.put("async", async);
+        report.put("requests", requests);
+        report.put("succeeded", requests - failed.get());
+        report.put("failed", failed.get());
+        report.put("dropped", dropped.get());
+        report.put("throughput", Math.round(requests / (elapsed / 1e9) * 10) / 10.0);
+        report.put("responseTime", responseTime.toMillisMap());
+        report.put("serviceTime", serviceTime.toMillisMap());
+        Map<String, Object> errorCounts = new TreeMap<>();
+        errors.forEach((code, count) -> errorCounts.put(code, count.get()));
+        report.put("errors", errorCounts);
+        Map<String, Object> byAction = new TreeMap<>();
+        actionStats.forEach((action, stats) -> {
+            Map<String, Object> item = stats.responseTime.toMillisMap();
+            item.put("failed", stats.failed.get());
+            byAction.put(action, item);
+        });
+        report.put("actions", byAction);
+    }
+
+    private static ExecutorService platformExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "bolt-load-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    static String percentiles(Object stats) {
+        Map<String, Object> map = (Map<String, Object>) stats;
+        StringBuilder sb = new StringBuilder();
+        for (String key : new String[]{"p50", "p90", "p99", "p99.9", "p99.99", "max"}) {
+            sb.append(sb.length() == 0 ? "" : "  ").append(key).append('=').append(map.get(key));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 单个动作的统计
+     */
+    private static final class ActionStats {
+        private final LatencyHistogram responseTime = new LatencyHistogram();
+        private final AtomicLong failed = new AtomicLong();
+    }
+}
@@ -0,0 +1,170 @@
+package io.bolt.plugin.util;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 读取 {@link BinaryWriter} 写出的带标签的值
+ * 整数读为 Long，浮点数读为 Double，小数读为 BigDecimal，Map 读为 LinkedHashMap，列表和数组读为 ArrayList，
+ * 时间类型读为 java.sql 的 Timestamp / Date / Time
+ */
+public final class BinaryReader {
+
+    private final byte[] buffer;
+    private final int limit;
+    private int pos;
+
+    public BinaryReader(byte[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    public BinaryReader(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.pos = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * 读取一个带标签的值
+     *
+     * @throws IOException 数据不完整或标签未知
+     */
+    public Object readValue() throws IOException {
+        int tag = readByte();
+        switch (tag) {
+            case BinaryWriter.TAG_NULL:
+                return null;
+            case BinaryWriter.TAG_FALSE:
+                return Boolean.FALSE;
+            case BinaryWriter.TAG_TRUE:
+                return Boolean.TRUE;
+            case BinaryWriter.TAG_LONG:
+                return unzigzag(readVarLong());
+            case BinaryWriter.TAG_DOUBLE:
+                return Double.longBitsToDouble(readLongBigEndian());
+            case BinaryWriter.TAG_STRING:
+                return readString();
+            case BinaryWriter.TAG_BYTES:
+                int length = readLength();
+                byte[] bytes = Arrays.copyOfRange(buffer, pos, pos + length);
+                pos += length;
+                return bytes;
+            case BinaryWriter.TAG_DECIMAL:
+                try {
+                    return new BigDecimal(readString());
+                } catch (NumberFormatException e) {
+                    throw new IOException("二进制数据损坏: 小数格式错误 @" + pos);
+                }
+            case BinaryWriter.TAG_TIMESTAMP:
+                Timestamp ts = new Timestamp(unzigzag(readVarLong()) * 1000);
+                long nanos = readVarLong();
+                if (nanos < 0 || nanos > 999_999_999) {
+                    throw new IOException("二进制数据损坏: 纳秒 " + nanos + " 超出范围 @" + pos);
+                }
+                ts.setNanos((int) nanos);
+                return ts;
+            case BinaryWriter.TAG_DATE:
+                try {
+                    return java.sql.Date.valueOf(LocalDate.ofEpochDay(unzigzag(readVarLong())));
+                } catch (DateTimeException e) {
+                    throw new IOException("二进制数据损坏: 日期超出范围 @" + pos);
+                }
+            case BinaryWriter.TAG_TIME:
+                long nanoOfDay = readVarLong();
+                if (nanoOfDay < 0 || nanoOfDay > LocalTime.MAX.toNanoOfDay()) {
+                    throw new IOException("二进制数据损坏: 时间 " + nanoOfDay + " 超出范围 @" + pos);
+                }
+                return Time.valueOf(LocalTime.ofNanoOfDay(nanoOfDay));
+            case BinaryWriter.TAG_MAP:
+                int entries = readLength();
+                Map<String, Object> map = new LinkedHashMap<>(Math.max(16, entries * 4 / 3 + 1));
+                for (int i = 0; i < entries; i++) {
+                    String key = readString();
+                    map.put(key, readValue());
+                }
+                return map;
+            case BinaryWriter.TAG_LIST:
+                int size = readLength();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue());
+                }
+                return list;
+            default:
+                throw new IOException("二进制数据损坏: 未知标签 " + tag + " @" + (pos - 1));
+        }
+    }
+
+    /**
+     * 读取不带标签的字符串
+     */
+    public String readString() throws IOException {
+        int length = readLength();
+        String value = new String(buffer, pos, length, StandardCharsets.UTF_8);
+        pos += length;
+        return value;
+    }
+
+    public long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("二进制数据损坏: varint 过长 @" + pos);
+    }
+
+    public int readByte() throws IOException {
+        if (pos >= limit) {
+            throw new IOException("二进制数据不完整");
+        }
+        return buffer[pos++] & 0xFF;
+    }
+
+    /**
+     * 是否还有未读的数据
+     */
+    public boolean hasRemaining() {
+        return pos < limit;
+    }
+
+    /**
+     * 长度和元素数不会超过剩余字节数，据此拒绝损坏的数据，避免按错误的长度分配内存
+     */
+    private int readLength() throws IOException {
+        long length = readVarLong();
+        if (length < 0 || length > limit - pos) {
+            throw new IOException("二进制数据损坏: 长度 " + length + " 超出剩余数据 @" + pos);
+        }
+        return (int) length;
+    }
+
+    private long readLongBigEndian() throws IOException {
+        if (limit - pos < Long.BYTES) {
+            throw new IOException("二进制数据不完整");
+        }
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (buffer[pos++] & 0xFF);
+        }
+        return value;
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
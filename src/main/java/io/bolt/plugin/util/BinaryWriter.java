@@ -0,0 +1,285 @@
+package io.bolt.plugin.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 带类型标签的二进制写出器
+ * 值直接编码到内部的字节数组，数组按需扩容，{@link #reset()} 后复用，不为每个值创建中间对象；
+ * 与 {@link JsonWriter} 支持的类型相同，对应的读取器为 {@link BinaryReader}
+ *
+ * <p>每个值以 1 字节标签开头：整数为 zigzag varint，浮点数为大端 8 字节，字符串、字节串和小数为 varint 长度 + 内容，
+ * Map 为 varint 条目数 + 依次的（键字符串、值），Collection 和数组为 varint 元素数 + 依次的值。
+ * 0 到 10 号标签与 {@code ResultSetExporter} 的 binary 导出格式相同
+ */
+public final class BinaryWriter {
+
+    public static final int TAG_NULL = 0;
+    public static final int TAG_FALSE = 1;
+    public static final int TAG_TRUE = 2;
+    public static final int TAG_LONG = 3;
+    public static final int TAG_DOUBLE = 4;
+    public static final int TAG_STRING = 5;
+    public static final int TAG_BYTES = 6;
+    public static final int TAG_DECIMAL = 7;
+    public static final int TAG_TIMESTAMP = 8;
+    public static final int TAG_DATE = 9;
+    public static final int TAG_TIME = 10;
+    public static final int TAG_MAP = 11;
+    public static final int TAG_LIST = 12;
+
+    private byte[] buffer;
+    private int count;
+
+    public BinaryWriter() {
+        this(1024);
+    }
+
+    public BinaryWriter(int initialCapacity) {
+        this.buffer = new byte[Math.max(16, initialCapacity)];
+    }
+
+    /**
+     * 写入一个带标签的值；不支持的类型按 toString() 写为字符串
+     */
+    public BinaryWriter writeValue(Object value) {
+        if (value == null) {
+            writeByte(TAG_NULL);
+        } else if (value instanceof String) {
+            writeByte(TAG_STRING);
+            writeString((String) value);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            writeLong(((Number) value).longValue());
+        } else if (value instanceof Boolean) {
+            writeByte((Boolean) value ? TAG_TRUE : TAG_FALSE);
+        } else if (value instanceof Double || value instanceof Float) {
+            writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            writeByte(TAG_MAP);
+            writeVarLong(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeString(String.valueOf(entry.getKey()));
+                writeValue(entry.getValue());
+            }
+        } else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            writeByte(TAG_LIST);
+            writeVarLong(collection.size());
+            for (Object element : collection) {
+                writeValue(element);
+            }
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            writeByte(TAG_BYTES);
+            writeVarLong(bytes.length);
+            writeBytes(bytes, 0, bytes.length);
+        } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+            writeByte(TAG_DECIMAL);
+            writeString(value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString());
+        } else if (value instanceof Timestamp) {
+            Timestamp ts = (Timestamp) value;
+            writeByte(TAG_TIMESTAMP);
+            writeVarLong(zigzag(Math.floorDiv(ts.getTime(), 1000)));
+            writeVarLong(ts.getNanos());
+        } else if (value instanceof java.sql.Date) {
+            writeByte(TAG_DATE);
+            writeVarLong(zigzag(((java.sql.Date) value).toLocalDate().toEpochDay()));
+        } else if (value instanceof Time) {
+            writeByte(TAG_TIME);
+            writeVarLong(((Time) value).toLocalTime().toNanoOfDay());
+        } else if (value.getClass().isArray()) {
+            writeArray(value);
+        } else {
+            writeByte(TAG_STRING);
+            writeString(value.toString());
+        }
+        return this;
+    }
+
+    private void writeArray(Object array) {
+        writeByte(TAG_LIST);
+        if (array instanceof long[]) {
+            long[] values = (long[]) array;
+            writeVarLong(values.length);
+            for (long v : values) {
+                writeLong(v);
+            }
+        } else if (array instanceof int[]) {
+            int[] values = (int[]) array;
+            writeVarLong(values.length);
+            for (int v : values) {
+                writeLong(v);
+            }
+        } else if (array instanceof double[]) {
+            double[] values = (double[]) array;
+            writeVarLong(values.length);
+            for (double v : values) {
+                writeDouble(v);
+            }
+        } else {
+            int length = Array.getLength(array);
+            writeVarLong(length);
+            for (int i = 0; i < length; i++) {
+                writeValue(Array.get(array, i));
+            }
+        }
+    }
+
+    private void writeLong(long value) {
+        ensureCapacity(11);
+        buffer[count++] = TAG_LONG;
+        putVarLong(zigzag(value));
+    }
+
+    private void writeDouble(double value) {
+        ensureCapacity(9);
+        buffer[count++] = TAG_DOUBLE;
+        long bits = Double.doubleToLongBits(value);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[count++] = (byte) (bits >>> shift);
+        }
+    }
+
+    /**
+     * 写入不带标签的字符串：varint 字节长度 + UTF-8 内容，直接从 char 编码，不创建中间字节数组
+     */
+    public BinaryWriter writeString(String value) {
+        int length = value.length();
+        int utf8Length = length;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                utf8Length += 1;
+            } else if (!Character.isSurrogate(c)) {
+                utf8Length += 2;
+            } else if (isSurrogatePair(value, i)) {
+                // 代理对共 4 字节，两个 char 已各计 1 字节
+                utf8Length += 2;
+                i++;
+            }
+            // 不成对的代理字符与 String.getBytes 一样写为 '?'
+        }
+        ensureCapacity(10 + utf8Length);
+        putVarLong(utf8Length);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[count++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[count++] = (byte) (0xC0 | (c >> 6));
+                buffer[count++] = (byte) (0x80 | (c & 0x3F));
+            } else if (!Character.isSurrogate(c)) {
+                buffer[count++] = (byte) (0xE0 | (c >> 12));
+                buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[count++] = (byte) (0x80 | (c & 0x3F));
+            } else if (isSurrogatePair(value, i)) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[count++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[count++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                buffer[count++] = '?';
+            }
+        }
+        return this;
+    }
+
+    private static boolean isSurrogatePair(String value, int index) {
+        return Character.isHighSurrogate(value.charAt(index)) && index + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(index + 1));
+    }
+
+    /**
+     * 写入无符号 varint（每字节 7 位，低位在前）
+     */
+    public BinaryWriter writeVarLong(long value) {
+        ensureCapacity(10);
+        putVarLong(value);
+        return this;
+    }
+
+    public BinaryWriter writeByte(int value) {
+        ensureCapacity(1);
+        buffer[count++] = (byte) value;
+        return this;
+    }
+
+    public BinaryWriter writeBytes(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, count, length);
+        count += length;
+        return this;
+    }
+
+    private void putVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[count++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[count++] = (byte) value;
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (buffer.length - count < extra) {
+            long required = (long) count + extra;
+            if (required > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("编码结果超过 2GB");
+            }
+            buffer = Arrays.copyOf(buffer, (int) Math.max(required, Math.min(Integer.MAX_VALUE - 8L, buffer.length * 2L)));
+        }
+    }
+
+    /**
+     * 已写入的字节数
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 当前缓冲区容量
+     */
+    public int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * 清空已写入的内容，保留缓冲区供下次使用
+     */
+    public void reset() {
+        count = 0;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, count);
+    }
+
+    /**
+     * 已写入内容的只读视图，不复制；下次写入或 reset 前有效
+     */
+    public ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(buffer, 0, count).asReadOnlyBuffer();
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, count);
+    }
+}
@@ -0,0 +1,158 @@
+package io.bolt.plugin.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 有界的阻塞任务执行器
+ * 运行在 JDK 21+ 上时每个任务一个虚拟线程，阻塞 I/O 不占用平台线程，同时执行的任务数由信号量限制；
+ * 更低版本退回到固定大小的平台线程池。两种模式下排队的任务数都不超过 queueCapacity，
+ * 超出时返回的 future 以 {@link RejectedExecutionException} 失败，避免积压无限增长。
+ * 虚拟线程通过反射创建，编译目标仍为 JDK 17。信号量同时保证了 JDBC 驱动内 synchronized 造成的
+ * 载体线程钉住（pinning）不会超过并发上限
+ */
+public final class BoundedExecutor implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final boolean virtual;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final int queueCapacity;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+
+    /**
+     * @param name           线程名前缀
+     * @param maxConcurrency 同时执行的任务数上限
+     * @param queueCapacity  等待执行的任务数上限
+     */
+    public BoundedExecutor(String name, int maxConcurrency, int queueCapacity) {
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.queueCapacity = Math.max(0, queueCapacity);
+        ExecutorService virtualExecutor = newVirtualThreadExecutor(name);
+        if (virtualExecutor != null) {
+            this.executor = virtualExecutor;
+            this.virtual = true;
+            this.permits = new Semaphore(this.maxConcurrency);
+        } else {
+            AtomicInteger counter = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(this.maxConcurrency, this.maxConcurrency,
+                    60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Math.max(1, this.queueCapacity)), r -> {
+                        Thread thread = new Thread(r, name + "-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            this.executor = pool;
+            this.virtual = false;
+            this.permits = null;
+        }
+    }
+
+    /**
+     * 提交任务；队列已满或执行器已关闭时返回失败的 future
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (pending.incrementAndGet() > queueCapacity + maxConcurrency) {
+            pending.decrementAndGet();
+            future.completeExceptionally(new RejectedExecutionException(
+                    "任务过多，并发上限 " + maxConcurrency + "，排队上限 " + queueCapacity));
+            return future;
+        }
+        try {
+            executor.execute(() -> run(task, future));
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * 正在执行的任务数
+     */
+    public int getRunning() {
+        return running.get();
+    }
+
+    /**
+     * 已提交但尚未完成的任务数（含正在执行的）
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private <T> void run(Callable<T> task, CompletableFuture<T> future) {
+        boolean acquired = false;
+        T value = null;
+        Throwable error = null;
+        try {
+            if (permits != null) {
+                permits.acquire();
+                acquired = true;
+            }
+            running.incrementAndGet();
+            try {
+                value = task.call();
+            } finally {
+                running.decrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = e;
+        } catch (Throwable e) {
+            error = e;
+        } finally {
+            if (acquired) {
+                permits.release();
+            }
+            pending.decrementAndGet();
+        }
+        // 计数归还后再完成，回调里看到的统计已经包含本任务
+        if (error != null) {
+            future.completeExceptionally(error);
+        } else {
+            future.complete(value);
+        }
+    }
+
+    /**
+     * JDK 21+ 返回 Thread.ofVirtual().name(name, 0).factory() 构造的每任务一线程执行器，否则返回 null
+     */
+    public static ExecutorService newVirtualThreadExecutor(String name) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name + "-", 0L);
+            Object factory = builderClass.getMethod("factory").invoke(builder);
+            Method newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newExecutor.invoke(null, factory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
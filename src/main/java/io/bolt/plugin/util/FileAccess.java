@@ -0,0 +1,81 @@
+package io.bolt.plugin.util;
+
+import io.bolt.plugin.api.PluginException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 本地文件访问控制
+ * 脚本可以传入任意路径，插件只允许访问配置的根目录（fileRoot）之内的文件；
+ * 未配置根目录时文件类动作被禁用。
+ * 越界检查基于解析符号链接后的真实路径，根目录内指向外部的链接同样会被拒绝
+ */
+public final class FileAccess {
+
+    private final Path root;
+
+    private FileAccess(Path root) {
+        this.root = root;
+    }
+
+    /**
+     * @param fileRoot 配置的根目录，为空表示禁用文件访问
+     */
+    public static FileAccess of(String fileRoot) {
+        if (fileRoot == null || fileRoot.isEmpty()) {
+            return new FileAccess(null);
+        }
+        return new FileAccess(Paths.get(fileRoot).toAbsolutePath().normalize());
+    }
+
+    public boolean isEnabled() {
+        return root != null;
+    }
+
+    /**
+     * 将调用方给出的路径解析为根目录下的绝对路径
+     *
+     * @throws PluginException 未配置根目录（FILE_ACCESS_DISABLED）或路径越界（FILE_ACCESS_DENIED）
+     */
+    public Path resolve(String path) {
+        if (root == null) {
+            throw new PluginException("FILE_ACCESS_DISABLED", "未配置 fileRoot，本地文件访问已禁用");
+        }
+        if (path == null || path.isEmpty()) {
+            throw new PluginException("MISSING_PARAM", "缺少文件路径");
+        }
+        Path resolved = root.resolve(path).toAbsolutePath().normalize();
+        if (!resolved.startsWith(root)) {
+            throw new PluginException("FILE_ACCESS_DENIED", "文件路径超出允许的目录: " + path);
+        }
+        try {
+            Path real = realPath(resolved);
+            if (!real.startsWith(realPath(root))) {
+                throw new PluginException("FILE_ACCESS_DENIED", "文件路径超出允许的目录: " + path);
+            }
+            return real;
+        } catch (IOException e) {
+            throw new PluginException("FILE_ACCESS_DENIED", "无法解析文件路径: " + path);
+        }
+    }
+
+    /**
+     * 解析符号链接后的真实路径
+     * 目标文件可能尚不存在（导出、下载），取最近的已存在的上级解析后再拼上其余部分；
+     * 已存在的链接本身参与解析，指向不存在目标的链接会解析失败
+     */
+    private static Path realPath(Path path) throws IOException {
+        Path existing = path;
+        while (existing != null && !Files.exists(existing, LinkOption.NOFOLLOW_LINKS)) {
+            existing = existing.getParent();
+        }
+        if (existing == null) {
+            return path;
+        }
+        return existing.toRealPath().resolve(existing.relativize(path));
+    }
+}
@@ -0,0 +1,28 @@
+package io.bolt.plugin.util;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * JSON 工具
+ * 插件不依赖第三方 JSON 库，这里提供基于 {@link JsonReader} 的简单入口
+ */
+public final class Json {
+
+    private Json() {
+    }
+
+    /**
+     * 解析一个完整的 JSON 文本为 Map / List / String / Number / Boolean / null
+     *
+     * @throws IOException JSON 格式错误或文本包含多个值
+     */
+    public static Object parse(String text) throws IOException {
+        JsonReader reader = new JsonReader(new StringReader(text));
+        Object value = reader.readValue();
+        if (reader.peek() != JsonReader.Token.END_DOCUMENT) {
+            throw new IOException("JSON 格式错误: 值之后存在多余内容");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,300 @@
+package io.bolt.plugin.util;
+
+import io.bolt.plugin.api.PluginException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON 字段投影
+ * 在 {@link JsonReader} 上一次遍历同时求多个路径，只构造被选中的值，其他子树直接跳过；
+ * 所有路径都不含通配符且都已找到时提前结束，不再读取剩余内容。
+ * 路径是 JSONPath 的子集：{@code $} 根（可省略），{@code .name} / {@code ['name']} 成员，
+ * {@code [n]} 数组下标，{@code [*]} / {@code .*} 所有元素或成员。
+ * 不含通配符的路径结果为单个值（不存在时为 null），含通配符的结果为按文档顺序排列的列表
+ */
+public final class JsonProjection {
+
+    private static final Object WILDCARD = new Object();
+
+    private final List<String> keys;
+    private final List<Object[]> paths;
+    private final boolean whole;
+
+    private JsonProjection(List<String> keys, List<Object[]> paths, boolean whole) {
+        this.keys = keys;
+        this.paths = paths;
+        this.whole = whole;
+    }
+
+    /**
+     * 整个文档
+     */
+    public static JsonProjection whole() {
+        return new JsonProjection(List.of(), List.of(), true);
+    }
+
+    /**
+     * 是否读取整个文档
+     */
+    public boolean isWhole() {
+        return whole;
+    }
+
+    /**
+     * 由参数构造：路径列表（结果以路径为键），或别名到路径的映射
+     *
+     * @throws PluginException INVALID_PARAM 参数类型或路径格式错误
+     */
+    public static JsonProjection of(Object select) {
+        List<String> keys = new ArrayList<>();
+        List<Object[]> paths = new ArrayList<>();
+        if (select instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) select).entrySet()) {
+                keys.add(String.valueOf(entry.getKey()));
+                paths.add(parse(String.valueOf(entry.getValue())));
+            }
+        } else if (select instanceof List) {
+            for (Object path : (List<?>) select) {
+                keys.add(String.valueOf(path));
+                paths.add(parse(String.valueOf(path)));
+            }
+        } else if (select instanceof String) {
+            keys.add((String) select);
+            paths.add(parse((String) select));
+        } else {
+            throw new PluginException("INVALID_PARAM", "select 必须是路径列表或别名到路径的映射");
+        }
+        if (paths.isEmpty()) {
+            throw new PluginException("INVALID_PARAM", "select 不能为空");
+        }
+        return new JsonProjection(keys, paths, false);
+    }
+
+    /**
+     * 读取一个 JSON 值并投影
+     *
+     * @return 整个文档时为文档本身，否则为键到结果的映射
+     * @throws IOException 读取失败或 JSON 格式错误
+     */
+    public Object read(JsonReader reader) throws IOException {
+        if (whole) {
+            Object value = reader.readValue();
+            if (reader.peek() != JsonReader.Token.END_DOCUMENT) {
+                throw new IOException("JSON 格式错误: 值之后存在多余内容");
+            }
+            return value;
+        }
+        Walk walk = new Walk();
+        List<int[]> cursors = new ArrayList<>();
+        for (int i = 0; i < paths.size(); i++) {
+            cursors.add(new int[]{i, 0});
+        }
+        walk.value(reader, cursors);
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            result.put(keys.get(i), walk.results[i]);
+        }
+        return result;
+    }
+
+    /**
+     * 一次遍历的状态
+     */
+    private final class Walk {
+        private final Object[] results = new Object[paths.size()];
+        private final boolean[] found = new boolean[paths.size()];
+        private int remaining;
+        // 通配符路径要看完整个文档，不能提前结束
+        private boolean stopEarly = true;
+
+        Walk() {
+            for (int i = 0; i < paths.size(); i++) {
+                if (isDefinite(paths.get(i))) {
+                    remaining++;
+                } else {
+                    results[i] = new ArrayList<>();
+                    stopEarly = false;
+                }
+            }
+        }
+
+        private boolean done() {
+            return stopEarly && remaining == 0;
+        }
+
+        /**
+         * 处理当前位置的值；cursors 为经过这里的路径及其已匹配的步数
+         */
+        void value(JsonReader reader, List<int[]> cursors) throws IOException {
+            boolean complete = false;
+            for (int[] cursor : cursors) {
+                if (cursor[1] == paths.get(cursor[0]).length) {
+                    complete = true;
+                    break;
+                }
+            }
+            if (complete) {
+                // 有路径在这里结束：构造这个值，其余经过这里的路径在内存中继续求值
+                Object value = reader.readValue();
+                for (int[] cursor : cursors) {
+                    collect(cursor[0], value, cursor[1]);
+                }
+                return;
+            }
+
+            JsonReader.Token token = reader.peek();
+            if (token == JsonReader.Token.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (!done() && reader.hasNext()) {
+                    String name = reader.nextName();
+                    descend(reader, cursors, name);
+                }
+                if (!done()) {
+                    reader.endObject();
+                }
+            } else if (token == JsonReader.Token.BEGIN_ARRAY) {
+                reader.beginArray();
+                int index = 0;
+                while (!done() && reader.hasNext()) {
+                    descend(reader, cursors, index++);
+                }
+                if (!done()) {
+                    reader.endArray();
+                }
+            } else {
+                // 标量上没有可继续匹配的步骤
+                reader.skipValue();
+            }
+        }
+
+        private void descend(JsonReader reader, List<int[]> cursors, Object key) throws IOException {
+            List<int[]> next = new ArrayList<>();
+            for (int[] cursor : cursors) {
+                Object step = paths.get(cursor[0])[cursor[1]];
+                if (matches(step, key)) {
+                    next.add(new int[]{cursor[0], cursor[1] + 1});
+                }
+            }
+            if (next.isEmpty()) {
+                reader.skipValue();
+            } else {
+                value(reader, next);
+            }
+        }
+
+        /**
+         * 在已构造的值上继续求路径剩余的部分
+         */
+        @SuppressWarnings("unchecked")
+        private void collect(int path, Object value, int from) {
+            Object[] steps = paths.get(path);
+            if (from == steps.length) {
+                emit(path, value);
+                return;
+            }
+            Object step = steps[from];
+            if (value instanceof Map) {
+                for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+                    if (matches(step, entry.getKey())) {
+                        collect(path, entry.getValue(), from + 1);
+                    }
+                }
+            } else if (value instanceof List) {
+                List<Object> list = (List<Object>) value;
+                for (int i = 0; i < list.size(); i++) {
+                    if (matches(step, i)) {
+                        collect(path, list.get(i), from + 1);
+                    }
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void emit(int path, Object value) {
+            if (!isDefinite(paths.get(path))) {
+                ((List<Object>) results[path]).add(value);
+            } else if (!found[path]) {
+                results[path] = value;
+                found[path] = true;
+                remaining--;
+            }
+        }
+    }
+
+    private static boolean matches(Object step, Object key) {
+        return step == WILDCARD || step.equals(key);
+    }
+
+    private static boolean isDefinite(Object[] steps) {
+        for (Object step : steps) {
+            if (step == WILDCARD) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 解析路径为步骤数组：String 为成员名，Integer 为下标，WILDCARD 为通配符
+     */
+    static Object[] parse(String path) {
+        String text = path.trim();
+        int pos = 0;
+        if (text.startsWith("$")) {
+            pos = 1;
+        } else if (!text.isEmpty() && text.charAt(0) != '[') {
+            // 省略了 $ 和开头的点
+            text = "." + text;
+        }
+        List<Object> steps = new ArrayList<>();
+        while (pos < text.length()) {
+            char c = text.charAt(pos);
+            if (c == '.') {
+                int end = pos + 1;
+                while (end < text.length() && text.charAt(end) != '.' && text.charAt(end) != '[') {
+                    end++;
+                }
+                String name = text.substring(pos + 1, end);
+                if (name.isEmpty()) {
+                    throw invalid(path);
+                }
+                steps.add(name.equals("*") ? WILDCARD : name);
+                pos = end;
+            } else if (c == '[') {
+                int end = text.indexOf(']', pos);
+                if (end < 0) {
+                    throw invalid(path);
+                }
+                String inner = text.substring(pos + 1, end).trim();
+                if (inner.equals("*")) {
+                    steps.add(WILDCARD);
+                } else if (inner.length() >= 2 && (inner.startsWith("'") && inner.endsWith("'")
+                        || inner.startsWith("\"") && inner.endsWith("\""))) {
+                    steps.add(inner.substring(1, inner.length() - 1));
+                } else {
+                    try {
+                        int index = Integer.parseInt(inner);
+                        if (index < 0) {
+                            throw invalid(path);
+                        }
+                        steps.add(index);
+                    } catch (NumberFormatException e) {
+                        throw invalid(path);
+                    }
+                }
+                pos = end + 1;
+            } else {
+                throw invalid(path);
+            }
+        }
+        return steps.toArray();
+    }
+
+    private static PluginException invalid(String path) {
+        return new PluginException("INVALID_PARAM", "无效的 JSON 路径: " + path);
+    }
+}
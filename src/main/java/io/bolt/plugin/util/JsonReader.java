@@ -0,0 +1,523 @@
+package io.bolt.plugin.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 流式 JSON 读取器
+ * 拉模式逐个读取 token，只在内部保留一个固定大小的字符缓冲区，
+ * 可以在不把整个文档读入内存的情况下遍历任意大的 JSON；
+ * 顶层允许以空白分隔的多个值（JSON Lines）。
+ * 嵌套不超过 {@link #MAX_DEPTH} 层；{@link #readValue()} 不递归，按结构递归的调用方也不会因恶意输入栈溢出
+ */
+public final class JsonReader implements Closeable {
+
+    /**
+     * token 类型
+     */
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    /**
+     * 对象和数组的最大嵌套层数
+     */
+    public static final int MAX_DEPTH = 1000;
+
+    private static final int SCOPE_DOCUMENT = 0;
+    private static final int SCOPE_EMPTY_ARRAY = 1;
+    private static final int SCOPE_ARRAY = 2;
+    private static final int SCOPE_EMPTY_OBJECT = 3;
+    private static final int SCOPE_OBJECT = 4;
+    private static final int SCOPE_NAME = 5;
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int pos = 0;
+    private int limit = 0;
+
+    private int[] stack = new int[32];
+    private int depth = 1;
+
+    private Token peeked;
+    private String peekedValue;
+
+    public JsonReader(Reader in) {
+        this.in = in;
+        stack[0] = SCOPE_DOCUMENT;
+    }
+
+    /**
+     * 查看下一个 token 类型但不消费
+     */
+    public Token peek() throws IOException {
+        if (peeked == null) {
+            peeked = readToken();
+        }
+        return peeked;
+    }
+
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        push(SCOPE_EMPTY_OBJECT);
+    }
+
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        depth--;
+    }
+
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        push(SCOPE_EMPTY_ARRAY);
+    }
+
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        depth--;
+    }
+
+    /**
+     * 当前对象或数组是否还有元素
+     */
+    public boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    public String nextName() throws IOException {
+        expect(Token.NAME);
+        return peekedValueAndClear();
+    }
+
+    public String nextString() throws IOException {
+        Token token = peek();
+        if (token != Token.STRING && token != Token.NUMBER && token != Token.BOOLEAN) {
+            throw syntaxError("期望字符串，实际为 " + token);
+        }
+        peeked = null;
+        return peekedValueAndClear();
+    }
+
+    /**
+     * 读取数字，整数优先返回 Integer / Long，小数返回 Double，超出范围时返回 BigDecimal
+     */
+    public Number nextNumber() throws IOException {
+        expect(Token.NUMBER);
+        String text = peekedValueAndClear();
+        try {
+            return parseNumber(text);
+        } catch (NumberFormatException e) {
+            // 语法正确但指数超出 BigDecimal 的范围
+            throw syntaxError("数字超出范围 " + text);
+        }
+    }
+
+    public boolean nextBoolean() throws IOException {
+        expect(Token.BOOLEAN);
+        return Boolean.parseBoolean(peekedValueAndClear());
+    }
+
+    public void nextNull() throws IOException {
+        expect(Token.NULL);
+        peekedValueAndClear();
+    }
+
+    /**
+     * 跳过下一个值（包括整个对象或数组）
+     */
+    public void skipValue() throws IOException {
+        int level = 0;
+        do {
+            Token token = peek();
+            switch (token) {
+                case BEGIN_OBJECT:
+                    beginObject();
+                    level++;
+                    break;
+                case BEGIN_ARRAY:
+                    beginArray();
+                    level++;
+                    break;
+                case END_OBJECT:
+                    endObject();
+                    level--;
+                    break;
+                case END_ARRAY:
+                    endArray();
+                    level--;
+                    break;
+                case END_DOCUMENT:
+                    throw syntaxError("文档意外结束");
+                default:
+                    peeked = null;
+                    peekedValueAndClear();
+                    break;
+            }
+        } while (level > 0);
+    }
+
+    /**
+     * 读取下一个完整值为 Map / List / String / Number / Boolean / null
+     * 用显式的栈代替递归：上限以内的深层嵌套在栈较小的线程上、代码还没有编译时也不会栈溢出
+     */
+    @SuppressWarnings("unchecked")
+    public Object readValue() throws IOException {
+        Deque<Object> open = new ArrayDeque<>();
+        Deque<String> names = new ArrayDeque<>();
+        while (true) {
+            Token token = peek();
+            Object value;
+            switch (token) {
+                case BEGIN_OBJECT:
+                    beginObject();
+                    open.push(new LinkedHashMap<String, Object>());
+                    continue;
+                case BEGIN_ARRAY:
+                    beginArray();
+                    open.push(new ArrayList<Object>());
+                    continue;
+                case NAME:
+                    names.push(nextName());
+                    continue;
+                case END_OBJECT:
+                case END_ARRAY:
+                    if (open.isEmpty()) {
+                        throw syntaxError("期望值，实际为 " + token);
+                    }
+                    if (token == Token.END_OBJECT) {
+                        endObject();
+                    } else {
+                        endArray();
+                    }
+                    value = open.pop();
+                    break;
+                case STRING:
+                    value = nextString();
+                    break;
+                case NUMBER:
+                    value = nextNumber();
+                    break;
+                case BOOLEAN:
+                    value = nextBoolean();
+                    break;
+                case NULL:
+                    nextNull();
+                    value = null;
+                    break;
+                default:
+                    throw syntaxError("期望值，实际为 " + token);
+            }
+            Object parent = open.peek();
+            if (parent == null) {
+                return value;
+            }
+            if (parent instanceof Map) {
+                ((Map<String, Object>) parent).put(names.pop(), value);
+            } else {
+                ((List<Object>) parent).add(value);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    static Number parseNumber(String text) {
+        boolean integral = text.indexOf('.') < 0 && text.indexOf('e') < 0 && text.indexOf('E') < 0;
+        if (integral) {
+            try {
+                long value = Long.parseLong(text);
+                if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                    return (int) value;
+                }
+                return value;
+            } catch (NumberFormatException ignored) {
+                // 超出 long 范围
+            }
+        }
+        double value = Double.parseDouble(text);
+        return integral || Double.isInfinite(value) ? new BigDecimal(text) : (Number) value;
+    }
+
+    private String peekedValueAndClear() {
+        String value = peekedValue;
+        peekedValue = null;
+        return value;
+    }
+
+    private void expect(Token expected) throws IOException {
+        Token token = peek();
+        if (token != expected) {
+            throw syntaxError("期望 " + expected + "，实际为 " + token);
+        }
+        peeked = null;
+    }
+
+    private void push(int scope) throws IOException {
+        // stack[0] 是文档本身
+        if (depth > MAX_DEPTH) {
+            throw syntaxError("嵌套超过 " + MAX_DEPTH + " 层");
+        }
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth++] = scope;
+    }
+
+    private Token readToken() throws IOException {
+        int scope = stack[depth - 1];
+        int c;
+
+        if (scope == SCOPE_EMPTY_ARRAY || scope == SCOPE_ARRAY) {
+            c = nextNonWhitespace();
+            if (c == ']') {
+                return Token.END_ARRAY;
+            }
+            if (scope == SCOPE_ARRAY) {
+                if (c != ',') {
+                    throw syntaxError("数组元素之间缺少逗号");
+                }
+                c = nextNonWhitespace();
+            }
+            stack[depth - 1] = SCOPE_ARRAY;
+            return readValueToken(c);
+        }
+
+        if (scope == SCOPE_EMPTY_OBJECT || scope == SCOPE_OBJECT) {
+            c = nextNonWhitespace();
+            if (c == '}') {
+                return Token.END_OBJECT;
+            }
+            if (scope == SCOPE_OBJECT) {
+                if (c != ',') {
+                    throw syntaxError("对象成员之间缺少逗号");
+                }
+                c = nextNonWhitespace();
+            }
+            if (c != '"') {
+                throw syntaxError("对象成员名必须是字符串");
+            }
+            peekedValue = readString();
+            if (nextNonWhitespace() != ':') {
+                throw syntaxError("成员名后缺少冒号");
+            }
+            stack[depth - 1] = SCOPE_NAME;
+            return Token.NAME;
+        }
+
+        if (scope == SCOPE_NAME) {
+            stack[depth - 1] = SCOPE_OBJECT;
+            return readValueToken(nextNonWhitespace());
+        }
+
+        c = nextNonWhitespace();
+        if (c == -1) {
+            return Token.END_DOCUMENT;
+        }
+        return readValueToken(c);
+    }
+
+    private Token readValueToken(int c) throws IOException {
+        switch (c) {
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case '"':
+                peekedValue = readString();
+                return Token.STRING;
+            case 't':
+                readLiteral("rue");
+                peekedValue = "true";
+                return Token.BOOLEAN;
+            case 'f':
+                readLiteral("alse");
+                peekedValue = "false";
+                return Token.BOOLEAN;
+            case 'n':
+                readLiteral("ull");
+                return Token.NULL;
+            case -1:
+                throw syntaxError("文档意外结束");
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    peekedValue = readNumber((char) c);
+                    return Token.NUMBER;
+                }
+                throw syntaxError("非法字符 '" + (char) c + "'");
+        }
+    }
+
+    private String readString() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            int start = pos;
+            while (pos < limit) {
+                char c = buffer[pos];
+                if (c == '"') {
+                    sb.append(buffer, start, pos - start);
+                    pos++;
+                    return sb.toString();
+                }
+                if (c == '\\') {
+                    sb.append(buffer, start, pos - start);
+                    pos++;
+                    sb.append(readEscape());
+                    start = pos;
+                    continue;
+                }
+                pos++;
+            }
+            sb.append(buffer, start, pos - start);
+            if (!fill()) {
+                throw syntaxError("字符串未结束");
+            }
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                return (char) c;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u': {
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int h = Character.digit(read(), 16);
+                    if (h < 0) {
+                        throw syntaxError("非法的 unicode 转义");
+                    }
+                    value = (value << 4) | h;
+                }
+                return (char) value;
+            }
+            default:
+                throw syntaxError("非法的转义字符");
+        }
+    }
+
+    private String readNumber(char first) throws IOException {
+        StringBuilder sb = new StringBuilder().append(first);
+        while (true) {
+            if (pos >= limit && !fill()) {
+                break;
+            }
+            char c = buffer[pos];
+            if ((c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+                sb.append(c);
+                pos++;
+            } else {
+                break;
+            }
+        }
+        String text = sb.toString();
+        if (!isNumber(text)) {
+            throw syntaxError("非法的数字 " + text);
+        }
+        return text;
+    }
+
+    /**
+     * 是否符合 JSON 的数字语法：-?(0|[1-9][0-9]*)(\.[0-9]+)?([eE][+-]?[0-9]+)?
+     */
+    private static boolean isNumber(String text) {
+        int n = text.length();
+        int i = text.startsWith("-") ? 1 : 0;
+        if (i < n && text.charAt(i) == '0') {
+            i++;
+        } else if ((i = digits(text, i)) < 0) {
+            return false;
+        }
+        if (i < n && text.charAt(i) == '.' && (i = digits(text, i + 1)) < 0) {
+            return false;
+        }
+        if (i < n && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            if (i < n && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+                i++;
+            }
+            if ((i = digits(text, i)) < 0) {
+                return false;
+            }
+        }
+        return i == n;
+    }
+
+    /**
+     * 从 from 开始的一串数字之后的位置；一个数字也没有时返回 -1
+     */
+    private static int digits(String text, int from) {
+        int i = from;
+        while (i < text.length() && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+            i++;
+        }
+        return i == from ? -1 : i;
+    }
+
+    private void readLiteral(String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (read() != rest.charAt(i)) {
+                throw syntaxError("非法的字面量");
+            }
+        }
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        while (true) {
+            if (pos >= limit && !fill()) {
+                return -1;
+            }
+            char c = buffer[pos++];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (pos >= limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos++];
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            pos = 0;
+            limit = 0;
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException("JSON 格式错误: " + message);
+    }
+}
@@ -0,0 +1,125 @@
+package io.bolt.plugin.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * JSON 写出工具
+ * 直接写入 Appendable，不构造中间字符串；
+ * 支持 Map / Collection / 数组 / CharSequence / Number / Boolean / null，其他类型按 toString() 写为字符串
+ */
+public final class JsonWriter {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private JsonWriter() {
+    }
+
+    public static String toJson(Object value) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            write(value, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    public static void write(Object value, Appendable out) throws IOException {
+        if (value == null) {
+            out.append("null");
+        } else if (value instanceof CharSequence) {
+            writeString((CharSequence) value, out);
+        } else if (value instanceof Number) {
+            writeNumber((Number) value, out);
+        } else if (value instanceof Boolean) {
+            out.append(value.toString());
+        } else if (value instanceof Map) {
+            out.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                writeString(String.valueOf(entry.getKey()), out);
+                out.append(':');
+                write(entry.getValue(), out);
+            }
+            out.append('}');
+        } else if (value instanceof Collection) {
+            out.append('[');
+            boolean first = true;
+            for (Object element : (Collection<?>) value) {
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                write(element, out);
+            }
+            out.append(']');
+        } else if (value.getClass().isArray() && !(value instanceof byte[])) {
+            out.append('[');
+            int length = Array.getLength(value);
+            for (int i = 0; i < length; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                write(Array.get(value, i), out);
+            }
+            out.append(']');
+        } else if (value instanceof byte[]) {
+            writeString(Base64.getEncoder().encodeToString((byte[]) value), out);
+        } else {
+            writeString(value.toString(), out);
+        }
+    }
+
+    public static void writeString(CharSequence text, Appendable out) throws IOException {
+        out.append('"');
+        int length = text.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            String escaped = null;
+            if (c == '"') {
+                escaped = "\\\"";
+            } else if (c == '\\') {
+                escaped = "\\\\";
+            } else if (c == '\n') {
+                escaped = "\\n";
+            } else if (c == '\r') {
+                escaped = "\\r";
+            } else if (c == '\t') {
+                escaped = "\\t";
+            } else if (c < 0x20 || c == 0x2028 || c == 0x2029) {
+                escaped = "\\u" + HEX[(c >> 12) & 0xF] + HEX[(c >> 8) & 0xF] + HEX[(c >> 4) & 0xF] + HEX[c & 0xF];
+            }
+            if (escaped != null) {
+                out.append(text, start, i).append(escaped);
+                start = i + 1;
+            }
+        }
+        out.append(text, start, length).append('"');
+    }
+
+    private static void writeNumber(Number number, Appendable out) throws IOException {
+        if (number instanceof Double || number instanceof Float) {
+            double d = number.doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                out.append("null");
+                return;
+            }
+        }
+        if (number instanceof BigDecimal) {
+            out.append(((BigDecimal) number).toPlainString());
+            return;
+        }
+        out.append(number.toString());
+    }
+}
@@ -0,0 +1,70 @@
+package io.bolt.plugin.util;
+
+import io.bolt.plugin.api.PluginException;
+
+import java.util.Map;
+
+/**
+ * 动作参数读取工具
+ * 脚本传入的数字可能是 Integer、Long、Double 或字符串，这里统一做宽松转换，
+ * 格式错误时抛出 INVALID_PARAM
+ */
+public final class Params {
+
+    private Params() {
+    }
+
+    public static int getInt(Map<String, Object> params, String key, int defaultValue) {
+        long value = getLong(params, key, defaultValue);
+        if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE) {
+            throw new PluginException("INVALID_PARAM", "参数 " + key + " 超出范围");
+        }
+        return (int) value;
+    }
+
+    public static long getLong(Map<String, Object> params, String key, long defaultValue) {
+        Object value = params.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof String && !((String) value).isEmpty()) {
+            try {
+                return Long.parseLong(((String) value).trim());
+            } catch (NumberFormatException e) {
+                throw new PluginException("INVALID_PARAM", "参数 " + key + " 必须为整数");
+            }
+        }
+        return defaultValue;
+    }
+
+    public static double getDouble(Map<String, Object> params, String key, double defaultValue) {
+        Object value = params.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String && !((String) value).isEmpty()) {
+            try {
+                return Double.parseDouble(((String) value).trim());
+            } catch (NumberFormatException e) {
+                throw new PluginException("INVALID_PARAM", "参数 " + key + " 必须为数字");
+            }
+        }
+        return defaultValue;
+    }
+
+    public static boolean getBoolean(Map<String, Object> params, String key, boolean defaultValue) {
+        Object value = params.get(key);
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof String && !((String) value).isEmpty()) {
+            return Boolean.parseBoolean(((String) value).trim());
+        }
+        return defaultValue;
+    }
+
+    public static String getString(Map<String, Object> params, String key, String defaultValue) {
+        Object value = params.get(key);
+        return value != null && !value.toString().isEmpty() ? value.toString() : defaultValue;
+    }
+}
@@ -0,0 +1,164 @@
+package io.bolt.plugin.util;
+
+import io.bolt.plugin.api.PluginResult;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * PluginResult 的传输编码
+ * 二进制格式比 JSON 紧凑，编码时不经过字符串拼接和转义，解码时不需要词法分析；JSON 格式保留用于兼容只接受文本的调用方
+ *
+ * <p>binary 格式：魔数 "BRES" + 版本号 1 字节 + 标志 1 字节（bit0 成功），
+ * 之后依次是 {@link BinaryWriter} 编码的 error、errorCode、executionTimeMs、metadata、data 五个值。
+ * 魔数首字节不是合法的 JSON 开头，接收方可以按首字节区分两种格式
+ *
+ * <p>JSON 格式：{"success":..,"data":..,"error":..,"errorCode":..,"executionTimeMs":..,"metadata":..}，值为 null 的字段省略
+ */
+public final class PluginResultCodec {
+
+    static final byte[] MAGIC = {'B', 'R', 'E', 'S'};
+    static final int VERSION = 1;
+
+    private static final int FLAG_SUCCESS = 1;
+
+    /**
+     * 每个线程复用的编码缓冲区；编码过大的结果后不再保留，避免长期占用内存
+     */
+    private static final int MAX_RETAINED_BYTES = 1024 * 1024;
+    private static final ThreadLocal<BinaryWriter> WRITERS = ThreadLocal.withInitial(() -> new BinaryWriter(8192));
+
+    private PluginResultCodec() {
+    }
+
+    /**
+     * 编码为二进制，使用线程内复用的缓冲区，只在最后复制一次
+     */
+    public static byte[] encode(PluginResult result) {
+        BinaryWriter writer = WRITERS.get();
+        writer.reset();
+        try {
+            encode(result, writer);
+            return writer.toByteArray();
+        } finally {
+            release(writer);
+        }
+    }
+
+    /**
+     * 编码为二进制直接写入输出流
+     */
+    public static void encode(PluginResult result, OutputStream out) throws IOException {
+        BinaryWriter writer = WRITERS.get();
+        writer.reset();
+        try {
+            encode(result, writer);
+            writer.writeTo(out);
+        } finally {
+            release(writer);
+        }
+    }
+
+    private static void release(BinaryWriter writer) {
+        if (writer.capacity() > MAX_RETAINED_BYTES) {
+            WRITERS.remove();
+        }
+    }
+
+    /**
+     * 编码为二进制追加到调用方的缓冲区；调用方负责 reset 和复用
+     */
+    public static void encode(PluginResult result, BinaryWriter writer) {
+        writer.writeBytes(MAGIC, 0, MAGIC.length);
+        writer.writeByte(VERSION);
+        writer.writeByte(result.isSuccess() ? FLAG_SUCCESS : 0);
+        writer.writeValue(result.getError());
+        writer.writeValue(result.getErrorCode());
+        writer.writeValue(result.getExecutionTimeMs());
+        writer.writeValue(result.getMetadata());
+        writer.writeValue(result.getData());
+    }
+
+    public static PluginResult decode(byte[] bytes) throws IOException {
+        return decode(bytes, 0, bytes.length);
+    }
+
+    /**
+     * 解码二进制格式
+     *
+     * @throws IOException 不是二进制格式、版本不支持或数据损坏
+     */
+    @SuppressWarnings("unchecked")
+    public static PluginResult decode(byte[] bytes, int offset, int length) throws IOException {
+        if (!isBinary(bytes, offset, length)) {
+            throw new IOException("不是二进制编码的插件结果");
+        }
+        BinaryReader reader = new BinaryReader(bytes, offset + MAGIC.length, length - MAGIC.length);
+        int version = reader.readByte();
+        if (version != VERSION) {
+            throw new IOException("不支持的插件结果编码版本: " + version);
+        }
+        int flags = reader.readByte();
+        PluginResult result = new PluginResult();
+        result.setSuccess((flags & FLAG_SUCCESS) != 0);
+        result.setError((String) expect(reader.readValue(), String.class));
+        result.setErrorCode((String) expect(reader.readValue(), String.class));
+        result.setExecutionTimeMs((Long) expect(reader.readValue(), Long.class));
+        result.setMetadata((Map<String, Object>) expect(reader.readValue(), Map.class));
+        result.setData(reader.readValue());
+        if (reader.hasRemaining()) {
+            throw new IOException("二进制数据损坏: 结果之后存在多余内容");
+        }
+        return result;
+    }
+
+    /**
+     * 数据是否以二进制格式的魔数开头
+     */
+    public static boolean isBinary(byte[] bytes, int offset, int length) {
+        return length >= MAGIC.length
+                && Arrays.equals(bytes, offset, offset + MAGIC.length, MAGIC, 0, MAGIC.length);
+    }
+
+    private static Object expect(Object value, Class<?> type) throws IOException {
+        if (value != null && !type.isInstance(value)) {
+            throw new IOException("二进制数据损坏: 期望 " + type.getSimpleName() + "，实际为 "
+                    + value.getClass().getSimpleName());
+        }
+        return value;
+    }
+
+    /**
+     * 编码为 JSON 文本
+     */
+    public static String toJson(PluginResult result) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            writeJson(result, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    public static void writeJson(PluginResult result, Appendable out) throws IOException {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("success", result.isSuccess());
+        putIfNotNull(fields, "data", result.getData());
+        putIfNotNull(fields, "error", result.getError());
+        putIfNotNull(fields, "errorCode", result.getErrorCode());
+        putIfNotNull(fields, "executionTimeMs", result.getExecutionTimeMs());
+        putIfNotNull(fields, "metadata", result.getMetadata());
+        JsonWriter.write(fields, out);
+    }
+
+    private static void putIfNotNull(Map<String, Object> fields, String name, Object value) {
+        if (value != null) {
+            fields.put(name, value);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package io.bolt.plugin.util;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 结果数据大小估算工具
+ * 用于在不序列化的前提下粗略估算插件结果占用的字节数，
+ * 估算值按 Java 字符串 UTF-16 计，偏保守，仅用于限流和统计
+ */
+public final class SizeEstimator {
+
+    private SizeEstimator() {
+    }
+
+    /**
+     * 估算单个值的字节数（Map / Collection / 数组会递归计算）
+     */
+    public static long estimate(Object value) {
+        if (value == null) {
+            return 4;
+        }
+        if (value instanceof CharSequence) {
+            return 2L * ((CharSequence) value).length();
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+            return 8;
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        }
+        if (value instanceof Map) {
+            long size = 16;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += estimate(entry.getKey()) + estimate(entry.getValue());
+            }
+            return size;
+        }
+        if (value instanceof Collection) {
+            long size = 16;
+            for (Object element : (Collection<?>) value) {
+                size += estimate(element);
+            }
+            return size;
+        }
+        if (value instanceof Object[]) {
+            long size = 16;
+            for (Object element : (Object[]) value) {
+                size += estimate(element);
+            }
+            return size;
+        }
+        if (value instanceof java.util.Date || value instanceof java.time.temporal.Temporal) {
+            return 16;
+        }
+        return 2L * String.valueOf(value).length();
+    }
+}
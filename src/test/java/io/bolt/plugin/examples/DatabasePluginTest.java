@@ -0,0 +1,903 @@
+package io.bolt.plugin.examples;
+
+import io.bolt.plugin.api.PluginConfig;
+import io.bolt.plugin.api.PluginContext;
+import io.bolt.plugin.api.PluginResult;
+import io.bolt.plugin.examples.jdbc.QueryOptions;
+import io.bolt.plugin.examples.jdbc.ReplicaRouter;
+import io.bolt.plugin.examples.jdbc.SimpleConnectionPool;
+import io.bolt.plugin.examples.jdbc.TransactionScript;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DatabasePlugin 测试类
+ * 使用 H2 内存数据库
+ */
+class DatabasePluginTest {
+
+    @TempDir
+    Path fileRoot;
+
+    private DatabasePlugin plugin;
+
+    @BeforeEach
+    void setUp() {
+        plugin = new DatabasePlugin();
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("jdbcUrl", "jdbc:h2:mem:db-plugin-test;DB_CLOSE_DELAY=-1");
+        properties.put("username", "sa");
+        properties.put("password", "");
+        properties.put("maxRows", 500);
+        properties.put("fileRoot", fileRoot.toString());
+        properties.put("queryCacheTtlMs", 60000);
+
+        PluginConfig config = PluginConfig.builder()
+                .pluginId("database-plugin")
+                .version("1.0.0")
+                .instanceId("db-test-001")
+                .instanceName("Test Database")
+                .properties(properties)
+                .build();
+
+        plugin.initialize(config, PluginContext.create());
+
+        execute("execute", Map.of("sql", "CREATE TABLE items (id BIGINT PRIMARY KEY, name VARCHAR(64))"));
+        List<List<Object>> batchParams = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            batchParams.add(List.of(i, "item-" + i));
+        }
+        execute("batch", Map.of("sql", "INSERT INTO items (id, name) VALUES (?, ?)", "batchParams", batchParams));
+    }
+
+    @AfterEach
+    void tearDown() {
+        execute("execute", Map.of("sql", "DROP TABLE items"));
+        plugin.destroy();
+    }
+
+    @Test
+    void testQueryAction() {
+        Map<String, Object> data = execute("query", Map.of(
+                "sql", "SELECT id, name FROM items WHERE id = ?",
+                "params", List.of(42)));
+
+        assertEquals(1, data.get("count"));
+        assertEquals(false, data.get("truncated"));
+        assertEquals(List.of("ID", "NAME"), data.get("columns"));
+    }
+
+    @Test
+    void testQueryTruncatedByMaxRows() {
+        Map<String, Object> data = execute("query", Map.of("sql", "SELECT * FROM items"));
+
+        assertEquals(500, data.get("count"));
+        assertEquals(true, data.get("truncated"));
+        assertEquals("maxRows", data.get("truncatedBy"));
+    }
+
+    @Test
+    void testQueryCannotRaiseConfiguredMaxRows() {
+        Map<String, Object> data = execute("query", Map.of("sql", "SELECT * FROM items", "maxRows", 5000));
+
+        assertEquals(500, data.get("count"));
+    }
+
+    @Test
+    void testQueryTruncatedByMaxBytes() {
+        Map<String, Object> data = execute("query", Map.of("sql", "SELECT * FROM items", "maxBytes", 1024));
+
+        assertEquals(true, data.get("truncated"));
+        assertEquals("maxBytes", data.get("truncatedBy"));
+        assertTrue((Integer) data.get("count") < 100);
+    }
+
+    @Test
+    void testKeysetPagingVisitsEveryRowOnce() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("sql", "SELECT id, name FROM items WHERE id > ?");
+        params.put("params", List.of(100));
+        params.put("pageSize", 300);
+        params.put("keyColumn", "id");
+
+        long expectedId = 101;
+        int pages = 0;
+        while (true) {
+            Map<String, Object> data = execute("query", params);
+            pages++;
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> rows = (List<Map<String, Object>>) data.get("rows");
+            for (Map<String, Object> row : rows) {
+                assertEquals(expectedId++, ((Number) row.get("ID")).longValue());
+            }
+            if (!Boolean.TRUE.equals(data.get("hasMore"))) {
+                break;
+            }
+            params.put("continuationToken", data.get("nextToken"));
+        }
+
+        assertEquals(1001, expectedId);
+        assertEquals(3, pages);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testKeysetPagingKeepsKeyType() {
+        execute("execute", Map.of("sql", "CREATE TABLE tagged (id UUID PRIMARY KEY, flag BOOLEAN)"));
+        try {
+            List<List<Object>> batchParams = new ArrayList<>();
+            for (int i = 0; i < 25; i++) {
+                batchParams.add(List.of(UUID.randomUUID().toString(), i % 2 == 0));
+            }
+            execute("batch", Map.of("sql", "INSERT INTO tagged (id, flag) VALUES (?, ?)", "batchParams", batchParams));
+
+            Map<String, Object> params = new HashMap<>();
+            params.put("sql", "SELECT id FROM tagged WHERE id > ? ORDER BY id");
+            params.put("params", List.of("00000000-0000-0000-0000-000000000000"));
+            params.put("pageSize", 10);
+            params.put("keyColumn", "id");
+            int seen = 0;
+            while (true) {
+                Map<String, Object> data = execute("query", params);
+                seen += ((List<Map<String, Object>>) data.get("rows")).size();
+                if (!Boolean.TRUE.equals(data.get("hasMore"))) {
+                    break;
+                }
+                params.put("continuationToken", data.get("nextToken"));
+            }
+            assertEquals(25, seen);
+
+            PluginResult result = plugin.execute("query", Map.of(
+                    "sql", "SELECT flag FROM tagged WHERE flag > ? ORDER BY flag",
+                    "params", List.of(false),
+                    "pageSize", 5,
+                    "keyColumn", "flag"), PluginContext.create());
+            assertFalse(result.isSuccess());
+            assertEquals("INVALID_PARAM", result.getError());
+        } finally {
+            execute("execute", Map.of("sql", "DROP TABLE tagged"));
+        }
+    }
+
+    @Test
+    void testContinuationTokenRejectedForOtherQuery() {
+        Map<String, Object> first = execute("query", Map.of(
+                "sql", "SELECT * FROM items", "pageSize", 10, "keyColumn", "id"));
+
+        PluginResult result = plugin.execute("query", Map.of(
+                "sql", "SELECT id FROM items",
+                "pageSize", 10,
+                "keyColumn", "id",
+                "continuationToken", first.get("nextToken")), PluginContext.create());
+
+        assertFalse(result.isSuccess());
+    }
+
+    @Test
+    void testBatchReportsFailedRowsAndContinues() {
+        List<List<Object>> rows = List.of(
+                List.of(2001, "a"), List.of(2002, "b"), List.of(1, "duplicate"), List.of(2003, "c"));
+
+        // 单事务和按分片提交两种模式，已提交行数都不含失败的行
+        for (boolean commitPerChunk : List.of(false, true)) {
+            Map<String, Object> data = execute("batch", Map.of(
+                    "sql", "INSERT INTO items (id, name) VALUES (?, ?)",
+                    "batchParams", rows,
+                    "chunkSize", 2,
+                    "continueOnError", true,
+                    "commitPerChunk", commitPerChunk));
+
+            assertEquals(3L, data.get("succeededRows"));
+            assertEquals(1L, data.get("failedCount"));
+            assertEquals(3L, data.get("committedRows"));
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> errors = (List<Map<String, Object>>) data.get("errors");
+            assertEquals(2L, errors.get(0).get("index"));
+            assertEquals(1003, countItems());
+
+            execute("update", Map.of("sql", "DELETE FROM items WHERE id > 2000"));
+        }
+    }
+
+    @Test
+    void testBatchFailureRollsBackWholeTransaction() {
+        List<List<Object>> rows = List.of(List.of(2001, "a"), List.of(2002, "b"), List.of(1, "duplicate"));
+
+        PluginResult result = plugin.execute("batch", Map.of(
+                "sql", "INSERT INTO items (id, name) VALUES (?, ?)",
+                "batchParams", rows,
+                "chunkSize", 2), PluginContext.create());
+
+        assertFalse(result.isSuccess());
+        assertEquals(2L, result.getMetadata().get("failedIndex"));
+        assertEquals(1000, countItems());
+    }
+
+    @Test
+    void testParallelRewrittenBatch() {
+        List<List<Object>> rows = new ArrayList<>();
+        for (int i = 5001; i <= 7000; i++) {
+            rows.add(List.of(i, "bulk-" + i));
+        }
+
+        Map<String, Object> data = execute("batch", Map.of(
+                "sql", "INSERT INTO items (id, name) VALUES (?, ?)",
+                "batchParams", rows,
+                "chunkSize", 300,
+                "commitPerChunk", true,
+                "parallelism", 4,
+                "rewriteInserts", true));
+
+        assertEquals(2000L, data.get("totalAffected"));
+        assertEquals(7, data.get("chunks"));
+        assertEquals(2000L, data.get("committedRows"));
+        assertEquals(3000, countItems());
+    }
+
+    @Test
+    void testParallelBatchRequiresCommitPerChunk() {
+        PluginResult result = plugin.execute("batch", Map.of(
+                "sql", "INSERT INTO items (id, name) VALUES (?, ?)",
+                "batchParams", List.of(List.of(3001, "x")),
+                "parallelism", 2), PluginContext.create());
+
+        assertFalse(result.isSuccess());
+    }
+
+    @Test
+    void testImportCsvWithHeader() throws IOException {
+        StringBuilder csv = new StringBuilder("name,id\n");
+        for (int i = 1; i <= 2500; i++) {
+            csv.append("\"item, ").append(i).append("\",").append(5000 + i).append('\n');
+        }
+        Files.write(fileRoot.resolve("items.csv"), csv.toString().getBytes(StandardCharsets.UTF_8));
+
+        Map<String, Object> data = execute("import", Map.of(
+                "sql", "INSERT INTO items (id, name) VALUES (?, ?)",
+                "file", "items.csv",
+                "columns", List.of("id", "name"),
+                "chunkSize", 1000,
+                "parallelism", 2));
+
+        assertEquals(2500L, data.get("rowsRead"));
+        assertEquals(2500L, data.get("committedRows"));
+        assertEquals(3, data.get("chunks"));
+        assertEquals(3500, countItems());
+    }
+
+    @Test
+    void testImportJsonlContinuesOnBadLine() throws IOException {
+        Files.write(fileRoot.resolve("items.jsonl"), List.of(
+                "{\"id\": 6001, \"name\": \"a\"}",
+                "{\"id\": 6002, \"name\": ",
+                "{\"id\": 6003, \"name\": {\"nested\": true}}"), StandardCharsets.UTF_8);
+
+        Map<String, Object> data = execute("import", Map.of(
+                "sql", "INSERT INTO items (id, name) VALUES (?, ?)",
+                "file", "items.jsonl",
+                "columns", List.of("id", "name"),
+                "continueOnError", true));
+
+        assertEquals(3L, data.get("rowsRead"));
+        assertEquals(2L, data.get("succeededRows"));
+        assertEquals(1L, data.get("failedCount"));
+        assertEquals(1002, countItems());
+    }
+
+    @Test
+    void testImportRejectsPathOutsideFileRoot() {
+        PluginResult result = plugin.execute("import", Map.of(
+                "sql", "INSERT INTO items (id, name) VALUES (?, ?)",
+                "file", "../outside.csv"), PluginContext.create());
+
+        assertFalse(result.isSuccess());
+        assertEquals(1000, countItems());
+    }
+
+    @Test
+    void testFileActionsRejectSymlinkOutsideFileRoot(@TempDir Path outside) throws IOException {
+        Files.writeString(outside.resolve("secret.csv"), "3001,leaked\n");
+        Files.createSymbolicLink(fileRoot.resolve("escape"), outside);
+        Files.createSymbolicLink(fileRoot.resolve("secret.csv"), outside.resolve("secret.csv"));
+
+        PluginResult export = plugin.execute("export", Map.of(
+                "sql", "SELECT * FROM items", "file", "escape/items.csv"), PluginContext.create());
+        PluginResult imported = plugin.execute("import", Map.of(
+                "sql", "INSERT INTO items (id, name) VALUES (?, ?)",
+                "file", "secret.csv"), PluginContext.create());
+
+        assertFalse(export.isSuccess());
+        assertFalse(Files.exists(outside.resolve("items.csv")));
+        assertFalse(imported.isSuccess());
+        assertEquals(1000, countItems());
+    }
+
+    @Test
+    void testExportCsv() throws IOException {
+        Map<String, Object> data = execute("export", Map.of(
+                "sql", "SELECT id, name FROM items WHERE id <= ? ORDER BY id",
+                "params", List.of(3),
+                "file", "out/items.csv"));
+
+        Path file = fileRoot.resolve("out/items.csv");
+        assertEquals(3L, data.get("rowCount"));
+        assertEquals(Files.size(file), data.get("byteCount"));
+        assertEquals(List.of("ID,NAME", "1,item-1", "2,item-2", "3,item-3"), Files.readAllLines(file));
+    }
+
+    @Test
+    void testExportGzipJsonlStreamsAllRows() throws IOException {
+        Map<String, Object> data = execute("export", Map.of(
+                "sql", "SELECT id, name FROM items ORDER BY id",
+                "file", "items.jsonl.gz",
+                "fetchSize", 100));
+
+        Path file = fileRoot.resolve("items.jsonl.gz");
+        assertEquals(1000L, data.get("rowCount"));
+        assertEquals(true, data.get("compressed"));
+        assertEquals(Files.size(file), data.get("byteCount"));
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            assertEquals("{\"ID\":1,\"NAME\":\"item-1\"}", reader.readLine());
+            assertEquals(999, reader.lines().count());
+        }
+    }
+
+    @Test
+    void testExportRefusesToOverwrite() throws IOException {
+        Files.writeString(fileRoot.resolve("existing.bin"), "keep");
+
+        PluginResult result = plugin.execute("export", Map.of(
+                "sql", "SELECT * FROM items",
+                "file", "existing.bin"), PluginContext.create());
+
+        assertFalse(result.isSuccess());
+        assertEquals("keep", Files.readString(fileRoot.resolve("existing.bin")));
+
+        execute("export", Map.of("sql", "SELECT * FROM items", "file", "existing.bin", "overwrite", true));
+        byte[] header = Arrays.copyOf(Files.readAllBytes(fileRoot.resolve("existing.bin")), 4);
+        assertArrayEquals("BOLT".getBytes(StandardCharsets.US_ASCII), header);
+    }
+
+    @Test
+    void testQueryCacheInvalidatedByWriteToSameTable() {
+        Map<String, Object> query = Map.of("sql", "SELECT name FROM items WHERE id = ?", "params", List.of(7));
+
+        assertNull(execute("query", query).get("cached"));
+        assertEquals(true, execute("query", query).get("cached"));
+
+        execute("update", Map.of("sql", "UPDATE items SET name = ? WHERE id = ?", "params", List.of("renamed", 7)));
+
+        Map<String, Object> data = execute("query", query);
+        assertNull(data.get("cached"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> rows = (List<Map<String, Object>>) data.get("rows");
+        assertEquals("renamed", rows.get(0).get("NAME"));
+    }
+
+    @Test
+    void testQueryCacheHitKeepsResultBytes() {
+        Map<String, Object> query = Map.of("sql", "SELECT name FROM items WHERE id = ?", "params", List.of(3));
+
+        PluginResult miss = plugin.execute("query", query, PluginContext.create());
+        PluginResult hit = plugin.execute("query", query, PluginContext.create());
+        assertEquals(true, hit.getDataAsMap().get("cached"));
+        long bytes = ((Number) miss.getMetadata().get("resultBytes")).longValue();
+        assertTrue(bytes > 0);
+        assertEquals(bytes, ((Number) hit.getMetadata().get("resultBytes")).longValue());
+    }
+
+    @Test
+    void testQueryCacheKeepsEntriesForOtherTables() {
+        execute("execute", Map.of("sql", "CREATE TABLE tags (id INT PRIMARY KEY)"));
+        try {
+            Map<String, Object> query = Map.of("sql", "SELECT i.name FROM items i WHERE i.id = 1");
+            execute("query", query);
+
+            execute("update", Map.of("sql", "INSERT INTO tags (id) VALUES (1)"));
+
+            assertEquals(true, execute("query", query).get("cached"));
+            assertNull(execute("query", Map.of("sql", "SELECT i.name FROM items i WHERE i.id = 1",
+                    "cache", false)).get("cached"));
+        } finally {
+            execute("execute", Map.of("sql", "DROP TABLE tags"));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testQueryCacheIsolatedFromCallerMutation() {
+        Map<String, Object> query = Map.of("sql", "SELECT id, name FROM items WHERE id <= 3");
+
+        List<Map<String, Object>> first = (List<Map<String, Object>>) execute("query", query).get("rows");
+        first.get(0).put("NAME", "mutated");
+        first.clear();
+
+        Map<String, Object> cached = execute("query", query);
+        assertEquals(true, cached.get("cached"));
+        List<Map<String, Object>> rows = (List<Map<String, Object>>) cached.get("rows");
+        assertEquals(3, rows.size());
+        assertFalse(rows.stream().anyMatch(row -> "mutated".equals(row.get("NAME"))));
+        assertThrows(UnsupportedOperationException.class, () -> rows.get(0).put("NAME", "mutated"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testParallelQueryRangePartitionsMergeInOrder() {
+        Map<String, Object> data = execute("parallelQuery", Map.of(
+                "sql", "SELECT id, name FROM items WHERE id > ?",
+                "params", List.of(100),
+                "partitionColumn", "id",
+                "lowerBound", 1,
+                "upperBound", 1001,
+                "partitions", 4));
+
+        List<Map<String, Object>> rows = (List<Map<String, Object>>) data.get("rows");
+        assertEquals(500, rows.size());
+        assertEquals(true, data.get("truncated"));
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(101L + i, ((Number) rows.get(i).get("ID")).longValue());
+        }
+        assertEquals(4, ((List<?>) data.get("partitions")).size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testParallelQueryHashPartitionsMergeInOrder() {
+        Map<String, Object> data = execute("parallelQuery", Map.of(
+                "sql", "SELECT id FROM items WHERE id <= 300",
+                "partitionColumn", "id",
+                "partitionMode", "hash",
+                "partitions", 3));
+
+        List<Map<String, Object>> rows = (List<Map<String, Object>>) data.get("rows");
+        assertEquals(300, rows.size());
+        assertEquals(false, data.get("truncated"));
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(1L + i, ((Number) rows.get(i).get("ID")).longValue());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testParallelQuerySharesLimitAcrossPartitions() {
+        Map<String, Object> data = execute("parallelQuery", Map.of(
+                "sql", "SELECT id FROM items",
+                "partitionColumn", "id",
+                "partitionMode", "hash",
+                "partitions", 4,
+                "maxRows", 100));
+
+        List<Map<String, Object>> rows = (List<Map<String, Object>>) data.get("rows");
+        assertEquals(100, rows.size());
+        assertEquals(true, data.get("truncated"));
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(1L + i, ((Number) rows.get(i).get("ID")).longValue());
+        }
+        // 各分区保留的行合计不超过单个查询的上限
+        int retained = 0;
+        for (Map<String, Object> partition : (List<Map<String, Object>>) data.get("partitions")) {
+            retained += (Integer) partition.get("rows");
+        }
+        assertTrue(retained <= 100);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testParallelQueryMergesLargeKeysExactly() {
+        execute("execute", Map.of("sql", "CREATE TABLE big_keys (id BIGINT PRIMARY KEY)"));
+        try {
+            // 2^53 + 3 和 2^53 + 4 转换为 double 后相等
+            long base = 1L << 53;
+            List<List<Object>> batchParams = new ArrayList<>();
+            for (long id : new long[]{base + 4, base + 3, base + 6, base + 5}) {
+                batchParams.add(List.of(id));
+            }
+            execute("batch", Map.of("sql", "INSERT INTO big_keys (id) VALUES (?)", "batchParams", batchParams));
+
+            Map<String, Object> data = execute("parallelQuery", Map.of(
+                    "sql", "SELECT id FROM big_keys",
+                    "partitionColumn", "id",
+                    "partitionMode", "hash",
+                    "partitions", 2));
+
+            List<Long> ids = new ArrayList<>();
+            for (Map<String, Object> row : (List<Map<String, Object>>) data.get("rows")) {
+                ids.add(((Number) row.get("ID")).longValue());
+            }
+            assertEquals(List.of(base + 3, base + 4, base + 5, base + 6), ids);
+        } finally {
+            execute("execute", Map.of("sql", "DROP TABLE big_keys"));
+        }
+    }
+
+    @Test
+    void testParallelQueryFailsWhenAnyPartitionFails() {
+        PluginResult result = plugin.execute("parallelQuery", Map.of(
+                "sql", "SELECT id, CAST(name AS INT) AS n FROM items",
+                "partitionColumn", "id",
+                "partitionMode", "hash",
+                "partitions", 4,
+                "ordered", false), PluginContext.create());
+
+        assertFalse(result.isSuccess());
+        assertEquals("QUERY_FAILED", result.getErrorCode());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testTransactionFeedsGeneratedKeysForward() {
+        execute("execute", Map.of("sql",
+                "CREATE TABLE orders (id BIGINT AUTO_INCREMENT PRIMARY KEY, item_id BIGINT, qty INT)"));
+        try {
+            Map<String, Object> data = execute("transaction", Map.of("statements", List.of(
+                    Map.of("name", "item", "sql", "SELECT id FROM items WHERE name = ?", "params", List.of("item-9")),
+                    Map.of("name", "order", "sql", "INSERT INTO orders (item_id, qty) VALUES (?, ?)",
+                            "params", List.of(Map.of("$ref", "item.rows[0].id"), 3)),
+                    Map.of("sql", "UPDATE items SET name = ? WHERE id = ?",
+                            "params", List.of("ordered", Map.of("$ref", "item.rows[0].ID"))),
+                    Map.of("name", "check", "sql", "SELECT item_id FROM orders WHERE id = ?",
+                            "params", List.of(Map.of("$ref", "order.generatedKey")))
+            )));
+
+            assertEquals(true, data.get("committed"));
+            assertEquals(2L, data.get("totalAffected"));
+            List<Map<String, Object>> results = (List<Map<String, Object>>) data.get("results");
+            List<Map<String, Object>> rows = (List<Map<String, Object>>) results.get(3).get("rows");
+            assertEquals(9L, ((Number) rows.get(0).get("ITEM_ID")).longValue());
+        } finally {
+            execute("execute", Map.of("sql", "DROP TABLE orders"));
+        }
+    }
+
+    @Test
+    void testTransactionRollsBackAllStatementsOnFailure() {
+        PluginResult result = plugin.execute("transaction", Map.of("statements", List.of(
+                Map.of("sql", "DELETE FROM items WHERE id <= 10"),
+                Map.of("name", "dup", "sql", "INSERT INTO items (id, name) VALUES (?, ?)", "params", List.of(20, "x"))
+        )), PluginContext.create());
+
+        assertFalse(result.isSuccess());
+        assertEquals(1, result.getMetadata().get("failedIndex"));
+        assertEquals("dup", result.getMetadata().get("failedName"));
+        assertEquals(1000, countItems());
+    }
+
+    @Test
+    void testTransactionKeepsErrorCodeOfInvalidReference() {
+        PluginResult result = plugin.execute("transaction", Map.of("statements", List.of(
+                Map.of("sql", "DELETE FROM items WHERE id <= 10"),
+                Map.of("sql", "UPDATE items SET name = ? WHERE id = ?",
+                        "params", List.of("x", Map.of("$ref", "missing.rows[0].id")))
+        )), PluginContext.create());
+
+        assertFalse(result.isSuccess());
+        assertEquals("INVALID_REF", result.getErrorCode());
+        assertEquals(1, result.getMetadata().get("failedIndex"));
+        assertEquals(1000, countItems());
+    }
+
+    @Test
+    void testQueryTimeoutCancelsRunningStatement() {
+        long start = System.nanoTime();
+        PluginResult result = plugin.execute("query", Map.of(
+                "sql", "SELECT COUNT(*) FROM SYSTEM_RANGE(1, 100000) a, SYSTEM_RANGE(1, 100000) b",
+                "timeoutMs", 300), PluginContext.create());
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertFalse(result.isSuccess());
+        assertEquals("QUERY_TIMEOUT", result.getErrorCode());
+        assertTrue(elapsedMs < 5000, "语句应在超时后很快被取消，实际耗时 " + elapsedMs + "ms");
+
+        // 连接归还后仍可正常使用
+        assertEquals(1000, countItems());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStatsGroupBySqlFingerprint() {
+        execute("query", Map.of("sql", "SELECT * FROM items WHERE id = 1"));
+        execute("query", Map.of("sql", "select *  from items where id = 42 -- 按主键"));
+        execute("query", Map.of("sql", "SELECT * FROM items WHERE id IN (1, 2, 3)"));
+        execute("query", Map.of("sql", "SELECT * FROM items WHERE id IN (4, 5)"));
+        execute("query", Map.of("sql", "SELECT * FROM items WHERE id IN (4, 5)"));
+        execute("update", Map.of("sql", "UPDATE items SET name = 'x' WHERE id = -7"));
+
+        Map<String, Object> stats = execute("stats", Map.of("sortBy", "count"));
+        Map<String, Map<String, Object>> byFingerprint = new HashMap<>();
+        for (Map<String, Object> entry : (List<Map<String, Object>>) stats.get("fingerprints")) {
+            byFingerprint.put((String) entry.get("fingerprint"), entry);
+        }
+
+        Map<String, Object> pointLookup = byFingerprint.get("select * from items where id = ?");
+        assertEquals(2L, pointLookup.get("count"));
+        assertEquals(2L, pointLookup.get("rows"));
+        assertTrue((Long) pointLookup.get("bytes") > 0);
+        Map<String, Object> inList = byFingerprint.get("select * from items where id in (?+)");
+        assertEquals(2L, inList.get("count"));
+        assertEquals(1L, inList.get("cacheHits"));
+        assertEquals(5L, inList.get("rows"));
+        assertEquals(0L, byFingerprint.get("update items set name = ? where id = ?").get("rows"));
+        assertTrue(stats.containsKey("cache"));
+
+        execute("stats", Map.of("reset", true));
+        assertEquals(0, execute("stats", Map.of()).get("fingerprintCount"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSlowQueryLogRecordsTimedOutStatement() {
+        DatabasePlugin profiled = newPlugin(Map.of("slowQueryThresholdMs", 100));
+        try {
+            profiled.execute("query", Map.of(
+                    "sql", "SELECT COUNT(*) FROM SYSTEM_RANGE(1, 100000) a, SYSTEM_RANGE(1, 100000) b",
+                    "timeoutMs", 200), PluginContext.create());
+
+            Map<String, Object> stats = profiled.execute("stats", Map.of(), PluginContext.create()).getDataAsMap();
+            List<Map<String, Object>> slow = (List<Map<String, Object>>) stats.get("slowQueries");
+            assertEquals(1, slow.size());
+            assertEquals("select count(*) from system_range(?, ?) a, system_range(?, ?) b",
+                    slow.get(0).get("fingerprint"));
+            assertTrue((Long) slow.get(0).get("elapsedMs") >= 100);
+            assertNotNull(slow.get(0).get("error"));
+        } finally {
+            profiled.destroy();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGroupCommitCoalescesConcurrentUpdates() throws Exception {
+        DatabasePlugin grouped = newPlugin(Map.of(
+                "groupCommitEnabled", true,
+                "groupCommitMaxDelayMs", 2000,
+                "groupCommitMaxBatchSize", 8));
+        try {
+            List<PluginResult> results = concurrentInserts(grouped, List.of(2001, 2002, 2003, 2004, 2005, 2006, 2007, 2008));
+            for (PluginResult result : results) {
+                assertTrue(result.isSuccess(), result.getError());
+                assertEquals(1, result.getDataAsMap().get("affectedRows"));
+                assertEquals(8, result.getDataAsMap().get("groupSize"));
+            }
+            assertEquals(1008, countItems());
+
+            // 批次中有一行失败时逐行重试，只有该行的调用方收到错误
+            results = concurrentInserts(grouped, List.of(3001, 3002, 3003, 5, 3005, 3006, 3007, 3008));
+            assertEquals(7, results.stream().filter(PluginResult::isSuccess).count());
+            assertFalse(results.get(3).isSuccess());
+            // 其他实例的写入不会失效本实例的查询缓存，这里绕开缓存计数
+            PluginResult count = grouped.execute("query", Map.of(
+                    "sql", "SELECT COUNT(*) AS total FROM items WHERE name LIKE 'grouped-%'"), PluginContext.create());
+            assertEquals(15, ((Number) ((List<Map<String, Object>>) count.getDataAsMap().get("rows"))
+                    .get(0).get("TOTAL")).intValue());
+        } finally {
+            grouped.destroy();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGroupCommitWaitHonorsCallTimeout() throws Exception {
+        DatabasePlugin grouped = newPlugin(Map.of(
+                "groupCommitEnabled", true,
+                "groupCommitMaxDelayMs", 1000,
+                "groupCommitMaxBatchSize", 8));
+        try {
+            PluginResult result = grouped.execute("update", Map.of(
+                    "sql", "INSERT INTO items (id, name) VALUES (?, ?)",
+                    "params", List.of(4001, "grouped-4001"),
+                    "timeoutMs", 200), PluginContext.create());
+            assertFalse(result.isSuccess());
+            assertEquals("QUERY_TIMEOUT", result.getErrorCode());
+
+            // 超时的行已撤回，窗口结束后也不会写入；收集中的组随之移除
+            Thread.sleep(1300);
+            assertEquals(1000, countItems());
+            Map<String, Object> stats = (Map<String, Object>) grouped.execute("stats", Map.of(),
+                    PluginContext.create()).getDataAsMap().get("groupCommit");
+            assertEquals(0, stats.get("pendingGroups"));
+            assertEquals(0L, stats.get("batches"));
+        } finally {
+            grouped.destroy();
+        }
+    }
+
+    private static List<PluginResult> concurrentInserts(DatabasePlugin target, List<Integer> ids) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(ids.size());
+        try {
+            List<Future<PluginResult>> futures = new ArrayList<>();
+            for (int id : ids) {
+                futures.add(executor.submit(() -> target.execute("update", Map.of(
+                        "sql", "INSERT INTO items (id, name) VALUES (?, ?)",
+                        "params", List.of(id, "grouped-" + id)), PluginContext.create())));
+            }
+            List<PluginResult> results = new ArrayList<>();
+            for (Future<PluginResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private DatabasePlugin newPlugin(Map<String, Object> extra) {
+        DatabasePlugin created = new DatabasePlugin();
+        Map<String, Object> properties = new HashMap<>(extra);
+        properties.put("jdbcUrl", "jdbc:h2:mem:db-plugin-test;DB_CLOSE_DELAY=-1");
+        properties.put("username", "sa");
+        properties.put("password", "");
+        created.initialize(PluginConfig.builder()
+                .pluginId("database-plugin")
+                .version("1.0.0")
+                .instanceId("db-test-extra")
+                .instanceName("Extra Database")
+                .properties(properties)
+                .build(), PluginContext.create());
+        return created;
+    }
+
+    @Test
+    void testReadsGoToReplicaUntilWriteInSameExecution() {
+        DatabasePlugin routed = newPlugin(Map.of(
+                "replicaUrls", "jdbc:h2:mem:db-plugin-replica;DB_CLOSE_DELAY=-1, jdbc:h2:tcp://127.0.0.1:1/none",
+                "replicaEjectAfterFailures", 1));
+        try {
+            PluginContext context = PluginContext.create();
+            context.setExecutionId("exec-1");
+            Map<String, Object> query = Map.of("sql", "SELECT COUNT(*) AS total FROM INFORMATION_SCHEMA.TABLES "
+                    + "WHERE TABLE_NAME = 'ITEMS'");
+
+            // 从库中没有 items 表；不可达的从库被摘除后读操作仍落在可用从库上
+            for (int i = 0; i < 3; i++) {
+                assertEquals(0, total(routed.execute("query", query, context)));
+            }
+
+            assertTrue(routed.execute("update", Map.of("sql", "UPDATE items SET name = name WHERE id = 1"),
+                    context).isSuccess());
+            assertEquals(1, total(routed.execute("query", query, context)));
+            assertEquals(0, total(routed.execute("query", query, PluginContext.create())));
+        } finally {
+            routed.destroy();
+        }
+    }
+
+    @Test
+    void testPinnedExecutionBypassesQueryCache() {
+        DatabasePlugin routed = newPlugin(Map.of(
+                "replicaUrls", "jdbc:h2:mem:db-plugin-replica;DB_CLOSE_DELAY=-1", "queryCacheTtlMs", 60000));
+        try {
+            PluginContext context = PluginContext.create();
+            context.setExecutionId("exec-1");
+            Map<String, Object> query = Map.of("sql", "SELECT COUNT(*) AS total FROM INFORMATION_SCHEMA.TABLES "
+                    + "WHERE TABLE_NAME = 'ITEMS'");
+
+            routed.execute("query", query, context);
+            assertEquals(true, routed.execute("query", query, context).getDataAsMap().get("cached"));
+
+            // 写入后该执行固定读主库，缓存中从库的结果不能返回给它
+            assertTrue(routed.execute("update", Map.of("sql", "UPDATE items SET name = name WHERE id = 1"),
+                    context).isSuccess());
+            PluginResult pinned = routed.execute("query", query, context);
+            assertNull(pinned.getDataAsMap().get("cached"));
+            assertEquals(1, total(pinned));
+
+            Map<String, Object> primary = new HashMap<>(query);
+            primary.put("readFromPrimary", true);
+            PluginResult fromPrimary = routed.execute("query", primary, PluginContext.create());
+            assertNull(fromPrimary.getDataAsMap().get("cached"));
+            assertEquals(1, total(fromPrimary));
+        } finally {
+            routed.destroy();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBusyReplicaIsNotEjectedAndStartedReadsAreNotRetried() throws Exception {
+        SimpleConnectionPool primary = new SimpleConnectionPool(
+                "jdbc:h2:mem:db-plugin-test;DB_CLOSE_DELAY=-1", "sa", "", 2, 1000);
+        SimpleConnectionPool replicaPool = new SimpleConnectionPool(
+                "jdbc:h2:mem:db-plugin-replica;DB_CLOSE_DELAY=-1", "sa", "", 1, 50);
+        try (ReplicaRouter router = new ReplicaRouter(primary, List.of(replicaPool), 1, 60_000, 0)) {
+            // 从库连接池借满：报繁忙，不摘除从库，也不转到主库
+            try (Connection held = replicaPool.getConnection()) {
+                assertThrows(SimpleConnectionPool.PoolExhaustedException.class,
+                        () -> router.read(null, false, conn -> 1));
+            }
+            Map<String, Object> node = ((List<Map<String, Object>>) router.stats().get("replicas")).get(0);
+            assertEquals(false, node.get("ejected"));
+            assertEquals(1L, node.get("exhausted"));
+            assertEquals(0L, router.stats().get("primaryReads"));
+
+            // 读操作开始后的连接错误原样抛出，不在其他节点上重复执行
+            AtomicInteger attempts = new AtomicInteger();
+            SQLException error = assertThrows(SQLException.class, () -> router.read(null, false, conn -> {
+                attempts.incrementAndGet();
+                throw new SQLException("connection reset", "08006");
+            }));
+            assertEquals("08006", error.getSQLState());
+            assertEquals(1, attempts.get());
+            assertEquals(0L, router.stats().get("primaryReads"));
+        }
+    }
+
+    @Test
+    void testTransactionKeepsStepErrorWhenIsolationRestoreFails() throws Exception {
+        TransactionScript script = TransactionScript.from(Map.of(
+                "isolation", "SERIALIZABLE",
+                "statements", List.of(Map.of("name", "broken", "sql", "UPDATE missing_table SET x = 1"))),
+                QueryOptions.defaults(0, 0, 0));
+
+        try (Connection real = DriverManager.getConnection("jdbc:h2:mem:db-plugin-test;DB_CLOSE_DELAY=-1", "sa", "")) {
+            int[] calls = {0};
+            // 第二次设置隔离级别（恢复原值）时失败
+            Connection conn = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("setTransactionIsolation") && ++calls[0] == 2) {
+                            throw new SQLException("connection closed", "08003");
+                        }
+                        try {
+                            return method.invoke(real, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+
+            TransactionScript.StepFailedException error =
+                    assertThrows(TransactionScript.StepFailedException.class, () -> script.execute(conn));
+            assertEquals("broken", error.getName());
+            assertEquals(1, error.getSuppressed().length);
+            assertEquals("08003", ((SQLException) error.getSuppressed()[0]).getSQLState());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int total(PluginResult result) {
+        assertTrue(result.isSuccess(), "动作执行失败: " + result.getError());
+        List<Map<String, Object>> rows = (List<Map<String, Object>>) ((Map<String, Object>) result.getData()).get("rows");
+        return ((Number) rows.get(0).get("TOTAL")).intValue();
+    }
+
+    private int countItems() {
+        Map<String, Object> data = execute("query", Map.of("sql", "SELECT COUNT(*) AS total FROM items"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> rows = (List<Map<String, Object>>) data.get("rows");
+        return ((Number) rows.get(0).get("TOTAL")).intValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> execute(String action, Map<String, Object> params) {
+        PluginResult result = plugin.execute(action, params, PluginContext.create());
+        assertTrue(result.isSuccess(), "动作执行失败: " + result.getError());
+        return (Map<String, Object>) result.getData();
+    }
+}
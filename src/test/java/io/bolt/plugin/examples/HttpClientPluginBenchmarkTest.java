@@ -0,0 +1,156 @@
+package io.bolt.plugin.examples;
+
+import io.bolt.plugin.api.PluginConfig;
+import io.bolt.plugin.api.PluginContext;
+import io.bolt.plugin.api.PluginResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HttpClientPlugin 吞吐和延迟基准
+ * 请求发往进程内的 {@link StubHttpServer}，不需要网络；耗时较长，设置 ENABLE_BENCHMARKS=true 时运行：
+ * <pre>
+ * ENABLE_BENCHMARKS=true mvn test -Dtest=HttpClientPluginBenchmarkTest
+ * </pre>
+ * 每个场景先预热，再输出吞吐（请求/秒）和 p50 / p95 / p99 延迟
+ */
+@EnabledIfEnvironmentVariable(named = "ENABLE_BENCHMARKS", matches = "true")
+class HttpClientPluginBenchmarkTest {
+
+    private static final int WARMUP = 200;
+
+    private StubHttpServer server;
+    private HttpClientPlugin plugin;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = StubHttpServer.start();
+        server.route("/small").body("x".repeat(1024));
+        server.route("/slow").body("ok").latency(5);
+        server.route("/flaky").body("ok").failureRate(0.2, StubHttpServer.Failure.STATUS);
+        StringBuilder json = new StringBuilder("{\"meta\":{\"total\":5000},\"items\":[");
+        for (int i = 0; i < 5000; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"item-").append(i)
+                    .append("\",\"description\":\"").append("lorem ipsum ".repeat(5)).append("\"}");
+        }
+        server.route("/large").json(json.append("]}").toString()).gzip().chunked();
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("maxConnectionsPerHost", 64);
+        properties.put("httpVersion", "HTTP_1_1");
+        properties.put("retryBaseDelayMs", 1);
+        properties.put("retryBudgetTokens", 0);
+        plugin = new HttpClientPlugin();
+        plugin.initialize(PluginConfig.builder()
+                .pluginId("http-client-plugin")
+                .version("1.0.0")
+                .instanceId("http-benchmark-001")
+                .instanceName("HTTP Benchmark")
+                .properties(properties)
+                .build(), PluginContext.create());
+    }
+
+    @AfterEach
+    void tearDown() {
+        plugin.destroy();
+        server.close();
+    }
+
+    @Test
+    void benchmarkSequentialKeepAlive() throws Exception {
+        run("sequential 1KB GET", 5000, 1, () -> get(Map.of("url", server.url("/small"))));
+    }
+
+    @Test
+    void benchmarkConcurrentAsync() throws Exception {
+        run("async 5ms GET x64", 5000, 64, () -> get(Map.of("url", server.url("/slow"))));
+    }
+
+    @Test
+    void benchmarkRetriesUnderInjectedFailures() throws Exception {
+        run("GET with 20% 503", 2000, 16, () -> get(Map.of("url", server.url("/flaky"), "retryCount", 5)));
+        System.out.println("  retry stats: " + plugin.execute("stats", Map.of(), PluginContext.create())
+                .getDataAsMap().get("retry"));
+    }
+
+    @Test
+    void benchmarkLargeJsonBody() throws Exception {
+        run("large gzip JSON, text body", 200, 4, () -> get(Map.of("url", server.url("/large"))));
+        run("large gzip JSON, select", 200, 4, () -> get(Map.of("url", server.url("/large"),
+                "select", List.of("$.meta.total", "$.items[*].id"))));
+    }
+
+    @Test
+    void benchmarkMultiFanOut() throws Exception {
+        List<Map<String, Object>> requests = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            requests.add(Map.of("url", server.url("/slow")));
+        }
+        run("multi 100 x 5ms", 50, 1, () -> get(Map.of("requests", requests, "concurrency", 32,
+                "perHostConcurrency", 32), "multi"));
+    }
+
+    private CompletableFuture<PluginResult> get(Map<String, Object> params) {
+        return get(params, "get");
+    }
+
+    private CompletableFuture<PluginResult> get(Map<String, Object> params, String action) {
+        return plugin.executeAsync(action, params, PluginContext.create());
+    }
+
+    /**
+     * 以固定并发执行 count 次，记录每次的耗时
+     */
+    private void run(String name, int count, int concurrency,
+                     Supplier<CompletableFuture<PluginResult>> request) throws Exception {
+        execute(Math.min(WARMUP, count), concurrency, request);
+        long start = System.nanoTime();
+        long[] latencies = execute(count, concurrency, request);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Arrays.sort(latencies);
+        System.out.printf("%-32s %6d req  %4d conc  %10.1f req/s  p50 %7.2f ms  p95 %7.2f ms  p99 %7.2f ms%n",
+                name, count, concurrency, count / seconds,
+                percentile(latencies, 50), percentile(latencies, 95), percentile(latencies, 99));
+    }
+
+    private long[] execute(int count, int concurrency,
+                           Supplier<CompletableFuture<PluginResult>> request) throws Exception {
+        long[] latencies = new long[count];
+        Semaphore permits = new Semaphore(concurrency);
+        List<CompletableFuture<PluginResult>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            permits.acquire();
+            int index = i;
+            long begin = System.nanoTime();
+            futures.add(request.get().whenComplete((result, e) -> {
+                latencies[index] = System.nanoTime() - begin;
+                permits.release();
+            }));
+        }
+        for (CompletableFuture<PluginResult> future : futures) {
+            PluginResult result = future.get(60, TimeUnit.SECONDS);
+            assertTrue(result.isSuccess(), "请求失败: " + result.getError());
+        }
+        return latencies;
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,925 @@
+package io.bolt.plugin.examples;
+
+import com.sun.net.httpserver.HttpServer;
+import io.bolt.plugin.api.PluginConfig;
+import io.bolt.plugin.api.PluginContext;
+import io.bolt.plugin.api.PluginResult;
+import io.bolt.plugin.journal.JournalReader;
+import io.bolt.plugin.journal.JournalRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HttpClientPlugin 本地测试
+ * 使用 JDK 自带的 HttpServer，不依赖外部网络
+ */
+class HttpClientPluginLocalTest {
+
+    private static final String COMPRESSIBLE_TEXT = "{\"items\":[" + "{\"name\":\"测试\",\"value\":1},".repeat(2000) + "{}]}";
+
+    private HttpServer server;
+    private String baseUrl;
+    private HttpClientPlugin plugin;
+
+    @TempDir
+    Path fileRoot;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger flakyCalls = new AtomicInteger();
+    private final AtomicInteger cachedCalls = new AtomicInteger();
+    private final AtomicInteger busyCalls = new AtomicInteger();
+    private final AtomicInteger tailCalls = new AtomicInteger();
+    private final AtomicInteger notModifiedCalls = new AtomicInteger();
+    private final List<HttpClientPlugin> extraPlugins = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/echo", exchange -> {
+            byte[] request = exchange.getRequestBody().readAllBytes();
+            byte[] body = (exchange.getRequestMethod() + " " + new String(request, StandardCharsets.UTF_8))
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("X-Test", "local");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/slow", exchange -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.createContext("/flaky", exchange -> {
+            // 奇数次直接断开连接，偶数次正常响应
+            if (flakyCalls.incrementAndGet() % 2 == 1) {
+                exchange.close();
+                return;
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.createContext("/bytes", exchange -> {
+            // 0..255 循环，Content-Type 决定输出格式
+            int size = Integer.parseInt(exchange.getRequestURI().getQuery());
+            byte[] body = new byte[size];
+            for (int i = 0; i < size; i++) {
+                body[i] = (byte) i;
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/latin1", exchange -> {
+            byte[] body = "第一行\r\n\ncafé".getBytes(StandardCharsets.ISO_8859_1);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=\"ISO-8859-1\"");
+            // 不带 Content-Length，分块传输
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/compressed", exchange -> {
+            // 查询串选择编码：gzip 返回两个拼接的成员，deflate 为 zlib 格式，raw 为裸 deflate
+            String mode = exchange.getRequestURI().getQuery();
+            String accepted = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            byte[] body;
+            if (accepted == null || !accepted.contains(mode.equals("gzip") ? "gzip" : "deflate")) {
+                body = COMPRESSIBLE_TEXT.getBytes(StandardCharsets.UTF_8);
+            } else if (mode.equals("gzip")) {
+                int half = COMPRESSIBLE_TEXT.length() / 2;
+                ByteArrayOutputStream members = new ByteArrayOutputStream();
+                members.write(gzip(COMPRESSIBLE_TEXT.substring(0, half).getBytes(StandardCharsets.UTF_8)));
+                members.write(gzip(COMPRESSIBLE_TEXT.substring(half).getBytes(StandardCharsets.UTF_8)));
+                body = members.toByteArray();
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            } else {
+                Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, mode.equals("raw"));
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                try (DeflaterOutputStream deflate = new DeflaterOutputStream(out, deflater)) {
+                    deflate.write(COMPRESSIBLE_TEXT.getBytes(StandardCharsets.UTF_8));
+                }
+                body = out.toByteArray();
+                exchange.getResponseHeaders().add("Content-Encoding", "deflate");
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/bomb", exchange -> {
+            // 1MB 的 0 压缩后只有 1KB 左右
+            byte[] body = gzip(new byte[1024 * 1024]);
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/inflate", exchange -> {
+            // 返回请求体的编码和解压后的长度
+            InputStream in = exchange.getRequestBody();
+            String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+            if ("gzip".equals(encoding)) {
+                in = new GZIPInputStream(in);
+            }
+            byte[] body = (encoding + " " + in.readAllBytes().length).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/cached", exchange -> {
+            // 查询串选择缓存策略，响应体带上第几次访问
+            String mode = exchange.getRequestURI().getQuery();
+            int call = cachedCalls.incrementAndGet();
+            String etag = "\"" + mode + "\"";
+            switch (mode) {
+                case "fresh":
+                    exchange.getResponseHeaders().add("Cache-Control", "max-age=60");
+                    break;
+                case "etag":
+                    exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+                    exchange.getResponseHeaders().add("ETag", etag);
+                    if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                        notModifiedCalls.incrementAndGet();
+                        exchange.sendResponseHeaders(304, -1);
+                        exchange.close();
+                        return;
+                    }
+                    break;
+                case "swr":
+                    // 每次内容都变
+                    exchange.getResponseHeaders().add("Cache-Control", "max-age=0, stale-while-revalidate=60");
+                    exchange.getResponseHeaders().add("ETag", "\"swr-" + call + "\"");
+                    break;
+                default:
+                    exchange.getResponseHeaders().add("Cache-Control", "no-store");
+                    break;
+            }
+            byte[] body = (mode + " " + call).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/json", exchange -> {
+            byte[] body = ("{\"meta\":{\"total\":3,\"page\":1},\"items\":["
+                    + "{\"id\":1,\"name\":\"a\",\"tags\":[\"x\"]},"
+                    + "{\"id\":2,\"name\":\"b\",\"tags\":[]},"
+                    + "{\"id\":3,\"name\":\"c\",\"tags\":[\"y\",\"z\"]}],"
+                    + "\"trailer\":{\"note\":\"忽略\"}}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/busy", exchange -> {
+            // 第一次要求 1 秒后重试，之后正常响应
+            if (busyCalls.incrementAndGet() == 1) {
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                exchange.sendResponseHeaders(503, -1);
+            } else {
+                exchange.sendResponseHeaders(204, -1);
+            }
+            exchange.close();
+        });
+        server.createContext("/unavailable", exchange -> {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        server.createContext("/tail", exchange -> {
+            // 第一次很慢，模拟长尾副本
+            if (tailCalls.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("maxConnectionsPerHost", 2);
+        properties.put("fileRoot", fileRoot.toString());
+        plugin = new HttpClientPlugin();
+        plugin.initialize(PluginConfig.builder()
+                .pluginId("http-client-plugin")
+                .version("1.0.0")
+                .instanceId("http-local-test-001")
+                .instanceName("Local HTTP Client")
+                .properties(properties)
+                .build(), PluginContext.create());
+    }
+
+    @AfterEach
+    void tearDown() {
+        plugin.destroy();
+        extraPlugins.forEach(HttpClientPlugin::destroy);
+        server.stop(0);
+    }
+
+    /**
+     * 在默认配置上追加属性创建另一个插件实例
+     */
+    private HttpClientPlugin newPlugin(Map<String, Object> extra) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("fileRoot", fileRoot.toString());
+        properties.putAll(extra);
+        HttpClientPlugin instance = new HttpClientPlugin();
+        instance.initialize(PluginConfig.builder()
+                .pluginId("http-client-plugin")
+                .version("1.0.0")
+                .instanceId("http-local-test-" + (extraPlugins.size() + 2))
+                .instanceName("Local HTTP Client")
+                .properties(properties)
+                .build(), PluginContext.create());
+        extraPlugins.add(instance);
+        return instance;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPostFallsBackToHttp11() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("url", baseUrl + "/echo");
+        params.put("body", "你好");
+        params.put("headers", Map.of("Content-Type", "text/plain; charset=utf-8", "Connection", "close"));
+
+        PluginResult result = plugin.execute("post", params, PluginContext.create());
+
+        assertTrue(result.isSuccess(), "请求失败: " + result.getError());
+        Map<String, Object> data = result.getDataAsMap();
+        assertEquals(200, data.get("statusCode"));
+        assertEquals("POST 你好", data.get("body"));
+        // 服务端不支持 h2c 升级，客户端回退到 HTTP/1.1
+        assertEquals("HTTP_1_1", data.get("version"));
+        assertEquals(List.of("local"), ((Map<String, List<String>>) data.get("headers")).get("x-test"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testConcurrentRequestsRespectPerHostLimit() throws Exception {
+        List<CompletableFuture<PluginResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            futures.add(CompletableFuture.supplyAsync(() -> plugin.execute("get",
+                    Map.of("url", baseUrl + "/slow"), PluginContext.create())));
+        }
+        for (CompletableFuture<PluginResult> future : futures) {
+            PluginResult result = future.get(10, TimeUnit.SECONDS);
+            assertTrue(result.isSuccess(), "请求失败: " + result.getError());
+            assertEquals(204, result.getDataAsMap().get("statusCode"));
+        }
+        assertTrue(maxInFlight.get() <= 2, "同一 host 并发超出上限: " + maxInFlight.get());
+
+        Map<String, Object> connections = (Map<String, Object>) plugin
+                .execute("stats", Map.of(), PluginContext.create()).getDataAsMap().get("connections");
+        assertEquals(0, connections.get("active"));
+        assertEquals(6L, connections.get("granted"));
+    }
+
+    @Test
+    void testExecuteAsyncDoesNotBlockCaller() throws Exception {
+        List<CompletableFuture<PluginResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(plugin.executeAsync("get", Map.of("url", baseUrl + "/slow"), PluginContext.create()));
+        }
+        // 服务端每个请求耗时 100ms，且同一 host 最多并发 2 个，提交返回时都还未完成
+        assertTrue(futures.stream().noneMatch(CompletableFuture::isDone));
+
+        for (CompletableFuture<PluginResult> future : futures) {
+            PluginResult result = future.get(10, TimeUnit.SECONDS);
+            assertTrue(result.isSuccess(), "请求失败: " + result.getError());
+            assertNotNull(result.getExecutionTimeMs());
+        }
+        assertTrue(maxInFlight.get() <= 2, "同一 host 并发超出上限: " + maxInFlight.get());
+    }
+
+    @Test
+    void testExecuteAsyncIsJournaled() throws Exception {
+        Path journalDir = fileRoot.resolve("journal");
+        HttpClientPlugin journaled = newPlugin(Map.of("journalEnabled", true, "journalDir", journalDir.toString()));
+
+        PluginResult result = journaled.executeAsync("get", Map.of("url", baseUrl + "/echo"), PluginContext.create())
+                .get(10, TimeUnit.SECONDS);
+        assertTrue(result.isSuccess(), "请求失败: " + result.getError());
+        journaled.destroy();
+
+        List<JournalRecord> records = JournalReader.readAll(journalDir);
+        assertEquals(1, records.size());
+        assertEquals("get", records.get(0).getAction());
+        assertEquals(((Number) result.getMetadata().get("responseBytes")).longValue(),
+                records.get(0).getResultBytes());
+    }
+
+    @Test
+    void testExecuteAsyncRetriesOnTimer() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("url", baseUrl + "/flaky");
+        params.put("body", "{}");
+        params.put("retryCount", 2);
+        params.put("httpVersion", "HTTP_1_1");
+        params.put("headers", Map.of("Idempotency-Key", "order-1"));
+
+        // JDK 客户端会自行重发一次断开的 GET，用 POST 才能观察到插件自己的重试；
+        // 带 Idempotency-Key 的 POST 视为幂等
+        PluginResult result = plugin.executeAsync("post", params, PluginContext.create()).get(10, TimeUnit.SECONDS);
+
+        assertTrue(result.isSuccess(), "请求失败: " + result.getError());
+        assertEquals(2, result.getDataAsMap().get("attempt"));
+        assertEquals(2, flakyCalls.get());
+
+        // 普通 POST 断开后不重试
+        params.remove("headers");
+        PluginResult plain = plugin.executeAsync("post", params, PluginContext.create()).get(10, TimeUnit.SECONDS);
+        assertFalse(plain.isSuccess());
+        assertEquals("HTTP_REQUEST_FAILED", plain.getErrorCode());
+        assertEquals(3, flakyCalls.get());
+    }
+
+    @Test
+    void testRetryAfterIsHonored() {
+        long start = System.nanoTime();
+        PluginResult result = plugin.execute("post", Map.of("url", baseUrl + "/busy", "body", "{}"),
+                PluginContext.create());
+
+        // 503 带 Retry-After 说明请求没有被处理，POST 也可以重试
+        assertTrue(result.isSuccess(), "请求失败: " + result.getError());
+        assertEquals(204, result.getDataAsMap().get("statusCode"));
+        assertEquals(2, result.getDataAsMap().get("attempt"));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 900, "没有按 Retry-After 等待");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRetryBudgetLimitsRetries() {
+        HttpClientPlugin limited = newPlugin(Map.of(
+                "retryBudgetTokens", 1, "retryBudgetRatio", 0, "retryBaseDelayMs", 1));
+        Map<String, Object> params = Map.of("url", baseUrl + "/unavailable", "retryCount", 5);
+
+        PluginResult first = limited.execute("get", params, PluginContext.create());
+        PluginResult second = limited.execute("get", params, PluginContext.create());
+
+        // 预算只够重试一次，之后直接返回 503
+        assertEquals(503, first.getDataAsMap().get("statusCode"));
+        assertEquals(2, first.getDataAsMap().get("attempt"));
+        assertEquals(1, second.getDataAsMap().get("attempt"));
+        Map<String, Object> retry = (Map<String, Object>) limited.execute("stats", Map.of(), PluginContext.create())
+                .getDataAsMap().get("retry");
+        assertEquals(1L, retry.get("retries"));
+        assertEquals(2L, retry.get("budgetExhausted"));
+    }
+
+    @Test
+    void testSlowGetIsHedged() {
+        HttpClientPlugin hedging = newPlugin(Map.of(
+                "hedgeEnabled", true, "hedgeMinSamples", 1, "hedgeMinDelayMs", 10));
+        // 先积累一个耗时样本
+        hedging.execute("get", Map.of("url", baseUrl + "/echo"), PluginContext.create());
+
+        long start = System.nanoTime();
+        PluginResult result = hedging.execute("get", Map.of("url", baseUrl + "/tail"), PluginContext.create());
+
+        assertTrue(result.isSuccess(), "请求失败: " + result.getError());
+        assertEquals(true, result.getDataAsMap().get("hedged"));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1500, "对冲请求没有生效");
+        assertEquals(2, tailCalls.get());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testHedgeDelayIsTrackedPerHost() throws IOException {
+        HttpClientPlugin hedging = newPlugin(Map.of(
+                "hedgeEnabled", true, "hedgeMinSamples", 1, "hedgeMinDelayMs", 10));
+        try (StubHttpServer stub = StubHttpServer.start()) {
+            stub.route("/fast").body("ok");
+            // 其他 host 的耗时样本不影响这个 host
+            hedging.execute("get", Map.of("url", stub.url("/fast")), PluginContext.create());
+
+            PluginResult result = hedging.execute("get", Map.of("url", baseUrl + "/tail"), PluginContext.create());
+
+            assertTrue(result.isSuccess(), "请求失败: " + result.getError());
+            assertNull(result.getDataAsMap().get("hedged"));
+            assertEquals(1, tailCalls.get());
+            Map<String, Object> retry = (Map<String, Object>) hedging.execute("stats", Map.of(), PluginContext.create())
+                    .getDataAsMap().get("retry");
+            assertEquals(2, ((Map<String, Long>) retry.get("hedgeDelayMs")).size());
+        }
+    }
+
+    @Test
+    void testExecuteAsyncReportsMissingParam() throws Exception {
+        PluginResult result = plugin.executeAsync("get", Map.of(), PluginContext.create()).get(1, TimeUnit.SECONDS);
+
+        assertFalse(result.isSuccess());
+        assertEquals("EXECUTION_FAILED", result.getErrorCode());
+    }
+
+    @Test
+    void testBinaryBodyIsByteAccurate() {
+        byte[] expected = new byte[1000];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = (byte) i;
+        }
+
+        PluginResult auto = plugin.execute("get", Map.of("url", baseUrl + "/bytes?1000"), PluginContext.create());
+        assertTrue(auto.isSuccess(), "请求失败: " + auto.getError());
+        assertEquals("base64", auto.getDataAsMap().get("bodyEncoding"));
+        assertArrayEquals(expected, Base64.getDecoder().decode((String) auto.getDataAsMap().get("body")));
+        assertEquals(1000L, auto.getDataAsMap().get("bodySize"));
+
+        PluginResult raw = plugin.execute("get", Map.of("url", baseUrl + "/bytes?1000", "bodyFormat", "bytes"),
+                PluginContext.create());
+        assertArrayEquals(expected, (byte[]) raw.getDataAsMap().get("body"));
+    }
+
+    @Test
+    void testTextBodyUsesDeclaredCharsetAndKeepsNewlines() {
+        PluginResult result = plugin.execute("get", Map.of("url", baseUrl + "/latin1"), PluginContext.create());
+
+        assertTrue(result.isSuccess(), "请求失败: " + result.getError());
+        assertEquals(new String("第一行\r\n\ncafé".getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.ISO_8859_1),
+                result.getDataAsMap().get("body"));
+        assertEquals("ISO-8859-1", result.getDataAsMap().get("charset"));
+        assertEquals("text", result.getDataAsMap().get("bodyEncoding"));
+    }
+
+    @Test
+    void testBodyLimitFailsOrTruncates() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("url", baseUrl + "/bytes?100000");
+        params.put("maxBodySize", 1000);
+
+        PluginResult failed = plugin.execute("get", params, PluginContext.create());
+        assertFalse(failed.isSuccess());
+        assertEquals("BODY_TOO_LARGE", failed.getErrorCode());
+
+        params.put("bodyOverflow", "truncate");
+        params.put("bodyFormat", "bytes");
+        PluginResult truncated = plugin.execute("get", params, PluginContext.create());
+        assertTrue(truncated.isSuccess(), "请求失败: " + truncated.getError());
+        assertEquals(true, truncated.getDataAsMap().get("truncated"));
+        assertEquals(1000, ((byte[]) truncated.getDataAsMap().get("body")).length);
+    }
+
+    @Test
+    void testSaveToStreamsBodyIntoFile() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("url", baseUrl + "/bytes?3000000");
+        params.put("saveTo", "downloads/data.bin");
+        params.put("maxBodySize", 1000);
+
+        PluginResult result = plugin.execute("get", params, PluginContext.create());
+
+        assertTrue(result.isSuccess(), "请求失败: " + result.getError());
+        Map<String, Object> data = result.getDataAsMap();
+        assertEquals("downloads/data.bin", data.get("path"));
+        assertEquals(3000000L, data.get("bodySize"));
+        assertFalse(data.containsKey("body"));
+        byte[] saved = Files.readAllBytes(fileRoot.resolve("downloads/data.bin"));
+        assertEquals(3000000, saved.length);
+        assertEquals((byte) 255, saved[255]);
+
+        PluginResult exists = plugin.execute("get", params, PluginContext.create());
+        assertFalse(exists.isSuccess());
+    }
+
+    @Test
+    void testCompressedResponsesAreDecoded() {
+        for (String mode : List.of("gzip", "deflate", "raw")) {
+            PluginResult result = plugin.execute("get", Map.of("url", baseUrl + "/compressed?" + mode),
+                    PluginContext.create());
+
+            assertTrue(result.isSuccess(), mode + " 请求失败: " + result.getError());
+            assertEquals(COMPRESSIBLE_TEXT, result.getDataAsMap().get("body"), mode);
+            Map<String, Object> metadata = result.getMetadata();
+            assertEquals(mode.equals("gzip") ? "gzip" : "deflate", metadata.get("responseEncoding"));
+            long wireBytes = ((Number) metadata.get("responseWireBytes")).longValue();
+            long bytes = ((Number) metadata.get("responseBytes")).longValue();
+            assertEquals(COMPRESSIBLE_TEXT.getBytes(StandardCharsets.UTF_8).length, bytes);
+            assertTrue(wireBytes * 10 < bytes, mode + " 压缩后 " + wireBytes + " 字节");
+            assertTrue(((Number) metadata.get("responseCompressionRatio")).doubleValue() > 10);
+        }
+
+        PluginResult plain = plugin.execute("get",
+                Map.of("url", baseUrl + "/compressed?gzip", "acceptCompression", false), PluginContext.create());
+        assertEquals(COMPRESSIBLE_TEXT, plain.getDataAsMap().get("body"));
+        assertFalse(plain.getMetadata().containsKey("responseEncoding"));
+    }
+
+    @Test
+    void testDecompressedSizeIsLimited() {
+        PluginResult result = plugin.execute("get", Map.of("url", baseUrl + "/bomb", "maxBodySize", 64 * 1024),
+                PluginContext.create());
+
+        assertFalse(result.isSuccess());
+        assertEquals("BODY_TOO_LARGE", result.getErrorCode());
+    }
+
+    @Test
+    void testLargeRequestBodyIsGzipped() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("url", baseUrl + "/inflate");
+        params.put("body", COMPRESSIBLE_TEXT);
+        params.put("compressRequestThreshold", 1024);
+
+        PluginResult result = plugin.execute("post", params, PluginContext.create());
+
+        assertTrue(result.isSuccess(), "请求失败: " + result.getError());
+        int length = COMPRESSIBLE_TEXT.getBytes(StandardCharsets.UTF_8).length;
+        assertEquals("gzip " + length, result.getDataAsMap().get("body"));
+        assertEquals("gzip", result.getMetadata().get("requestEncoding"));
+        assertEquals((long) length, ((Number) result.getMetadata().get("requestBytes")).longValue());
+        assertTrue(((Number) result.getMetadata().get("requestWireBytes")).longValue() < length / 10);
+
+        params.put("body", "{\"small\":true}");
+        PluginResult small = plugin.execute("post", params, PluginContext.create());
+        assertEquals("null 14", small.getDataAsMap().get("body"));
+    }
+
+    @Test
+    void testInvalidUrlIsRejected() {
+        PluginResult result = plugin.execute("get", Map.of("url", "ftp://example.com/file"), PluginContext.create());
+
+        assertFalse(result.isSuccess());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFreshResponseIsServedFromCache() {
+        HttpClientPlugin cached = newPlugin(Map.of("responseCacheEnabled", true));
+        Map<String, Object> params = Map.of("url", baseUrl + "/cached?fresh");
+
+        PluginResult first = cached.execute("get", params, PluginContext.create());
+        PluginResult second = cached.execute("get", params, PluginContext.create());
+
+        assertTrue(second.isSuccess(), "请求失败: " + second.getError());
+        assertEquals("miss", first.getDataAsMap().get("cache"));
+        assertEquals("hit", second.getDataAsMap().get("cache"));
+        assertEquals("fresh 1", second.getDataAsMap().get("body"));
+        assertEquals(0, second.getDataAsMap().get("attempt"));
+        assertEquals(1, cachedCalls.get());
+
+        // 单次调用可以跳过缓存
+        Map<String, Object> bypass = new HashMap<>(params);
+        bypass.put("cache", false);
+        PluginResult third = cached.execute("get", bypass, PluginContext.create());
+        assertEquals("fresh 2", third.getDataAsMap().get("body"));
+        assertNull(third.getDataAsMap().get("cache"));
+
+        Map<String, Object> stats = (Map<String, Object>) cached.execute("stats", Map.of(), PluginContext.create())
+                .getDataAsMap().get("cache");
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+    }
+
+    @Test
+    void testEtagIsRevalidated() {
+        HttpClientPlugin cached = newPlugin(Map.of("responseCacheEnabled", true));
+        Map<String, Object> params = Map.of("url", baseUrl + "/cached?etag");
+
+        PluginResult first = cached.execute("get", params, PluginContext.create());
+        PluginResult second = cached.execute("get", params, PluginContext.create());
+
+        assertEquals("miss", first.getDataAsMap().get("cache"));
+        assertTrue(second.isSuccess(), "请求失败: " + second.getError());
+        // 服务端返回 304，结果仍是缓存的 200 内容
+        assertEquals("revalidated", second.getDataAsMap().get("cache"));
+        assertEquals(200, second.getDataAsMap().get("statusCode"));
+        assertEquals("etag 1", second.getDataAsMap().get("body"));
+        assertEquals(1, notModifiedCalls.get());
+    }
+
+    @Test
+    void testStaleWhileRevalidateRefreshesInBackground() throws Exception {
+        HttpClientPlugin cached = newPlugin(Map.of("responseCacheEnabled", true));
+        Map<String, Object> params = Map.of("url", baseUrl + "/cached?swr");
+
+        cached.execute("get", params, PluginContext.create());
+        PluginResult stale = cached.execute("get", params, PluginContext.create());
+
+        assertEquals("stale", stale.getDataAsMap().get("cache"));
+        assertEquals("swr 1", stale.getDataAsMap().get("body"));
+
+        // 后台验证拿到新内容后替换缓存
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        String body = null;
+        while (System.nanoTime() < deadline) {
+            body = (String) cached.execute("get", params, PluginContext.create()).getDataAsMap().get("body");
+            if (!"swr 1".equals(body)) {
+                break;
+            }
+            Thread.sleep(20);
+        }
+        assertTrue(body != null && body.startsWith("swr ") && !body.equals("swr 1"), "缓存未更新: " + body);
+    }
+
+    @Test
+    void testNoStoreAndUnsafeMethodsBypassCache() {
+        HttpClientPlugin cached = newPlugin(Map.of("responseCacheEnabled", true));
+
+        cached.execute("get", Map.of("url", baseUrl + "/cached?none"), PluginContext.create());
+        PluginResult again = cached.execute("get", Map.of("url", baseUrl + "/cached?none"), PluginContext.create());
+        assertEquals("miss", again.getDataAsMap().get("cache"));
+        assertEquals("none 2", again.getDataAsMap().get("body"));
+
+        // POST 成功后同一 URI 的缓存失效
+        Map<String, Object> fresh = Map.of("url", baseUrl + "/cached?fresh");
+        cached.execute("get", fresh, PluginContext.create());
+        cached.execute("post", Map.of("url", baseUrl + "/cached?fresh", "body", "x"), PluginContext.create());
+        PluginResult afterPost = cached.execute("get", fresh, PluginContext.create());
+        assertEquals("miss", afterPost.getDataAsMap().get("cache"));
+    }
+
+    @Test
+    void testDiskTierSurvivesNewInstance() throws IOException {
+        Path cacheDir = fileRoot.resolve("http-cache");
+        Map<String, Object> config = Map.of("responseCacheEnabled", true, "responseCacheDir", cacheDir.toString());
+        Map<String, Object> params = Map.of("url", baseUrl + "/cached?fresh");
+
+        HttpClientPlugin writer = newPlugin(config);
+        writer.execute("get", params, PluginContext.create());
+        // 磁盘层在后台写入，销毁时等待写完
+        writer.destroy();
+        try (var files = Files.list(cacheDir)) {
+            assertEquals(1, files.filter(f -> f.toString().endsWith(".entry")).count());
+        }
+
+        PluginResult fromDisk = newPlugin(config).execute("get", params, PluginContext.create());
+        assertEquals("hit", fromDisk.getDataAsMap().get("cache"));
+        assertEquals("fresh 1", fromDisk.getDataAsMap().get("body"));
+        assertEquals(1, cachedCalls.get());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDecodedBodyDropsEncodingHeaders() throws IOException {
+        HttpClientPlugin cached = newPlugin(Map.of("responseCacheEnabled", true));
+        try (StubHttpServer stub = StubHttpServer.start()) {
+            stub.route("/gzip").body(COMPRESSIBLE_TEXT).gzip().header("Cache-Control", "max-age=60");
+            Map<String, Object> params = Map.of("url", stub.url("/gzip"), "httpVersion", "HTTP_1_1");
+
+            for (String expected : List.of("miss", "hit")) {
+                Map<String, Object> data = cached.execute("get", params, PluginContext.create()).getDataAsMap();
+                assertEquals(expected, data.get("cache"));
+                assertEquals(COMPRESSIBLE_TEXT, data.get("body"));
+                // 返回的是解压后的内容，压缩编码和压缩后的长度不再适用
+                Map<String, List<String>> headers = (Map<String, List<String>>) data.get("headers");
+                assertFalse(headers.keySet().stream().anyMatch(name -> name.equalsIgnoreCase("Content-Encoding")));
+                assertFalse(headers.keySet().stream().anyMatch(name -> name.equalsIgnoreCase("Content-Length")));
+            }
+            assertEquals(1, stub.hits("/gzip"));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testMultiRunsConcurrentlyInInputOrder() {
+        HttpClientPlugin fanOut = newPlugin(Map.of());
+        // 预热，排除建连的耗时
+        fanOut.execute("get", Map.of("url", baseUrl + "/echo"), PluginContext.create());
+        List<Map<String, Object>> requests = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            requests.add(i % 2 == 0
+                    ? Map.of("url", baseUrl + "/slow")
+                    // 复用的 keep-alive 连接可能恰好被服务端关闭，带幂等键的 POST 才会重试
+                    : Map.of("method", "POST", "url", baseUrl + "/echo", "body", String.valueOf(i),
+                            "headers", Map.of("Idempotency-Key", "multi-" + i)));
+        }
+
+        long start = System.nanoTime();
+        PluginResult result = fanOut.execute("multi",
+                Map.of("requests", requests, "perHostConcurrency", 3), PluginContext.create());
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(result.isSuccess(), "请求失败: " + result.getError());
+        List<Map<String, Object>> results = (List<Map<String, Object>>) result.getDataAsMap().get("results");
+        assertEquals(16, results.size());
+        for (int i = 0; i < 16; i++) {
+            assertEquals(i, results.get(i).get("index"));
+            assertEquals(true, results.get(i).get("ok"));
+            if (i % 2 == 1) {
+                assertEquals("POST " + i, results.get(i).get("body"));
+            }
+        }
+        assertEquals(16, result.getDataAsMap().get("succeeded"));
+        assertTrue(maxInFlight.get() <= 3, "同一 host 并发超出上限: " + maxInFlight.get());
+        // 8 个慢请求逐个执行至少需要 800ms
+        assertTrue(elapsed < 800, "没有并发执行: " + elapsed + "ms");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testMultiCollectsPerRequestStatus() {
+        List<Map<String, Object>> requests = List.of(
+                Map.of("url", baseUrl + "/echo"),
+                Map.of("url", baseUrl + "/unavailable"),
+                Map.of("method", "GET"));
+
+        PluginResult result = plugin.execute("multi",
+                Map.of("requests", requests, "retryCount", 1), PluginContext.create());
+
+        assertTrue(result.isSuccess(), "请求失败: " + result.getError());
+        List<Map<String, Object>> results = (List<Map<String, Object>>) result.getDataAsMap().get("results");
+        assertEquals(true, results.get(0).get("ok"));
+        // 503 是正常的 HTTP 响应，但不算成功
+        assertEquals(true, results.get(1).get("success"));
+        assertEquals(false, results.get(1).get("ok"));
+        assertEquals(503, results.get(1).get("statusCode"));
+        assertEquals("MISSING_PARAM", results.get(2).get("errorCode"));
+        assertEquals(1, result.getDataAsMap().get("succeeded"));
+        assertEquals(2, result.getDataAsMap().get("failed"));
+    }
+
+    @Test
+    void testMultiFailFastStopsRemainingRequests() {
+        List<Map<String, Object>> requests = List.of(
+                Map.of("url", baseUrl + "/unavailable"),
+                Map.of("url", baseUrl + "/slow"),
+                Map.of("url", baseUrl + "/slow"));
+
+        PluginResult result = plugin.execute("multi", Map.of("requests", requests, "mode", "failFast",
+                "concurrency", 1, "retryCount", 1), PluginContext.create());
+
+        assertFalse(result.isSuccess());
+        assertEquals("MULTI_REQUEST_FAILED", result.getErrorCode());
+        assertEquals(0, result.getMetadata().get("failedIndex"));
+        // 后面的请求没有发出
+        assertEquals(0, maxInFlight.get());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testJsonSelectProjectsPaths() {
+        Map<String, Object> select = new HashMap<>();
+        select.put("total", "$.meta.total");
+        select.put("ids", "$.items[*].id");
+        select.put("first", "items[0].name");
+        select.put("tags", "$.items[*].tags[*]");
+        select.put("missing", "$.nope");
+        PluginResult result = plugin.execute("get",
+                Map.of("url", baseUrl + "/json", "select", select), PluginContext.create());
+
+        assertTrue(result.isSuccess(), "请求失败: " + result.getError());
+        assertEquals("json", result.getDataAsMap().get("bodyEncoding"));
+        Map<String, Object> body = (Map<String, Object>) result.getDataAsMap().get("body");
+        assertEquals(3, ((Number) body.get("total")).intValue());
+        assertEquals(List.of(1, 2, 3), ((List<Number>) body.get("ids")).stream().map(Number::intValue).toList());
+        assertEquals("a", body.get("first"));
+        assertEquals(List.of("x", "y", "z"), body.get("tags"));
+        assertTrue(body.containsKey("missing"));
+        assertNull(body.get("missing"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testJsonSelectStopsEarlyOnCompressedBody() {
+        PluginResult result = plugin.execute("get", Map.of("url", baseUrl + "/compressed?gzip",
+                "select", List.of("$.items[0].name")), PluginContext.create());
+
+        assertTrue(result.isSuccess(), "请求失败: " + result.getError());
+        Map<String, Object> body = (Map<String, Object>) result.getDataAsMap().get("body");
+        assertEquals("测试", body.get("$.items[0].name"));
+        // 找到路径后不再读取剩余内容
+        long bodySize = ((Number) result.getDataAsMap().get("bodySize")).longValue();
+        assertTrue(bodySize < COMPRESSIBLE_TEXT.getBytes(StandardCharsets.UTF_8).length, "读取了全部内容: " + bodySize);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testJsonBodyFormatParsesWholeDocument() {
+        PluginResult result = plugin.execute("get",
+                Map.of("url", baseUrl + "/json", "bodyFormat", "json"), PluginContext.create());
+
+        assertTrue(result.isSuccess(), "请求失败: " + result.getError());
+        Map<String, Object> body = (Map<String, Object>) result.getDataAsMap().get("body");
+        assertEquals(3, ((List<Object>) body.get("items")).size());
+
+        PluginResult invalid = plugin.execute("get",
+                Map.of("url", baseUrl + "/latin1", "bodyFormat", "json"), PluginContext.create());
+        assertFalse(invalid.isSuccess());
+        assertEquals("INVALID_JSON", invalid.getErrorCode());
+    }
+
+    @Test
+    void testMalformedJsonNumberIsInvalidJson() throws IOException {
+        try (StubHttpServer stub = StubHttpServer.start()) {
+            stub.route("/minus").json("{\"value\": -}");
+            stub.route("/range").json("[1-2]");
+            stub.route("/exponent").json("[1e99999999999]");
+
+            for (String path : List.of("/minus", "/range", "/exponent")) {
+                PluginResult result = plugin.execute("get",
+                        Map.of("url", stub.url(path), "bodyFormat", "json"), PluginContext.create());
+                assertFalse(result.isSuccess());
+                assertEquals("INVALID_JSON", result.getErrorCode(), path);
+            }
+        }
+    }
+
+    @Test
+    void testJsonDocumentIsBoundedByDepthAndSize() throws IOException {
+        try (StubHttpServer stub = StubHttpServer.start()) {
+            stub.route("/deep").json("[".repeat(200_000) + "]".repeat(200_000));
+            stub.route("/large").json("[" + "\"x\",".repeat(10_000) + "\"x\"]");
+
+            // 嵌套过深按格式错误返回，不会栈溢出后挂起
+            for (Map<String, Object> params : List.of(
+                    Map.<String, Object>of("url", stub.url("/deep"), "bodyFormat", "json"),
+                    Map.<String, Object>of("url", stub.url("/deep"), "select", "$[0][0]"))) {
+                PluginResult deep = plugin.execute("get", params, PluginContext.create());
+                assertFalse(deep.isSuccess());
+                assertEquals("INVALID_JSON", deep.getErrorCode());
+            }
+
+            // 整个文档读到 maxBodySize 即停止
+            PluginResult tooLarge = plugin.execute("get",
+                    Map.of("url", stub.url("/large"), "bodyFormat", "json", "maxBodySize", 1024), PluginContext.create());
+            assertFalse(tooLarge.isSuccess());
+            assertEquals("BODY_TOO_LARGE", tooLarge.getErrorCode());
+
+            PluginResult truncated = plugin.execute("get", Map.of("url", stub.url("/large"), "bodyFormat", "json",
+                    "maxBodySize", 1024, "bodyOverflow", "truncate"), PluginContext.create());
+            assertTrue(truncated.isSuccess(), "请求失败: " + truncated.getError());
+            assertEquals(true, truncated.getDataAsMap().get("truncated"));
+            assertNull(truncated.getDataAsMap().get("body"));
+        }
+    }
+
+    @Test
+    void testInjectedFailuresAreRetried() throws Exception {
+        HttpClientPlugin retrying = newPlugin(Map.of("retryBaseDelayMs", 1));
+        try (StubHttpServer stub = StubHttpServer.start()) {
+            stub.route("/status").body("ok").failFirst(2, StubHttpServer.Failure.STATUS);
+            stub.route("/truncated").json(COMPRESSIBLE_TEXT).failFirst(1, StubHttpServer.Failure.TRUNCATE);
+            stub.route("/chunked").json(COMPRESSIBLE_TEXT).gzip().chunked().latency(20);
+
+            PluginResult status = retrying.execute("get", Map.of("url", stub.url("/status")), PluginContext.create());
+            assertEquals(200, status.getDataAsMap().get("statusCode"));
+            assertEquals(3, status.getDataAsMap().get("attempt"));
+
+            // 响应体不完整属于网络错误，GET 会重试
+            PluginResult truncated = retrying.execute("get",
+                    Map.of("url", stub.url("/truncated"), "httpVersion", "HTTP_1_1"), PluginContext.create());
+            assertTrue(truncated.isSuccess(), "请求失败: " + truncated.getError());
+            assertEquals(COMPRESSIBLE_TEXT, truncated.getDataAsMap().get("body"));
+            assertEquals(2, stub.hits("/truncated"));
+
+            PluginResult chunked = retrying.execute("get", Map.of("url", stub.url("/chunked")), PluginContext.create());
+            assertEquals(COMPRESSIBLE_TEXT, chunked.getDataAsMap().get("body"));
+            assertEquals("gzip", chunked.getMetadata().get("responseEncoding"));
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,212 @@
+package io.bolt.plugin.examples;
+
+import io.bolt.plugin.api.PluginConfig;
+import io.bolt.plugin.api.PluginContext;
+import io.bolt.plugin.api.node.NodeContext;
+import io.bolt.plugin.api.node.NodeExecutor;
+import io.bolt.plugin.api.node.NodeResult;
+import io.bolt.plugin.journal.JournalReader;
+import io.bolt.plugin.journal.JournalRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ModernDatabasePlugin 测试类
+ * 使用 H2 内存数据库
+ */
+class ModernDatabasePluginTest {
+
+    private static final String HEAVY_SQL =
+            "SELECT COUNT(*) FROM SYSTEM_RANGE(1, 100000) a, SYSTEM_RANGE(1, 100000) b";
+
+    @TempDir
+    Path journalDir;
+
+    private ModernDatabasePlugin plugin;
+
+    @AfterEach
+    void tearDown() {
+        if (plugin != null) {
+            plugin.destroy();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testAsyncQueriesShareBoundedExecutor() throws Exception {
+        plugin = newPlugin(Map.of("maxPoolSize", 2));
+        NodeExecutor query = plugin.getNodeProvider().getNodeExecutor("modern-database-plugin.query");
+        assertTrue(query.supportsAsync());
+
+        List<CompletableFuture<NodeResult>> futures = new ArrayList<>();
+        for (int i = 1; i <= 16; i++) {
+            futures.add(query.executeAsync(new TestNodeContext(30000),
+                    Map.of("sql", "SELECT X FROM SYSTEM_RANGE(1, ?)", "params", List.of(i))));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            NodeResult result = futures.get(i).get(10, TimeUnit.SECONDS);
+            assertTrue(result.isSuccess(), result.getErrorMessage());
+            assertEquals(i + 1, ((Map<String, Object>) result.getData()).get("count"));
+        }
+
+        Map<String, Object> async = (Map<String, Object>) plugin.execute("stats", Map.of(), PluginContext.create())
+                .getDataAsMap().get("async");
+        assertEquals(2, async.get("maxConcurrency"));
+        assertEquals(0, async.get("pending"));
+    }
+
+    @Test
+    void testAsyncRejectsWhenQueueIsFull() throws Exception {
+        plugin = newPlugin(Map.of("asyncMaxConcurrency", 1, "asyncQueueSize", 0));
+        NodeExecutor query = plugin.getNodeProvider().getNodeExecutor("modern-database-plugin.query");
+
+        CompletableFuture<NodeResult> running = query.executeAsync(new TestNodeContext(500), Map.of("sql", HEAVY_SQL));
+        NodeResult rejected = query.executeAsync(new TestNodeContext(500), Map.of("sql", "SELECT 1"))
+                .get(5, TimeUnit.SECONDS);
+
+        assertFalse(rejected.isSuccess());
+        assertEquals("ASYNC_REJECTED", rejected.getErrorCode());
+
+        // 节点超时后语句在数据库端被取消
+        NodeResult timedOut = running.get(10, TimeUnit.SECONDS);
+        assertFalse(timedOut.isSuccess());
+        assertEquals("QUERY_TIMEOUT", timedOut.getErrorCode());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReadYourWritesFallsBackToWorkflowInstanceId() {
+        plugin = newPlugin(Map.of("replicaUrls", "jdbc:h2:mem:modern-db-plugin-replica;DB_CLOSE_DELAY=-1"));
+        PluginContext context = PluginContext.create();
+        context.setWorkflowInstanceId("wf-1");
+        Map<String, Object> query = Map.of("sql", "SELECT COUNT(*) AS total FROM INFORMATION_SCHEMA.TABLES "
+                + "WHERE TABLE_NAME = 'MODERN_ITEMS'");
+
+        assertTrue(plugin.execute("execute", Map.of("sql", "CREATE TABLE modern_items (id INT)"), context).isSuccess());
+        try {
+            // 没有 executionId 时按工作流实例 ID 识别同一次执行，写入后的读落在主库
+            Map<String, Object> data = plugin.execute("query", query, context).getDataAsMap();
+            assertEquals(1, ((Number) ((List<Map<String, Object>>) data.get("rows")).get(0).get("TOTAL")).intValue());
+            data = plugin.execute("query", query, PluginContext.create()).getDataAsMap();
+            assertEquals(0, ((Number) ((List<Map<String, Object>>) data.get("rows")).get(0).get("TOTAL")).intValue());
+        } finally {
+            plugin.execute("execute", Map.of("sql", "DROP TABLE modern_items"), context);
+        }
+    }
+
+    @Test
+    void testAsyncNodesAreJournaled() throws Exception {
+        plugin = newPlugin(Map.of("journalEnabled", true, "journalDir", journalDir.toString()));
+        NodeExecutor query = plugin.getNodeProvider().getNodeExecutor("modern-database-plugin.query");
+
+        NodeResult result = query.executeAsync(new TestNodeContext(30000),
+                Map.of("sql", "SELECT X FROM SYSTEM_RANGE(1, 10)")).get(10, TimeUnit.SECONDS);
+        assertTrue(result.isSuccess(), result.getErrorMessage());
+        result = query.execute(new TestNodeContext(30000), Map.of("sql", "SELECT X FROM SYSTEM_RANGE(1, 5)"));
+        assertTrue(result.isSuccess(), result.getErrorMessage());
+        plugin.destroy();
+        plugin = null;
+
+        // 同步和异步执行各记录一次，节点按动作名记录，结果大小取读取结果集时的估算值
+        List<JournalRecord> records = JournalReader.readAll(journalDir);
+        assertEquals(2, records.size());
+        assertEquals("query", records.get(1).getAction());
+        assertTrue(records.get(1).getResultBytes() > 0);
+        assertEquals("query", records.get(0).getAction());
+        assertEquals("modern-database-plugin.query", records.get(0).getNodeId());
+        assertTrue(records.get(0).isSuccess());
+        assertTrue(records.get(0).getResultBytes() > 0);
+    }
+
+    private static ModernDatabasePlugin newPlugin(Map<String, Object> extra) {
+        ModernDatabasePlugin created = new ModernDatabasePlugin();
+        Map<String, Object> properties = new HashMap<>(extra);
+        properties.put("jdbcUrl", "jdbc:h2:mem:modern-db-plugin-test;DB_CLOSE_DELAY=-1");
+        properties.put("username", "sa");
+        properties.put("password", "");
+        created.initialize(PluginConfig.builder()
+                .pluginId("modern-database-plugin")
+                .version("2.0.0")
+                .instanceId("modern-db-test-001")
+                .instanceName("Modern Database")
+                .properties(properties)
+                .build(), PluginContext.create());
+        return created;
+    }
+
+    /**
+     * 最小的节点上下文：固定超时，从创建时开始计时
+     */
+    private static final class TestNodeContext implements NodeContext {
+
+        private final long timeoutMs;
+        private final long startedAt = System.currentTimeMillis();
+        private final Map<String, Object> variables = new HashMap<>();
+        private volatile boolean cancelled = false;
+
+        private TestNodeContext(long timeoutMs) {
+            this.timeoutMs = timeoutMs;
+        }
+
+        @Override
+        public String getInstanceId() {
+            return "modern-db-test-001";
+        }
+
+        @Override
+        public String getNodeId() {
+            return "modern-database-plugin.query";
+        }
+
+        @Override
+        public String getExecutionId() {
+            return null;
+        }
+
+        @Override
+        public Map<String, Object> getVariables() {
+            return variables;
+        }
+
+        @Override
+        public void setVariable(String name, Object value) {
+            variables.put(name, value);
+        }
+
+        @Override
+        public Object getVariable(String name) {
+            return variables.get(name);
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public long getTimeoutMs() {
+            return timeoutMs;
+        }
+
+        @Override
+        public long getElapsedTimeMs() {
+            return System.currentTimeMillis() - startedAt;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package io.bolt.plugin.examples;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 进程内的 HTTP 桩服务
+ * 基于 JDK 自带的 HttpServer，只监听回环地址，不依赖外部网络。每个路径可以配置状态码、响应体、
+ * 固定延迟、分块传输、gzip 压缩，以及前 N 次或按比例注入的故障（断开连接、返回错误状态码、响应体不完整）。
+ * 故障比例使用固定种子的随机数，多次运行的结果一致
+ */
+final class StubHttpServer implements AutoCloseable {
+
+    /**
+     * 注入的故障类型
+     */
+    enum Failure {
+        /**
+         * 不发送响应直接断开连接
+         */
+        DISCONNECT,
+        /**
+         * 返回 failureStatus（默认 503）
+         */
+        STATUS,
+        /**
+         * 声明完整长度，只发送一半后断开
+         */
+        TRUNCATE
+    }
+
+    static {
+        // 不经 Maven 运行时也关闭 Nagle；HttpServer 首次创建前设置才生效
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private StubHttpServer(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    /**
+     * 在随机端口上启动
+     */
+    static StubHttpServer start() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        ExecutorService executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        StubHttpServer stub = new StubHttpServer(server, executor);
+        server.createContext("/", stub::handle);
+        server.start();
+        return stub;
+    }
+
+    /**
+     * 取得（不存在时创建）路径的配置，默认返回 200 和空响应体
+     */
+    Route route(String path) {
+        return routes.computeIfAbsent(path, p -> new Route());
+    }
+
+    String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    int hits(String path) {
+        Route route = routes.get(path);
+        return route == null ? 0 : route.hits.get();
+    }
+
+    /**
+     * 同时处理中的请求数峰值
+     */
+    int maxInFlight() {
+        return maxInFlight.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            exchange.getRequestBody().readAllBytes();
+            Route route = routes.get(exchange.getRequestURI().getPath());
+            if (route == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            int hit = route.hits.incrementAndGet();
+            if (route.latencyMs > 0) {
+                TimeUnit.MILLISECONDS.sleep(route.latencyMs);
+            }
+            Failure failure = route.failureFor(hit);
+            if (failure == Failure.DISCONNECT) {
+                return;
+            }
+            if (failure == Failure.STATUS) {
+                exchange.sendResponseHeaders(route.failureStatus, -1);
+                return;
+            }
+
+            byte[] body = route.body;
+            exchange.getResponseHeaders().add("Content-Type", route.contentType);
+            route.headers.forEach((name, value) -> exchange.getResponseHeaders().add(name, value));
+            if (route.gzip && accepts(exchange, "gzip")) {
+                body = gzip(body);
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+            if (failure == Failure.TRUNCATE) {
+                exchange.sendResponseHeaders(route.status, body.length);
+                exchange.getResponseBody().write(body, 0, body.length / 2);
+                exchange.getResponseBody().flush();
+                return;
+            }
+            exchange.sendResponseHeaders(route.status, route.chunked ? 0 : (body.length == 0 ? -1 : body.length));
+            try (OutputStream out = exchange.getResponseBody()) {
+                // 分块时分多次写出
+                int step = route.chunked ? Math.max(1, Math.min(8192, body.length / 4)) : Math.max(1, body.length);
+                for (int offset = 0; offset < body.length; offset += step) {
+                    out.write(body, offset, Math.min(step, body.length - offset));
+                    out.flush();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private static boolean accepts(HttpExchange exchange, String encoding) {
+        String accepted = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        return accepted != null && accepted.contains(encoding);
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 单个路径的行为，可在测试过程中修改
+     */
+    static final class Route {
+        private final AtomicInteger hits = new AtomicInteger();
+        private final Map<String, String> headers = new ConcurrentHashMap<>();
+        private final Random random = new Random(42);
+        private volatile int status = 200;
+        private volatile byte[] body = new byte[0];
+        private volatile String contentType = "text/plain; charset=utf-8";
+        private volatile long latencyMs = 0;
+        private volatile boolean chunked = false;
+        private volatile boolean gzip = false;
+        private volatile Failure failure = Failure.STATUS;
+        private volatile int failureStatus = 503;
+        private volatile int failFirst = 0;
+        private volatile double failureRate = 0;
+
+        Route status(int status) {
+            this.status = status;
+            return this;
+        }
+
+        Route body(String body) {
+            this.body = body.getBytes(StandardCharsets.UTF_8);
+            return this;
+        }
+
+        Route body(byte[] body, String contentType) {
+            this.body = body;
+            this.contentType = contentType;
+            return this;
+        }
+
+        Route json(String json) {
+            return body(json.getBytes(StandardCharsets.UTF_8), "application/json");
+        }
+
+        Route header(String name, String value) {
+            headers.put(name, value);
+            return this;
+        }
+
+        Route latency(long millis) {
+            this.latencyMs = millis;
+            return this;
+        }
+
+        /**
+         * 不带 Content-Length，分块传输
+         */
+        Route chunked() {
+            this.chunked = true;
+            return this;
+        }
+
+        /**
+         * 请求声明接受 gzip 时压缩响应体
+         */
+        Route gzip() {
+            this.gzip = true;
+            return this;
+        }
+
+        /**
+         * 前 count 次请求注入故障
+         */
+        Route failFirst(int count, Failure failure) {
+            this.failFirst = count;
+            this.failure = failure;
+            return this;
+        }
+
+        /**
+         * 按比例注入故障
+         */
+        Route failureRate(double rate, Failure failure) {
+            this.failureRate = rate;
+            this.failure = failure;
+            return this;
+        }
+
+        /**
+         * STATUS 故障返回的状态码
+         */
+        Route failureStatus(int status) {
+            this.failureStatus = status;
+            return this;
+        }
+
+        private Failure failureFor(int hit) {
+            if (hit <= failFirst) {
+                return failure;
+            }
+            if (failureRate > 0) {
+                synchronized (random) {
+                    if (random.nextDouble() < failureRate) {
+                        return failure;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+}
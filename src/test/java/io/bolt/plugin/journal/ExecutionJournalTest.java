@@ -0,0 +1,139 @@
+package io.bolt.plugin.journal;
+
+import io.bolt.plugin.api.PluginConfig;
+import io.bolt.plugin.api.PluginContext;
+import io.bolt.plugin.api.PluginException;
+import io.bolt.plugin.examples.EchoPlugin;
+import io.bolt.plugin.util.Json;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ExecutionJournal 测试类
+ */
+class ExecutionJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private EchoPlugin plugin;
+
+    @AfterEach
+    void tearDown() {
+        if (plugin != null) {
+            plugin.destroy();
+        }
+    }
+
+    private EchoPlugin start(Map<String, Object> journalConfig) {
+        Map<String, Object> properties = new HashMap<>(journalConfig);
+        properties.put("journalEnabled", true);
+        properties.put("journalDir", dir.toString());
+        plugin = new EchoPlugin();
+        plugin.initialize(PluginConfig.builder()
+                .pluginId("echo-plugin")
+                .version("1.0.0")
+                .instanceId("journal-test-001")
+                .instanceName("Journal Test")
+                .properties(properties)
+                .build(), PluginContext.create());
+        return plugin;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> journalStats() {
+        return (Map<String, Object>) plugin.execute("info", Map.of(), PluginContext.create())
+                .getDataAsMap().get("journal");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRecordsCallsWithRedactedParams() throws Exception {
+        start(Map.of());
+        PluginContext context = PluginContext.forWorkflowNode("wf-1", "node-1");
+        context.setExecutionId("exec-1");
+        plugin.execute("echo", Map.of("message", "hi", "auth", Map.of("password", "secret", "user", "bob")), context);
+        plugin.execute("missing", Map.of(), PluginContext.create());
+        plugin.execute("ping", Map.of(), PluginContext.create());
+        plugin.destroy();
+        plugin = null;
+
+        List<JournalRecord> records = JournalReader.readAll(dir);
+        // 不支持的动作没有进入处理器，不记录
+        assertEquals(2, records.size());
+        JournalRecord echo = records.get(0);
+        assertEquals("echo", echo.getAction());
+        assertEquals("exec-1", echo.getExecutionId());
+        assertEquals("wf-1", echo.getWorkflowInstanceId());
+        assertEquals("node-1", echo.getNodeId());
+        assertTrue(echo.isSuccess());
+        assertTrue(echo.getDurationNanos() > 0);
+        // EchoPlugin 没有给出结果大小，不为记录日志而遍历结果
+        assertEquals(0, echo.getResultBytes());
+        assertTrue(echo.isRedacted());
+        Map<String, Object> params = (Map<String, Object>) Json.parse(echo.getParamsJson());
+        assertEquals("hi", params.get("message"));
+        assertEquals(Map.of("password", ExecutionJournal.REDACTED, "user", "bob"), params.get("auth"));
+        assertFalse(records.get(1).isRedacted());
+    }
+
+    @Test
+    void testRotatesAndKeepsLatestSegments() throws Exception {
+        start(Map.of("journalSegmentBytes", 4096, "journalMaxSegments", 2, "journalParams", "full"));
+        for (int i = 0; i < 500; i++) {
+            plugin.execute("echo", Map.of("message", "message-" + i), PluginContext.create());
+        }
+
+        List<JournalRecord> records = JournalReader.readAll(dir);
+        assertFalse(records.isEmpty());
+        assertTrue(records.size() < 500, "旧文件应已删除");
+        // 保留的是最近的记录，且顺序不变
+        assertTrue(records.get(records.size() - 1).getParamsJson().contains("message-499"));
+        assertEquals(2, JournalReader.segments(dir).size());
+        assertEquals(2L, journalStats().get("segments"));
+    }
+
+    @Test
+    void testSamplingAndParamsOmitted() throws Exception {
+        start(Map.of("journalSampleRate", 0.5, "journalParams", "none"));
+        for (int i = 0; i < 400; i++) {
+            plugin.execute("ping", Map.of(), PluginContext.create());
+        }
+        // 先读文件再取统计，info 调用本身的记录在统计之后才写入
+        List<JournalRecord> read = JournalReader.readAll(dir);
+        Map<String, Object> stats = journalStats();
+        long records = (Long) stats.get("records");
+        assertEquals(400, records + (Long) stats.get("sampledOut"));
+        assertTrue(records > 120 && records < 280, "采样比例不符: " + records);
+        assertEquals(records, read.size());
+        assertNull(read.get(0).getParamsJson());
+    }
+
+    @Test
+    void testOversizedParamsAreOmitted() throws Exception {
+        start(Map.of("journalParams", "full", "journalMaxParamsBytes", 64));
+        plugin.execute("echo", Map.of("message", "x".repeat(10_000)), PluginContext.create());
+        plugin.execute("echo", Map.of("message", "short"), PluginContext.create());
+        plugin.destroy();
+        plugin = null;
+
+        List<JournalRecord> records = JournalReader.readAll(dir);
+        assertNull(records.get(0).getParamsJson());
+        assertEquals(Map.of("message", "short"), Json.parse(records.get(1).getParamsJson()));
+    }
+
+    @Test
+    void testInvalidConfigFailsInitialization() {
+        PluginException e = assertThrows(PluginException.class, () -> start(Map.of("journalSampleRate", 2)));
+        assertEquals("INIT_FAILED", e.getMessage());
+        plugin = null;
+    }
+}
@@ -0,0 +1,200 @@
+package io.bolt.plugin.tools;
+
+import io.bolt.plugin.api.Plugin;
+import io.bolt.plugin.api.PluginConfig;
+import io.bolt.plugin.api.PluginContext;
+import io.bolt.plugin.api.PluginResult;
+import io.bolt.plugin.journal.JournalReader;
+import io.bolt.plugin.journal.JournalRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LoadGenerator 测试类
+ */
+class LoadGeneratorTest {
+
+    @Test
+    void testHistogramPercentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 100_000; micros++) {
+            histogram.record(micros * 1_000);
+        }
+
+        assertEquals(100_000, histogram.getTotalCount());
+        assertEquals(50_000_000, histogram.getValueAtPercentile(50), 50_000_000 / 100.0);
+        assertEquals(99_000_000, histogram.getValueAtPercentile(99), 99_000_000 / 100.0);
+        assertEquals(100_000_000, histogram.getValueAtPercentile(100));
+        assertEquals(1_000, histogram.getMin());
+        for (long value : new long[]{0, 1, 127, 128, 1_000_003, Long.MAX_VALUE}) {
+            long upper = LatencyHistogram.highestEquivalent(LatencyHistogram.indexOf(value));
+            assertTrue(upper >= value && upper - value <= value / 128, "value " + value + " -> " + upper);
+        }
+    }
+
+    @Test
+    void testParseOptions() {
+        LoadOptions options = LoadOptions.parse(new String[]{"--plugin", "echo-plugin", "--rate", "250",
+                "--mix", "echo:3, ping", "--params", "{\"echo\":{\"message\":\"m-${seq}\"}}", "--async"});
+
+        assertEquals("echo-plugin", options.getPlugin());
+        assertEquals(250, options.getRate());
+        assertEquals(Map.of("echo", 3, "ping", 1), options.getMix());
+        assertTrue(options.isAsync());
+        assertEquals(Map.of("message", "m-7"), LoadGenerator.expand(options.getParams().get("echo"), 7));
+        assertEquals(List.of(7L), LoadGenerator.expand(List.of("${seq}"), 7));
+        assertThrows(IllegalArgumentException.class, () -> LoadOptions.parse(new String[]{"--rate", "10"}));
+        assertThrows(IllegalArgumentException.class,
+                () -> LoadOptions.parse(new String[]{"--plugin", "x", "--rate", "-1"}));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testEchoPluginAtFixedRate() throws Exception {
+        Plugin plugin = LoadGenerator.load("echo-plugin");
+        plugin.initialize(PluginConfig.builder()
+                .pluginId("echo-plugin")
+                .version("1.0.0")
+                .instanceId("load-test-001")
+                .instanceName("Load Test")
+                .properties(Map.of())
+                .build(), PluginContext.create());
+        try {
+            Map<String, Object> report = new LoadGenerator(plugin, new LoadOptions()
+                    .plugin("echo-plugin")
+                    .rate(500)
+                    .warmup(0.2)
+                    .duration(1)
+                    .mix(Map.of("echo", 3, "ping", 1))
+                    .params(Map.of("echo", Map.of("message", "m-${seq}"))))
+                    .run();
+
+            long requests = (Long) report.get("requests");
+            assertTrue(requests >= 495 && requests <= 505, "请求数与速率不符: " + requests);
+            assertEquals(0L, report.get("failed"));
+            assertEquals(0L, report.get("dropped"));
+            Map<String, Object> actions = (Map<String, Object>) report.get("actions");
+            long echo = (Long) ((Map<String, Object>) actions.get("echo")).get("count");
+            assertTrue(echo > requests / 2, "动作比例不符: " + actions);
+        } finally {
+            plugin.destroy();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStallIsChargedToQueuedCalls() throws Exception {
+        // 第 20 次调用卡住 300ms；只有一个并发，之后到达的调用都要排队
+        AtomicInteger calls = new AtomicInteger();
+        Plugin stalling = new StubPlugin() {
+            @Override
+            public PluginResult execute(String action, Map<String, Object> params, PluginContext context) {
+                if (calls.incrementAndGet() == 20) {
+                    sleep(300);
+                }
+                return PluginResult.success(Map.of());
+            }
+        };
+
+        Map<String, Object> report = new LoadGenerator(stalling, new LoadOptions()
+                .plugin("stub")
+                .rate(100)
+                .warmup(0)
+                .duration(1)
+                .concurrency(1))
+                .run();
+
+        Map<String, Object> response = (Map<String, Object>) report.get("responseTime");
+        Map<String, Object> service = (Map<String, Object>) report.get("serviceTime");
+        // 闭环压测只会记下一次 300ms；开环下排在后面的约 30 次调用都包含等待时间
+        assertTrue((Double) response.get("p90") >= 50, "排队时间没有计入响应时间: " + response);
+        assertTrue((Double) service.get("p90") < 50, "服务时间不应包含排队: " + service);
+        assertTrue((Double) service.get("max") >= 300);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReplayJournalCalls(@TempDir Path dir) throws Exception {
+        Plugin recorder = LoadGenerator.start("echo-plugin",
+                Map.of("journalEnabled", true, "journalDir", dir.toString()));
+        try {
+            for (int i = 0; i < 50; i++) {
+                recorder.execute("echo", Map.of("message", "m-" + i, "token", "t-" + i), PluginContext.create());
+            }
+            recorder.execute("ping", Map.of(), PluginContext.create());
+        } finally {
+            recorder.destroy();
+        }
+        List<JournalRecord> records = JournalReader.readAll(dir);
+        assertEquals(51, records.size());
+
+        // 回放时记下收到的参数，脱敏字段按占位值传入
+        Map<String, Object> received = new ConcurrentHashMap<>();
+        Plugin target = new StubPlugin() {
+            @Override
+            public PluginResult execute(String action, Map<String, Object> params, PluginContext context) {
+                received.put(action + ":" + params.getOrDefault("message", ""), params);
+                return PluginResult.success(Map.of());
+            }
+        };
+        Map<String, Object> report = new JournalReplay(target, records, 0, new LoadOptions().plugin("stub")).run();
+
+        assertEquals(51L, report.get("requests"));
+        assertEquals(0L, report.get("failed"));
+        assertEquals(50L, report.get("redacted"));
+        assertEquals(Map.of("message", "m-7", "token", "***"), received.get("echo:m-7"));
+        assertTrue(received.containsKey("ping:"));
+        Map<String, Object> recorded = (Map<String, Object>) report.get("recorded");
+        assertEquals(50L, ((Map<String, Object>) recorded.get("echo")).get("count"));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 只实现压测需要的方法
+     */
+    private abstract static class StubPlugin implements Plugin {
+
+        @Override
+        public String getPluginId() {
+            return "stub";
+        }
+
+        @Override
+        public String getVersion() {
+            return "1.0.0";
+        }
+
+        @Override
+        public String getDescription() {
+            return "stub";
+        }
+
+        @Override
+        public String getAuthor() {
+            return "test";
+        }
+
+        @Override
+        public void initialize(PluginConfig config, PluginContext context) {
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package io.bolt.plugin.util;
+
+import io.bolt.plugin.api.PluginResult;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PluginResultCodec 测试类
+ */
+class PluginResultCodecTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBinaryRoundTrip() throws IOException {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", 42);
+        row.put("negative", Long.MIN_VALUE);
+        row.put("price", new BigDecimal("-12.3400"));
+        row.put("ratio", 0.25);
+        row.put("nan", Double.NaN);
+        row.put("name", "名称 ✓ 😀");
+        row.put("empty", "");
+        row.put("blob", new byte[]{0, -1, 7});
+        row.put("createdAt", Timestamp.valueOf("1969-12-31 23:59:59.123456789"));
+        row.put("day", java.sql.Date.valueOf("2024-02-29"));
+        row.put("at", Time.valueOf("08:30:00"));
+        row.put("missing", null);
+        row.put("flags", new boolean[]{true, false});
+        row.put("scores", new int[]{1, -2, 300});
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("rows", List.of(row, Map.of("id", 43L)));
+        data.put("rowCount", 2);
+        PluginResult result = PluginResult.success(data).withMetadata("cached", true);
+        result.setExecutionTimeMs(17L);
+
+        PluginResult decoded = PluginResultCodec.decode(PluginResultCodec.encode(result));
+
+        assertTrue(decoded.isSuccess());
+        assertEquals(17L, decoded.getExecutionTimeMs());
+        assertEquals(true, decoded.getMetadata().get("cached"));
+        Map<String, Object> decodedData = decoded.getDataAsMap();
+        assertEquals(2L, decodedData.get("rowCount"));
+        Map<String, Object> first = ((List<Map<String, Object>>) decodedData.get("rows")).get(0);
+        assertEquals(row.keySet(), first.keySet());
+        assertEquals(42L, first.get("id"));
+        assertEquals(Long.MIN_VALUE, first.get("negative"));
+        assertEquals(new BigDecimal("-12.3400"), first.get("price"));
+        assertEquals(0.25, first.get("ratio"));
+        assertTrue(((Double) first.get("nan")).isNaN());
+        assertEquals(row.get("name"), first.get("name"));
+        assertEquals("", first.get("empty"));
+        assertArrayEquals(new byte[]{0, -1, 7}, (byte[]) first.get("blob"));
+        assertEquals(row.get("createdAt"), first.get("createdAt"));
+        assertEquals(row.get("day"), first.get("day"));
+        assertEquals(row.get("at"), first.get("at"));
+        assertNull(first.get("missing"));
+        assertEquals(List.of(true, false), first.get("flags"));
+        assertEquals(List.of(1L, -2L, 300L), first.get("scores"));
+    }
+
+    @Test
+    void testFailureRoundTripAndJsonForm() throws IOException {
+        PluginResult failure = PluginResult.failure("TIMEOUT", "请求超时");
+
+        PluginResult decoded = PluginResultCodec.decode(PluginResultCodec.encode(failure));
+
+        assertFalse(decoded.isSuccess());
+        assertEquals("TIMEOUT", decoded.getErrorCode());
+        assertEquals("请求超时", decoded.getError());
+        assertNull(decoded.getData());
+
+        Map<?, ?> json = (Map<?, ?>) Json.parse(PluginResultCodec.toJson(failure));
+        assertEquals(false, json.get("success"));
+        assertEquals("TIMEOUT", json.get("errorCode"));
+        assertFalse(json.containsKey("data"));
+        assertFalse(PluginResultCodec.isBinary(PluginResultCodec.toJson(failure).getBytes(StandardCharsets.UTF_8),
+                0, 1));
+    }
+
+    @Test
+    void testStringEncodingMatchesUtf8() throws IOException {
+        // 不成对的代理字符与 String.getBytes 一样写为 '?'
+        for (String text : new String[]{"ascii", "ü", "中文", "😀x", "a\uD800b", "\uDC00"}) {
+            BinaryWriter writer = new BinaryWriter(16);
+            writer.writeString(text);
+            byte[] expected = text.getBytes(StandardCharsets.UTF_8);
+            byte[] actual = writer.toByteArray();
+            assertEquals(expected.length, actual[0]);
+            assertArrayEquals(expected, Arrays.copyOfRange(actual, 1, actual.length), text);
+            assertEquals(new String(expected, StandardCharsets.UTF_8), new BinaryReader(actual).readString());
+        }
+    }
+
+    @Test
+    void testWriterIsReusable() throws IOException {
+        BinaryWriter writer = new BinaryWriter(16);
+        PluginResult result = PluginResult.success(Map.of("text", "x".repeat(5000)));
+
+        PluginResultCodec.encode(result, writer);
+        byte[] first = writer.toByteArray();
+        int capacity = writer.capacity();
+        writer.reset();
+        PluginResultCodec.encode(result, writer);
+
+        assertArrayEquals(first, writer.toByteArray());
+        assertEquals(capacity, writer.capacity());
+        assertArrayEquals(first, PluginResultCodec.encode(result));
+        // 比 JSON 紧凑：没有引号、逗号和字段名
+        assertTrue(first.length < PluginResultCodec.toJson(result).length());
+    }
+
+    @Test
+    void testRejectsCorruptData() {
+        byte[] bytes = PluginResultCodec.encode(PluginResult.success(Map.of("items", List.of("a", "b"))));
+
+        assertThrows(IOException.class, () -> PluginResultCodec.decode(Arrays.copyOf(bytes, bytes.length - 1)));
+        assertThrows(IOException.class, () -> PluginResultCodec.decode("{\"success\":true}".getBytes(StandardCharsets.UTF_8)));
+        byte[] trailing = Arrays.copyOf(bytes, bytes.length + 1);
+        assertThrows(IOException.class, () -> PluginResultCodec.decode(trailing));
+        byte[] badTag = bytes.clone();
+        badTag[bytes.length - 3] = 99;
+        assertThrows(IOException.class, () -> PluginResultCodec.decode(badTag));
+    }
+
+    @Test
+    void testRejectsCorruptTemporalValues() {
+        // 时间类型的数值越界时同样按数据损坏报 IOException，而不是抛出运行时异常
+        List<byte[]> corrupt = List.of(
+                new BinaryWriter().writeByte(BinaryWriter.TAG_TIMESTAMP).writeVarLong(0)
+                        .writeVarLong(1_000_000_000).toByteArray(),
+                new BinaryWriter().writeByte(BinaryWriter.TAG_TIMESTAMP).writeVarLong(0)
+                        .writeVarLong(-1).toByteArray(),
+                new BinaryWriter().writeByte(BinaryWriter.TAG_TIME).writeVarLong(86_400_000_000_000L).toByteArray(),
+                new BinaryWriter().writeByte(BinaryWriter.TAG_DATE).writeVarLong(Long.MAX_VALUE - 1).toByteArray());
+        for (byte[] bytes : corrupt) {
+            assertThrows(IOException.class, () -> new BinaryReader(bytes).readValue());
+        }
+    }
+}